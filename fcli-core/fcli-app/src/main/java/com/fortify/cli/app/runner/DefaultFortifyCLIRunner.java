@@ -13,24 +13,44 @@
 package com.fortify.cli.app.runner;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import com.fortify.cli.app._main.cli.cmd.FCLIRootCommands;
+import com.fortify.cli.app.runner.util.FortifyCLICommandFactory;
 import com.fortify.cli.app.runner.util.FortifyCLIDefaultValueProvider;
 import com.fortify.cli.app.runner.util.FortifyCLIDynamicInitializer;
 import com.fortify.cli.app.runner.util.FortifyCLIStaticInitializer;
+import com.fortify.cli.common.http.proxy.helper.ProxyDescriptor;
+import com.fortify.cli.common.http.proxy.helper.ProxyHelper;
+import com.fortify.cli.common.http.ssl.truststore.helper.TrustStoreConfigDescriptor;
+import com.fortify.cli.common.http.ssl.truststore.helper.TrustStoreConfigHelper;
+import com.fortify.cli.common.i18n.helper.LanguageDescriptor;
+import com.fortify.cli.common.i18n.helper.LanguageHelper;
 import com.fortify.cli.common.rest.unirest.GenericUnirestFactory;
 import com.fortify.cli.common.variable.FcliVariableHelper;
 
+import kong.unirest.UnirestInstance;
+import lombok.Data;
 import picocli.CommandLine;
 
+/**
+ * Default {@link IFortifyCLIRunner} implementation. A single runner instance may be 
+ * used to execute many fcli invocations; static initialization and {@link UnirestInstance}
+ * connection pools are retained across invocations until the runner is closed, or until 
+ * any of the configuration that these depend on (proxy, trust store, language) has been 
+ * modified, for example by one of the invocations run through this runner.
+ */
 public final class DefaultFortifyCLIRunner implements IFortifyCLIRunner {
     // TODO See https://github.com/remkop/picocli/issues/2066
     //@Getter(value = AccessLevel.PRIVATE, lazy = true)
 	//private final CommandLine commandLine = createCommandLine();
+    private StaticConfig staticConfig;
 	
-	private CommandLine createCommandLine() {
-	    FortifyCLIStaticInitializer.getInstance().initialize();
-	    CommandLine cl = new CommandLine(FCLIRootCommands.class);
+	private CommandLine createCommandLine(String[] args) {
+	    initializeStaticConfig();
+	    // Only load the fcli modules referenced by the given arguments
+	    CommandLine cl = new CommandLine(FCLIRootCommands.class, FortifyCLICommandFactory.forArgs(args));
 	    // Custom parameter exception handler is disabled for now as it causes https://github.com/fortify/fcli/issues/434.
 	    // See comments in I18nParameterExceptionHandler for more detail.
 	    //cl.setParameterExceptionHandler(new I18nParameterExceptionHandler(cl.getParameterExceptionHandler()));
@@ -40,18 +60,27 @@ public final class DefaultFortifyCLIRunner implements IFortifyCLIRunner {
 	
 	@Override
 	public int run(String... args) {
-	    try {
-    	    String[] resolvedArgs = FcliVariableHelper.resolveVariables(args);
-    	    FortifyCLIDynamicInitializer.getInstance().initialize(resolvedArgs);
-    	    //CommandLine cl = getCommandLine(); // TODO See https://github.com/remkop/picocli/issues/2066
-    	    CommandLine cl = createCommandLine();
-    	    cl.clearExecutionResults();
-    	    return cl.execute(resolvedArgs);
-	    } finally {
-	        // TODO For now, this is required to ensure new connections are used for 
-	        // every fcli invocation, as otherwise we may be using older proxy settings
-	        // after proxy has been reconfigured.
-	        GenericUnirestFactory.shutdown();
+	    String[] resolvedArgs = FcliVariableHelper.resolveVariables(args);
+	    FortifyCLIDynamicInitializer.getInstance().initialize(resolvedArgs);
+	    //CommandLine cl = getCommandLine(); // TODO See https://github.com/remkop/picocli/issues/2066
+	    CommandLine cl = createCommandLine(resolvedArgs);
+	    cl.clearExecutionResults();
+	    return cl.execute(resolvedArgs);
+	}
+	
+	/**
+	 * (Re-)run static initialization if this hasn't been done yet, or if any of the 
+	 * configuration that static initialization and {@link UnirestInstance} configuration
+	 * depend on has changed since the previous invocation. In the latter case, any
+	 * existing {@link UnirestInstance} instances are shut down, to have subsequent
+	 * invocations create new connections based on the updated configuration.
+	 */
+	private void initializeStaticConfig() {
+	    StaticConfig currentStaticConfig = StaticConfig.load();
+	    if ( !currentStaticConfig.equals(staticConfig) ) {
+	        if ( staticConfig!=null ) { GenericUnirestFactory.shutdown(); }
+	        FortifyCLIStaticInitializer.getInstance().initialize();
+	        staticConfig = currentStaticConfig;
 	    }
 	}
 	
@@ -62,6 +91,21 @@ public final class DefaultFortifyCLIRunner implements IFortifyCLIRunner {
 	
 	@Override
 	public void close() {
+	    staticConfig = null;
 	    GenericUnirestFactory.shutdown();
 	}
+	
+	@Data
+	private static final class StaticConfig {
+	    private final Set<ProxyDescriptor> proxies;
+	    private final TrustStoreConfigDescriptor trustStoreConfig;
+	    private final LanguageDescriptor language;
+	    
+	    private static final StaticConfig load() {
+	        return new StaticConfig(
+	                ProxyHelper.getProxiesStream().collect(Collectors.toSet()), 
+	                TrustStoreConfigHelper.getTrustStoreConfig(),
+	                LanguageHelper.getConfiguredLanguageDescriptor());
+	    }
+	}
 }
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ */
+package com.fortify.cli.app.runner.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fortify.cli.app._main.cli.cmd.FCLIRootCommands;
+import com.fortify.cli.util._main.cli.cmd.UtilCommands;
+
+import lombok.RequiredArgsConstructor;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.IFactory;
+import picocli.CommandLine.Model.CommandSpec;
+
+/**
+ * picocli {@link IFactory} implementation that allows for only loading the fcli 
+ * modules (direct sub-commands of {@link FCLIRootCommands}) that are referenced 
+ * by the command-line arguments being executed. For any other module, this factory
+ * returns a placeholder {@link CommandSpec} that only defines the module name and
+ * aliases, such that picocli doesn't need to instantiate and reflect on all of the
+ * sub-commands, mixins and resource bundles of that module.
+ * 
+ * The full command tree is loaded if no module is referenced (for example when 
+ * displaying top-level usage help or version information), or if the util module 
+ * is referenced, as this module provides commands like 'all-commands' and 'autocomplete' 
+ * that need access to the full command tree.
+ */
+@RequiredArgsConstructor
+public final class FortifyCLICommandFactory implements IFactory {
+    private static final IFactory DEFAULT_FACTORY = CommandLine.defaultFactory();
+    private static final Set<Class<?>> MODULE_CLASSES = Set.of(FCLIRootCommands.class.getAnnotation(Command.class).subcommands());
+    /** Modules to be loaded, or null to load all modules */
+    private final Set<Class<?>> selectedModuleClasses;
+    
+    /**
+     * Create a {@link FortifyCLICommandFactory} instance that loads all fcli modules
+     * referenced by the given arguments. As we cannot reliably determine which arguments
+     * represent option values without loading the command model, any argument that 
+     * matches a module name or alias is considered to be a module reference, potentially
+     * resulting in some unnecessary modules being loaded.
+     */
+    public static final FortifyCLICommandFactory forArgs(String... args) {
+        Set<String> argsSet = args==null ? Collections.emptySet() : new HashSet<>(Arrays.asList(args));
+        Set<Class<?>> referencedModuleClasses = MODULE_CLASSES.stream()
+                .filter(c->getNames(c).anyMatch(argsSet::contains))
+                .collect(Collectors.toSet());
+        return referencedModuleClasses.isEmpty() || referencedModuleClasses.contains(UtilCommands.class)
+                ? new FortifyCLICommandFactory(null)
+                : new FortifyCLICommandFactory(referencedModuleClasses);
+    }
+    
+    @Override @SuppressWarnings("unchecked")
+    public <K> K create(Class<K> cls) throws Exception {
+        return isPlaceholder(cls) 
+                ? (K)createPlaceholder(cls) 
+                : DEFAULT_FACTORY.create(cls);
+    }
+
+    private boolean isPlaceholder(Class<?> cls) {
+        return selectedModuleClasses!=null 
+                && MODULE_CLASSES.contains(cls) 
+                && !selectedModuleClasses.contains(cls);
+    }
+    
+    private static final CommandSpec createPlaceholder(Class<?> cls) {
+        Command command = cls.getAnnotation(Command.class);
+        return CommandSpec.create()
+                .name(command.name())
+                .aliases(command.aliases());
+    }
+    
+    private static final Stream<String> getNames(Class<?> moduleClass) {
+        Command command = moduleClass.getAnnotation(Command.class);
+        return Stream.concat(Stream.of(command.name()), Stream.of(command.aliases()));
+    }
+}
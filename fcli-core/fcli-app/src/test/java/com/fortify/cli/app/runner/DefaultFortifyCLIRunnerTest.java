@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.app.runner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fortify.cli.common.rest.unirest.GenericUnirestFactory;
+
+import kong.unirest.UnirestInstance;
+
+/**
+ * This test verifies that {@link DefaultFortifyCLIRunner} retains {@link UnirestInstance}
+ * instances across invocations, until an invocation modifies the proxy configuration,
+ * in which case the next invocation must shut down existing instances, such that 
+ * subsequent requests use new instances configured with the updated proxy settings.
+ */
+public class DefaultFortifyCLIRunnerTest {
+    private static final String DATA_DIR_PROPERTY = "fcli.env.FCLI_DATA_DIR";
+    private static final String KEY = "test/runner";
+    @TempDir private Path tempDir;
+    
+    @BeforeEach
+    public void setup() {
+        System.setProperty(DATA_DIR_PROPERTY, tempDir.resolve("fcli").toString());
+    }
+    
+    @AfterEach
+    public void cleanup() {
+        GenericUnirestFactory.shutdown(KEY);
+        System.clearProperty(DATA_DIR_PROPERTY);
+    }
+    
+    @Test
+    public void testUnirestInstanceRecreatedAfterProxyChange() {
+        try ( var runner = new DefaultFortifyCLIRunner() ) {
+            assertEquals(0, run(runner, "config", "proxy", "list"));
+            var first = GenericUnirestFactory.getUnirestInstance(KEY, null);
+            
+            // Static configuration unchanged, so instance is retained
+            assertEquals(0, run(runner, "config", "proxy", "list"));
+            assertSame(first, GenericUnirestFactory.getUnirestInstance(KEY, null));
+            
+            // Proxy configuration is only modified after this invocation has checked
+            // static configuration, so instance is retained for this invocation
+            assertEquals(0, run(runner, "config", "proxy", "add", "localhost:8888", "--name", "test-proxy"));
+            assertSame(first, GenericUnirestFactory.getUnirestInstance(KEY, null));
+            
+            // Next invocation detects modified proxy configuration
+            assertEquals(0, run(runner, "config", "proxy", "list"));
+            assertFalse(GenericUnirestFactory.hasUnirestInstance(KEY));
+            var second = GenericUnirestFactory.getUnirestInstance(KEY, null);
+            assertNotSame(first, second);
+            
+            // Instance for updated configuration is retained for subsequent invocations
+            assertEquals(0, run(runner, "config", "proxy", "list"));
+            assertTrue(GenericUnirestFactory.hasUnirestInstance(KEY));
+            assertSame(second, GenericUnirestFactory.getUnirestInstance(KEY, null));
+        }
+        // Instances are shut down when runner is closed
+        assertFalse(GenericUnirestFactory.hasUnirestInstance(KEY));
+    }
+    
+    private int run(DefaultFortifyCLIRunner runner, String... args) {
+        List<String> argsWithLogFile = new ArrayList<>(List.of(args));
+        argsWithLogFile.add("--log-file");
+        argsWithLogFile.add(tempDir.resolve("fcli.log").toString());
+        return runner.run(argsWithLogFile);
+    }
+}
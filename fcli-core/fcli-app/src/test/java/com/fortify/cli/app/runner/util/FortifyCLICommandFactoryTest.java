@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.app.runner.util;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fortify.cli.app._main.cli.cmd.FCLIRootCommands;
+
+import picocli.CommandLine;
+
+public class FortifyCLICommandFactoryTest {
+    private static final Set<String> ALL_MODULES = Set.of("config", "fod", "sc-dast", "sc-sast", "ssc", "tool", "license", "util");
+    
+    @Test
+    public void testSingleModuleLoaded() throws Exception {
+        assertLoadedModules(Set.of("ssc"), "ssc", "session", "list");
+        assertLoadedModules(Set.of("sc-sast"), "sc-sast", "sensor", "list");
+    }
+    
+    @Test
+    public void testModuleLoadedThroughAlias() throws Exception {
+        assertLoadedModules(Set.of("config"), "cfg", "proxy", "list");
+    }
+    
+    @Test
+    public void testAllModulesLoadedForUtil() throws Exception {
+        assertLoadedModules(ALL_MODULES, "util", "all-commands", "list");
+        assertLoadedModules(ALL_MODULES, "ssc", "session", "list", "--query", "util");
+    }
+    
+    @Test
+    public void testAllModulesLoadedWithoutModuleReference() throws Exception {
+        assertLoadedModules(ALL_MODULES, "-V");
+        assertLoadedModules(ALL_MODULES, "-h");
+        assertLoadedModules(ALL_MODULES);
+        assertLoadedModules(ALL_MODULES, (String[])null);
+    }
+    
+    @Test
+    public void testOptionValueMatchingModuleName() throws Exception {
+        // Option values matching a module name result in that module being loaded as well
+        assertLoadedModules(Set.of("ssc", "fod"), "ssc", "session", "list", "--query", "fod");
+    }
+    
+    @Test
+    public void testPlaceholderModulesRetainNamesAndAliases() throws Exception {
+        var cl = new CommandLine(FCLIRootCommands.class, FortifyCLICommandFactory.forArgs("ssc", "session", "list"));
+        var subcommands = cl.getSubcommands();
+        Assertions.assertTrue(subcommands.keySet().containsAll(ALL_MODULES));
+        Assertions.assertTrue(subcommands.containsKey("cfg"));
+        Assertions.assertEquals("config", subcommands.get("cfg").getCommandName());
+    }
+    
+    @Test
+    public void testParseWithPartialCommandTree() throws Exception {
+        var cl = new CommandLine(FCLIRootCommands.class, FortifyCLICommandFactory.forArgs("cfg", "proxy", "list"));
+        var parseResult = cl.parseArgs("cfg", "proxy", "list");
+        Assertions.assertEquals("list", parseResult.subcommand().subcommand().subcommand().commandSpec().name());
+    }
+    
+    private static final void assertLoadedModules(Set<String> expectedModules, String... args) {
+        var cl = new CommandLine(FCLIRootCommands.class, FortifyCLICommandFactory.forArgs(args));
+        // Placeholder modules don't define any sub-commands. Note that aliases
+        // map to the same CommandLine instance, so we collect command names.
+        var loadedModules = cl.getSubcommands().values().stream()
+                .filter(c->!c.getSubcommands().isEmpty())
+                .map(CommandLine::getCommandName)
+                .collect(Collectors.toCollection(TreeSet::new));
+        Assertions.assertEquals(new TreeSet<>(expectedModules), loadedModules);
+    }
+}
@@ -13,11 +13,14 @@
 package com.fortify.cli.common.output;
 
 import com.fortify.cli.common.output.writer.record.IRecordWriterFactory;
+import com.fortify.cli.common.output.writer.record.binary.BinaryRecordWriter.BinaryType;
+import com.fortify.cli.common.output.writer.record.binary.BinaryRecordWriterFactory;
 import com.fortify.cli.common.output.writer.record.csv.CsvRecordWriter.CsvType;
 import com.fortify.cli.common.output.writer.record.csv.CsvRecordWriterFactory;
 import com.fortify.cli.common.output.writer.record.expr.ExprRecordWriterFactory;
 import com.fortify.cli.common.output.writer.record.json.JsonRecordWriterFactory;
 import com.fortify.cli.common.output.writer.record.json_properties.JsonPropertiesRecordWriterFactory;
+import com.fortify.cli.common.output.writer.record.ndjson.NdJsonRecordWriterFactory;
 import com.fortify.cli.common.output.writer.record.table.TableRecordWriter.TableType;
 import com.fortify.cli.common.output.writer.record.table.TableRecordWriterFactory;
 import com.fortify.cli.common.output.writer.record.tree.TreeRecordWriterFactory;
@@ -34,14 +37,20 @@ import lombok.RequiredArgsConstructor;
 public enum OutputFormat {
     // These entries should be in alphabetical order, except for expr & json_properties as
     // these are 'special' formats.
+    cbor            (OutputStructure.TREE, "json",  new BinaryRecordWriterFactory(BinaryType.CBOR)),
     csv             (OutputStructure.FLAT, "csv",   new CsvRecordWriterFactory(CsvType.HEADERS)),
     csv_plain       (OutputStructure.FLAT, "csv",   new CsvRecordWriterFactory(CsvType.NO_HEADERS)),
     json            (OutputStructure.TREE, "json",  new JsonRecordWriterFactory()), 
     json_flat       (OutputStructure.FLAT, "json",  new JsonRecordWriterFactory()),
+    ndjson          (OutputStructure.TREE, "json",  new NdJsonRecordWriterFactory()),
+    ndjson_flat     (OutputStructure.FLAT, "json",  new NdJsonRecordWriterFactory()),
+    smile           (OutputStructure.TREE, "json",  new BinaryRecordWriterFactory(BinaryType.SMILE)),
     table           (OutputStructure.FLAT, "table", new TableRecordWriterFactory(TableType.HEADERS)), 
     table_plain     (OutputStructure.FLAT, "table", new TableRecordWriterFactory(TableType.NO_HEADERS)),
     tree            (OutputStructure.TREE, "tree",  new TreeRecordWriterFactory()), 
     tree_flat       (OutputStructure.FLAT, "tree",  new TreeRecordWriterFactory()),
+    tsv             (OutputStructure.FLAT, "csv",   new CsvRecordWriterFactory(CsvType.HEADERS, '\t')),
+    tsv_plain       (OutputStructure.FLAT, "csv",   new CsvRecordWriterFactory(CsvType.NO_HEADERS, '\t')),
     xml             (OutputStructure.TREE, "xml",   new XmlRecordWriterFactory()), 
     xml_flat        (OutputStructure.FLAT, "xml",   new XmlRecordWriterFactory()),
     yaml            (OutputStructure.TREE, "yaml",  new YamlRecordWriterFactory()), 
@@ -59,7 +59,7 @@ public abstract class AbstractOutputHelperMixin implements IOutputHelper {
      * Write output based on the given {@link HttpRequest}.
      * This method updates the given base {@link HttpRequest} by calling the 
      * {@link #updateRequest(HttpRequest)} method, and retrieves a next page 
-     * producer by calling the {@link #getNextPageUrlProducer(HttpRequest)} 
+     * producer by calling the {@link #getNextPageRequestProducer()} 
      * method. The (potentially) updated request and next page producer are then passed to
      * the {@link IOutputWriter} created by the {@link #createOutputWriter()} method, which
      * in turn will execute the request, handling paging if necessary, and write the response
@@ -69,11 +69,11 @@ public abstract class AbstractOutputHelperMixin implements IOutputHelper {
     public final void write(HttpRequest<?> baseRequest) {
         HttpRequest<?> request = updateRequest(baseRequest);
         INextPageRequestProducer nextPageRequestProducer = getNextPageRequestProducer();
-        if ( nextPageRequestProducer!=null ) {
-            createOutputWriter().write(request, nextPageRequestProducer);
-        } else {
-            createOutputWriter().write(request, getNextPageUrlProducer());
+        if ( nextPageRequestProducer==null && getNextPageUrlProducer()!=null ) {
+            // Next page requests can only be produced if a UnirestInstance is available
+            throw new IllegalStateException("Paged requests require command to implement "+IUnirestInstanceSupplier.class.getSimpleName());
         }
+        createOutputWriter().write(request, nextPageRequestProducer);
     }
 
     /**
@@ -12,6 +12,8 @@
  *******************************************************************************/
 package com.fortify.cli.common.output.transform.flatten;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -27,84 +29,138 @@ import com.fortify.cli.common.util.StringUtils;
 
 import lombok.RequiredArgsConstructor;
 
+/**
+ * This transformer flattens nested objects (and optionally nested arrays) into
+ * a single-level {@link ObjectNode}. As records in a single output usually share
+ * the same structure, flattened and formatted field names are computed only once
+ * for every distinct input path, and reused for all subsequent records. As such, 
+ * instances should be reused for all records in a single output, but shouldn't 
+ * be shared between unrelated outputs to avoid accumulating unrelated paths.
+ * To limit memory usage for records with dynamic keys, like maps keyed by id,
+ * at most {@value #MAX_CACHED_PATHS} paths are cached; paths encountered after 
+ * this limit has been reached are computed for every record.
+ */
 public class FlattenTransformer extends AbstractJsonNodeTransformer {
+    static final int MAX_CACHED_PATHS = 10000;
     private final Function<String, String> fieldNameFormatter;
     private final String separator;
     private final boolean flattenNestedArrays;
+    private final FlattenPath rootPath;
+    private final AtomicInteger cachedPathCount = new AtomicInteger();
 
     public FlattenTransformer(Function<String, String> fieldNameFormatter, String separator, boolean flattenNestedArrays) {
         super(false);
         this.fieldNameFormatter = fieldNameFormatter;
         this.separator = separator;
         this.flattenNestedArrays = flattenNestedArrays;
+        this.rootPath = new FlattenPath("");
     }
 
     @Override
     public ObjectNode transformObjectNode(ObjectNode input) {
-        return new ObjectNodeFlattener(input, fieldNameFormatter, separator, flattenNestedArrays).flatten();
+        return new ObjectNodeFlattener(input).flatten();
+    }
+    
+    int getCachedPathCount() {
+        return cachedPathCount.get();
+    }
+    
+    /**
+     * Cached information about a single input path; holds the flattened
+     * property name, the lazily computed formatted field name, and the
+     * child paths that have been encountered so far. 
+     */
+    private final class FlattenPath {
+        private final String prefix;
+        private final Map<Object, FlattenPath> children = new ConcurrentHashMap<>();
+        private volatile String fieldName;
+        
+        private FlattenPath(String prefix) {
+            this.prefix = prefix;
+        }
+        
+        private FlattenPath child(String key) {
+            return child(key, key);
+        }
+        
+        private FlattenPath child(int index) {
+            return child(index, String.valueOf(index));
+        }
+        
+        private FlattenPath child(Object key, String keyString) {
+            var result = children.get(key);
+            if ( result==null ) {
+                result = new FlattenPath(getPrefix(keyString));
+                // Concurrent transformations may slightly exceed the maximum, which is fine
+                if ( cachedPathCount.get()<MAX_CACHED_PATHS ) {
+                    var existing = children.putIfAbsent(key, result);
+                    if ( existing!=null ) { return existing; }
+                    cachedPathCount.incrementAndGet();
+                }
+            }
+            return result;
+        }
+        
+        private String getFieldName() {
+            var result = fieldName;
+            if ( result==null ) {
+                result = fieldNameFormatter.apply(prefix);
+                fieldName = result;
+            }
+            return result;
+        }
+        
+        private String getPrefix(String key) {
+            return StringUtils.isBlank(prefix) 
+                    ? key
+                    : (prefix + separator + key);
+        }
     }
 
     @RequiredArgsConstructor
     private final class ObjectNodeFlattener {
         private final ObjectNode root;
-        private final Function<String, String> fieldNameFormatter;
-        private final String separator;
-        private final boolean flattenNestedArrays;
         private ObjectNode result = null;
 
         public ObjectNode flatten() {
             if (result == null) {
                 result = new ObjectNode(JsonNodeFactory.instance);
-                flatten(root, "");
+                flatten(root, rootPath);
             }
             return result;
         }
 
-        private void flatten(JsonNode node, String prefix) {
+        private void flatten(JsonNode node, FlattenPath path) {
             if (node.isObject()) {
                 ObjectNode object = (ObjectNode) node;
                 object.fields().forEachRemaining(entry -> {
-                    flatten(entry.getValue(), getPrefix(prefix, entry.getKey()));
+                    flatten(entry.getValue(), path.child(entry.getKey()));
                 });
             } else if (node.isArray()) {
                 ArrayNode array = (ArrayNode) node;
                 JsonNodeType nodeType = array==null || array.isEmpty() ? null : array.get(0).getNodeType();
                 if ( nodeType!=null ) {
                     switch (nodeType) {
-                    case ARRAY: case OBJECT: case POJO: flattenNestedArray(array, prefix); break;
-                    case STRING: case NUMBER: result.put(fieldNameFormatter.apply(prefix), toConcatenatedString(array)); break;
+                    case ARRAY: case OBJECT: case POJO: flattenNestedArray(array, path); break;
+                    case STRING: case NUMBER: result.put(path.getFieldName(), toConcatenatedString(array)); break;
                     default: // TODO Ignore all others?
                     }
                 }
             } else {
-                result.set(fieldNameFormatter.apply(prefix), node);
+                result.set(path.getFieldName(), node);
             }
         }
         
-        private void flattenNestedArray(ArrayNode array, String prefix) {
+        private void flattenNestedArray(ArrayNode array, FlattenPath path) {
             if ( flattenNestedArrays ) {
-                AtomicInteger counter = new AtomicInteger();
-                array.elements().forEachRemaining(item -> {
-                    flatten(item, getPrefix(prefix, counter.getAndIncrement()));
-                });
+                for ( int i=0; i<array.size(); i++ ) {
+                    flatten(array.get(i), path.child(i));
+                }
             }
         }
         
         private String toConcatenatedString(ArrayNode array) {
-            return JsonHelper.stream(array).map(JsonNode::textValue).collect(Collectors.joining(", "));
-        }
-
-        private String getPrefix(String prefix, String key) {
-            return StringUtils.isBlank(prefix) 
-                    ? key
-                    : (prefix + separator + key);
+            return JsonHelper.stream(array).map(JsonNode::asText).collect(Collectors.joining(", "));
         }
-        
-        private String getPrefix(String prefix, int count) {
-            return StringUtils.isBlank(prefix) 
-                    ? String.valueOf(count)
-                    : (prefix + separator + count);
-        }
-
     }
 }
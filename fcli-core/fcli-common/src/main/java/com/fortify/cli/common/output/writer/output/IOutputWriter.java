@@ -14,7 +14,6 @@ package com.fortify.cli.common.output.writer.output;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fortify.cli.common.rest.paging.INextPageRequestProducer;
-import com.fortify.cli.common.rest.paging.INextPageUrlProducer;
 
 import kong.unirest.HttpRequest;
 import kong.unirest.HttpResponse;
@@ -26,8 +25,6 @@ public interface IOutputWriter {
     void write(HttpRequest<?> httpRequest);
 
     void write(HttpRequest<?> request, INextPageRequestProducer nextPageRequestProducer);
-    
-    void write(HttpRequest<?> httpRequest, INextPageUrlProducer nextPageUrlProducer);
 
     void write(HttpResponse<JsonNode> httpResponse);
 
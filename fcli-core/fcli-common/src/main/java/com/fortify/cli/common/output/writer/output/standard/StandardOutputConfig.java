@@ -69,8 +69,12 @@ public class StandardOutputConfig {
     }
     
     private final JsonNode applyTransformations(List<BiFunction<OutputFormat, JsonNode, JsonNode>> transformations, OutputFormat outputFormat, JsonNode input) {
-        return transformations.stream()
-                .reduce(input, (o, t) -> t.apply(outputFormat, o), (m1, m2) -> m2);
+        // Plain loop rather than stream reduce, as this is invoked for every record 
+        JsonNode result = input;
+        for ( var transformation : transformations ) {
+            result = transformation.apply(outputFormat, result);
+        }
+        return result;
     }
     
     public static final StandardOutputConfig csv() {
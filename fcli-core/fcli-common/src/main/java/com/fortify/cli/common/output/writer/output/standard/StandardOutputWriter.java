@@ -12,18 +12,21 @@
  *******************************************************************************/
 package com.fortify.cli.common.output.writer.output.standard;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.util.zip.GZIPOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fortify.cli.common.output.OutputFormat;
@@ -38,7 +41,6 @@ import com.fortify.cli.common.output.writer.record.IRecordWriterFactory;
 import com.fortify.cli.common.output.writer.record.RecordWriterConfig;
 import com.fortify.cli.common.output.writer.record.RecordWriterConfig.RecordWriterConfigBuilder;
 import com.fortify.cli.common.rest.paging.INextPageRequestProducer;
-import com.fortify.cli.common.rest.paging.INextPageUrlProducer;
 import com.fortify.cli.common.rest.paging.PagingHelper;
 import com.fortify.cli.common.rest.unirest.IfFailureHandler;
 import com.fortify.cli.common.util.PicocliSpecHelper;
@@ -51,7 +53,6 @@ import kong.unirest.HttpResponse;
 import lombok.Builder;
 import lombok.Data;
 import lombok.Getter;
-import lombok.SneakyThrows;
 import picocli.CommandLine.Model.CommandSpec;
 
 public class StandardOutputWriter implements IOutputWriter {
@@ -92,22 +93,6 @@ public class StandardOutputWriter implements IOutputWriter {
         }
     }
     
-    /**
-     * Write the output of the given, potentially paged {@link HttpRequest}, to the 
-     * configured output(s), invoking the given {@link INextPageUrlProducer} to retrieve 
-     * all pages
-     */
-    @Override
-    public void write(HttpRequest<?> httpRequest, INextPageUrlProducer nextPageUrlProducer) {
-        try ( IRecordWriter recordWriter = new OutputAndVariableRecordWriter() ) {
-            if ( nextPageUrlProducer==null ) {
-                writeRecords(recordWriter, httpRequest);
-            } else {
-                writeRecords(recordWriter, httpRequest, nextPageUrlProducer);
-            }
-        }
-    }
-    
     /**
      * Write the output of the given, potentially paged {@link HttpRequest}, to the 
      * configured output(s), invoking the given {@link INextPageRequestProducer} to retrieve 
@@ -146,35 +131,18 @@ public class StandardOutputWriter implements IOutputWriter {
             .ifFailure(IfFailureHandler::handle); // Just in case no error interceptor was registered for this request
     }
     
-    /**
-     * Write records returned by the given, potentially paged {@link HttpRequest}
-     * to the given {@link IRecordWriter}, invoking the given {@link INextPageUrlProducer} 
-     * to retrieve all pages
-     * @param recordWriter
-     * @param httpRequest
-     * @param nextPageUrlProducer
-     */
-    private final void writeRecords(IRecordWriter recordWriter, HttpRequest<?> httpRequest, INextPageUrlProducer nextPageUrlProducer) {
-        PagingHelper.pagedRequest(httpRequest, nextPageUrlProducer)
-            .ifSuccess(r->writeRecords(recordWriter, r))
-            .ifFailure(IfFailureHandler::handle); // Just in case no error interceptor was registered for this request
-    }
-    
     /**
      * Write records returned by the given, potentially paged {@link HttpRequest}
      * to the given {@link IRecordWriter}, invoking the given {@link INextPageRequestProducer} 
-     * to retrieve all pages
+     * to retrieve all pages. Pages are loaded through {@link PagingHelper#processPages(HttpRequest, INextPageRequestProducer, java.util.function.Consumer)},
+     * which loads the next page(s) in the background while the current page is being
+     * transformed and written.
      * @param recordWriter
      * @param httpRequest
      * @param nextPageRequestProducer
      */
     private final void writeRecords(IRecordWriter recordWriter, HttpRequest<?> originalRequest, INextPageRequestProducer nextPageRequestProducer) {
-        var currentRequest = originalRequest;
-        while ( currentRequest!=null ) {
-            HttpResponse<JsonNode> response = currentRequest.asObject(JsonNode.class);
-            writeRecords(recordWriter, response); 
-            currentRequest = nextPageRequestProducer.getNextPageRequest(originalRequest, response);
-        }
+        PagingHelper.processPages(originalRequest, nextPageRequestProducer, r->writeRecords(recordWriter, r));
     }
 
     /**
@@ -207,6 +175,8 @@ public class StandardOutputWriter implements IOutputWriter {
             } else {
                 throw new IllegalStateException("Unsupported node type: "+jsonNode.getNodeType());
             }
+            // Allow record writers to flush output after every page
+            recordWriter.flush();
         }
     }
 
@@ -214,12 +184,11 @@ public class StandardOutputWriter implements IOutputWriter {
      * Transform the given {@link JsonNode} using the configured record transformers and filters, 
      * then write the transformed record to the given {@link IRecordWriter}. If the transformed 
      * record is null or an empty array, nothing will be written. If the transformed record is a 
-     * non-empty array, the first array entry will be written. Otherwise, the transformed record
-     * will be written as-is.
+     * non-empty array, the first array entry will be written as-is, without copying. Otherwise, 
+     * the transformed record will be written as-is.
      * @param recordWriter
      * @param record
      */
-    @SneakyThrows // TODO Do we want to use SneakyThrows?
     private final void writeRecord(IRecordWriter recordWriter, JsonNode record) {
         // TODO Add null checks in case any input or record transformation returns null?
         record = record==null ? null : outputConfig.applyRecordTransformations(outputFormat, record);
@@ -227,7 +196,7 @@ public class StandardOutputWriter implements IOutputWriter {
         if ( record!=null ) {
             JsonNodeType nodeType = record.getNodeType();
             switch ( nodeType ) {
-            case ARRAY: if(record.size()>0) recordWriter.writeRecord((ObjectNode) new ObjectMapper().readTree(record.get(0).toString())); break;
+            case ARRAY: if(record.size()>0) recordWriter.writeRecord((ObjectNode)record.get(0)); break;
             case OBJECT: recordWriter.writeRecord((ObjectNode) record); break;
             case NULL: case MISSING: break;
             default: throw new RuntimeException("Invalid node type: "+nodeType);
@@ -305,6 +274,15 @@ public class StandardOutputWriter implements IOutputWriter {
             }
         }
         
+        /**
+         * Flush our {@link OutputRecordWriter} instance; there's no need
+         * to flush our {@link VariableRecordWriter} instance.
+         */
+        @Override
+        public void flush() {
+            ouputRecordWriter.flush();
+        }
+        
         /**
          * Close our {@link OutputRecordWriter} instance, and our {@link VariableRecordWriter}
          * instance if it is enabled
@@ -334,6 +312,15 @@ public class StandardOutputWriter implements IOutputWriter {
             getWrappedRecordWriter().writeRecord(record);
         }
         
+        /**
+         * Get the wrapped {@link IRecordWriter} instance from our subclass,
+         * and flush it.
+         */
+        @Override
+        public final void flush() {
+            getWrappedRecordWriter().flush();
+        }
+        
         /**
          * Get the wrapped {@link IRecordWriter} and close it, then call the
          * {@link #closeOutput()} method to allow any underlying resources to
@@ -391,15 +378,17 @@ public class StandardOutputWriter implements IOutputWriter {
      *
      */
     private final class OutputRecordWriter extends AbstractRecordWriterWrapper {
+        private final OutputStream outputStream;
         private final Writer writer;
         @Getter private final IRecordWriter wrappedRecordWriter;
         
         /**
          * This constructor creates the wrapped {@link IRecordWriter} and its 
-         * underlying {@link Writer}.
+         * underlying {@link OutputStream} and {@link Writer}.
          */
         public OutputRecordWriter() {
-            this.writer = createWriter();
+            this.outputStream = createOutputStream();
+            this.writer = createWriter(outputStream);
             this.wrappedRecordWriter = getRecordWriterFactory().createRecordWriter(createRecordWriterConfig());
         }
         
@@ -409,10 +398,13 @@ public class StandardOutputWriter implements IOutputWriter {
         @Override
         protected void closeOutput() {
             try {
-                writer.write("\n\n");
+                if ( !getRecordWriterFactory().isRecordStream() ) {
+                    writer.write("\n\n");
+                }
                 writer.flush();
+                outputStream.flush();
                 // Close output when writing to file; we don't want to close System.out
-                if ( writer instanceof BufferedWriter ) {
+                if ( outputStream!=System.out ) {
                     writer.close();
                 }
             } catch (IOException e) {
@@ -430,6 +422,7 @@ public class StandardOutputWriter implements IOutputWriter {
                     : outputOptions.getOutputFormatConfig().getOptions();
             return createRecordWriterConfigBuilder()
                     .writer(writer)
+                    .outputStream(outputStream)
                     .options(options)
                     .outputFormat(outputFormat)
                     .build();
@@ -445,21 +438,38 @@ public class StandardOutputWriter implements IOutputWriter {
         }
         
         /**
-         * Create the underlying writer; either a {@link PrintWriter} instance
-         * that wraps {@link System#out}, or a {@link BufferedWriter} when file
-         * output is enabled
+         * Create the underlying output stream; either {@link System#out}, or
+         * a buffered {@link FileOutputStream} when file output is enabled. If 
+         * the output file name ends with '.gz', output will be gzip-compressed 
+         * while being written.
          * @return
          */
-        private Writer createWriter() {
+        private OutputStream createOutputStream() {
             File outputFile = outputOptions.getOutputFile();
             try {
-                return outputFile == null
-                        ? new PrintWriter(System.out)
-                        : new BufferedWriter(new FileWriter(outputFile, false));
+                if ( outputFile == null ) {
+                    return System.out;
+                } else if ( outputFile.getName().toLowerCase().endsWith(".gz") ) {
+                    return new GZIPOutputStream(new FileOutputStream(outputFile, false), 65536);
+                } else {
+                    return new BufferedOutputStream(new FileOutputStream(outputFile, false), 65536);
+                }
             } catch ( IOException e) {
                 throw new IllegalArgumentException("Output file "+outputFile+" cannot be accessed");
             }
         }
+        
+        /**
+         * Create the underlying writer for the given output stream; either a 
+         * {@link PrintWriter} instance that wraps {@link System#out}, or a 
+         * {@link BufferedWriter} when file output is enabled.
+         * @return
+         */
+        private Writer createWriter(OutputStream outputStream) {
+            return outputStream == System.out
+                    ? new PrintWriter(System.out)
+                    : new BufferedWriter(new OutputStreamWriter(outputStream));
+        }
     }
     
     /**
@@ -13,11 +13,14 @@
 package com.fortify.cli.common.output.writer.record;
 
 import java.io.Writer;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.fortify.cli.common.json.JsonHelper;
@@ -27,15 +30,21 @@ import com.fortify.cli.common.output.transform.PropertyPathFormatter;
 import com.fortify.cli.common.output.transform.flatten.FlattenTransformer;
 import com.fortify.cli.common.util.StringUtils;
 
+import lombok.Getter;
+
 public abstract class AbstractFormattedRecordWriter extends AbstractRecordWriter {
     private static final JsonNode NA_NODE = new TextNode("N/A");
     
-    private final List<String> fieldPaths;
+    private final List<FieldPath> fieldPaths;
+    private final FlattenTransformer flattenTransformer;
     
     public AbstractFormattedRecordWriter(RecordWriterConfig config) {
         super(config);
         String options = config.getOptions();
         this.fieldPaths = StringUtils.isBlank(options) ? null : getFieldPaths(options.replaceAll("\\s", ""));
+        // Flatten transformer caches flattened field names, so we use a separate
+        // instance for every record writer.
+        this.flattenTransformer = new FlattenTransformer(PropertyPathFormatter::camelCase, ".", false);
     }
     
     @Override
@@ -49,7 +58,7 @@ public abstract class AbstractFormattedRecordWriter extends AbstractRecordWriter
     }
     
     @Override
-    public final void writeRecord(ObjectNode record) {
+    public void writeRecord(ObjectNode record) {
         writeFormattedRecord(getFormattedRecord(record));
     }
     
@@ -57,6 +66,14 @@ public abstract class AbstractFormattedRecordWriter extends AbstractRecordWriter
         return getConfig().getWriter();
     }
     
+    /**
+     * @return The {@link FieldPath} instances representing the configured output
+     *         fields, or null if no output fields were configured
+     */
+    protected final List<FieldPath> getFieldPaths() {
+        return fieldPaths;
+    }
+    
     protected abstract void writeFormattedRecord(ObjectNode record);
     
     /**
@@ -74,27 +91,84 @@ public abstract class AbstractFormattedRecordWriter extends AbstractRecordWriter
                 applyOptionalFieldPathsTransformation(fieldPaths, record));
     }
     
-    private static final ObjectNode applyOptionalFieldPathsTransformation(List<String> fieldPaths, ObjectNode record) {
+    private static final ObjectNode applyOptionalFieldPathsTransformation(List<FieldPath> fieldPaths, ObjectNode record) {
         if ( fieldPaths==null || fieldPaths.isEmpty() ) { return record; }
-        ObjectNode formattedRecord = new ObjectMapper().createObjectNode();
+        ObjectNode formattedRecord = JsonNodeFactory.instance.objectNode();
         fieldPaths.forEach(
-            path -> formattedRecord.set(PropertyPathFormatter.camelCase(path), evaluateValue(record, path))
+            fieldPath -> formattedRecord.set(fieldPath.getFieldName(), fieldPath.getValue(record))
         );
         return formattedRecord;
     }
     
-    private static final ObjectNode applyOptionalRecordFlattenTransformation(OutputFormat outputFormat, ObjectNode record) {
+    private final ObjectNode applyOptionalRecordFlattenTransformation(OutputFormat outputFormat, ObjectNode record) {
         return !outputFormat.isFlat() 
                 ? record 
-                : new FlattenTransformer(PropertyPathFormatter::camelCase, ".", false).transformObjectNode(record);
+                : flattenTransformer.transformObjectNode(record);
     }
 
-    private static final JsonNode evaluateValue(ObjectNode record, String path) {
-        JsonNode result = JsonHelper.evaluateSpelExpression(record, path, JsonNode.class);
-        return result!=null ? result : NA_NODE;
+    private static final List<FieldPath> getFieldPaths(String options) {
+        return Stream.of(options.split(","))
+                .map(FieldPath::new)
+                .collect(Collectors.toList());
     }
     
-    private static final List<String> getFieldPaths(String options) {
-        return Arrays.asList(options.split(","));
+    /**
+     * This class represents a single configured output field, holding the 
+     * SpEL expression used to evaluate the field value and the formatted
+     * field name. For simple property paths like 'a.b.c', property values 
+     * are retrieved directly from the record rather than evaluating the 
+     * SpEL expression for every record. 
+     */
+    protected static final class FieldPath {
+        private static final Pattern PROPERTY_NAME_PATTERN = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+        private static final Set<String> SPEL_KEYWORDS = Set.of(
+                "and", "or", "not", "matches", "between", "instanceof", "true", "false", "null", "new",
+                "div", "mod", "eq", "ne", "lt", "le", "gt", "ge");
+        @Getter private final String path;
+        @Getter private final String fieldName;
+        private final String[] propertyNames;
+        
+        private FieldPath(String path) {
+            this.path = path;
+            this.fieldName = PropertyPathFormatter.camelCase(path);
+            this.propertyNames = getPropertyNames(path);
+        }
+        
+        /**
+         * Get the value for this field from the given record, returning an
+         * 'N/A' {@link TextNode} if the value is null.
+         */
+        public final JsonNode getValue(ObjectNode record) {
+            JsonNode result = propertyNames==null 
+                    ? evaluateExpression(record) 
+                    : getPropertyValue(record);
+            return result!=null ? result : NA_NODE;
+        }
+        
+        private final JsonNode getPropertyValue(ObjectNode record) {
+            JsonNode current = record;
+            for ( var propertyName : propertyNames ) {
+                // Let SpEL handle any intermediate non-object nodes, to have
+                // identical results and error handling
+                if ( !(current instanceof ObjectNode) ) { return evaluateExpression(record); }
+                current = current.get(propertyName);
+            }
+            if ( current==null || current.isNull() ) { return null; }
+            return current.isPojo() ? evaluateExpression(record) : current;
+        }
+        
+        private final JsonNode evaluateExpression(ObjectNode record) {
+            return JsonHelper.evaluateSpelExpression(record, path, JsonNode.class);
+        }
+        
+        private static final String[] getPropertyNames(String path) {
+            String[] propertyNames = path.split("\\.", -1);
+            for ( var propertyName : propertyNames ) {
+                if ( !PROPERTY_NAME_PATTERN.matcher(propertyName).matches() || SPEL_KEYWORDS.contains(propertyName.toLowerCase()) ) {
+                    return null;
+                }
+            }
+            return propertyNames;
+        }
     }
 }
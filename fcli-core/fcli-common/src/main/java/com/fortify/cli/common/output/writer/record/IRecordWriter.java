@@ -18,5 +18,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public interface IRecordWriter extends Closeable, AutoCloseable {
     public void writeRecord(ObjectNode record);
+    /** Flush any records written so far to the underlying output; by default this does nothing */
+    default void flush() {}
     default void close() {}
 }
@@ -14,4 +14,12 @@ package com.fortify.cli.common.output.writer.record;
 
 public interface IRecordWriterFactory {
     public IRecordWriter createRecordWriter(RecordWriterConfig config);
+    
+    /**
+     * Indicate whether the {@link IRecordWriter} instances produced by this factory write
+     * a stream of individual records meant for consumption by other programs, like 
+     * newline-delimited JSON or binary formats. Such output is written as-is, without
+     * any additional trailing newlines. 
+     */
+    default boolean isRecordStream() { return false; }
 }
@@ -12,6 +12,7 @@
  *******************************************************************************/
 package com.fortify.cli.common.output.writer.record;
 
+import java.io.OutputStream;
 import java.io.Writer;
 
 import com.fortify.cli.common.output.OutputFormat;
@@ -25,6 +26,9 @@ import lombok.Data;
 public class RecordWriterConfig {
     /** Writer to which to write the output */
     private Writer writer;
+    /** Output stream to which to write binary output, may be null if binary output is not supported. 
+     *  This is the same output stream as wrapped by {@link #writer}, so only one of them should be used. */
+    private OutputStream outputStream;
     /** Write singular output rather than an array/list; 
      * assumes that only a single record is passed to the {@link IRecordWriter} */ 
     private boolean singular;
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.output.writer.record.binary;
+
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonGenerator.Feature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fortify.cli.common.output.writer.record.AbstractFormattedRecordWriter;
+import com.fortify.cli.common.output.writer.record.RecordWriterConfig;
+
+import lombok.SneakyThrows;
+
+/**
+ * {@link AbstractFormattedRecordWriter} implementation that writes records in one
+ * of the binary formats supported by Jackson. Records are written as a sequence of
+ * root-level values rather than an array, allowing consumers to process individual
+ * records as they arrive. 
+ */
+public class BinaryRecordWriter extends AbstractFormattedRecordWriter {
+    public static enum BinaryType { CBOR, SMILE }
+    private final BinaryType binaryType;
+    private JsonGenerator generator;
+    
+    public BinaryRecordWriter(BinaryType binaryType, RecordWriterConfig config) {
+        super(config);
+        this.binaryType = binaryType;
+    }
+    
+    @SneakyThrows
+    private JsonGenerator getGenerator() {
+        if ( generator==null ) {
+            this.generator = createFactory().createGenerator(getOutputStream())
+                    .setCodec(new ObjectMapper())
+                    .disable(Feature.AUTO_CLOSE_TARGET);
+        }
+        return generator;
+    }
+    
+    private JsonFactory createFactory() {
+        switch (binaryType) {
+        case CBOR: return new CBORFactory();
+        case SMILE: return new SmileFactory();
+        default: throw new IllegalStateException("Unknown binary type: "+binaryType);
+        }
+    }
+    
+    private OutputStream getOutputStream() {
+        var outputStream = getConfig().getOutputStream();
+        if ( outputStream==null ) {
+            throw new IllegalStateException("Output format "+getConfig().getOutputFormat()+" is not supported for this output");
+        }
+        return outputStream;
+    }
+
+    @Override @SneakyThrows
+    public void writeFormattedRecord(ObjectNode record) {
+        getGenerator().writeTree(record);
+    }
+    
+    @Override @SneakyThrows
+    public void flush() {
+        if ( generator!=null ) {
+            generator.flush();
+        }
+    }
+
+    @Override @SneakyThrows
+    public void close() {
+        if ( generator!=null ) {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * This package provides functionality for outputting data to binary formats like Smile or CBOR.
+ */
+package com.fortify.cli.common.output.writer.record.binary;
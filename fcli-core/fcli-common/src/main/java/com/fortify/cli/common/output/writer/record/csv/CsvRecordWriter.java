@@ -12,25 +12,50 @@
  *******************************************************************************/
 package com.fortify.cli.common.output.writer.record.csv;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import com.fasterxml.jackson.core.JsonGenerator.Feature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.dataformat.csv.CsvFactory;
 import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fortify.cli.common.json.JsonHelper;
 import com.fortify.cli.common.output.writer.record.AbstractFormattedRecordWriter;
 import com.fortify.cli.common.output.writer.record.RecordWriterConfig;
 
 import lombok.SneakyThrows;
 
+/**
+ * {@link AbstractFormattedRecordWriter} implementation for writing CSV output.
+ * If output fields were configured, and the formatted first record contains 
+ * exactly these fields, subsequent records are written directly to the 
+ * {@link CsvGenerator}, evaluating each configured field on the original
+ * record, rather than first creating an intermediate formatted record. This
+ * gives identical output, but significantly improves performance for large
+ * outputs. 
+ */
 public class CsvRecordWriter extends AbstractFormattedRecordWriter {
     public static enum CsvType { HEADERS, NO_HEADERS }
     private final CsvType csvType;
+    private final char columnSeparator;
     private CsvGenerator generator;
+    private boolean writeColumns;
+    private JsonNode[] values;
     
     public CsvRecordWriter(CsvType csvType, RecordWriterConfig config) {
+        this(csvType, ',', config);
+    }
+    
+    public CsvRecordWriter(CsvType csvType, char columnSeparator, RecordWriterConfig config) {
         super(config);
         this.csvType = csvType;
+        this.columnSeparator = columnSeparator;
     }
     
     @SneakyThrows
@@ -40,6 +65,7 @@ public class CsvRecordWriter extends AbstractFormattedRecordWriter {
                 CsvSchema.Builder schemaBuilder = CsvSchema.builder();
                 record.fieldNames().forEachRemaining(schemaBuilder::addColumn);
                 CsvSchema schema = schemaBuilder.build()
+                        .withColumnSeparator(columnSeparator)
                         .withUseHeader(CsvType.HEADERS==csvType);
                 this.generator = (CsvGenerator)CsvFactory.builder().
                         build().createGenerator(getWriter())
@@ -50,10 +76,18 @@ public class CsvRecordWriter extends AbstractFormattedRecordWriter {
                 if ( !getConfig().isSingular() ) {
                     generator.writeStartArray();
                 }
+                this.writeColumns = isWriteColumns(record);
             }
         }
         return generator;
     }
+    
+    @Override
+    public void writeRecord(ObjectNode record) {
+        if ( !writeColumns || !writeColumns(record) ) {
+            super.writeRecord(record);
+        }
+    }
 
     @Override @SneakyThrows
     public void writeFormattedRecord(ObjectNode record) {
@@ -67,5 +101,66 @@ public class CsvRecordWriter extends AbstractFormattedRecordWriter {
             generator.close();
         }
     }
-
+    
+    /**
+     * Determine whether subsequent records can be written directly based
+     * on the configured field paths, which is the case if the given formatted
+     * first record contains exactly the configured output fields. 
+     */
+    private boolean isWriteColumns(ObjectNode formattedRecord) {
+        var fieldPaths = getFieldPaths();
+        if ( fieldPaths==null || fieldPaths.isEmpty() ) { return false; }
+        var fieldNames = fieldPaths.stream().map(FieldPath::getFieldName).collect(Collectors.toList());
+        var recordFieldNames = new ArrayList<String>();
+        formattedRecord.fieldNames().forEachRemaining(recordFieldNames::add);
+        if ( !fieldNames.equals(recordFieldNames) ) { return false; }
+        this.values = new JsonNode[fieldPaths.size()];
+        return true;
+    }
+    
+    /**
+     * Write the values for all configured output fields directly to our {@link CsvGenerator}.
+     * If any of the values is an {@link ObjectNode}, which would be flattened into
+     * multiple fields by the standard formatting, nothing is written and false is
+     * returned, to have the caller handle this record through standard formatting. 
+     */
+    @SneakyThrows
+    private boolean writeColumns(ObjectNode record) {
+        List<FieldPath> fieldPaths = getFieldPaths();
+        for ( int i=0 ; i<values.length ; i++ ) {
+            var value = fieldPaths.get(i).getValue(record);
+            if ( value.isObject() ) { return false; }
+            values[i] = value;
+        }
+        generator.writeStartObject();
+        for ( int i=0 ; i<values.length ; i++ ) {
+            writeColumn(fieldPaths.get(i).getFieldName(), values[i]);
+        }
+        generator.writeEndObject();
+        return true;
+    }
+    
+    /**
+     * Write a single column value, handling arrays in the same way as
+     * our {@link com.fortify.cli.common.output.transform.flatten.FlattenTransformer}; 
+     * arrays of strings or numbers are written as a comma-separated string,
+     * other arrays are ignored. 
+     */
+    @SneakyThrows
+    private void writeColumn(String fieldName, JsonNode value) {
+        if ( !value.isArray() ) {
+            generator.writeFieldName(fieldName);
+            if ( value.isTextual() || value.isNumber() || value.isBoolean() ) {
+                value.serialize(generator, null);
+            } else {
+                generator.writeTree(value);
+            }
+        } else if ( value.size()>0 ) {
+            JsonNodeType nodeType = value.get(0).getNodeType();
+            if ( nodeType==JsonNodeType.STRING || nodeType==JsonNodeType.NUMBER ) {
+                generator.writeFieldName(fieldName);
+                generator.writeString(JsonHelper.stream((ArrayNode)value).map(JsonNode::asText).collect(Collectors.joining(", ")));
+            }
+        }
+    }
 }
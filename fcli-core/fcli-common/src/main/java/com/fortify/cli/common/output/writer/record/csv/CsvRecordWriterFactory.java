@@ -22,9 +22,15 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class CsvRecordWriterFactory implements IRecordWriterFactory {
     private final CsvType csvType;
+    private final char columnSeparator;
+    
+    public CsvRecordWriterFactory(CsvType csvType) {
+        this(csvType, ',');
+    }
+    
     @Override
     public IRecordWriter createRecordWriter(RecordWriterConfig config) {
-        return new CsvRecordWriter(csvType, config);
+        return new CsvRecordWriter(csvType, columnSeparator, config);
     }
 
 }
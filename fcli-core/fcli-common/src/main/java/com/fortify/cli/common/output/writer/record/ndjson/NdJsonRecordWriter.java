@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.output.writer.record.ndjson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonGenerator.Feature;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fortify.cli.common.output.writer.record.AbstractFormattedRecordWriter;
+import com.fortify.cli.common.output.writer.record.RecordWriterConfig;
+
+import lombok.SneakyThrows;
+
+/**
+ * {@link AbstractFormattedRecordWriter} implementation that writes newline-delimited
+ * JSON, with every record written as compact JSON on a single line. As opposed to 
+ * regular JSON output, records are not wrapped in a JSON array, allowing consumers
+ * to process individual records as they arrive. 
+ */
+public class NdJsonRecordWriter extends AbstractFormattedRecordWriter {
+    private JsonGenerator generator;
+    
+    public NdJsonRecordWriter(RecordWriterConfig config) {
+        super(config);
+    }
+    
+    @SneakyThrows
+    private JsonGenerator getGenerator() {
+        if ( generator==null ) {
+            this.generator = JsonFactory.builder().
+                    build().createGenerator(getWriter())
+                    // We explicitly write a newline after every record, so no root value separator
+                    .setPrettyPrinter(new MinimalPrettyPrinter(""))
+                    .setCodec(new ObjectMapper())
+                    .disable(Feature.AUTO_CLOSE_TARGET);
+        }
+        return generator;
+    }
+
+    @Override @SneakyThrows
+    public void writeFormattedRecord(ObjectNode record) {
+        var generator = getGenerator();
+        generator.writeTree(record);
+        generator.writeRaw('\n');
+    }
+    
+    @Override @SneakyThrows
+    public void flush() {
+        if ( generator!=null ) {
+            generator.flush();
+        }
+    }
+
+    @Override @SneakyThrows
+    public void close() {
+        if ( generator!=null ) {
+            generator.close();
+        }
+    }
+}
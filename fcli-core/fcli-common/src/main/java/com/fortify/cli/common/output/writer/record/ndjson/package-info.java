@@ -0,0 +1,4 @@
+/**
+ * This package provides functionality for outputting data to newline-delimited JSON format.
+ */
+package com.fortify.cli.common.output.writer.record.ndjson;
@@ -23,36 +23,93 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fortify.cli.common.output.transform.PropertyPathFormatter;
 import com.fortify.cli.common.output.writer.record.AbstractFormattedRecordWriter;
 import com.fortify.cli.common.output.writer.record.RecordWriterConfig;
+import com.fortify.cli.common.util.EnvHelper;
 import com.github.freva.asciitable.AsciiTable;
 import com.github.freva.asciitable.Column;
 import com.github.freva.asciitable.HorizontalAlign;
 
 import lombok.SneakyThrows;
 
+/**
+ * This {@link AbstractFormattedRecordWriter} implementation writes records in 
+ * human-readable table format. To avoid having to keep all records in memory,
+ * column widths are calculated based on a bounded look-ahead window of rows 
+ * (configurable through the {@value #ENVNAME_LOOKAHEAD_ROWS} environment variable,
+ * defaulting to {@value #DEFAULT_LOOKAHEAD_ROWS} rows). Once this window is full, 
+ * the buffered rows are written, and any subsequent rows are written immediately 
+ * using the same column widths. Values that are wider than the calculated column 
+ * width are written as-is, potentially resulting in some misalignment for those rows. 
+ * Setting the look-ahead window to zero or a negative value will buffer all rows
+ * before writing the table, guaranteeing proper alignment at the cost of memory usage.
+ */
 public class TableRecordWriter extends AbstractFormattedRecordWriter {
     public static enum TableType { HEADERS, NO_HEADERS }
+    private static final String ENVNAME_LOOKAHEAD_ROWS = "FCLI_TABLE_LOOKAHEAD_ROWS";
+    private static final int DEFAULT_LOOKAHEAD_ROWS = 1000;
     private final TableType tableType;
+    private final int lookAheadRows;
     private String[] fields;
+    private int[] columnWidths;
     private final List<String[]> rows = new ArrayList<>();
     
     public TableRecordWriter(TableType tableType, RecordWriterConfig config) {
         super(config);
         this.tableType = tableType;
+        this.lookAheadRows = getLookAheadRows();
     }
 
     @Override @SneakyThrows
     public void writeFormattedRecord(ObjectNode record) {
         String[] columns = getFields(record);
         String[] row = getRow(record, columns);
-        rows.add(row);
+        if ( columnWidths!=null ) {
+            writeStreamingRow(row);
+        } else {
+            rows.add(row);
+            if ( lookAheadRows>0 && rows.size()>=lookAheadRows ) {
+                writeBufferedRows();
+            }
+        }
     }
 
     @Override @SneakyThrows
     public void close() {
-        getWriter().write(getTable(fields, rows.toArray(new String[rows.size()][])));
+        if ( columnWidths==null ) {
+            getWriter().write(getTable(fields, rows.toArray(new String[rows.size()][])));
+            rows.clear();
+        }
+    }
+    
+    /**
+     * Calculate column widths based on the buffered rows, then write the 
+     * buffered rows (including headers if applicable) using these column 
+     * widths, and clear the buffer.
+     */
+    @SneakyThrows
+    private void writeBufferedRows() {
+        this.columnWidths = getColumnWidths(fields, rows);
+        String[][] data = rows.stream().map(this::padRow).toArray(String[][]::new);
+        getWriter().write(getTable(fields, data, TableType.HEADERS==tableType));
+        getWriter().flush();
+        rows.clear();
+    }
+    
+    /**
+     * Write a single row, padding each value to the previously calculated 
+     * column widths.
+     */
+    @SneakyThrows
+    private void writeStreamingRow(String[] row) {
+        getWriter().write(System.lineSeparator());
+        getWriter().write(getTable(fields, new String[][] {padRow(row)}, false));
+        getWriter().flush();
     }
 
     private String getTable(String[] fields, String[][] data) {
+        return getTable(fields, data, TableType.HEADERS==tableType);
+    }
+    
+    private String getTable(String[] fields, String[][] data, boolean withHeaders) {
         if ( fields == null ) {
             return "No data"; // TODO properly handle this
         } else {
@@ -60,11 +117,45 @@ public class TableRecordWriter extends AbstractFormattedRecordWriter {
                     new Column()
                         .dataAlign(HorizontalAlign.LEFT)
                         .headerAlign(HorizontalAlign.LEFT)
-                        .header(TableType.HEADERS==tableType ? getHeader(field) : null))
+                        .header(withHeaders ? getHeader(field) : null))
                         .toArray(Column[]::new);
             return AsciiTable.getTable(AsciiTable.NO_BORDERS, columnObjects, data); 
         }
     }
+    
+    private int[] getColumnWidths(String[] fields, List<String[]> rows) {
+        int[] result = new int[fields.length];
+        for ( int i = 0 ; i < fields.length ; i++ ) {
+            if ( TableType.HEADERS==tableType ) {
+                result[i] = getWidth(getHeader(fields[i]));
+            }
+            for ( String[] row : rows ) {
+                result[i] = Math.max(result[i], getWidth(row[i]));
+            }
+        }
+        return result;
+    }
+    
+    private String[] padRow(String[] row) {
+        String[] result = new String[row.length];
+        for ( int i = 0 ; i < row.length ; i++ ) {
+            result[i] = pad(row[i], columnWidths[i]);
+        }
+        return result;
+    }
+    
+    private static final String pad(String value, int width) {
+        int padding = width - getLastLineLength(value);
+        return padding<=0 ? value : value+" ".repeat(padding);
+    }
+    
+    private static final int getWidth(String value) {
+        return value==null ? 0 : value.lines().mapToInt(String::length).max().orElse(0);
+    }
+    
+    private static final int getLastLineLength(String value) {
+        return value.length()-value.lastIndexOf('\n')-1;
+    }
 
     private String getHeader(String fieldName) {
         String header = getConfig().getMessageResolver().getMessageString("output.header."+fieldName);
@@ -87,6 +178,11 @@ public class TableRecordWriter extends AbstractFormattedRecordWriter {
         }
         return Stream.of(columns).map(record::get).map(JsonNode::asText).map(v->"null".equals(v)?"N/A":v).toArray(String[]::new);
     }
+    
+    private static final int getLookAheadRows() {
+        Integer result = EnvHelper.asInteger(EnvHelper.env(ENVNAME_LOOKAHEAD_ROWS));
+        return result==null ? DEFAULT_LOOKAHEAD_ROWS : result;
+    }
 
     private static final <T> Stream<T> asStream(Iterator<T> sourceIterator) {
         Iterable<T> iterable = () -> sourceIterator;
@@ -45,7 +45,7 @@ public enum ProgressWriterType {
         private final List<String> warnings = new ArrayList<>();
         
         @Override
-        public void writeWarning(String message, Object... args) {
+        public synchronized void writeWarning(String message, Object... args) {
             warnings.add(String.format(message, args));
         }
         
@@ -99,7 +99,7 @@ public enum ProgressWriterType {
         }
         
         @Override
-        public void writeProgress(String message, Object... args) {
+        public synchronized void writeProgress(String message, Object... args) {
             if ( message.contains("\n") ) { throw new RuntimeException("Multiline status updates are not supported; please file a bug"); }
             clearProgress();
             String formattedMessage = String.format(message, args);
@@ -108,7 +108,7 @@ public enum ProgressWriterType {
         }
         
         @Override
-        public void clearProgress() {
+        public synchronized void clearProgress() {
             System.out.print(LINE_START+" ".repeat(lastNumberOfChars)+LINE_START);
         }
     }
@@ -126,7 +126,7 @@ public enum ProgressWriterType {
         }
         
         @Override
-        public void writeProgress(String message, Object... args) {
+        public synchronized void writeProgress(String message, Object... args) {
             clearProgress();
             String formattedMessage = String.format(message, args);
             System.out.print(formattedMessage);
@@ -134,7 +134,7 @@ public enum ProgressWriterType {
         }
         
         @Override
-        public void clearProgress() {
+        public synchronized void clearProgress() {
             // TODO Any way we can use ESC[3J to clear all saved lines, instead of removing lines one-by-one?
             //      Not sure what escape code to use for 'start lines to be saved'...
             System.out.print((LINE_CLEAR+LINE_UP).repeat(lastNumberOfLines)+LINE_CLEAR+LINE_START);
@@ -13,9 +13,13 @@
 package com.fortify.cli.common.report.writer;
 
 import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -34,6 +38,9 @@ import lombok.experimental.Accessors;
 /**
  * Abstract base class for writing reports that consist of at least
  * a summary file, and potentially additional files with more details.
+ * SHA256 checksums for all report entries are calculated while the
+ * entries are being written, and written to a checksums.sha256 file
+ * when the report is closed.
  * 
  * @author rsenden
  *
@@ -46,6 +53,7 @@ public abstract class AbstractReportWriter implements IReportWriter {
     private final IRecordWriter summaryWriter;
     private Map<String, BufferedWriter> bufferedWriters = new ConcurrentHashMap<>();
     private Map<String, IRecordWriter> recordWriters = new ConcurrentHashMap<>();
+    private Map<String, MessageDigest> digests = new ConcurrentHashMap<>();
 
     public AbstractReportWriter(String outputPathName, IMessageResolver messageResolver) {
         this.absoluteOutputPath = Path.of(outputPathName).toAbsolutePath();
@@ -55,7 +63,7 @@ public abstract class AbstractReportWriter implements IReportWriter {
     }
     
     protected abstract Path entryPath(String fileName);
-    protected abstract BufferedWriter newBufferedWriter(String fileName);
+    protected abstract OutputStream newOutputStream(String fileName);
     protected abstract void closeReport();
     
     @Override
@@ -99,6 +107,17 @@ public abstract class AbstractReportWriter implements IReportWriter {
         return format.getRecordWriterFactory().createRecordWriter(config);
     }
     
+    @SneakyThrows
+    private BufferedWriter newBufferedWriter(String fileName) {
+        var digest = MessageDigest.getInstance("SHA256");
+        digests.put(fileName, digest);
+        return newBufferedWriter(new DigestOutputStream(newOutputStream(fileName), digest));
+    }
+    
+    private BufferedWriter newBufferedWriter(OutputStream outputStream) {
+        return new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+    
     @SneakyThrows
     private void writeLine(BufferedWriter writer, String line) {
         writer.write(line); writer.newLine();
@@ -111,16 +130,15 @@ public abstract class AbstractReportWriter implements IReportWriter {
     
     @SneakyThrows
     private void writeChecksum() {
-        try (var checksumsWriter = newBufferedWriter("checksums.sha256")) {
+        try (var checksumsWriter = newBufferedWriter(newOutputStream("checksums.sha256"))) {
             bufferedWriters.keySet().forEach(entry->writeChecksum(checksumsWriter, entry));
         }
     }
 
     @SneakyThrows
     private void writeChecksum(BufferedWriter writer, String entry) {
-        Path path = entryPath(entry);
-        var binaryIndicator = ""; //isBinary(path) ? "*" : "";
-        byte[] hash = MessageDigest.getInstance("SHA256").digest(Files.readAllBytes(path));
+        var binaryIndicator = ""; //isBinary(entryPath(entry)) ? "*" : "";
+        byte[] hash = digests.get(entry).digest();
         String checksum = String.format("%064X", new BigInteger(1, hash));
         writer.append(String.format("%s %s%s\n", checksum, binaryIndicator, entry));
     }
@@ -12,7 +12,7 @@
  *******************************************************************************/
 package com.fortify.cli.common.report.writer;
 
-import java.io.BufferedWriter;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -39,9 +39,9 @@ public class ReportDirWriter extends AbstractReportWriter {
     }
     
     @Override @SneakyThrows
-    protected BufferedWriter newBufferedWriter(String fileName) {
+    protected OutputStream newOutputStream(String fileName) {
         Files.createDirectories(absoluteOutputPath());
-        return Files.newBufferedWriter(entryPath(fileName));
+        return Files.newOutputStream(entryPath(fileName));
     }
     
     @Override
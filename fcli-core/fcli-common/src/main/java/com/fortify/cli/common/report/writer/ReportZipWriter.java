@@ -12,7 +12,7 @@
  *******************************************************************************/
 package com.fortify.cli.common.report.writer;
 
-import java.io.BufferedWriter;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
@@ -48,8 +48,8 @@ public class ReportZipWriter extends AbstractReportWriter {
     }
     
     @Override @SneakyThrows
-    protected BufferedWriter newBufferedWriter(String fileName) {
-        return Files.newBufferedWriter(entryPath(fileName));
+    protected OutputStream newOutputStream(String fileName) {
+        return Files.newOutputStream(entryPath(fileName));
     }
     
     @Override @SneakyThrows
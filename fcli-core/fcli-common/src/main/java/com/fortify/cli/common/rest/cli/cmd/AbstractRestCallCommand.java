@@ -51,7 +51,7 @@ import picocli.CommandLine.Parameters;
  * 
  * @author Ruud Senden
  */
-public abstract class AbstractRestCallCommand extends AbstractOutputCommand implements IBaseRequestSupplier, IProductHelperSupplier, IInputTransformer, IRecordTransformer, INextPageUrlProducerSupplier {
+public abstract class AbstractRestCallCommand extends AbstractOutputCommand implements IBaseRequestSupplier, IProductHelperSupplier, IInputTransformer, IRecordTransformer, INextPageUrlProducerSupplier, IUnirestInstanceSupplier {
     @EnvSuffix("URI") @Parameters(index = "0", arity = "1..1", descriptionKey = "api.uri") String uri;
     
     @Option(names = {"--request", "-X"}, required = false, defaultValue = "GET")
@@ -77,9 +77,17 @@ public abstract class AbstractRestCallCommand extends AbstractOutputCommand impl
     
     @Override
     public HttpRequest<?> getBaseRequest() {
+        return prepareRequest(getUnirestInstance());
+    }
+    
+    /**
+     * Get the {@link UnirestInstance} from the configured product helper; this
+     * instance is used both for the base request and for loading any next pages.
+     */
+    @Override
+    public UnirestInstance getUnirestInstance() {
         if ( getProductHelper() instanceof IUnirestInstanceSupplier ) {
-            UnirestInstance unirest = ((IUnirestInstanceSupplier)getProductHelper()).getUnirestInstance();
-            return prepareRequest(unirest);
+            return ((IUnirestInstanceSupplier)getProductHelper()).getUnirestInstance();
         }
         throw new RuntimeException("Class doesn't implement IUnirestInstanceSupplier: "+getProductHelper().getClass().getName());
     }
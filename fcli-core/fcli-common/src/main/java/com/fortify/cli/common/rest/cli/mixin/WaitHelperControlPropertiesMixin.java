@@ -31,6 +31,8 @@ public class WaitHelperControlPropertiesMixin implements IWaitHelperControlPrope
     @Getter private WaitTimeoutAction onTimeout;
     @Option(names= {"--interval", "-i"}, defaultValue = "30s")
     @Getter private String intervalPeriod;
+    @Option(names= {"--max-interval"})
+    @Getter private String maxIntervalPeriod;
     @Option(names= {"--timeout", "-t"}, defaultValue = "1h")
     @Getter private String timeoutPeriod;
 }
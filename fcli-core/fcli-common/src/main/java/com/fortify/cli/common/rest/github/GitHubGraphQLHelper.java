@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.rest.github;
+
+import java.net.URI;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fortify.cli.common.json.JsonHelper;
+
+import kong.unirest.UnirestInstance;
+
+/**
+ * This class provides functionality for executing GitHub GraphQL queries. Queries
+ * should request the <code>rateLimit { cost remaining resetAt }</code> object; if
+ * the remaining rate limit is insufficient for another query with the same cost, 
+ * subsequent queries, potentially issued from multiple threads, will be delayed
+ * until the rate limit is reset. This avoids GraphQL queries failing due to rate
+ * limits, as GitHub doesn't return rate limit headers indicating that the rate limit
+ * is about to be exceeded for a single (expensive) query.
+ */
+public final class GitHubGraphQLHelper {
+    private static final Logger LOG = LoggerFactory.getLogger(GitHubGraphQLHelper.class);
+    private final UnirestInstance unirest;
+    private final String graphQLUrl;
+    private final AtomicLong resetTimeMillis = new AtomicLong(0);
+    
+    /**
+     * Create a new {@link GitHubGraphQLHelper} instance for the given
+     * {@link UnirestInstance} and GitHub REST API URL. 
+     */
+    public GitHubGraphQLHelper(UnirestInstance unirest, String apiUrl) {
+        this.unirest = unirest;
+        this.graphQLUrl = getGraphQLUrl(apiUrl);
+    }
+    
+    /**
+     * Get the GraphQL endpoint URL for the given GitHub REST API URL. For
+     * github.com, the REST API is available at https://api.github.com/ and
+     * the GraphQL endpoint at https://api.github.com/graphql. For GitHub 
+     * Enterprise Server, the REST API is available at https://host/api/v3/ 
+     * and the GraphQL endpoint at https://host/api/graphql.
+     */
+    public static final String getGraphQLUrl(String apiUrl) {
+        var uri = URI.create(apiUrl.endsWith("/") ? apiUrl : apiUrl+"/");
+        var path = uri.getPath();
+        return path.endsWith("/api/v3/")
+                ? uri.resolve("../graphql").toString()
+                : uri.resolve("graphql").toString();
+    }
+    
+    /**
+     * Execute the given GraphQL query with the given variables, returning the 
+     * <code>data</code> object from the response.
+     * @throws IllegalStateException if the response contains any errors
+     */
+    public ObjectNode query(String query, ObjectNode variables) {
+        waitForRateLimitReset();
+        var body = JsonHelper.getObjectMapper().createObjectNode()
+                .put("query", query)
+                .set("variables", variables);
+        var response = unirest.post(graphQLUrl)
+                .accept("application/json")
+                .header("Content-Type", "application/json")
+                .body(body)
+                .asObject(ObjectNode.class)
+                .getBody();
+        var errors = response.get("errors");
+        if ( errors instanceof ArrayNode && errors.size()>0 ) {
+            throw new IllegalStateException("GitHub GraphQL query failed: "+JsonHelper.stream((ArrayNode)errors)
+                    .map(e->e.path("message").asText())
+                    .collect(Collectors.joining("; ")));
+        }
+        var data = response.get("data");
+        if ( !(data instanceof ObjectNode) ) {
+            throw new IllegalStateException("GitHub GraphQL response doesn't contain any data");
+        }
+        updateRateLimit(data.get("rateLimit"));
+        return (ObjectNode)data;
+    }
+    
+    private void updateRateLimit(JsonNode rateLimit) {
+        if ( rateLimit!=null && rateLimit.isObject() ) {
+            int cost = rateLimit.path("cost").asInt(1);
+            int remaining = rateLimit.path("remaining").asInt(Integer.MAX_VALUE);
+            LOG.debug("GitHub GraphQL query cost: {}, remaining: {}", cost, remaining);
+            if ( remaining<cost ) {
+                try {
+                    // Add one second to compensate for clock differences
+                    long newResetTimeMillis = Instant.parse(rateLimit.path("resetAt").asText()).toEpochMilli()+1000;
+                    resetTimeMillis.accumulateAndGet(newResetTimeMillis, Math::max);
+                } catch ( DateTimeParseException e ) {
+                    LOG.debug("Ignoring invalid rateLimit.resetAt value: {}", rateLimit.path("resetAt").asText());
+                }
+            }
+        }
+    }
+    
+    private void waitForRateLimitReset() {
+        long sleepMillis = resetTimeMillis.get()-System.currentTimeMillis();
+        if ( sleepMillis>0 ) {
+            LOG.info("GitHub GraphQL rate limit reached, waiting {} seconds before sending request to {}", sleepMillis/1000, graphQLUrl);
+            try {
+                Thread.sleep(sleepMillis);
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for rate limit reset", e);
+            }
+        }
+    }
+}
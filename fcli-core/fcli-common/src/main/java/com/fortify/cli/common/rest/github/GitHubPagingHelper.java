@@ -12,13 +12,16 @@
  *******************************************************************************/
 package com.fortify.cli.common.rest.github;
 
+import java.util.stream.Stream;
+
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fortify.cli.common.rest.paging.INextPageUrlProducer;
 import com.fortify.cli.common.rest.paging.LinkHeaderNextPageUrlProducerFactory;
 import com.fortify.cli.common.rest.paging.PagingHelper;
 
 import kong.unirest.HttpRequest;
-import kong.unirest.PagedList;
+import kong.unirest.HttpResponse;
+import kong.unirest.UnirestInstance;
 
 /**
  * This class provides utility methods for handling GitHub paging.
@@ -28,8 +31,8 @@ import kong.unirest.PagedList;
 public class GitHubPagingHelper {
     private GitHubPagingHelper() {}
     
-    public static final <R extends JsonNode> PagedList<R> pagedRequest(HttpRequest<?> request, Class<R> returnType) {
-        return PagingHelper.pagedRequest(request, nextPageUrlProducer(), returnType);
+    public static final <R extends JsonNode> Stream<HttpResponse<R>> pagedRequest(UnirestInstance unirest, HttpRequest<?> request, Class<R> returnType) {
+        return PagingHelper.pagedRequest(unirest, request, nextPageUrlProducer(), returnType);
     }
     
     public static final INextPageUrlProducer nextPageUrlProducer() {
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.rest.paging;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import kong.unirest.HttpRequest;
+import kong.unirest.HttpResponse;
+
+/**
+ * {@link INextPageRequestProducer} extension that allows for requests for all 
+ * remaining pages to be produced based on the first page, see 
+ * {@link IRemainingPageUrlsProducer} for details.
+ */
+public interface IRemainingPageRequestsProducer extends INextPageRequestProducer {
+    /**
+     * Return the requests for all pages following the page represented by the given
+     * response, in the order in which these pages should be processed, or null
+     * if remaining page requests cannot be determined from the given response.
+     */
+    List<HttpRequest<?>> getRemainingPageRequests(HttpRequest<?> originalRequest, HttpResponse<? extends JsonNode> jsonResponse);
+}
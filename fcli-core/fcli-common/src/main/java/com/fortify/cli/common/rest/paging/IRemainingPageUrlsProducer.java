@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.rest.paging;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import kong.unirest.HttpRequest;
+import kong.unirest.HttpResponse;
+
+/**
+ * {@link INextPageUrlProducer} extension for paging mechanisms that allow for the 
+ * URLs of all remaining pages to be determined based on the first page, for example 
+ * offset-based paging where the total number of records is returned in the first 
+ * response. This allows for remaining pages to be loaded concurrently, see 
+ * {@link PagingHelper#loadConcurrently(List, java.util.function.Consumer)}.
+ */
+public interface IRemainingPageUrlsProducer extends INextPageUrlProducer {
+    /**
+     * Return the URLs for all pages following the page represented by the given
+     * response, in the order in which these pages should be processed, or null
+     * if remaining page URLs cannot be determined from the given response.
+     */
+    List<String> getRemainingPageUrls(HttpRequest<?> originalRequest, HttpResponse<? extends JsonNode> jsonResponse);
+}
@@ -12,42 +12,65 @@
  *******************************************************************************/
 package com.fortify.cli.common.rest.paging;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fortify.cli.common.util.EnvHelper;
 
 import kong.unirest.Header;
 import kong.unirest.HttpRequest;
 import kong.unirest.HttpResponse;
-import kong.unirest.PagedList;
 import kong.unirest.UnirestInstance;
 import lombok.RequiredArgsConstructor;
 
 public class PagingHelper {
+    private static final String ENVNAME_PAGING_THREADS = "FCLI_PAGING_THREADS";
+    private static final int DEFAULT_PAGING_THREADS = 4;
+    
     /**
-     * Return a Unirest {@link PagedList} based on the given base request and {@link INextPageUrlProducer}.
-     * Note that Unirest first collects all responses in memory before returning the {@link PagedList}. To 
-     * (potentially) reduce memory usage and allow for results to be processed immediately after each page 
-     * has been loaded (for example for streaming output), it may be better to handle paging manually using
-     * {@link INextPageRequestProducer}. An {@link INextPageUrlProducer} instance can be converted to an
-     * {@link INextPageRequestProducer} instance using the {@link #asNextPageRequestProducer(UnirestInstance, INextPageUrlProducer)}
-     * method. 
+     * Return a lazy {@link Stream} of responses based on the given base request and 
+     * {@link INextPageUrlProducer}, using the given {@link UnirestInstance} to produce 
+     * requests for loading next pages. Each page is only loaded when the consumer of
+     * the returned stream requests it, and the next page URL is only determined after 
+     * the consumer has finished processing the current page. As such, previous pages can
+     * be garbage-collected once processed, and {@link INextPageUrlProducer} instances may 
+     * depend on state updated while processing the current page, for example to stop 
+     * loading further pages.
+     * @param unirest
      * @param request
      * @param nextPageUrlProducer
+     * @param returnType
      * @return
      */
-    @SuppressWarnings("unchecked") // TODO Can we get rid of these warnings in a better way?
-    public static final <R extends JsonNode> PagedList<R> pagedRequest(HttpRequest<?> request, INextPageUrlProducer nextPageUrlProducer, Class<R> returnType) {
-        return request.asPaged(r->r.asObject(returnType), response->nextPageUrlProducer.getNextPageUrl(request, response));
+    public static final <R extends JsonNode> Stream<HttpResponse<R>> pagedRequest(UnirestInstance unirest, HttpRequest<?> request, INextPageUrlProducer nextPageUrlProducer, Class<R> returnType) {
+        var iterator = new PagedResponseIterator<R>(request, new NextPageRequestProducer(unirest, nextPageUrlProducer), returnType);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED|Spliterator.NONNULL), false);
     }
     
     /**
-     * Same as {@link #pagedRequest(HttpRequest, INextPageUrlProducer, Class)} (same considerations apply),
-     * but with fixed {@link JsonNode}-based return type. 
+     * Same as {@link #pagedRequest(UnirestInstance, HttpRequest, INextPageUrlProducer, Class)} (same 
+     * considerations apply), but with fixed {@link JsonNode}-based return type. 
+     * @param unirest
      * @param request
      * @param nextPageUrlProducer
      * @return
      */
-    public static final PagedList<JsonNode> pagedRequest(HttpRequest<?> request, INextPageUrlProducer nextPageUrlProducer) {
-        return pagedRequest(request, nextPageUrlProducer, JsonNode.class);
+    public static final Stream<HttpResponse<JsonNode>> pagedRequest(UnirestInstance unirest, HttpRequest<?> request, INextPageUrlProducer nextPageUrlProducer) {
+        return pagedRequest(unirest, request, nextPageUrlProducer, JsonNode.class);
     }
     
     /**
@@ -58,11 +81,157 @@ public class PagingHelper {
      * @return
      */
     public static final INextPageRequestProducer asNextPageRequestProducer(UnirestInstance unirest, INextPageUrlProducer nextPageUrlProducer) {
-        return unirest==null || nextPageUrlProducer==null ? null : new NextPageRequestProducer(unirest, nextPageUrlProducer);
+        if ( unirest==null || nextPageUrlProducer==null ) { return null; }
+        return nextPageUrlProducer instanceof IRemainingPageUrlsProducer
+                ? new RemainingPageRequestsProducer(unirest, (IRemainingPageUrlsProducer)nextPageUrlProducer)
+                : new NextPageRequestProducer(unirest, nextPageUrlProducer);
+    }
+    
+    /**
+     * Execute the given request and any subsequent page requests produced by the given
+     * {@link INextPageRequestProducer}, passing each response to the given consumer on
+     * the calling thread, in page order. To overlap network I/O with response processing,
+     * the request for the next page is executed on a background thread while the current
+     * page is being processed by the given consumer; at most one page is loaded ahead
+     * of the page currently being processed. As such, the given {@link INextPageRequestProducer}
+     * must only depend on the given response, not on any state updated by the consumer.
+     * If the given {@link INextPageRequestProducer} implements {@link IRemainingPageRequestsProducer} 
+     * and is able to produce requests for all remaining pages, these are loaded through 
+     * {@link #loadConcurrently(List, Consumer)}. 
+     * @param originalRequest
+     * @param nextPageRequestProducer
+     * @param consumer
+     */
+    public static final void processPages(HttpRequest<?> originalRequest, INextPageRequestProducer nextPageRequestProducer, Consumer<HttpResponse<JsonNode>> consumer) {
+        ExecutorService executor = Executors.newSingleThreadExecutor(PagingHelper::createDaemonThread);
+        try {
+            HttpResponse<JsonNode> response = originalRequest.asObject(JsonNode.class);
+            while ( response!=null ) {
+                var remainingRequests = getRemainingPageRequests(originalRequest, response, nextPageRequestProducer);
+                if ( remainingRequests!=null ) {
+                    consumer.accept(response);
+                    loadConcurrently(remainingRequests, consumer);
+                    response = null;
+                } else {
+                    var nextRequest = nextPageRequestProducer.getNextPageRequest(originalRequest, response);
+                    Future<HttpResponse<JsonNode>> nextResponse = nextRequest==null 
+                            ? null 
+                            : executor.submit(()->nextRequest.asObject(JsonNode.class));
+                    consumer.accept(response);
+                    response = nextResponse==null ? null : getResponse(nextResponse);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Get the requests for all remaining pages if the given {@link INextPageRequestProducer}
+     * implements {@link IRemainingPageRequestsProducer}, or null otherwise. 
+     */
+    private static final List<HttpRequest<?>> getRemainingPageRequests(HttpRequest<?> originalRequest, HttpResponse<JsonNode> response, INextPageRequestProducer nextPageRequestProducer) {
+        return nextPageRequestProducer instanceof IRemainingPageRequestsProducer
+                ? ((IRemainingPageRequestsProducer)nextPageRequestProducer).getRemainingPageRequests(originalRequest, response)
+                : null;
+    }
+    
+    /**
+     * Execute the given requests concurrently on a bounded thread pool, passing the
+     * responses to the given consumer in the same order as the given requests. The 
+     * number of threads defaults to {@value #DEFAULT_PAGING_THREADS}, and can be
+     * configured through the {@value #ENVNAME_PAGING_THREADS} environment variable.
+     * To keep memory usage bounded, at most twice the number of threads requests 
+     * will be executed ahead of the response currently being consumed. Any exception
+     * thrown while executing a request will be rethrown on the calling thread.
+     * @param requests
+     * @param consumer
+     */
+    public static final void loadConcurrently(List<HttpRequest<?>> requests, Consumer<HttpResponse<JsonNode>> consumer) {
+        int threads = getPagingThreads();
+        if ( threads<=1 || requests.size()<=1 ) {
+            requests.forEach(r->consumer.accept(r.asObject(JsonNode.class)));
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, requests.size()), PagingHelper::createDaemonThread);
+            try {
+                Deque<Future<HttpResponse<JsonNode>>> pending = new ArrayDeque<>();
+                Iterator<HttpRequest<?>> iterator = requests.iterator();
+                while ( iterator.hasNext() || !pending.isEmpty() ) {
+                    while ( iterator.hasNext() && pending.size()<threads*2 ) {
+                        HttpRequest<?> request = iterator.next();
+                        pending.add(executor.submit(()->request.asObject(JsonNode.class)));
+                    }
+                    consumer.accept(getResponse(pending.poll()));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+    
+    private static final HttpResponse<JsonNode> getResponse(Future<HttpResponse<JsonNode>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading pages", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException ) { throw (RuntimeException)cause; }
+            throw new IllegalStateException("Error loading page", cause);
+        }
+    }
+    
+    private static final Thread createDaemonThread(Runnable runnable) {
+        Thread result = new Thread(runnable, "fcli-paging");
+        result.setDaemon(true);
+        return result;
+    }
+    
+    private static final int getPagingThreads() {
+        Integer result = EnvHelper.asInteger(EnvHelper.env(ENVNAME_PAGING_THREADS));
+        return result==null ? DEFAULT_PAGING_THREADS : result;
+    }
+    
+    /**
+     * {@link Iterator} implementation that lazily loads pages. The next page request is
+     * only produced when {@link #hasNext()} is called, i.e., after the previous page 
+     * has been processed.
+     */
+    private static final class PagedResponseIterator<R extends JsonNode> implements Iterator<HttpResponse<R>> {
+        private final HttpRequest<?> originalRequest;
+        private final INextPageRequestProducer nextPageRequestProducer;
+        private final Class<R> returnType;
+        private HttpRequest<?> nextRequest;
+        private HttpResponse<R> lastResponse;
+        
+        public PagedResponseIterator(HttpRequest<?> originalRequest, INextPageRequestProducer nextPageRequestProducer, Class<R> returnType) {
+            this.originalRequest = originalRequest;
+            this.nextPageRequestProducer = nextPageRequestProducer;
+            this.returnType = returnType;
+            this.nextRequest = originalRequest;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if ( nextRequest==null && lastResponse!=null ) {
+                nextRequest = nextPageRequestProducer.getNextPageRequest(originalRequest, lastResponse);
+                lastResponse = null;
+            }
+            return nextRequest!=null;
+        }
+        
+        @Override
+        public HttpResponse<R> next() {
+            if ( !hasNext() ) { throw new NoSuchElementException(); }
+            lastResponse = nextRequest.asObject(returnType);
+            nextRequest = null;
+            return lastResponse;
+        }
     }
     
     @RequiredArgsConstructor
-    private static final class NextPageRequestProducer implements INextPageRequestProducer {
+    private static class NextPageRequestProducer implements INextPageRequestProducer {
         private final UnirestInstance unirest;
         private final INextPageUrlProducer nextPageUrlProducer;
         
@@ -73,7 +242,7 @@ public class PagingHelper {
             return nextPageUrl==null ? null : nextPageRequest(request, nextPageUrl); 
         }
 
-        private HttpRequest<?> nextPageRequest(HttpRequest<?> originalRequest, String nextPageUrl) {
+        protected final HttpRequest<?> nextPageRequest(HttpRequest<?> originalRequest, String nextPageUrl) {
             HttpRequest<?> result = unirest.request(originalRequest.getHttpMethod().name(), nextPageUrl)
                     .socketTimeout(originalRequest.getSocketTimeout())
                     .connectTimeout(originalRequest.getConnectTimeout())
@@ -83,7 +252,22 @@ public class PagingHelper {
             }
             return result;
         }
+    }
+    
+    private static final class RemainingPageRequestsProducer extends NextPageRequestProducer implements IRemainingPageRequestsProducer {
+        private final IRemainingPageUrlsProducer remainingPageUrlsProducer;
         
+        public RemainingPageRequestsProducer(UnirestInstance unirest, IRemainingPageUrlsProducer remainingPageUrlsProducer) {
+            super(unirest, remainingPageUrlsProducer);
+            this.remainingPageUrlsProducer = remainingPageUrlsProducer;
+        }
         
+        @Override
+        public List<HttpRequest<?>> getRemainingPageRequests(HttpRequest<?> request, HttpResponse<? extends JsonNode> jsonResponse) {
+            var remainingPageUrls = remainingPageUrlsProducer.getRemainingPageUrls(request, jsonResponse);
+            return remainingPageUrls==null ? null : remainingPageUrls.stream()
+                    .map(url->nextPageRequest(request, url))
+                    .collect(Collectors.toList());
+        }
     }
 }
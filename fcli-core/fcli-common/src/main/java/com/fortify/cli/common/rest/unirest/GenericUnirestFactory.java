@@ -12,6 +12,7 @@
  *******************************************************************************/
 package com.fortify.cli.common.rest.unirest;
 
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Consumer;
@@ -28,6 +29,7 @@ import kong.unirest.jackson.JacksonObjectMapper;
 public final class GenericUnirestFactory {
     private static final Logger LOG = LoggerFactory.getLogger(GenericUnirestFactory.class);
     private static final ConcurrentMap<String, UnirestInstance> instances = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Object> configFingerprints = new ConcurrentHashMap<>();
     
     /**
      * Create a new {@link UnirestInstance}. Callers are responsible for closing the
@@ -58,11 +60,31 @@ public final class GenericUnirestFactory {
      * @return
      */
     public static final UnirestInstance getUnirestInstance(String key, Consumer<UnirestInstance> configurer) {
+        return getUnirestInstance(key, null, configurer);
+    }
+    
+    /**
+     * Get a {@link UnirestInstance} instance for the given key. If an instance
+     * for the given key doesn't exist yet, or if the existing instance was 
+     * configured for a different configuration fingerprint (as determined by
+     * {@link Object#equals(Object)}), a new instance will be created, and any 
+     * existing instance will be shut down. This allows for reusing instances
+     * and their connection pools across multiple fcli invocations within the same
+     * JVM, while still picking up any configuration changes like a session 
+     * having been re-created with different connection settings.
+     * @return
+     */
+    public static final synchronized UnirestInstance getUnirestInstance(String key, Object configFingerprint, Consumer<UnirestInstance> configurer) {
         UnirestInstance instance = instances.get(key);
+        if ( instance!=null && !Objects.equals(configFingerprints.get(key), configFingerprint) ) {
+            shutdown(key);
+            instance = null;
+        }
         if ( instance==null ) {
             instance = createUnirestInstance();
             if ( configurer!=null ) { configurer.accept(instance); }
             instances.put(key, instance);
+            if ( configFingerprint!=null ) { configFingerprints.put(key, configFingerprint); }
         }
         return instance;
     }
@@ -72,6 +94,7 @@ public final class GenericUnirestFactory {
     }
     
     public static final void shutdown(String key) {
+        configFingerprints.remove(key);
         UnirestInstance instance = instances.remove(key);
         if ( instance!=null ) {
             try {
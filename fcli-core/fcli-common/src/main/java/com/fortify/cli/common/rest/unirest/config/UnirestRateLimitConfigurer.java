@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.rest.unirest.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fortify.cli.common.util.StringUtils;
+
+import kong.unirest.Config;
+import kong.unirest.HttpRequest;
+import kong.unirest.HttpRequestSummary;
+import kong.unirest.HttpResponse;
+import kong.unirest.Interceptor;
+import kong.unirest.UnirestInstance;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This class allows for configuring rate limit handling on a {@link UnirestInstance},
+ * based on rate limit response headers like those returned by GitHub (X-RateLimit-Remaining and
+ * X-RateLimit-Reset) and GitLab (RateLimit-Remaining and RateLimit-Reset). If a response indicates 
+ * that no requests are remaining, any subsequent requests, potentially issued from multiple threads, 
+ * will be delayed until the rate limit reset time indicated by the reset header, which is expected 
+ * to contain an epoch timestamp in seconds.
+ */
+public class UnirestRateLimitConfigurer {
+    private static final Logger LOG = LoggerFactory.getLogger(UnirestRateLimitConfigurer.class);
+    
+    public static final void configure(UnirestInstance unirestInstance, String remainingHeaderName, String resetHeaderName) {
+        unirestInstance.config().interceptor(new RateLimitInterceptor(remainingHeaderName, resetHeaderName));
+    }
+    
+    @RequiredArgsConstructor
+    private static final class RateLimitInterceptor implements Interceptor {
+        private final String remainingHeaderName;
+        private final String resetHeaderName;
+        private final AtomicLong resetTimeMillis = new AtomicLong(0);
+        
+        @Override
+        public void onRequest(HttpRequest<?> request, Config config) {
+            long sleepMillis = resetTimeMillis.get()-System.currentTimeMillis();
+            if ( sleepMillis>0 ) {
+                LOG.info("Rate limit reached, waiting {} seconds before sending request to {}", sleepMillis/1000, request.getUrl());
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for rate limit reset", e);
+                }
+            }
+        }
+        
+        @Override
+        public void onResponse(HttpResponse<?> response, HttpRequestSummary request, Config config) {
+            String remaining = response.getHeaders().getFirst(remainingHeaderName);
+            String reset = response.getHeaders().getFirst(resetHeaderName);
+            if ( StringUtils.isNotBlank(remaining) && "0".equals(remaining.trim()) && StringUtils.isNotBlank(reset) ) {
+                try {
+                    // Add one second to compensate for clock differences and rounding
+                    long newResetTimeMillis = (Long.parseLong(reset.trim())+1)*1000;
+                    resetTimeMillis.accumulateAndGet(newResetTimeMillis, Math::max);
+                } catch ( NumberFormatException e ) {
+                    LOG.debug("Ignoring invalid {} header value: {}", resetHeaderName, reset);
+                }
+            }
+        }
+    }
+}
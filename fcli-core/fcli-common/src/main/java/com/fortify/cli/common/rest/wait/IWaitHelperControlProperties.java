@@ -18,5 +18,6 @@ public interface IWaitHelperControlProperties {
     WaitUnknownOrFailureStateAction getOnUnknownState();
     WaitTimeoutAction getOnTimeout();
     String getIntervalPeriod();
+    String getMaxIntervalPeriod();
     String getTimeoutPeriod();
 }
@@ -12,15 +12,21 @@
  *******************************************************************************/
 package com.fortify.cli.common.rest.wait;
 
-import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -33,6 +39,8 @@ import com.fortify.cli.common.rest.wait.WaitType.AnyOrAll;
 import com.fortify.cli.common.rest.wait.WaitType.LoopType;
 import com.fortify.cli.common.util.DateTimePeriodHelper;
 import com.fortify.cli.common.util.DateTimePeriodHelper.Period;
+import com.fortify.cli.common.util.EnvHelper;
+import com.fortify.cli.common.util.StringUtils;
 
 import kong.unirest.UnirestInstance;
 import lombok.Builder;
@@ -41,7 +49,11 @@ import lombok.Getter;
 @Builder
 public class WaitHelper {
     private static final DateTimePeriodHelper periodHelper = DateTimePeriodHelper.byRange(Period.SECONDS, Period.DAYS);
+    private static final String ENVNAME_WAIT_THREADS = "FCLI_WAIT_THREADS";
+    private static final int DEFAULT_WAIT_THREADS = 4;
     private final Function<UnirestInstance, Collection<JsonNode>> recordsSupplier;
+    /** Optional function for re-fetching a single, previously loaded record; if not configured, all records are re-loaded through {@link #recordsSupplier} on every poll */
+    private final BiFunction<UnirestInstance, ObjectNode, JsonNode> recordRefresher;
     private final Function<JsonNode, String> currentState;
     private final Function<JsonNode, JsonNode> recordTransformer;
     private final String[] knownStates;
@@ -52,10 +64,13 @@ public class WaitHelper {
     @Builder.Default private final WaitUnknownOrFailureStateAction onUnknownState = WaitUnknownOrFailureStateAction.fail;
     @Builder.Default private final WaitTimeoutAction onTimeout = WaitTimeoutAction.fail;
     private final String intervalPeriod;
+    private final String maxIntervalPeriod;
     private final String timeoutPeriod;
     private final IWaitHelperProgressMonitor progressMonitor;
     private final Consumer<Map<ObjectNode, WaitStatus>> onFinish; 
     private final WaitType waitType;
+    /** Clock used for scheduling polls and evaluating the time-out; only overridden by tests */
+    @Builder.Default private final IWaitClock clock = IWaitClock.SYSTEM;
     @Getter private final Map<ObjectNode, WaitStatus> result = new LinkedHashMap<>(); 
     
     public static final ArrayNode plainRecordsAsArrayNode(Map<ObjectNode, WaitStatus> recordsWithWaitStatus) {
@@ -80,21 +95,20 @@ public class WaitHelper {
         if ( result.size()>0 ) {
             throw new RuntimeException("Only one of the public wait methods may be invoked with a non-empty set of states");
         }
-        long intervalMillis = periodHelper.parsePeriodToMillis(intervalPeriod);
-        OffsetDateTime timeout = periodHelper.getCurrentOffsetDateTimePlusPeriod(timeoutPeriod);
-        Map<ObjectNode, String> recordsWithCurrentState = getRecordsWithCurrentState(unirest);
-        Map<ObjectNode, WaitStatus> recordsWithWaitStatus = evaluator.getWaitStatuses(recordsWithCurrentState);
+        PollScheduler scheduler = new PollScheduler(intervalPeriod, maxIntervalPeriod);
+        long timeoutMillis = clock.currentTimeMillis()+periodHelper.parsePeriodToMillis(timeoutPeriod);
+        List<RecordTracker> trackers = loadTrackers(unirest, evaluator, scheduler, null);
+        Map<ObjectNode, WaitStatus> recordsWithWaitStatus = getWaitStatuses(trackers);
         updateProgress(recordsWithWaitStatus);
+        ExecutorService executor = recordRefresher==null ? null : Executors.newFixedThreadPool(getWaitThreads(), WaitHelper::createDaemonThread);
         try {
             boolean continueWait = true;
-            while ( timeout.isAfter(OffsetDateTime.now()) && (continueWait = continueWait(recordsWithWaitStatus, anyOrAll)) ) {
-                try {
-                    Thread.sleep(intervalMillis);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException("Wait operation interrupted", e);
-                }
-                recordsWithCurrentState = getRecordsWithCurrentState(unirest);
-                recordsWithWaitStatus = evaluator.getWaitStatuses(recordsWithCurrentState);
+            while ( timeoutMillis>clock.currentTimeMillis() && (continueWait = continueWait(recordsWithWaitStatus, anyOrAll)) ) {
+                sleepUntilNextPoll(trackers, scheduler, timeoutMillis);
+                trackers = executor==null 
+                        ? loadTrackers(unirest, evaluator, scheduler, trackers)
+                        : refreshTrackers(unirest, evaluator, scheduler, trackers, executor);
+                recordsWithWaitStatus = getWaitStatuses(trackers);
                 updateProgress(recordsWithWaitStatus);
             }
             if ( continueWait && onTimeout==WaitTimeoutAction.fail ) {
@@ -102,6 +116,7 @@ public class WaitHelper {
                 throw new IllegalStateException("Time-out exceeded");
             }
         } finally {
+            if ( executor!=null ) { executor.shutdownNow(); }
             result.putAll(recordsWithWaitStatus);
             finishProgressMonitoring(recordsWithWaitStatus);
             if ( onFinish!=null ) {
@@ -134,34 +149,109 @@ public class WaitHelper {
         }
     }
     
-    private final Map<ObjectNode, String> getRecordsWithCurrentState(UnirestInstance unirest) {
+    /**
+     * Load all records through the configured records supplier, and create a
+     * {@link RecordTracker} for each record. If previous trackers are given,
+     * all new trackers share a single back-off delay that is reset if any of 
+     * the record states has changed since the previous poll.
+     */
+    private final List<RecordTracker> loadTrackers(UnirestInstance unirest, StateEvaluator evaluator, PollScheduler scheduler, List<RecordTracker> previousTrackers) {
         if ( recordsSupplier==null ) {
             throw new RuntimeException("No records supplier has been configured");
         }
-        Map<ObjectNode, String> nodesWithStatus = new LinkedHashMap<>();
+        List<RecordTracker> trackers = new ArrayList<>();
         for ( JsonNode record : recordsSupplier.apply(unirest) ) {
             if ( record instanceof ArrayNode ) {
-                addNodesWithStatus(nodesWithStatus, (ArrayNode)record);
+                record.forEach(node->trackers.add(new RecordTracker(evaluator, node)));
             } else {
-                addNodeWithStatus(nodesWithStatus, record);
+                trackers.add(new RecordTracker(evaluator, record));
             }
         }
-        return nodesWithStatus;
+        long delayMillis = previousTrackers==null || previousTrackers.isEmpty() || hasStateChanges(previousTrackers, trackers) 
+                ? scheduler.getIntervalMillis() 
+                : scheduler.getNextDelayMillis(previousTrackers.get(0).delayMillis);
+        trackers.forEach(t->t.schedule(delayMillis));
+        return trackers;
     }
-
-    private void addNodesWithStatus(Map<ObjectNode, String> nodesWithStatus, ArrayNode nodes) {
-        nodes.forEach(node->addNodeWithStatus(nodesWithStatus, node));
+    
+    /**
+     * Refresh all records that are due for polling and haven't reached the 
+     * {@link WaitStatus#WAIT_COMPLETE} status yet, using the configured record
+     * refresher. Records are refreshed concurrently on the given executor, with
+     * each record maintaining its own back-off delay. Record transformation and
+     * state evaluation are performed on the current thread.
+     */
+    private final List<RecordTracker> refreshTrackers(UnirestInstance unirest, StateEvaluator evaluator, PollScheduler scheduler, List<RecordTracker> trackers, ExecutorService executor) {
+        long now = clock.currentTimeMillis();
+        Map<RecordTracker, Future<JsonNode>> refreshedRecords = new LinkedHashMap<>();
+        for ( RecordTracker tracker : trackers ) {
+            if ( tracker.isPollable() && tracker.nextPollMillis<=now ) {
+                refreshedRecords.put(tracker, executor.submit(()->recordRefresher.apply(unirest, tracker.record)));
+            }
+        }
+        for ( Map.Entry<RecordTracker, Future<JsonNode>> entry : refreshedRecords.entrySet() ) {
+            RecordTracker tracker = entry.getKey();
+            String previousState = tracker.state;
+            tracker.update(evaluator, getRefreshedRecord(entry.getValue()));
+            tracker.schedule(Objects.equals(previousState, tracker.state) 
+                    ? scheduler.getNextDelayMillis(tracker.delayMillis) 
+                    : scheduler.getIntervalMillis());
+        }
+        return trackers;
     }
-
-    private final void addNodeWithStatus(Map<ObjectNode, String> nodesWithStatus, JsonNode node) {
-        if ( recordTransformer!=null ) {
-            node = recordTransformer.apply(node);
+    
+    private static final JsonNode getRefreshedRecord(Future<JsonNode> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Wait operation interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException ) { throw (RuntimeException)cause; }
+            throw new IllegalStateException("Error refreshing record", cause);
+        }
+    }
+    
+    private static final boolean hasStateChanges(List<RecordTracker> previousTrackers, List<RecordTracker> currentTrackers) {
+        if ( previousTrackers.size()!=currentTrackers.size() ) { return true; }
+        for ( int i = 0 ; i < currentTrackers.size() ; i++ ) {
+            if ( !Objects.equals(previousTrackers.get(i).state, currentTrackers.get(i).state) ) { return true; }
         }
-        if ( !(node instanceof ObjectNode) ) {
-            throw new RuntimeException("Cannot process node of type "+node.getClass().getName()+"; please report a bug");
+        return false;
+    }
+    
+    private final void sleepUntilNextPoll(List<RecordTracker> trackers, PollScheduler scheduler, long timeoutMillis) {
+        long nextPollMillis = trackers.stream()
+                .filter(RecordTracker::isPollable)
+                .mapToLong(t->t.nextPollMillis)
+                .min().orElse(clock.currentTimeMillis()+scheduler.getIntervalMillis());
+        long sleepMillis = Math.min(nextPollMillis, timeoutMillis)-clock.currentTimeMillis();
+        if ( sleepMillis>0 ) {
+            try {
+                clock.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Wait operation interrupted", e);
+            }
         }
-        String status = currentState.apply(node);
-        nodesWithStatus.put((ObjectNode)node, status);
+    }
+    
+    private static final Map<ObjectNode, WaitStatus> getWaitStatuses(List<RecordTracker> trackers) {
+        Map<ObjectNode, WaitStatus> result = new LinkedHashMap<>(trackers.size());
+        trackers.forEach(t->result.put(t.record, t.status));
+        return result;
+    }
+    
+    private static final Thread createDaemonThread(Runnable runnable) {
+        Thread result = new Thread(runnable, "fcli-wait");
+        result.setDaemon(true);
+        return result;
+    }
+    
+    private static final int getWaitThreads() {
+        Integer result = EnvHelper.asInteger(EnvHelper.env(ENVNAME_WAIT_THREADS));
+        return result==null || result<1 ? DEFAULT_WAIT_THREADS : result;
     }
     
     private final void updateProgress(Map<ObjectNode, WaitStatus> recordsWithWaitStatus) {
@@ -205,20 +295,14 @@ public class WaitHelper {
             checkRequestedStates();
         }
 
-        public Map<ObjectNode, WaitStatus> getWaitStatuses(Map<ObjectNode, String> nodesWithStatus) {
-            Map<ObjectNode, WaitStatus> result = new LinkedHashMap<ObjectNode, WaitHelper.WaitStatus>(nodesWithStatus.size());
-            for ( Map.Entry<ObjectNode, String> entry : nodesWithStatus.entrySet() ) {
-                ObjectNode node = entry.getKey(); 
-                String currentState = entry.getValue();
-                if ( failUnknownStateCheck(currentState) ) {
-                    result.put(node, WaitStatus.UNKNOWN_STATE_DETECTED);
-                } else if ( failFailureStateCheck(currentState) ) {
-                    result.put(node, WaitStatus.FAILURE_STATE_DETECTED);
-                } else {
-                    result.put(node, evaluatorType.isWaiting(statesSet, currentState) ? WaitStatus.WAITING : WaitStatus.WAIT_COMPLETE);
-                }
+        public WaitStatus getWaitStatus(String currentState) {
+            if ( failUnknownStateCheck(currentState) ) {
+                return WaitStatus.UNKNOWN_STATE_DETECTED;
+            } else if ( failFailureStateCheck(currentState) ) {
+                return WaitStatus.FAILURE_STATE_DETECTED;
+            } else {
+                return evaluatorType.isWaiting(statesSet, currentState) ? WaitStatus.WAITING : WaitStatus.WAIT_COMPLETE;
             }
-            return result;
         }
         
         private void checkRequestedStates() {
@@ -247,6 +331,96 @@ public class WaitHelper {
         }
     }
     
+    /**
+     * Tracks the current record, state and wait status for a single record,
+     * together with the back-off delay and next poll time for that record.
+     */
+    private final class RecordTracker {
+        private ObjectNode record;
+        private String state;
+        private WaitStatus status;
+        private long delayMillis;
+        private long nextPollMillis;
+        
+        public RecordTracker(StateEvaluator evaluator, JsonNode record) {
+            update(evaluator, record);
+        }
+        
+        public void update(StateEvaluator evaluator, JsonNode node) {
+            if ( recordTransformer!=null ) {
+                node = recordTransformer.apply(node);
+            }
+            if ( !(node instanceof ObjectNode) ) {
+                throw new RuntimeException("Cannot process node of type "+(node==null?"null":node.getClass().getName())+"; please report a bug");
+            }
+            this.record = (ObjectNode)node;
+            this.state = currentState.apply(node);
+            this.status = evaluator.getWaitStatus(state);
+        }
+        
+        public void schedule(long delayMillis) {
+            this.delayMillis = delayMillis;
+            this.nextPollMillis = clock.currentTimeMillis()+delayMillis;
+        }
+        
+        /**
+         * Records that have reached the {@link WaitStatus#WAIT_COMPLETE} status
+         * don't need to be polled anymore. 
+         */
+        public boolean isPollable() {
+            return status!=WaitStatus.WAIT_COMPLETE;
+        }
+    }
+    
+    /**
+     * Calculates poll delays. If no maximum interval has been configured, or if the 
+     * maximum interval doesn't exceed the regular interval, records are polled at a 
+     * fixed interval. Otherwise, the delay for records that didn't change state is 
+     * doubled on every poll until the maximum interval is reached, with some random
+     * jitter to avoid polling many records at exactly the same time. Delays never
+     * exceed the maximum interval.
+     */
+    static final class PollScheduler {
+        @Getter private final long intervalMillis;
+        private final long maxIntervalMillis;
+        
+        public PollScheduler(String intervalPeriod, String maxIntervalPeriod) {
+            this.intervalMillis = periodHelper.parsePeriodToMillis(intervalPeriod);
+            this.maxIntervalMillis = StringUtils.isBlank(maxIntervalPeriod) 
+                    ? intervalMillis 
+                    : Math.max(intervalMillis, periodHelper.parsePeriodToMillis(maxIntervalPeriod));
+        }
+        
+        public long getNextDelayMillis(long currentDelayMillis) {
+            if ( maxIntervalMillis<=intervalMillis ) { return intervalMillis; }
+            long delayMillis = Math.min(maxIntervalMillis, currentDelayMillis*2);
+            long jitterMillis = delayMillis/10;
+            return jitterMillis<=0 
+                    ? delayMillis 
+                    : Math.min(maxIntervalMillis, Math.max(intervalMillis, delayMillis-jitterMillis+ThreadLocalRandom.current().nextLong(2*jitterMillis+1)));
+        }
+    }
+    
+    /**
+     * Provides the current time and allows for sleeping until the next poll.
+     */
+    static interface IWaitClock {
+        static final IWaitClock SYSTEM = new IWaitClock() {
+            @Override
+            public long currentTimeMillis() {
+                return System.currentTimeMillis();
+            }
+            
+            @Override
+            public void sleep(long millis) throws InterruptedException {
+                Thread.sleep(millis);
+            }
+        };
+        
+        long currentTimeMillis();
+        void sleep(long millis) throws InterruptedException;
+    }
+    
     public static class WaitHelperBuilder {
         public WaitHelperBuilder currentStateProperty(String currentStateProperty) {
             this.currentState = node->JsonHelper.evaluateSpelExpression(node, currentStateProperty, String.class);
@@ -279,6 +453,7 @@ public class WaitHelper {
          */
         public WaitHelperBuilder controlProperties(IWaitHelperControlProperties controlProperties) {
             return intervalPeriod(controlProperties.getIntervalPeriod())
+                    .maxIntervalPeriod(controlProperties.getMaxIntervalPeriod())
                     .onFailureState(controlProperties.getOnFailureState())
                     .onTimeout(controlProperties.getOnTimeout())
                     .onUnknownState(controlProperties.getOnUnknownState())
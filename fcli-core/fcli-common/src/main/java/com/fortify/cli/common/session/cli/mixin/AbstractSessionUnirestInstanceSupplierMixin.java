@@ -26,7 +26,7 @@ public abstract class AbstractSessionUnirestInstanceSupplierMixin<D extends ISes
     public UnirestInstance getUnirestInstance() {
         D sessionDescriptor = getSessionDescriptor();
         String key = this.getClass().getName()+"/"+getSessionName();
-        return GenericUnirestFactory.getUnirestInstance(key, 
+        return GenericUnirestFactory.getUnirestInstance(key, sessionDescriptor,
                 u->configure(u, sessionDescriptor));
     }
     
@@ -18,6 +18,8 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -28,13 +30,32 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.formkiq.graalvm.annotations.Reflectable;
 import com.fortify.cli.common.json.JsonHelper;
 import com.fortify.cli.common.util.FcliDataHelper;
 
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.SneakyThrows;
 
+/**
+ * Base class for storing, loading and listing session descriptors. Session descriptors
+ * are stored in encrypted form, with decryption being relatively expensive due to key
+ * derivation. To minimize the number of decryption operations, this class:
+ * <ul>
+ *  <li>Caches decrypted session descriptors in memory for the lifetime of the process, 
+ *      keyed by session descriptor path and file version (last modified time and size), 
+ *      such that session descriptors updated by other fcli processes are reloaded.</li>
+ *  <li>Stores non-secret session summary data (name, type, URL, created and expiry dates)
+ *      in a separate plain-text index, allowing sessions to be listed without decrypting 
+ *      any session descriptor. Index entries are updated on every login and logout, and 
+ *      are regenerated from the encrypted session descriptor if missing or outdated.</li>
+ * </ul>
+ */
 public abstract class AbstractSessionHelper<T extends ISessionDescriptor> {
     private static final Logger LOG = LoggerFactory.getLogger(AbstractSessionHelper.class);
+    private static final ConcurrentMap<Path, CachedSessionDescriptor> sessionDescriptorCache = new ConcurrentHashMap<>();
     private ObjectMapper objectMapper = JsonHelper.getObjectMapper();
     
     @SneakyThrows // TODO Do we want to use SneakyThrows?
@@ -42,12 +63,11 @@ public abstract class AbstractSessionHelper<T extends ISessionDescriptor> {
         Path sessionDescriptorPath = getSessionDescriptorPath(sessionName);
         checkSessionExists(sessionName, failIfUnavailable);
         try {
-            String sessionDescriptorJson = FcliDataHelper.readSecuredFile(sessionDescriptorPath, failIfUnavailable);
-            T sessionDescriptor = sessionDescriptorJson==null ? null : objectMapper.readValue(sessionDescriptorJson, getSessionDescriptorType());
+            T sessionDescriptor = readSessionDescriptor(sessionDescriptorPath, failIfUnavailable);
             checkNonExpiredSessionAvailable(sessionName, failIfUnavailable, sessionDescriptor);
             return sessionDescriptor;
         } catch ( Exception e ) {
-            FcliDataHelper.deleteFile(sessionDescriptorPath, false);
+            deleteSessionFiles(sessionName, false);
             conditionalThrow(failIfUnavailable, ()->new IllegalStateException("Error reading session descriptor, please try logging in again", e));
             LOG.warn("Error reading session descriptor from {}; session descriptor has been deleted", sessionDescriptorPath);
             LOG.warn("Exception details: ", e);
@@ -57,13 +77,19 @@ public abstract class AbstractSessionHelper<T extends ISessionDescriptor> {
 
     @SneakyThrows // TODO Do we want to use SneakyThrows? 
     public final void save(String sessionName, T sessionDescriptor) {
+        Path sessionDescriptorPath = getSessionDescriptorPath(sessionName);
         String sessionDescriptorJson = objectMapper.writeValueAsString(sessionDescriptor);
-        FcliDataHelper.saveSecuredFile(getSessionDescriptorPath(sessionName), sessionDescriptorJson, true);
+        FcliDataHelper.saveSecuredFile(sessionDescriptorPath, sessionDescriptorJson, true);
+        String version = FcliDataHelper.getFileVersion(sessionDescriptorPath);
+        if ( version!=null ) {
+            sessionDescriptorCache.put(sessionDescriptorPath, new CachedSessionDescriptor(version, sessionDescriptor));
+            saveSessionSummaryIndexEntry(sessionName, version, sessionDescriptor);
+        }
     }
     
     @SneakyThrows // TODO Do we want to use SneakyThrows?
     public final void destroy(String sessionName) {
-        FcliDataHelper.deleteFile(getSessionDescriptorPath(sessionName), true);
+        deleteSessionFiles(sessionName, true);
     }
     
     public final boolean exists(String sessionName) {
@@ -108,16 +134,56 @@ public abstract class AbstractSessionHelper<T extends ISessionDescriptor> {
         return getSessionsDataPath().resolve(sessionName);
     }
     
+    private final Path getSessionSummaryIndexEntryPath(String sessionName) {
+        return FcliDataHelper.getFcliStatePath().resolve("session-summaries").resolve(getType()).resolve(sessionName);
+    }
+    
+    private T readSessionDescriptor(Path sessionDescriptorPath, boolean failIfUnavailable) throws Exception {
+        String version = FcliDataHelper.getFileVersion(sessionDescriptorPath);
+        if ( version==null ) {
+            sessionDescriptorCache.remove(sessionDescriptorPath);
+        } else {
+            CachedSessionDescriptor cached = sessionDescriptorCache.get(sessionDescriptorPath);
+            if ( cached!=null && version.equals(cached.getVersion()) ) {
+                return getSessionDescriptorType().cast(cached.getSessionDescriptor());
+            }
+        }
+        String sessionDescriptorJson = FcliDataHelper.readSecuredFile(sessionDescriptorPath, failIfUnavailable);
+        T sessionDescriptor = sessionDescriptorJson==null ? null : objectMapper.readValue(sessionDescriptorJson, getSessionDescriptorType());
+        if ( version!=null && sessionDescriptor!=null ) {
+            sessionDescriptorCache.put(sessionDescriptorPath, new CachedSessionDescriptor(version, sessionDescriptor));
+        }
+        return sessionDescriptor;
+    }
+    
+    private void deleteSessionFiles(String sessionName, boolean failOnError) {
+        Path sessionDescriptorPath = getSessionDescriptorPath(sessionName);
+        sessionDescriptorCache.remove(sessionDescriptorPath);
+        FcliDataHelper.deleteFile(getSessionSummaryIndexEntryPath(sessionName), false);
+        FcliDataHelper.deleteFile(sessionDescriptorPath, failOnError);
+    }
+    
     private SessionSummary getSessionSummary(String sessionName) {
+        String version = FcliDataHelper.getFileVersion(getSessionDescriptorPath(sessionName));
+        if ( version==null ) { return null; }
+        Path indexEntryPath = getSessionSummaryIndexEntryPath(sessionName);
+        SessionSummaryIndexEntry indexEntry = !FcliDataHelper.exists(indexEntryPath) 
+                ? null
+                : FcliDataHelper.readFile(indexEntryPath, SessionSummaryIndexEntry.class, false);
+        if ( indexEntry!=null && version.equals(indexEntry.getSessionDescriptorVersion()) ) {
+            return indexEntry.toSessionSummary();
+        }
+        // Index entry missing or outdated, for example if session was created by an older fcli version
         T sessionDescriptor = get(sessionName, false);
-        return sessionDescriptor==null ? null : 
-            SessionSummary.builder()
-                .name(sessionName)
-                .type(getType())
-                .url(sessionDescriptor.getUrlDescriptor())
-                .created(sessionDescriptor.getCreatedDate())
-                .expires(sessionDescriptor.getExpiryDate())
-                .build();
+        if ( sessionDescriptor==null ) { return null; }
+        return saveSessionSummaryIndexEntry(sessionName, version, sessionDescriptor).toSessionSummary();
+    }
+    
+    private SessionSummaryIndexEntry saveSessionSummaryIndexEntry(String sessionName, String version, T sessionDescriptor) {
+        SessionSummaryIndexEntry indexEntry = new SessionSummaryIndexEntry(version, sessionName, getType(), 
+                sessionDescriptor.getUrlDescriptor(), sessionDescriptor.getCreatedDate(), sessionDescriptor.getExpiryDate());
+        FcliDataHelper.saveFile(getSessionSummaryIndexEntryPath(sessionName), indexEntry, false);
+        return indexEntry;
     }
     
     private void conditionalThrow(boolean throwException, Supplier<RuntimeException> exceptionSupplier) {
@@ -146,4 +212,31 @@ public abstract class AbstractSessionHelper<T extends ISessionDescriptor> {
     public abstract String getType();
     
     protected abstract Class<T> getSessionDescriptorType();
+    
+    @Data
+    private static final class CachedSessionDescriptor {
+        private final String version;
+        private final Object sessionDescriptor;
+    }
+    
+    /**
+     * Plain-text session summary index entry; this class must never hold any
+     * secret session data.
+     */
+    @Reflectable @Data @NoArgsConstructor @AllArgsConstructor
+    private static final class SessionSummaryIndexEntry {
+        private String sessionDescriptorVersion;
+        private String name;
+        private String type;
+        private String url;
+        private Date created;
+        private Date expires;
+        
+        public final SessionSummary toSessionSummary() {
+            return SessionSummary.builder()
+                    .name(name).type(type).url(url)
+                    .created(created).expires(expires)
+                    .build();
+        }
+    }
 }
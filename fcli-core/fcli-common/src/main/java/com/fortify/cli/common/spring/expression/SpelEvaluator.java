@@ -13,12 +13,17 @@
 package com.fortify.cli.common.spring.expression;
 
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.expression.AccessException;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.SimpleEvaluationContext;
 import org.springframework.format.datetime.standard.DateTimeFormatterRegistrar;
@@ -32,23 +37,70 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fortify.cli.common.json.JsonHelper;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
-@RequiredArgsConstructor
 public enum SpelEvaluator {
     JSON_GENERIC(createJsonGenericContext()),
     JSON_QUERY(createJsonQueryContext());
     
-    private static final SpelExpressionParser SPEL_PARSER = new SpelExpressionParser();
+    static final int MAX_CACHED_EXPRESSIONS = 1000;
+    private static final SpelExpressionParser SPEL_PARSER = new SpelExpressionParser(createParserConfiguration());
     @Getter private final EvaluationContext context;
+    private final Map<String, Expression> expressionCache = createExpressionCache();
+    
+    private SpelEvaluator(EvaluationContext context) {
+        this.context = context;
+    }
 
     public final <R> R evaluate(Expression expression, Object input, Class<R> returnClass) {
         return expression.getValue(context, input, returnClass);
     }
 
+    /**
+     * Evaluate the given expression string. Parsed expressions are cached (up to
+     * {@value #MAX_CACHED_EXPRESSIONS} expressions per {@link SpelEvaluator} instance),
+     * as the same expressions are usually evaluated repeatedly, for example once
+     * per output column per record.
+     */
     public final <R> R evaluate(String expression, Object input, Class<R> returnClass) {
-        return evaluate(SPEL_PARSER.parseExpression(expression), input, returnClass);
-    } 
+        return evaluate(parseExpression(expression), input, returnClass);
+    }
+    
+    /**
+     * Get the parsed {@link Expression} for the given expression string,
+     * either from cache or by parsing the expression string.
+     */
+    public final Expression parseExpression(String expression) {
+        return expressionCache.computeIfAbsent(expression, SPEL_PARSER::parseExpression);
+    }
+    
+    /**
+     * Create an LRU cache for parsed expressions
+     */
+    private static final Map<String, Expression> createExpressionCache() {
+        return Collections.synchronizedMap(new LinkedHashMap<String, Expression>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest) {
+                return size()>MAX_CACHED_EXPRESSIONS;
+            }
+        });
+    }
+    
+    /**
+     * Create the parser configuration. When running on a regular JVM, we use
+     * {@link SpelCompilerMode#MIXED} to allow SpEL to compile frequently evaluated
+     * expressions, falling back to interpreted mode for expressions or expression 
+     * nodes that cannot be compiled. As compilation requires runtime byte code 
+     * generation, compilation is disabled when running as a GraalVM native image.
+     */
+    private static final SpelParserConfiguration createParserConfiguration() {
+        boolean isNativeImage = System.getProperty("org.graalvm.nativeimage.imagecode")!=null;
+        return new SpelParserConfiguration(getCompilerMode(isNativeImage), SpelEvaluator.class.getClassLoader());
+    }
+    
+    static final SpelCompilerMode getCompilerMode(boolean isNativeImage) {
+        return isNativeImage ? SpelCompilerMode.OFF : SpelCompilerMode.MIXED;
+    }
     
     private static final EvaluationContext createJsonGenericContext() {
         SimpleEvaluationContext context = SimpleEvaluationContext
@@ -12,25 +12,119 @@
  *******************************************************************************/
 package com.fortify.cli.common.util;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
 
 import org.jasypt.encryption.pbe.StandardPBEStringEncryptor;
 import org.jasypt.iv.RandomIvGenerator;
 
-import lombok.RequiredArgsConstructor;
-
+/**
+ * This class provides encryption and decryption functionality for fcli data like 
+ * session descriptors and encrypted variables. Data is encrypted using chunked 
+ * AES-GCM, in the following single-line text format:
+ * <pre>fcli:v1:&lt;salt&gt;:&lt;chunk&gt;:&lt;chunk&gt;...</pre>
+ * The AES key for each encrypted text is derived from the given salt and a master
+ * key; the master key is derived from the (optionally user-supplied) encryption 
+ * password only once per process, avoiding expensive key derivation on every 
+ * encryption or decryption operation. Each chunk is Base64-encoded and consists 
+ * of a random nonce followed by the cipher text; the chunk index and a flag 
+ * indicating whether this is the last chunk are used as associated data, to 
+ * detect re-ordered, removed or truncated chunks.
+ * 
+ * Large data can be encrypted and decrypted without holding the full contents in
+ * memory using {@link EncryptWriter} and {@link DecryptReader}. For backward 
+ * compatibility, data encrypted by older fcli versions using jasypt can still be 
+ * decrypted.
+ */
 public class EncryptionHelper {
-    private static final StandardPBEStringEncryptor encryptor = createAES256TextEncryptor();
+    private static final String PREFIX = "fcli:v1:";
+    private static final char SEPARATOR = ':';
+    private static final int CHUNK_SIZE = 64*1024;
+    private static final int SALT_LENGTH = 16;
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final int KDF_ITERATIONS = 10000;
+    private static final byte[] KDF_SALT = "fcli-encryption-master-key".getBytes(StandardCharsets.UTF_8);
+    private static final SecureRandom secureRandom = new SecureRandom();
+    private static final StandardPBEStringEncryptor legacyEncryptor = createAES256TextEncryptor();
+    
     public static final String encrypt(String source) {
         if ( source==null ) { return null; }
-        return encryptor.encrypt(source);
+        StringWriter result = new StringWriter();
+        try ( EncryptWriter writer = new EncryptWriter(result) ) {
+            writer.write(source);
+        } catch ( IOException e ) {
+            throw new RuntimeException("Error encrypting data", e);
+        }
+        return result.toString();
     }
 
     public static final String decrypt(String source) {
         if ( source==null ) { return null; }
-        return encryptor.decrypt(source);
+        StringWriter result = new StringWriter();
+        try ( DecryptReader reader = new DecryptReader(new StringReader(source)) ) {
+            reader.transferTo(result);
+        } catch ( IOException e ) {
+            throw new RuntimeException("Error decrypting data", e);
+        }
+        return result.toString();
+    }
+    
+    private static final String decryptChunk(SecretKey key, int index, boolean last, byte[] chunk) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, chunk, 0, NONCE_LENGTH));
+        cipher.updateAAD(getAssociatedData(index, last));
+        return new String(cipher.doFinal(chunk, NONCE_LENGTH, chunk.length-NONCE_LENGTH), StandardCharsets.UTF_8);
+    }
+    
+    private static final byte[] encryptChunk(SecretKey key, int index, boolean last, String chunk) throws GeneralSecurityException {
+        byte[] nonce = randomBytes(NONCE_LENGTH);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, nonce));
+        cipher.updateAAD(getAssociatedData(index, last));
+        byte[] cipherText = cipher.doFinal(chunk.getBytes(StandardCharsets.UTF_8));
+        return ByteBuffer.allocate(nonce.length+cipherText.length).put(nonce).put(cipherText).array();
+    }
+    
+    private static final byte[] getAssociatedData(int index, boolean last) {
+        return ByteBuffer.allocate(5).putInt(index).put((byte)(last ? 1 : 0)).array();
+    }
+    
+    private static final SecretKey deriveKey(byte[] salt) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(MasterKeyHolder.MASTER_KEY);
+        return new SecretKeySpec(mac.doFinal(salt), "AES");
+    }
+    
+    private static final byte[] randomBytes(int length) {
+        byte[] result = new byte[length];
+        secureRandom.nextBytes(result);
+        return result;
+    }
+    
+    private static final String encode(byte[] bytes) {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+    
+    private static final byte[] decode(String s) {
+        return Base64.getDecoder().decode(s);
     }
     
     private static final StandardPBEStringEncryptor createAES256TextEncryptor() {
@@ -47,16 +141,186 @@ public class EncryptionHelper {
         return userPassword+"ds$%YTjdwaf#$47672dfdsGVFDa";
     }
     
-    @RequiredArgsConstructor
-    // TODO Can we optimize this to not buffer the full contents before encrypting and writing the output?
-    public static final class EncryptWriter extends StringWriter {
+    /**
+     * Holder class for lazily deriving the master key on first use, 
+     * as key derivation is relatively expensive.
+     */
+    private static final class MasterKeyHolder {
+        private static final SecretKey MASTER_KEY = deriveMasterKey();
+        
+        private static final SecretKey deriveMasterKey() {
+            try {
+                PBEKeySpec spec = new PBEKeySpec(getEncryptPassword().toCharArray(), KDF_SALT, KDF_ITERATIONS, 256);
+                byte[] key = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA512").generateSecret(spec).getEncoded();
+                spec.clearPassword();
+                return new SecretKeySpec(key, "HmacSHA256");
+            } catch ( GeneralSecurityException e ) {
+                throw new IllegalStateException("Error initializing encryption key", e);
+            }
+        }
+    }
+    
+    /**
+     * {@link Writer} implementation that encrypts all data written to it, writing the
+     * encrypted data to the original {@link Writer} in chunks, without buffering the 
+     * full contents in memory. The final chunk is written when this writer is closed,
+     * so callers must always close this writer, for example using try-with-resources.
+     */
+    public static final class EncryptWriter extends Writer {
         private final Writer originalWriter;
+        private final byte[] salt = randomBytes(SALT_LENGTH);
+        private final StringBuilder buffer = new StringBuilder();
+        private SecretKey key;
+        private int chunkIndex = 0;
+        private boolean closed = false;
+        
+        public EncryptWriter(Writer originalWriter) {
+            this.originalWriter = originalWriter;
+        }
         
         @Override
-        public void close() throws IOException {
-            originalWriter.write(encrypt(getBuffer().toString()));
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            checkNotClosed();
+            buffer.append(cbuf, off, len);
+            while ( buffer.length()>CHUNK_SIZE ) {
+                // Avoid splitting surrogate pairs across chunks
+                int length = Character.isHighSurrogate(buffer.charAt(CHUNK_SIZE-1)) ? CHUNK_SIZE-1 : CHUNK_SIZE;
+                writeChunk(buffer.substring(0, length), false);
+                buffer.delete(0, length);
+            }
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            // We don't write partial chunks on flush, to avoid large numbers of small chunks
             originalWriter.flush();
-            originalWriter.close();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if ( !closed ) {
+                writeChunk(buffer.toString(), true);
+                buffer.setLength(0);
+                closed = true;
+                originalWriter.flush();
+                originalWriter.close();
+            }
+        }
+        
+        private void writeChunk(String chunk, boolean last) throws IOException {
+            try {
+                if ( key==null ) {
+                    key = deriveKey(salt);
+                    originalWriter.write(PREFIX+encode(salt));
+                }
+                originalWriter.write(SEPARATOR);
+                originalWriter.write(encode(encryptChunk(key, chunkIndex++, last, chunk)));
+            } catch ( GeneralSecurityException e ) {
+                throw new IOException("Error encrypting data", e);
+            }
+        }
+        
+        private void checkNotClosed() throws IOException {
+            if ( closed ) { throw new IOException("Writer has already been closed"); }
+        }
+    }
+    
+    /**
+     * {@link Reader} implementation that decrypts data read from the original {@link Reader},
+     * decrypting one chunk at a time, without buffering the full contents in memory. Data 
+     * encrypted by older fcli versions using jasypt is fully read and decrypted on first
+     * read. An {@link IOException} is thrown if the encrypted data is invalid, or if any 
+     * chunks have been modified, re-ordered, removed or truncated.
+     */
+    public static final class DecryptReader extends Reader {
+        private final Reader originalReader;
+        private Reader legacyReader;
+        private SecretKey key;
+        private int chunkIndex = 0;
+        private boolean eof = false;
+        private String chunk = "";
+        private int chunkPosition = 0;
+        
+        public DecryptReader(Reader originalReader) {
+            this.originalReader = originalReader instanceof BufferedReader || originalReader instanceof StringReader
+                    ? originalReader 
+                    : new BufferedReader(originalReader);
+        }
+        
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if ( key==null && legacyReader==null ) { initialize(); }
+            if ( legacyReader!=null ) { return legacyReader.read(cbuf, off, len); }
+            if ( len==0 ) { return 0; }
+            while ( chunkPosition>=chunk.length() ) {
+                if ( !readChunk() ) { return -1; }
+            }
+            int length = Math.min(len, chunk.length()-chunkPosition);
+            chunk.getChars(chunkPosition, chunkPosition+length, cbuf, off);
+            chunkPosition += length;
+            return length;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            originalReader.close();
+        }
+        
+        private void initialize() throws IOException {
+            char[] prefix = new char[PREFIX.length()];
+            int length = 0;
+            while ( length<prefix.length ) {
+                int n = originalReader.read(prefix, length, prefix.length-length);
+                if ( n<0 ) { break; }
+                length += n;
+            }
+            String start = new String(prefix, 0, length);
+            if ( !PREFIX.equals(start) ) {
+                StringWriter legacySource = new StringWriter();
+                legacySource.write(start);
+                originalReader.transferTo(legacySource);
+                legacyReader = new StringReader(legacyEncryptor.decrypt(legacySource.toString()));
+            } else {
+                byte[] salt = decode(readToken());
+                if ( eof ) { throw new IOException("Invalid encrypted data"); }
+                try {
+                    key = deriveKey(salt);
+                } catch ( GeneralSecurityException e ) {
+                    throw new IOException("Error decrypting data", e);
+                }
+            }
+        }
+        
+        private boolean readChunk() throws IOException {
+            if ( eof ) { return false; }
+            byte[] encryptedChunk = decode(readToken());
+            if ( encryptedChunk.length<NONCE_LENGTH+TAG_LENGTH_BITS/8 ) {
+                throw new IOException("Invalid encrypted data");
+            }
+            try {
+                chunk = decryptChunk(key, chunkIndex++, eof, encryptedChunk);
+                chunkPosition = 0;
+                return true;
+            } catch ( GeneralSecurityException e ) {
+                throw new IOException("Error decrypting data", e);
+            }
+        }
+        
+        private String readToken() throws IOException {
+            StringBuilder result = new StringBuilder();
+            for ( int c = originalReader.read() ; c!=SEPARATOR ; c = originalReader.read() ) {
+                if ( c<0 ) { eof = true; break; }
+                if ( !Character.isWhitespace(c) ) { result.append((char)c); }
+            }
+            return result.toString();
+        }
+        
+        private static final byte[] decode(String s) throws IOException {
+            try {
+                return EncryptionHelper.decode(s);
+            } catch ( IllegalArgumentException e ) {
+                throw new IOException("Invalid encrypted data", e);
+            }
         }
     }
 }
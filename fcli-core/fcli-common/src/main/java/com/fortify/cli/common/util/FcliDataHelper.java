@@ -17,10 +17,13 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.util.Comparator;
 import java.util.stream.Stream;
@@ -29,6 +32,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fortify.cli.common.json.JsonHelper;
 
@@ -91,12 +95,31 @@ public class FcliDataHelper {
     }
     
     
+    /**
+     * Read and decrypt the given secured file. Contents are decrypted while reading the 
+     * file, so the encrypted file contents are never fully loaded into memory.
+     */
     @SuppressWarnings("unchecked")
     public static final <T> T readSecuredFile(Path relativePath, Class<T> returnType, boolean failOnError) {
-        String contents = EncryptionHelper.decrypt(readFile(relativePath, failOnError));
-        return String.class.isAssignableFrom(returnType) 
-                ? (T)contents 
-                : JsonHelper.jsonStringToValue(readSecuredFile(relativePath, failOnError), returnType);
+        final Path filePath = resolveFcliHomePath(relativePath);
+        Reader fileReader;
+        try {
+            fileReader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8);
+        } catch ( IOException e ) {
+            throwOrLog("Error reading file "+filePath, e, failOnError);
+            return null;
+        }
+        try ( Reader reader = new EncryptionHelper.DecryptReader(fileReader) ) {
+            if ( String.class.isAssignableFrom(returnType) ) {
+                StringWriter contents = new StringWriter();
+                reader.transferTo(contents);
+                return (T)contents.toString();
+            }
+            JsonNode contents = objectMapper.readTree(reader);
+            return contents==null || contents.isMissingNode() ? null : JsonHelper.treeToValue(contents, returnType);
+        } catch ( IOException e ) {
+            throw new RuntimeException("Error decrypting file "+filePath, e);
+        }
     }
     
     public static final void saveFile(Path relativePath, Object contents, boolean failOnError) {
@@ -163,6 +186,21 @@ public class FcliDataHelper {
         return Files.isReadable(filePath);
     }
     
+    /**
+     * Get the last modified time and size of the given file, or null if the
+     * file doesn't exist or cannot be accessed. This can be used to detect
+     * whether a file has been modified by another fcli process.
+     */
+    public static final String getFileVersion(Path relativePath) {
+        final Path filePath = resolveFcliHomePath(relativePath);
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(filePath, BasicFileAttributes.class);
+            return attrs.lastModifiedTime().toMillis()+"/"+attrs.size();
+        } catch ( IOException e ) {
+            return null;
+        }
+    }
+    
     public static final Stream<Path> listFilesInDir(Path relativePath, boolean failOnError) {
         Stream<Path> stream = listDir(relativePath, failOnError);
         return stream ==null ? null : stream.filter(Files::isRegularFile);
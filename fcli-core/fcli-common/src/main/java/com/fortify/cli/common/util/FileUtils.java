@@ -13,7 +13,6 @@
 package com.fortify.cli.common.util;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.CopyOption;
@@ -22,16 +21,26 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 import org.apache.commons.codec.digest.DigestUtils;
 
 // TODO For now, methods provided in this class are only used by the tools module,
 //      but potentially some methods or the full class could be moved to the common module.
 public final class FileUtils {
+    private static final String ENVNAME_EXTRACT_THREADS = "FCLI_EXTRACT_THREADS";
+    private static final int DEFAULT_MAX_EXTRACT_THREADS = 4;
     private FileUtils() {}
     
     public static final void copyResource(String resourcePath, Path destinationFilePath, CopyOption... options) {
@@ -77,11 +86,19 @@ public final class FileUtils {
         return hexString.toString();
     }
     
+    /**
+     * Extract the given zip file to the given target directory. Directories are created
+     * sequentially, after which file entries are extracted in parallel using random 
+     * access to the zip file; the number of threads can be configured through the 
+     * FCLI_EXTRACT_THREADS environment variable.
+     */
     public static final void extractZip(File zipFile, Path targetDir) throws IOException {
-        try (FileInputStream fis = new FileInputStream(zipFile); ZipInputStream zipIn = new ZipInputStream(fis)) {
-            for (ZipEntry ze; (ze = zipIn.getNextEntry()) != null; ) {
-                Path resolvedPath = targetDir.resolve(ze.getName()).normalize();
-                if (!resolvedPath.startsWith(targetDir.normalize())) {
+        Path normalizedTargetDir = targetDir.normalize();
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            List<Callable<Void>> extractTasks = new ArrayList<>();
+            for ( ZipEntry ze : Collections.list(zip.entries()) ) {
+                Path resolvedPath = normalizedTargetDir.resolve(ze.getName()).normalize();
+                if (!resolvedPath.startsWith(normalizedTargetDir)) {
                     // see: https://snyk.io/research/zip-slip-vulnerability
                     throw new RuntimeException("Entry with an illegal path: " + ze.getName());
                 }
@@ -89,12 +106,66 @@ public final class FileUtils {
                     Files.createDirectories(resolvedPath);
                 } else {
                     Files.createDirectories(resolvedPath.getParent());
-                    Files.copy(zipIn, resolvedPath);
+                    extractTasks.add(()->extractZipEntry(zip, ze, resolvedPath));
                 }
             }
+            invokeAll(extractTasks, getExtractThreads());
         }
     }
     
+    private static final Void extractZipEntry(ZipFile zip, ZipEntry ze, Path resolvedPath) throws IOException {
+        try ( InputStream in = zip.getInputStream(ze) ) {
+            Files.copy(in, resolvedPath);
+        }
+        return null;
+    }
+    
+    private static final void invokeAll(List<Callable<Void>> tasks, int threads) throws IOException {
+        if ( threads<2 || tasks.size()<2 ) {
+            for ( Callable<Void> task : tasks ) { call(task); }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()), FileUtils::createDaemonThread);
+        try {
+            for ( Future<Void> future : executor.invokeAll(tasks) ) {
+                future.get();
+            }
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting zip file", e);
+        } catch ( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if ( cause instanceof IOException ) { throw (IOException)cause; }
+            if ( cause instanceof RuntimeException ) { throw (RuntimeException)cause; }
+            throw new IOException("Error extracting zip file", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static final void call(Callable<Void> task) throws IOException {
+        try {
+            task.call();
+        } catch ( IOException | RuntimeException e ) {
+            throw e;
+        } catch ( Exception e ) {
+            throw new IOException("Error extracting zip file", e);
+        }
+    }
+    
+    private static final Thread createDaemonThread(Runnable runnable) {
+        Thread result = new Thread(runnable, "fcli-extract");
+        result.setDaemon(true);
+        return result;
+    }
+    
+    private static final int getExtractThreads() {
+        Integer result = EnvHelper.asInteger(EnvHelper.env(ENVNAME_EXTRACT_THREADS));
+        return result==null || result<1 
+                ? Math.min(DEFAULT_MAX_EXTRACT_THREADS, Runtime.getRuntime().availableProcessors()) 
+                : result;
+    }
+    
     public static final void deleteRecursive(Path installPath) throws IOException {
         try (Stream<Path> walk = Files.walk(installPath)) {
             walk.sorted(Comparator.reverseOrder())
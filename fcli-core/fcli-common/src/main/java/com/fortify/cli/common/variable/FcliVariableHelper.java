@@ -12,17 +12,29 @@
  *******************************************************************************/
 package com.fortify.cli.common.variable;
 
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -42,9 +54,12 @@ import lombok.SneakyThrows;
 
 // TODO This class could probably use some cleanup
 public final class FcliVariableHelper {
+    private static final Logger LOG = LoggerFactory.getLogger(FcliVariableHelper.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
     private static final Pattern variableNamePattern = Pattern.compile("^[a-zA-Z0-9_]+$");
     private static final Pattern variableReferencePattern = Pattern.compile("^(-{1,2}[\\-_a-zA-Z0-9]{1,}=){0,1}::([a-zA-Z0-9_]+)::(.*)$");
+    static final Pattern simplePropertyPathPattern = Pattern.compile("^(?:get\\((\\d{1,9})\\)\\.)?([a-zA-Z_][a-zA-Z0-9_]*(?:\\.[a-zA-Z_][a-zA-Z0-9_]*)*)$");
+    private static final ConcurrentMap<Path, CachedVariableContents> contentsCache = new ConcurrentHashMap<>();
     private FcliVariableHelper() {}
     
     @Data @EqualsAndHashCode(callSuper = true) @Builder 
@@ -79,20 +94,45 @@ public final class FcliVariableHelper {
         }
     }
     
-    @SneakyThrows // TODO Do we want to use SneakyThrows?
     public static final JsonNode getVariableContents(String variableName, boolean failIfUnavailable) {
         VariableDescriptor descriptor = getVariableDescriptor(variableName, failIfUnavailable);
-        if ( descriptor==null ) { return null; }
-        descriptor.setAccessed(new Date());
-        Path variablePath = getVariableContentsPathIfExists(variableName, failIfUnavailable);
+        JsonNode contents = descriptor==null ? null : getCachedVariableContents(descriptor, failIfUnavailable);
+        // Return a copy, as callers may modify the returned contents
+        return contents==null ? null : contents.deepCopy();
+    }
+    
+    /**
+     * Get the contents for the given {@link VariableDescriptor}. Parsed variable contents
+     * are cached for the lifetime of the process, keyed by contents path and file version,
+     * to avoid re-parsing variable contents that are referenced multiple times. As such, 
+     * callers must not modify the returned {@link JsonNode}.
+     */
+    @SneakyThrows // TODO Do we want to use SneakyThrows?
+    private static final JsonNode getCachedVariableContents(VariableDescriptor descriptor, boolean failIfUnavailable) {
+        Path variablePath = getVariableContentsPathIfExists(descriptor.getName(), failIfUnavailable);
+        Path cacheKey = FcliDataHelper.resolveFcliHomePath(variablePath);
+        String version = FcliDataHelper.getFileVersion(variablePath);
+        CachedVariableContents cached = version==null ? null : contentsCache.get(cacheKey);
+        if ( cached!=null && version.equals(cached.getVersion()) && cached.getContents()!=null ) {
+            updateAccessed(descriptor);
+            return cached.getContents();
+        }
         try {
-            String variableContents = FcliDataHelper.readFile(variablePath, failIfUnavailable);
-            if ( descriptor.encrypted ) {
-                variableContents = EncryptionHelper.decrypt(variableContents);
+            JsonNode contents = null;
+            if ( FcliDataHelper.isReadable(variablePath) ) {
+                try ( Reader reader = createVariableContentsReader(descriptor) ) {
+                    contents = objectMapper.readValue(reader, JsonNode.class);
+                }
+            }
+            updateAccessed(descriptor);
+            if ( version!=null && contents!=null ) {
+                contentsCache.put(cacheKey, new CachedVariableContents(version, contents));
+            } else {
+                contentsCache.remove(cacheKey);
             }
-            saveVariableDescriptor(descriptor);
-            return variableContents==null ? null : objectMapper.readValue(variableContents, JsonNode.class);
+            return contents;
         } catch ( Exception e ) {
+            contentsCache.remove(cacheKey);
             FcliDataHelper.deleteDir(variablePath.getParent(), true);
             conditionalThrow(failIfUnavailable, ()->new IllegalStateException("Error reading variable descriptor or contents, data has been deleted", e));
             // TODO Log warning message
@@ -100,10 +140,16 @@ public final class FcliVariableHelper {
         }
     }
     
+    private static final void updateAccessed(VariableDescriptor descriptor) {
+        descriptor.setAccessed(new Date());
+        saveVariableDescriptor(descriptor);
+    }
+    
     public static final VariableDescriptor save(String variableName, String defaultPropertyName, JsonNode variableContents, boolean singular, boolean encrypt) {
         checkVariableName(variableName);
         VariableDescriptor descriptor = createVariableDescriptor(variableName, defaultPropertyName, singular, encrypt);
         saveVariableContents(descriptor, variableContents);
+        invalidateCachedContents(variableName);
         return saveVariableDescriptor(descriptor);
     }
     
@@ -112,8 +158,9 @@ public final class FcliVariableHelper {
         checkVariableName(variableName);
         VariableDescriptor descriptor = createVariableDescriptor(variableName, defaultPropertyName, singular, encrypt);
         saveVariableDescriptor(descriptor);
+        invalidateCachedContents(variableName);
         VariableContentsWriter vcw = new VariableContentsWriter(getVariableContentsAbsolutePath(variableName).toString());
-        return encrypt ? new EncryptionHelper.EncryptWriter(vcw) : vcw;
+        return new CacheInvalidatingWriter(encrypt ? new EncryptionHelper.EncryptWriter(vcw) : vcw, variableName);
     }
     
     public static final String[] resolveVariables(String[] args) {
@@ -124,9 +171,9 @@ public final class FcliVariableHelper {
         Matcher matcher = variableReferencePattern.matcher(arg);
         if (matcher.matches()) {
             String variableName = matcher.group(2);
-            String propertyPath = getVariablePropertyPathOrDefault(variableName, matcher.group(3));
-            JsonNode contents = getVariableContents(variableName, true);
-            String value = JsonHelper.evaluateSpelExpression(contents, propertyPath, String.class);
+            VariableDescriptor descriptor = getVariableDescriptor(variableName, true);
+            String propertyPath = getVariablePropertyPathOrDefault(descriptor, matcher.group(3));
+            String value = resolveVariableProperty(descriptor, propertyPath);
             if ( value==null ) {
                 throw new IllegalArgumentException(String.format("Property path '%s' for variable '%s' resolves to null", propertyPath, variableName));
             }
@@ -135,11 +182,103 @@ public final class FcliVariableHelper {
         return arg;
     }
     
-    private static final String getVariablePropertyPathOrDefault(String variableName, String propertyPath) {
+    /**
+     * Resolve the given property path on the contents of the given variable. Resolved
+     * property values are cached for the lifetime of the process, keyed by contents path,
+     * file version and property path, such that repeated references to the same property 
+     * don't need to re-read the variable contents. If the variable contents haven't been
+     * fully parsed yet, simple property paths on unencrypted variables are resolved by 
+     * streaming through the variable contents. Encrypted variables are always fully parsed
+     * and cached instead, to avoid having to decrypt the variable contents on every
+     * reference to a property that hasn't been resolved yet.
+     */
+    private static final String resolveVariableProperty(VariableDescriptor descriptor, String propertyPath) {
+        Path variablePath = getVariableContentsRelativePath(descriptor.getName());
+        Path cacheKey = FcliDataHelper.resolveFcliHomePath(variablePath);
+        String version = FcliDataHelper.getFileVersion(variablePath);
+        CachedVariableContents cached = version==null ? null : contentsCache.get(cacheKey);
+        if ( cached!=null && !version.equals(cached.getVersion()) ) { cached = null; }
+        String value = cached==null ? null : cached.getPropertyValues().get(propertyPath);
+        if ( value==null && !descriptor.encrypted && (cached==null || cached.getContents()==null) ) {
+            value = resolveSimpleVariableProperty(descriptor, propertyPath);
+        }
+        if ( value!=null ) {
+            updateAccessed(descriptor);
+        } else {
+            JsonNode contents = getCachedVariableContents(descriptor, true);
+            value = JsonHelper.evaluateSpelExpression(contents, propertyPath, String.class);
+        }
+        cachePropertyValue(cacheKey, version, propertyPath, value);
+        return value;
+    }
+    
+    private static final void cachePropertyValue(Path cacheKey, String version, String propertyPath, String value) {
+        if ( version!=null && value!=null ) {
+            contentsCache.compute(cacheKey, (k,cached)->cached!=null && version.equals(cached.getVersion()) 
+                    ? cached : new CachedVariableContents(version, null))
+                .getPropertyValues().put(propertyPath, value);
+        }
+    }
+    
+    /**
+     * For simple property paths like 'id', 'a.b' or 'get(0).id', this method resolves 
+     * the property value by streaming through the variable contents, only parsing the 
+     * (single) record that contains the requested property, rather than parsing the full 
+     * variable contents that may contain many records. This method returns null if the
+     * property path is not supported, or if the property path doesn't resolve to a 
+     * non-null value node, in which case callers should fall back to evaluating the
+     * property path on the fully parsed variable contents.
+     */
+    private static final String resolveSimpleVariableProperty(VariableDescriptor descriptor, String propertyPath) {
+        Matcher matcher = simplePropertyPathPattern.matcher(propertyPath);
+        if ( !matcher.matches() ) { return null; }
+        try ( JsonParser parser = createVariableContentsParser(descriptor) ) {
+            JsonNode node = matcher.group(1)==null 
+                    ? readObject(parser) 
+                    : readArrayElement(parser, Integer.parseInt(matcher.group(1)));
+            for ( String propertyName : matcher.group(2).split("\\.") ) {
+                node = node==null ? null : node.get(propertyName);
+            }
+            return node!=null && node.isValueNode() && !node.isNull() ? node.asText() : null;
+        } catch ( Exception e ) {
+            LOG.debug("Error resolving property path "+propertyPath+" on variable "+descriptor.getName(), e);
+            return null;
+        }
+    }
+    
+    private static final JsonParser createVariableContentsParser(VariableDescriptor descriptor) throws IOException {
+        return objectMapper.getFactory().createParser(createVariableContentsReader(descriptor));
+    }
+    
+    /**
+     * Create a {@link Reader} for the contents of the given variable, decrypting 
+     * encrypted variable contents while reading.
+     */
+    private static final Reader createVariableContentsReader(VariableDescriptor descriptor) throws IOException {
+        Path variablePath = FcliDataHelper.resolveFcliHomePath(getVariableContentsRelativePath(descriptor.getName()));
+        Reader reader = Files.newBufferedReader(variablePath, StandardCharsets.UTF_8);
+        return descriptor.encrypted ? new EncryptionHelper.DecryptReader(reader) : reader;
+    }
+    
+    private static final JsonNode readObject(JsonParser parser) throws IOException {
+        return parser.nextToken()==JsonToken.START_OBJECT ? objectMapper.readTree(parser) : null;
+    }
+    
+    private static final JsonNode readArrayElement(JsonParser parser, int index) throws IOException {
+        if ( parser.nextToken()!=JsonToken.START_ARRAY ) { return null; }
+        for ( int i = 0 ; i < index ; i++ ) {
+            if ( parser.nextToken()==JsonToken.END_ARRAY ) { return null; }
+            parser.skipChildren();
+        }
+        JsonToken token = parser.nextToken();
+        return token==null || token==JsonToken.END_ARRAY ? null : objectMapper.readTree(parser);
+    }
+    
+    private static final String getVariablePropertyPathOrDefault(VariableDescriptor descriptor, String propertyPath) {
         if ( StringUtils.isNotBlank(propertyPath) ) { return propertyPath; }
-        String defaultPropertyName = getVariableDescriptor(variableName, true).getDefaultPropertyName();
+        String defaultPropertyName = descriptor.getDefaultPropertyName();
         if ( StringUtils.isNotBlank(defaultPropertyName) ) { return defaultPropertyName; }
-        throw new IllegalArgumentException("No property name specified for variable "+variableName+", and no default property name available");
+        throw new IllegalArgumentException("No property name specified for variable "+descriptor.getName()+", and no default property name available");
     }
     
     private static final void checkVariableName(String variableName) {
@@ -182,10 +321,23 @@ public final class FcliVariableHelper {
         if ( variableDirPath!=null ) {
             FcliDataHelper.deleteDir(variableDirPath, true);
         }
+        invalidateCachedContents(variableName);
     }
     
     public static final void delete(JsonNode variableDescriptor) {
-        delete(variableDescriptor.get("name").asText());
+        String variableName = variableDescriptor.get("name").asText();
+        delete(variableName);
+        invalidateCachedContents(variableName);
+    }
+    
+    /**
+     * Remove any cached contents and property values for the given variable. As cached
+     * contents are keyed by file version, which may not change if variable contents are
+     * rewritten with the same size within the file system timestamp granularity, this
+     * method must be called whenever variable contents are written or deleted.
+     */
+    private static final void invalidateCachedContents(String variableName) {
+        contentsCache.remove(FcliDataHelper.resolveFcliHomePath(getVariableContentsRelativePath(variableName)));
     }
     
     public static final boolean exists(String variableName) {
@@ -251,4 +403,37 @@ public final class FcliVariableHelper {
     private static final Path getVariableContentsAbsolutePath(String variableName) {
         return FcliDataHelper.getFcliHomePath().resolve(getVariableContentsRelativePath(variableName));
     }
+    
+    /**
+     * {@link Writer} wrapper that invalidates any cached contents for the given
+     * variable once the variable contents have been fully written.
+     */
+    private static final class CacheInvalidatingWriter extends FilterWriter {
+        private final String variableName;
+        
+        private CacheInvalidatingWriter(Writer writer, String variableName) {
+            super(writer);
+            this.variableName = variableName;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                invalidateCachedContents(variableName);
+            }
+        }
+    }
+    
+    /**
+     * Cached variable contents and resolved property values for a given contents
+     * file version. Contents may be null if only property values have been cached.
+     */
+    @Data
+    private static final class CachedVariableContents {
+        private final String version;
+        private final JsonNode contents;
+        private final ConcurrentMap<String, String> propertyValues = new ConcurrentHashMap<>();
+    }
 }
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors (“Open Text”) are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ */
+package com.fortify.cli.common.output.transform.flatten;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.common.output.transform.PropertyPathFormatter;
+
+public class FlattenTransformerTest {
+    private static final String RECORD1 = "{\"id\":1,\"issue_name\":\"X\",\"project\":{\"name\":\"p\",\"version\":{\"id\":3}},\"tags\":[\"a\",\"b\"],\"objs\":[{\"x\":1},{\"y\":[{\"z\":2}]}]}";
+    private static final String RECORD2 = "{\"id\":2,\"project\":{\"name\":\"q\"},\"extra\":\"e\",\"objs\":[{\"x\":5}]}";
+    private static final String EXPECTED1 = "{\"id\":1,\"issueName\":\"X\",\"projectName\":\"p\",\"projectVersionId\":3,\"tags\":\"a, b\",\"objs0X\":1,\"objs1Y0Z\":2}";
+    private static final String EXPECTED2 = "{\"id\":2,\"projectName\":\"q\",\"extra\":\"e\",\"objs0X\":5}";
+    
+    @Test
+    public void testReusedTransformerWithDifferentRecordStructures() throws Exception {
+        var transformer = new FlattenTransformer(PropertyPathFormatter::camelCase, ".", true);
+        // Run twice to verify that cached field names give the same results
+        for ( int i=0 ; i<2 ; i++ ) {
+            assertEquals(EXPECTED1, transformer.transformObjectNode(read(RECORD1)).toString());
+            assertEquals(EXPECTED2, transformer.transformObjectNode(read(RECORD2)).toString());
+        }
+    }
+    
+    @Test
+    public void testNestedArraysNotFlattened() throws Exception {
+        var transformer = new FlattenTransformer(PropertyPathFormatter::camelCase, ".", false);
+        assertEquals("{\"id\":2,\"projectName\":\"q\",\"extra\":\"e\"}", transformer.transformObjectNode(read(RECORD2)).toString());
+    }
+    
+    @Test
+    public void testCachedPathsLimitedForDynamicKeys() throws Exception {
+        var transformer = new FlattenTransformer(PropertyPathFormatter::camelCase, ".", true);
+        int recordCount = FlattenTransformer.MAX_CACHED_PATHS+500;
+        for ( int i=0 ; i<recordCount ; i++ ) {
+            var record = JsonHelper.getObjectMapper().createObjectNode().put("id", i);
+            record.putObject("byId").putObject("k"+i).put("name", "n"+i);
+            assertEquals("{\"id\":"+i+",\"byIdK"+i+"Name\":\"n"+i+"\"}", transformer.transformObjectNode(record).toString());
+        }
+        assertTrue(transformer.getCachedPathCount()<=FlattenTransformer.MAX_CACHED_PATHS, "Too many cached paths: "+transformer.getCachedPathCount());
+        // Previously cached and uncached paths should still give correct results
+        assertEquals(EXPECTED1, transformer.transformObjectNode(read(RECORD1)).toString());
+        assertEquals(EXPECTED2, transformer.transformObjectNode(read(RECORD2)).toString());
+    }
+    
+    private static final ObjectNode read(String json) throws Exception {
+        return (ObjectNode)JsonHelper.getObjectMapper().readTree(json);
+    }
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.output.writer.record.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.common.output.OutputFormat;
+import com.fortify.cli.common.output.writer.record.RecordWriterConfig;
+import com.fortify.cli.common.output.writer.record.binary.BinaryRecordWriter.BinaryType;
+
+public class BinaryRecordWriterTest {
+    private static final List<String> RECORDS = List.of(
+        "{\"id\":1,\"name\":\"first\",\"score\":1.5,\"nested\":{\"a\":[1,2],\"b\":{\"c\":true}}}",
+        "{\"id\":2,\"name\":\"multi\\nline\",\"large\":12345678901234,\"negative\":-0.25}",
+        "{\"id\":3,\"name\":null,\"empty\":{},\"list\":[],\"objects\":[{\"x\":1},{\"y\":\"z\"}]}"
+    );
+    
+    @ParameterizedTest
+    @EnumSource(BinaryType.class)
+    public void testRoundTrip(BinaryType binaryType) throws Exception {
+        var output = new ByteArrayOutputStream();
+        try ( var writer = new BinaryRecordWriter(binaryType, createConfig(output, binaryType)) ) {
+            getRecords().forEach(writer::writeRecord);
+        }
+        Assertions.assertEquals(getRecords(), read(binaryType, output.toByteArray()));
+    }
+    
+    @ParameterizedTest
+    @EnumSource(BinaryType.class)
+    public void testFlushAfterEveryPage(BinaryType binaryType) throws Exception {
+        var bytes = new ByteArrayOutputStream();
+        var output = new FlushCountingOutputStream(bytes);
+        var records = getRecords();
+        try ( var writer = new BinaryRecordWriter(binaryType, createConfig(output, binaryType)) ) {
+            writer.writeRecord(records.get(0));
+            writer.writeRecord(records.get(1));
+            writer.flush();
+            Assertions.assertEquals(1, output.flushCount);
+            Assertions.assertEquals(records.subList(0, 2), read(binaryType, bytes.toByteArray()));
+            writer.writeRecord(records.get(2));
+            writer.flush();
+            Assertions.assertEquals(2, output.flushCount);
+            Assertions.assertEquals(records, read(binaryType, bytes.toByteArray()));
+        }
+    }
+    
+    @ParameterizedTest
+    @EnumSource(BinaryType.class)
+    public void testNoOutputStream(BinaryType binaryType) {
+        try ( var writer = new BinaryRecordWriter(binaryType, createConfig(null, binaryType)) ) {
+            Assertions.assertThrows(IllegalStateException.class, ()->writer.writeRecord(getRecords().get(0)));
+        }
+    }
+    
+    private static final List<ObjectNode> read(BinaryType binaryType, byte[] bytes) throws IOException {
+        try ( var iterator = new ObjectMapper(createFactory(binaryType)).readerFor(ObjectNode.class).<ObjectNode>readValues(bytes) ) {
+            return iterator.readAll();
+        }
+    }
+    
+    private static final JsonFactory createFactory(BinaryType binaryType) {
+        return binaryType==BinaryType.SMILE ? new SmileFactory() : new CBORFactory();
+    }
+    
+    private static final RecordWriterConfig createConfig(OutputStream outputStream, BinaryType binaryType) {
+        return RecordWriterConfig.builder()
+                .outputStream(outputStream)
+                .outputFormat(binaryType==BinaryType.SMILE ? OutputFormat.smile : OutputFormat.cbor)
+                .messageResolver(keySuffix->null)
+                .build();
+    }
+    
+    private static final List<ObjectNode> getRecords() {
+        return RECORDS.stream().map(r->JsonHelper.jsonStringToValue(r, ObjectNode.class)).toList();
+    }
+    
+    private static final class FlushCountingOutputStream extends FilterOutputStream {
+        private int flushCount = 0;
+        
+        private FlushCountingOutputStream(OutputStream out) {
+            super(out);
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            flushCount++;
+            super.flush();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.output.writer.record.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.common.output.OutputFormat;
+import com.fortify.cli.common.output.writer.record.AbstractFormattedRecordWriter;
+import com.fortify.cli.common.output.writer.record.RecordWriterConfig;
+import com.fortify.cli.common.output.writer.record.csv.CsvRecordWriter.CsvType;
+
+public class CsvRecordWriterTest {
+    private static final String FIELDS = "id,name,active,score,tags,numbers,owner.name,nullable,missing";
+    private static final String[] RECORDS = {
+        "{\"id\":1,\"name\":\"first\",\"active\":true,\"score\":1.5,\"tags\":[\"a\",\"b\"],\"numbers\":[1,2],\"owner\":{\"name\":\"o1\"},\"nullable\":\"x\"}",
+        // Special characters, empty array, number array with single element
+        "{\"id\":2,\"name\":\"a, \\\"quoted\\\"\\nname\",\"active\":false,\"score\":2,\"tags\":[],\"numbers\":[3],\"owner\":{\"name\":\"o2\"},\"nullable\":null}",
+        // Arrays of objects and booleans, which are ignored by flattening
+        "{\"id\":3,\"name\":\"\\tthird\",\"active\":true,\"score\":-0.25,\"tags\":[{\"x\":1}],\"numbers\":[true,false],\"owner\":{\"name\":null,\"extra\":1}}",
+        // Nested object, which would be flattened into multiple fields by standard formatting
+        "{\"id\":4,\"name\":\"fourth\",\"active\":false,\"score\":4,\"tags\":[\"c\"],\"numbers\":[4.5,5],\"owner\":{\"name\":\"o4\"},\"nullable\":{\"a\":1,\"b\":[1,2]}}",
+        "{\"id\":5,\"name\":null,\"active\":null,\"score\":null,\"owner\":{\"name\":\"o5\"},\"nullable\":\"y\",\"missing\":\"not missing\"}",
+    };
+    
+    @Test
+    public void testDirectColumnOutput() {
+        var lines = write(OutputFormat.csv, CsvType.HEADERS, ',').split("\n");
+        Assertions.assertEquals("id,name,active,score,tags,numbers,ownerName,nullable,missing", lines[0]);
+        Assertions.assertEquals("1,first,true,1.5,\"a, b\",\"1, 2\",o1,x,N/A", lines[1]);
+        Assertions.assertEquals("2,\"a, \"\"quoted\"\"", lines[2]);
+        Assertions.assertEquals("name\",false,2,,3,o2,N/A,N/A", lines[3]);
+        Assertions.assertEquals("5,N/A,N/A,N/A,N/A,N/A,o5,y,\"not missing\"", lines[lines.length-1]);
+    }
+    
+    @ParameterizedTest
+    @EnumSource(CsvType.class)
+    public void testCsvOutputMatchesStandardFormatting(CsvType csvType) {
+        var format = csvType==CsvType.HEADERS ? OutputFormat.csv : OutputFormat.csv_plain;
+        Assertions.assertEquals(writeStandard(format, csvType, ','), write(format, csvType, ','));
+    }
+    
+    @ParameterizedTest
+    @EnumSource(CsvType.class)
+    public void testTsvOutputMatchesStandardFormatting(CsvType csvType) {
+        var format = csvType==CsvType.HEADERS ? OutputFormat.tsv : OutputFormat.tsv_plain;
+        var output = write(format, csvType, '\t');
+        Assertions.assertEquals(writeStandard(format, csvType, '\t'), output);
+        Assertions.assertTrue(output.contains("1\tfirst\ttrue\t1.5\t"));
+    }
+    
+    @Test
+    public void testGzipOutputMatchesPlainOutput() throws Exception {
+        var bytes = new ByteArrayOutputStream();
+        try ( var writer = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8) ) {
+            write(writer, OutputFormat.csv, CsvType.HEADERS, ',', FIELDS);
+        }
+        try ( var in = new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())) ) {
+            Assertions.assertEquals(writeStandard(OutputFormat.csv, CsvType.HEADERS, ','), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+    
+    /**
+     * Write all records through {@link CsvRecordWriter} with the configured output 
+     * fields, which writes all but the first record directly to the CSV generator.
+     */
+    private static final String write(OutputFormat format, CsvType csvType, char separator) {
+        var result = new StringWriter();
+        write(result, format, csvType, separator, FIELDS);
+        return result.toString();
+    }
+    
+    /**
+     * Write all records through standard formatting, by first formatting each
+     * record with the configured output fields, and then writing the formatted
+     * records through a {@link CsvRecordWriter} without configured output fields.
+     */
+    private static final String writeStandard(OutputFormat format, CsvType csvType, char separator) {
+        var formattedRecords = new ArrayList<ObjectNode>();
+        var formatter = new AbstractFormattedRecordWriter(createConfig(null, format, FIELDS)) {
+            @Override
+            protected void writeFormattedRecord(ObjectNode record) {
+                formattedRecords.add(record);
+            }
+        };
+        getRecords().forEach(formatter::writeRecord);
+        var result = new StringWriter();
+        try ( var writer = new CsvRecordWriter(csvType, separator, createConfig(result, format, null)) ) {
+            formattedRecords.forEach(writer::writeRecord);
+        }
+        return result.toString();
+    }
+    
+    private static final void write(Writer writer, OutputFormat format, CsvType csvType, char separator, String fields) {
+        try ( var recordWriter = new CsvRecordWriter(csvType, separator, createConfig(writer, format, fields)) ) {
+            getRecords().forEach(recordWriter::writeRecord);
+        }
+    }
+    
+    private static final RecordWriterConfig createConfig(Writer writer, OutputFormat format, String fields) {
+        return RecordWriterConfig.builder()
+                .writer(writer)
+                .outputFormat(format)
+                .options(fields)
+                .messageResolver(keySuffix->null)
+                .build();
+    }
+    
+    private static final List<ObjectNode> getRecords() {
+        var result = new ArrayList<ObjectNode>();
+        for ( var record : RECORDS ) {
+            result.add(JsonHelper.jsonStringToValue(record, ObjectNode.class));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.output.writer.record.ndjson;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.common.output.OutputFormat;
+import com.fortify.cli.common.output.writer.record.RecordWriterConfig;
+
+public class NdJsonRecordWriterTest {
+    private static final List<String> RECORDS = List.of(
+        "{\"id\":1,\"name\":\"first\",\"nested\":{\"a\":[1,2],\"b\":{\"c\":true}}}",
+        // Embedded newlines and other special characters must not break line framing
+        "{\"id\":2,\"name\":\"multi\\nline\\r\\nname\",\"text\":\"tab\\t\\\"quoted\\\"\"}",
+        "{\"id\":3,\"name\":null,\"empty\":{},\"list\":[]}"
+    );
+    
+    @Test
+    public void testLineFraming() {
+        var output = new StringWriter();
+        try ( var writer = new NdJsonRecordWriter(createConfig(output, OutputFormat.ndjson)) ) {
+            getRecords().forEach(writer::writeRecord);
+        }
+        var result = output.toString();
+        Assertions.assertTrue(result.endsWith("\n"), "Output should end with a newline");
+        var lines = result.split("\n");
+        Assertions.assertEquals(RECORDS.size(), lines.length);
+        for ( int i = 0 ; i < lines.length ; i++ ) {
+            Assertions.assertEquals(RECORDS.get(i), lines[i], "Record should be written as compact JSON on a single line");
+            Assertions.assertEquals(getRecords().get(i), JsonHelper.jsonStringToValue(lines[i], ObjectNode.class));
+        }
+    }
+    
+    @Test
+    public void testFlatOutput() {
+        var output = new StringWriter();
+        try ( var writer = new NdJsonRecordWriter(createConfig(output, OutputFormat.ndjson_flat)) ) {
+            writer.writeRecord(getRecords().get(0));
+        }
+        Assertions.assertEquals("{\"id\":1,\"name\":\"first\",\"nestedA\":\"1, 2\",\"nestedBC\":true}\n", output.toString());
+    }
+    
+    @Test
+    public void testFlushAfterEveryPage() {
+        var output = new FlushCountingWriter(new StringWriter());
+        var records = getRecords();
+        try ( var writer = new NdJsonRecordWriter(createConfig(output, OutputFormat.ndjson)) ) {
+            writer.writeRecord(records.get(0));
+            writer.writeRecord(records.get(1));
+            writer.flush();
+            Assertions.assertEquals(1, output.flushCount);
+            Assertions.assertEquals(String.join("\n", RECORDS.subList(0, 2))+"\n", output.toString());
+            writer.writeRecord(records.get(2));
+            writer.flush();
+            Assertions.assertEquals(2, output.flushCount);
+            Assertions.assertEquals(String.join("\n", RECORDS)+"\n", output.toString());
+        }
+    }
+    
+    @Test
+    public void testNoOutputWithoutRecords() {
+        var output = new StringWriter();
+        try ( var writer = new NdJsonRecordWriter(createConfig(output, OutputFormat.ndjson)) ) {
+            writer.flush();
+        }
+        Assertions.assertEquals("", output.toString());
+    }
+    
+    private static final RecordWriterConfig createConfig(Writer writer, OutputFormat format) {
+        return RecordWriterConfig.builder()
+                .writer(writer)
+                .outputFormat(format)
+                .messageResolver(keySuffix->null)
+                .build();
+    }
+    
+    private static final List<ObjectNode> getRecords() {
+        return RECORDS.stream().map(r->JsonHelper.jsonStringToValue(r, ObjectNode.class)).toList();
+    }
+    
+    private static final class FlushCountingWriter extends FilterWriter {
+        private int flushCount = 0;
+        
+        private FlushCountingWriter(Writer out) {
+            super(out);
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            flushCount++;
+            super.flush();
+        }
+        
+        @Override
+        public String toString() {
+            return out.toString();
+        }
+    }
+}
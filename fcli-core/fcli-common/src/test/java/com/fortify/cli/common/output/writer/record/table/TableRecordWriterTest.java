@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.output.writer.record.table;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.common.output.OutputFormat;
+import com.fortify.cli.common.output.transform.PropertyPathFormatter;
+import com.fortify.cli.common.output.writer.record.RecordWriterConfig;
+import com.fortify.cli.common.output.writer.record.table.TableRecordWriter.TableType;
+
+public class TableRecordWriterTest {
+    private static final String LOOKAHEAD_ROWS_PROPERTY = "fcli.env.FCLI_TABLE_LOOKAHEAD_ROWS";
+    private static final int LOOKAHEAD_ROWS = 3;
+    // First three names determine the column width; later names are not wider
+    private static final List<String> NAMES = List.of("a", "bbbbbb", "cc", "dd", "e", "ffffff", "g");
+    
+    @AfterEach
+    public void cleanup() {
+        System.clearProperty(LOOKAHEAD_ROWS_PROPERTY);
+    }
+    
+    @ParameterizedTest
+    @EnumSource(TableType.class)
+    public void testStreamedRowsMatchBufferedTable(TableType tableType) {
+        var expected = write(tableType, 0, NAMES);
+        Assertions.assertEquals(expected, write(tableType, LOOKAHEAD_ROWS, NAMES));
+        Assertions.assertEquals(NAMES.size()+(tableType==TableType.HEADERS ? 1 : 0), expected.lines().count());
+    }
+    
+    @ParameterizedTest
+    @EnumSource(TableType.class)
+    public void testRowCountMatchingLookAheadWindow(TableType tableType) {
+        var names = NAMES.subList(0, LOOKAHEAD_ROWS);
+        Assertions.assertEquals(write(tableType, 0, names), write(tableType, LOOKAHEAD_ROWS, names));
+    }
+    
+    @Test
+    public void testHeaderWiderThanValues() {
+        var names = List.of("a", "b", "c", "d");
+        Assertions.assertEquals(write(TableType.HEADERS, 0, names), write(TableType.HEADERS, 1, names));
+    }
+    
+    @Test
+    public void testRowsWiderThanLookAheadWindow() {
+        var wideName = "this-name-is-wider-than-all-names-in-the-look-ahead-window";
+        var names = List.of("a", "bbbbbb", "cc", "dd", wideName, "e");
+        var lines = write(TableType.HEADERS, LOOKAHEAD_ROWS, names).lines().toArray(String[]::new);
+        Assertions.assertEquals(names.size()+1, lines.length);
+        int valueColumnStart = lines[0].indexOf(PropertyPathFormatter.humanReadable("value"));
+        for ( int i = 0 ; i < names.size() ; i++ ) {
+            var line = lines[i+1];
+            Assertions.assertTrue(line.contains(names.get(i)), "Value not written as-is: "+line);
+            if ( wideName.equals(names.get(i)) ) {
+                // Wider value is written as-is, shifting the remaining columns for this row only
+                Assertions.assertTrue(line.indexOf("value"+i)>valueColumnStart, "Unexpected value column position: "+line);
+            } else {
+                Assertions.assertEquals(valueColumnStart, line.indexOf("value"+i), "Misaligned row: "+line);
+            }
+        }
+    }
+    
+    private static final String write(TableType tableType, int lookAheadRows, List<String> names) {
+        System.setProperty(LOOKAHEAD_ROWS_PROPERTY, String.valueOf(lookAheadRows));
+        var result = new StringWriter();
+        var config = RecordWriterConfig.builder()
+                .writer(result)
+                .outputFormat(tableType==TableType.HEADERS ? OutputFormat.table : OutputFormat.table_plain)
+                .messageResolver(keySuffix->null)
+                .build();
+        try ( var writer = new TableRecordWriter(tableType, config) ) {
+            for ( int i = 0 ; i < names.size() ; i++ ) {
+                writer.writeRecord(JsonHelper.getObjectMapper().createObjectNode()
+                        .put("name", names.get(i))
+                        .put("value", "value"+i));
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.rest.cli.cmd;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.common.output.cli.mixin.OutputHelperMixins;
+import com.fortify.cli.common.output.product.IProductHelper;
+import com.fortify.cli.common.rest.paging.INextPageUrlProducer;
+import com.fortify.cli.common.rest.unirest.GenericUnirestFactory;
+import com.fortify.cli.common.rest.unirest.IUnirestInstanceSupplier;
+import com.fortify.cli.common.util.StringUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import kong.unirest.UnirestInstance;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+
+public class AbstractRestCallCommandTest {
+    private final List<String> requestedUris = new ArrayList<>();
+    private HttpServer server;
+    private UnirestInstance unirest;
+    @TempDir private File tempDir;
+    
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/items", this::handle);
+        server.start();
+        unirest = GenericUnirestFactory.createUnirestInstance();
+        unirest.config().defaultBaseUrl("http://localhost:"+server.getAddress().getPort());
+    }
+    
+    @AfterEach
+    public void stopServer() {
+        unirest.close();
+        server.stop(0);
+    }
+    
+    @Test
+    public void testPagedCall() throws Exception {
+        var records = call("/items?page=1");
+        assertEquals(List.of("/items?page=1", "/items?page=2"), requestedUris);
+        assertEquals(3, records.size());
+        for ( int i=0 ; i<3 ; i++ ) {
+            assertEquals(i+1, records.get(i).get("id").asInt());
+        }
+    }
+    
+    @Test
+    public void testNoPagingCall() throws Exception {
+        var records = call("/items?page=1", "--no-paging");
+        assertEquals(List.of("/items?page=1"), requestedUris);
+        assertEquals(2, records.size());
+    }
+    
+    private JsonNode call(String uri, String... extraArgs) throws Exception {
+        var outputFile = new File(tempDir, "output.json");
+        var cmd = new TestRestCallCommand(new TestProductHelper(unirest));
+        var args = new ArrayList<>(List.of(uri, "-o", "json", "--to-file", outputFile.getAbsolutePath()));
+        args.addAll(List.of(extraArgs));
+        new CommandLine(cmd).parseArgs(args.toArray(String[]::new));
+        cmd.run();
+        return JsonHelper.getObjectMapper().readTree(outputFile);
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        var uri = exchange.getRequestURI().toString();
+        requestedUris.add(uri);
+        String body;
+        if ( uri.endsWith("page=1") ) {
+            exchange.getResponseHeaders().add("X-Next-Page", "/items?page=2");
+            body = "[{\"id\":1},{\"id\":2}]";
+        } else {
+            body = "[{\"id\":3}]";
+        }
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try ( var os = exchange.getResponseBody() ) {
+            os.write(bytes);
+        }
+    }
+    
+    @RequiredArgsConstructor
+    private static final class TestProductHelper implements IProductHelper, IUnirestInstanceSupplier {
+        @Getter private final UnirestInstance unirestInstance;
+    }
+    
+    @Command(name = OutputHelperMixins.RestCall.CMD_NAME)
+    @RequiredArgsConstructor
+    public static final class TestRestCallCommand extends AbstractRestCallCommand {
+        @Getter @Mixin private OutputHelperMixins.RestCall outputHelper;
+        @Getter private final TestProductHelper productHelper;
+        
+        @Override
+        protected INextPageUrlProducer _getNextPageUrlProducer() {
+            return (req, resp) -> {
+                var next = resp.getHeaders().getFirst("X-Next-Page");
+                return StringUtils.isBlank(next) ? null : next;
+            };
+        }
+        
+        @Override
+        protected JsonNode _transformInput(JsonNode input) {
+            return input;
+        }
+        
+        @Override
+        protected JsonNode _transformRecord(JsonNode input) {
+            return input;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors (“Open Text”) are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ */
+package com.fortify.cli.common.rest.github;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.common.rest.unirest.GenericUnirestFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import kong.unirest.UnirestInstance;
+
+public class GitHubGraphQLHelperTest {
+    private final List<JsonNode> requests = new ArrayList<>();
+    private HttpServer server;
+    private UnirestInstance unirest;
+    private String responseBody;
+    
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/graphql", this::handle);
+        server.start();
+        unirest = GenericUnirestFactory.createUnirestInstance();
+    }
+    
+    @AfterEach
+    public void stopServer() {
+        unirest.close();
+        server.stop(0);
+    }
+    
+    @ParameterizedTest
+    @CsvSource({
+        "https://api.github.com,https://api.github.com/graphql",
+        "https://api.github.com/,https://api.github.com/graphql",
+        "https://github.example.com/api/v3,https://github.example.com/api/graphql",
+        "https://github.example.com/api/v3/,https://github.example.com/api/graphql",
+    })
+    public void testGetGraphQLUrl(String apiUrl, String expected) {
+        assertEquals(expected, GitHubGraphQLHelper.getGraphQLUrl(apiUrl));
+    }
+    
+    @Test
+    public void testQuery() {
+        responseBody = "{\"data\":{\"rateLimit\":{\"cost\":1,\"remaining\":4999,\"resetAt\":\"2030-01-01T00:00:00Z\"},\"viewer\":{\"login\":\"test\"}}}";
+        var variables = JsonHelper.getObjectMapper().createObjectNode().put("x", "y");
+        var data = getHelper().query("query { viewer { login } }", variables);
+        assertEquals("test", data.path("viewer").path("login").asText());
+        assertEquals(1, requests.size());
+        assertEquals("query { viewer { login } }", requests.get(0).path("query").asText());
+        assertEquals("y", requests.get(0).path("variables").path("x").asText());
+    }
+    
+    @Test
+    public void testQueryErrors() {
+        responseBody = "{\"data\":null,\"errors\":[{\"message\":\"Error 1\"},{\"message\":\"Error 2\"}]}";
+        var e = assertThrows(IllegalStateException.class, ()->getHelper().query("query { x }", JsonHelper.getObjectMapper().createObjectNode()));
+        assertEquals("GitHub GraphQL query failed: Error 1; Error 2", e.getMessage());
+    }
+    
+    private GitHubGraphQLHelper getHelper() {
+        return new GitHubGraphQLHelper(unirest, "http://localhost:"+server.getAddress().getPort()+"/");
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try ( var is = exchange.getRequestBody() ) {
+            requests.add(JsonHelper.getObjectMapper().readTree(is));
+        }
+        var bytes = responseBody.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try ( var os = exchange.getResponseBody() ) {
+            os.write(bytes);
+        }
+    }
+}
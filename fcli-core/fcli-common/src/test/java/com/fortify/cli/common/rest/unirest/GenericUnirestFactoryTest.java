@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.rest.unirest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import kong.unirest.UnirestInstance;
+import lombok.Data;
+
+/**
+ * This test verifies that keyed {@link UnirestInstance} instances, and their
+ * pooled connections, are reused as long as the configuration fingerprint
+ * remains the same, and that a new instance with new connections is created
+ * once the fingerprint changes, for example because a session was re-created 
+ * with different connection settings. The stub server echoes the remote port 
+ * of the connection on which a request was received, together with the value 
+ * of a header configured on the {@link UnirestInstance}.
+ */
+public class GenericUnirestFactoryTest {
+    private static final String KEY = "test/session";
+    private HttpServer server;
+    private String url;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", this::handle);
+        server.start();
+        url = "http://localhost:"+server.getAddress().getPort()+"/echo";
+    }
+
+    @AfterEach
+    public void stopServer() {
+        GenericUnirestFactory.shutdown(KEY);
+        server.stop(0);
+    }
+
+    @Test
+    public void testInstanceReusedForEqualFingerprint() throws Exception {
+        var configurerInvocations = new AtomicInteger();
+        var first = GenericUnirestFactory.getUnirestInstance(KEY, new SessionConfig(url, "proxy1"), 
+                u->configure(u, "session1", configurerInvocations));
+        var firstResponse = get(first);
+        // Simulate next fcli invocation, loading an equal session configuration
+        var second = GenericUnirestFactory.getUnirestInstance(KEY, new SessionConfig(url, "proxy1"), 
+                u->configure(u, "session2", configurerInvocations));
+        var secondResponse = get(second);
+        assertSame(first, second);
+        assertEquals(1, configurerInvocations.get());
+        assertEquals("session1", header(secondResponse));
+        assertEquals(port(firstResponse), port(secondResponse), "Pooled connection not reused");
+    }
+
+    @Test
+    public void testInstanceRecreatedForChangedFingerprint() throws Exception {
+        var configurerInvocations = new AtomicInteger();
+        var first = GenericUnirestFactory.getUnirestInstance(KEY, new SessionConfig(url, "proxy1"), 
+                u->configure(u, "session1", configurerInvocations));
+        var firstResponse = get(first);
+        // Simulate next fcli invocation, after session was re-created with different proxy
+        var second = GenericUnirestFactory.getUnirestInstance(KEY, new SessionConfig(url, "proxy2"), 
+                u->configure(u, "session2", configurerInvocations));
+        var secondResponse = get(second);
+        assertNotSame(first, second);
+        assertEquals(2, configurerInvocations.get());
+        assertEquals("session2", header(secondResponse));
+        assertNotEquals(port(firstResponse), port(secondResponse), "Connection from previous instance reused");
+        // Any subsequent invocation with the same configuration reuses the new instance
+        assertSame(second, GenericUnirestFactory.getUnirestInstance(KEY, new SessionConfig(url, "proxy2"), 
+                u->configure(u, "session3", configurerInvocations)));
+        assertEquals(2, configurerInvocations.get());
+    }
+
+    @Test
+    public void testShutdownRemovesInstanceAndFingerprint() throws Exception {
+        var first = GenericUnirestFactory.getUnirestInstance(KEY, new SessionConfig(url, "proxy1"), null);
+        assertTrue(GenericUnirestFactory.hasUnirestInstance(KEY));
+        GenericUnirestFactory.shutdown();
+        assertFalse(GenericUnirestFactory.hasUnirestInstance(KEY));
+        var second = GenericUnirestFactory.getUnirestInstance(KEY, new SessionConfig(url, "proxy1"), null);
+        assertNotSame(first, second);
+    }
+
+    private static final void configure(UnirestInstance unirest, String headerValue, AtomicInteger configurerInvocations) {
+        configurerInvocations.incrementAndGet();
+        unirest.config().setDefaultHeader("X-Test-Session", headerValue);
+    }
+
+    private String get(UnirestInstance unirest) {
+        var response = unirest.get(url).asString();
+        assertEquals(200, response.getStatus());
+        return response.getBody();
+    }
+
+    private static final String port(String response) {
+        return response.split(" ", 2)[0];
+    }
+
+    private static final String header(String response) {
+        return response.split(" ", 2)[1];
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        var body = (exchange.getRemoteAddress().getPort()+" "+exchange.getRequestHeaders().getFirst("X-Test-Session"))
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(200, body.length);
+        try ( var os = exchange.getResponseBody() ) {
+            os.write(body);
+        }
+    }
+
+    @Data
+    private static final class SessionConfig {
+        private final String url;
+        private final String proxy;
+    }
+}
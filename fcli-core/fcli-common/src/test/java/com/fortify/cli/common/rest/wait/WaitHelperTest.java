@@ -12,19 +12,193 @@
  *******************************************************************************/
 package com.fortify.cli.common.rest.wait;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fortify.cli.common.rest.wait.WaitHelper.IWaitClock;
+import com.fortify.cli.common.rest.wait.WaitHelper.PollScheduler;
+import com.fortify.cli.common.rest.wait.WaitHelper.WaitHelperBuilder;
+import com.fortify.cli.common.rest.wait.WaitHelper.WaitStatus;
+import com.fortify.cli.common.rest.wait.WaitType.AnyOrAll;
+import com.fortify.cli.common.rest.wait.WaitType.LoopType;
+
+import kong.unirest.UnirestInstance;
 
 // TODO Add multithreaded tests that emulate actual state changes
 @Timeout(value = 5)
 public class WaitHelperTest {
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private final FakeClock clock = new FakeClock();
+    
+    @Test
+    public void testFixedInterval() {
+        var pollTimes = new ArrayList<Long>();
+        var helper = builder(pollingSupplier(pollTimes, i->"RUNNING"))
+            .intervalPeriod("1s")
+            .timeoutPeriod("10s")
+            .onTimeout(WaitTimeoutAction.terminate)
+            .build()
+            .wait(null);
+        assertEquals(11, pollTimes.size());
+        getIntervals(pollTimes).forEach(interval->assertEquals(1000L, interval));
+        assertEquals(WaitStatus.WAITING, helper.getResult().values().iterator().next());
+    }
+    
+    @Test
+    public void testTimeoutWithException() {
+        var pollTimes = new ArrayList<Long>();
+        var helper = builder(pollingSupplier(pollTimes, i->"RUNNING"))
+            .intervalPeriod("3s")
+            .timeoutPeriod("10s")
+            .build();
+        assertThrows(IllegalStateException.class, ()->helper.wait(null));
+        // Last poll should happen at the time-out, not at the next regular interval
+        assertEquals(List.of(0L, 3000L, 6000L, 9000L, 10000L), pollTimes);
+        assertEquals(10000L, clock.currentTimeMillis());
+        assertEquals(WaitStatus.TIMEOUT, helper.getResult().values().iterator().next());
+    }
+    
+    @Test
+    public void testIntervalGrowthAndMaxInterval() {
+        var pollTimes = new ArrayList<Long>();
+        builder(pollingSupplier(pollTimes, i->"RUNNING"))
+            .intervalPeriod("1s")
+            .maxIntervalPeriod("8s")
+            .timeoutPeriod("60s")
+            .onTimeout(WaitTimeoutAction.terminate)
+            .build()
+            .wait(null);
+        var intervals = getIntervals(pollTimes);
+        assertEquals(1000L, intervals.get(0));
+        // Last interval is truncated by the time-out
+        for ( int i = 1 ; i < intervals.size()-1 ; i++ ) {
+            long expected = Math.min(8000, 2*intervals.get(i-1));
+            long interval = intervals.get(i);
+            assertTrue(interval>=expected-expected/10 && interval<=Math.min(8000, expected+expected/10), 
+                    "Unexpected interval "+interval+" at index "+i+", expected "+expected+" +/- 10%");
+        }
+        assertTrue(intervals.stream().anyMatch(interval->interval>=7200), "Maximum interval not reached: "+intervals);
+        assertEquals(60000L, pollTimes.get(pollTimes.size()-1));
+    }
+    
+    @Test
+    public void testIntervalResetOnStateChange() {
+        var pollTimes = new ArrayList<Long>();
+        builder(pollingSupplier(pollTimes, i->i<4 ? "RUNNING" : i<8 ? "SCANNING" : "COMPLETE"))
+            .intervalPeriod("1s")
+            .maxIntervalPeriod("60s")
+            .timeoutPeriod("300s")
+            .build()
+            .wait(null);
+        var intervals = getIntervals(pollTimes);
+        assertEquals(9, pollTimes.size());
+        assertEquals(1000L, intervals.get(0));
+        assertTrue(intervals.get(3)>=1800, "Interval didn't grow: "+intervals);
+        // State changed at poll index 4, so next poll should be at regular interval again
+        assertEquals(1000L, intervals.get(4));
+    }
+    
+    @Test
+    public void testRecordRefresher() {
+        Map<String, List<Long>> refreshTimes = new ConcurrentHashMap<>();
+        var helper = builder(u->List.of(createRecord("1", "RUNNING"), createRecord("2", "RUNNING")))
+            .recordRefresher((u,record)->{
+                var id = record.get("id").asText();
+                var times = refreshTimes.computeIfAbsent(id, k->Collections.synchronizedList(new ArrayList<>()));
+                times.add(clock.currentTimeMillis());
+                var completeAfter = "1".equals(id) ? 2 : 5;
+                return createRecord(id, times.size()>=completeAfter ? "COMPLETE" : "RUNNING");
+            })
+            .intervalPeriod("1s")
+            .timeoutPeriod("60s")
+            .build()
+            .wait(null);
+        // Completed records are no longer refreshed
+        assertEquals(List.of(1000L, 2000L), refreshTimes.get("1"));
+        assertEquals(List.of(1000L, 2000L, 3000L, 4000L, 5000L), refreshTimes.get("2"));
+        assertTrue(helper.getResult().values().stream().allMatch(WaitStatus.WAIT_COMPLETE::equals));
+        assertEquals(5000L, clock.currentTimeMillis());
+    }
+    
+    @Test
+    public void testPollSchedulerFixedInterval() {
+        assertEquals(1000L, new PollScheduler("1s", null).getNextDelayMillis(1000));
+        assertEquals(1000L, new PollScheduler("1s", "").getNextDelayMillis(1000));
+        // Maximum interval smaller than interval results in fixed interval
+        assertEquals(5000L, new PollScheduler("5s", "1s").getNextDelayMillis(5000));
+    }
+    
+    @Test
+    public void testPollSchedulerMaxInterval() {
+        var scheduler = new PollScheduler("1s", "8s");
+        long delay = scheduler.getIntervalMillis();
+        for ( int i = 0 ; i < 1000 ; i++ ) {
+            delay = scheduler.getNextDelayMillis(delay);
+            assertTrue(delay>=1000 && delay<=8000, "Delay out of range: "+delay);
+        }
+    }
+    
+    private WaitHelperBuilder builder(Function<UnirestInstance, Collection<JsonNode>> recordsSupplier) {
+        return WaitHelper.builder()
+            .recordsSupplier(recordsSupplier)
+            .currentStateProperty("state")
+            .matchStates(Set.of("COMPLETE"))
+            .waitType(new WaitType(LoopType.Until, AnyOrAll.all_match))
+            .clock(clock);
+    }
+    
+    private Function<UnirestInstance, Collection<JsonNode>> pollingSupplier(List<Long> pollTimes, Function<Integer, String> stateForPoll) {
+        return u->{
+            var state = stateForPoll.apply(pollTimes.size());
+            pollTimes.add(clock.currentTimeMillis());
+            return List.of(createRecord("1", state));
+        };
+    }
+    
+    private static final JsonNode createRecord(String id, String state) {
+        return objectMapper.createObjectNode().put("id", id).put("state", state);
+    }
+    
+    private static final List<Long> getIntervals(List<Long> pollTimes) {
+        var result = new ArrayList<Long>();
+        for ( int i = 1 ; i < pollTimes.size() ; i++ ) {
+            result.add(pollTimes.get(i)-pollTimes.get(i-1));
+        }
+        return result;
+    }
+    
+    private static final class FakeClock implements IWaitClock {
+        private volatile long currentTimeMillis;
+        
+        @Override
+        public long currentTimeMillis() {
+            return currentTimeMillis;
+        }
+        
+        @Override
+        public void sleep(long millis) {
+            currentTimeMillis += millis;
+        }
+    }
+    
+    // TODO The tests below need to be updated for the current WaitHelper API
     /*
     @Test
     public void testNoRequests() {
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.spring.expression;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.spel.SpelCompilerMode;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fortify.cli.common.json.JsonHelper;
+
+public class SpelEvaluatorTest {
+    @Test
+    public void testCacheHit() {
+        var expression = uniqueExpression();
+        var parsed = SpelEvaluator.JSON_GENERIC.parseExpression(expression);
+        Assertions.assertSame(parsed, SpelEvaluator.JSON_GENERIC.parseExpression(expression));
+        // Each evaluator has its own cache
+        Assertions.assertNotSame(parsed, SpelEvaluator.JSON_QUERY.parseExpression(expression));
+    }
+    
+    @Test
+    public void testEviction() {
+        var evicted = uniqueExpression();
+        var retained = uniqueExpression();
+        var evictedParsed = SpelEvaluator.JSON_GENERIC.parseExpression(evicted);
+        var retainedParsed = SpelEvaluator.JSON_GENERIC.parseExpression(retained);
+        for ( int i = 0 ; i < SpelEvaluator.MAX_CACHED_EXPRESSIONS ; i++ ) {
+            SpelEvaluator.JSON_GENERIC.parseExpression(uniqueExpression());
+            // Accessing this expression makes it most recently used, so it shouldn't get evicted
+            Assertions.assertSame(retainedParsed, SpelEvaluator.JSON_GENERIC.parseExpression(retained));
+        }
+        Assertions.assertNotSame(evictedParsed, SpelEvaluator.JSON_GENERIC.parseExpression(evicted));
+    }
+    
+    @Test
+    public void testCompilerMode() {
+        Assertions.assertEquals(SpelCompilerMode.MIXED, SpelEvaluator.getCompilerMode(false));
+        Assertions.assertEquals(SpelCompilerMode.OFF, SpelEvaluator.getCompilerMode(true));
+    }
+    
+    @Test
+    public void testRepeatedEvaluation() {
+        // In MIXED mode, expressions are compiled after a number of interpreted 
+        // evaluations; results should be the same before and after compilation,
+        // and for expressions that cannot be compiled.
+        ObjectNode record = JsonHelper.getObjectMapper().createObjectNode().put("a", 1).put("b", "x");
+        for ( int i = 0 ; i < 500 ; i++ ) {
+            Assertions.assertEquals(3, SpelEvaluator.JSON_GENERIC.evaluate("1+2", null, Integer.class));
+            Assertions.assertEquals("x", SpelEvaluator.JSON_GENERIC.evaluate("b", record, String.class));
+            Assertions.assertEquals(Boolean.TRUE, SpelEvaluator.JSON_QUERY.evaluate("b=='x' && a!=null", record, Boolean.class));
+            Assertions.assertEquals(Boolean.FALSE, SpelEvaluator.JSON_QUERY.evaluate("b=='y' && a!=null", record, Boolean.class));
+        }
+    }
+    
+    private static final String uniqueExpression() {
+        return "'"+UUID.randomUUID()+"'";
+    }
+}
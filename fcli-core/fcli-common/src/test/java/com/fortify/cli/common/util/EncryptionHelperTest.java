@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.jasypt.encryption.pbe.StandardPBEStringEncryptor;
+import org.jasypt.iv.RandomIvGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class EncryptionHelperTest {
+    private static final int CHUNK_SIZE = 64*1024;
+    
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, CHUNK_SIZE-1, CHUNK_SIZE, CHUNK_SIZE+1, 2*CHUNK_SIZE+7, 5*CHUNK_SIZE})
+    public void testRoundTrip(int length) {
+        var source = createSource(length);
+        var encrypted = EncryptionHelper.encrypt(source);
+        Assertions.assertTrue(encrypted.startsWith("fcli:v1:"));
+        Assertions.assertEquals(source, EncryptionHelper.decrypt(encrypted));
+        Assertions.assertEquals(source, EncryptionHelper.decrypt(encrypted+"\n"));
+    }
+    
+    @Test
+    public void testRoundTripSurrogatePairAtChunkBoundary() {
+        // Surrogate pair starting at the last character of the first chunk
+        var source = "x".repeat(CHUNK_SIZE-1)+"😀"+"y".repeat(10);
+        var encrypted = EncryptionHelper.encrypt(source);
+        Assertions.assertEquals(2, getChunks(encrypted).length);
+        Assertions.assertEquals(source, EncryptionHelper.decrypt(encrypted));
+    }
+    
+    @Test
+    public void testStreamingRoundTrip() throws Exception {
+        var source = createSource(3*CHUNK_SIZE+11);
+        var encrypted = new StringWriter();
+        try ( var writer = new EncryptionHelper.EncryptWriter(encrypted) ) {
+            // Write in small pieces to exercise chunk buffering
+            for ( int i = 0 ; i < source.length() ; i += 1000 ) {
+                writer.write(source, i, Math.min(1000, source.length()-i));
+            }
+        }
+        Assertions.assertEquals(source, EncryptionHelper.decrypt(encrypted.toString()));
+        Assertions.assertEquals(source, readInPieces(new EncryptionHelper.DecryptReader(new StringReader(encrypted.toString()))));
+    }
+    
+    @Test
+    public void testEncryptUsesRandomSalt() {
+        Assertions.assertNotEquals(EncryptionHelper.encrypt("test"), EncryptionHelper.encrypt("test"));
+    }
+    
+    @Test
+    public void testDecryptLegacyJasyptData() throws Exception {
+        var source = createSource(1000);
+        var legacyEncrypted = createLegacyEncryptor().encrypt(source);
+        Assertions.assertEquals(source, EncryptionHelper.decrypt(legacyEncrypted));
+        Assertions.assertEquals(source, readInPieces(new EncryptionHelper.DecryptReader(new StringReader(legacyEncrypted))));
+    }
+    
+    @Test
+    public void testRejectReorderedChunks() {
+        // Four chunks: parts[2] to parts[5]
+        var parts = getParts(EncryptionHelper.encrypt("x".repeat(3*CHUNK_SIZE+1)));
+        assertRejected(join(parts[0], parts[1], parts[2], parts[4], parts[3], parts[5]));
+    }
+    
+    @Test
+    public void testRejectTruncatedChunks() {
+        // Four chunks: parts[2] to parts[5]
+        var parts = getParts(EncryptionHelper.encrypt("x".repeat(3*CHUNK_SIZE+1)));
+        assertRejected(join(parts[0], parts[1], parts[2], parts[3], parts[4]));
+        assertRejected(join(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5].substring(0, parts[5].length()/2)));
+        assertRejected(join(parts[0], parts[1], parts[2]));
+        assertRejected(join(parts[0], parts[1], parts[2], parts[3], parts[4], ""));
+        assertRejected(join(parts[0], parts[1]));
+        assertRejected(join(parts[0], parts[1], parts[3], parts[4], parts[5]));
+    }
+    
+    @Test
+    public void testRejectTamperedChunks() {
+        // Three chunks: parts[2] to parts[4]
+        var parts = getParts(EncryptionHelper.encrypt("x".repeat(2*CHUNK_SIZE+1)));
+        assertRejected(join(parts[0], parts[1], parts[2], tamper(parts[3]), parts[4]));
+        assertRejected(join(parts[0], parts[1], tamper(parts[2]), parts[3], parts[4]));
+        var otherParts = getParts(EncryptionHelper.encrypt("x".repeat(2*CHUNK_SIZE+1)));
+        assertRejected(join(parts[0], otherParts[1], parts[2], parts[3], parts[4]));
+        assertRejected(join(parts[0], parts[1], parts[2], otherParts[3], parts[4]));
+        assertRejected(join(parts[0], parts[1], parts[2], "not*base64", parts[4]));
+    }
+    
+    private static final void assertRejected(String encrypted) {
+        Assertions.assertThrows(RuntimeException.class, ()->EncryptionHelper.decrypt(encrypted));
+        Assertions.assertThrows(IOException.class, ()->readInPieces(new EncryptionHelper.DecryptReader(new StringReader(encrypted))));
+    }
+    
+    private static final String readInPieces(Reader reader) throws IOException {
+        var result = new StringBuilder();
+        var buffer = new char[777];
+        try ( reader ) {
+            for ( int n = reader.read(buffer) ; n>=0 ; n = reader.read(buffer) ) {
+                result.append(buffer, 0, n);
+            }
+        }
+        return result.toString();
+    }
+    
+    /**
+     * Create a source string of the given length, containing single-byte, 
+     * multi-byte and surrogate pair characters.
+     */
+    private static final String createSource(int length) {
+        var result = new StringBuilder(length+5);
+        while ( result.length()<length ) {
+            result.append("abcé中😀");
+        }
+        result.setLength(length);
+        if ( length>0 && Character.isHighSurrogate(result.charAt(length-1)) ) {
+            result.setCharAt(length-1, 'z');
+        }
+        return result.toString();
+    }
+    
+    /**
+     * Split the given encrypted string into prefix (fcli:v1), salt and chunks.
+     */
+    private static final String[] getParts(String encrypted) {
+        var parts = encrypted.split(":");
+        var result = new String[parts.length-1];
+        result[0] = parts[0]+":"+parts[1];
+        System.arraycopy(parts, 2, result, 1, parts.length-2);
+        return result;
+    }
+    
+    private static final String[] getChunks(String encrypted) {
+        var parts = getParts(encrypted);
+        var result = new String[parts.length-2];
+        System.arraycopy(parts, 2, result, 0, result.length);
+        return result;
+    }
+    
+    private static final String join(String... parts) {
+        return String.join(":", parts);
+    }
+    
+    private static final String tamper(String chunk) {
+        var chars = chunk.toCharArray();
+        int index = chars.length/2;
+        chars[index] = chars[index]=='A' ? 'B' : 'A';
+        return new String(chars);
+    }
+    
+    /**
+     * Create a jasypt encryptor configured identically to the encryptor used by
+     * older fcli versions.
+     */
+    private static final StandardPBEStringEncryptor createLegacyEncryptor() {
+        var encryptor = new StandardPBEStringEncryptor();
+        encryptor.setAlgorithm("PBEWithHMACSHA512AndAES_256");
+        encryptor.setIvGenerator(new RandomIvGenerator());
+        String userPassword = EnvHelper.env("FCLI_ENCRYPT_KEY");
+        encryptor.setPassword((StringUtils.isBlank(userPassword) ? "" : userPassword)+"ds$%YTjdwaf#$47672dfdsGVFDa");
+        return encryptor;
+    }
+}
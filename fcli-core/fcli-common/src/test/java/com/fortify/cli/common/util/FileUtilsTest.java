@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class FileUtilsTest {
+    private static final String PROP_EXTRACT_THREADS = "fcli.env.FCLI_EXTRACT_THREADS";
+    @TempDir Path tempDir;
+    
+    @AfterEach
+    public void cleanup() {
+        System.clearProperty(PROP_EXTRACT_THREADS);
+    }
+    
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    public void testExtractZip(int threads) throws Exception {
+        System.setProperty(PROP_EXTRACT_THREADS, String.valueOf(threads));
+        var entries = new LinkedHashMap<String, String>();
+        entries.put("bin/", null);
+        for ( int i = 0 ; i < 50 ; i++ ) {
+            entries.put("bin/file"+i+".sh", "echo "+i+"\n".repeat(i*100));
+        }
+        // File entries without corresponding directory entries
+        entries.put("lib/nested/dir/file.jar", "jar contents");
+        entries.put("empty.txt", "");
+        entries.put("emptydir/", null);
+        var targetDir = tempDir.resolve("target");
+        FileUtils.extractZip(createZip(entries).toFile(), targetDir);
+        for ( var entry : entries.entrySet() ) {
+            var path = targetDir.resolve(entry.getKey());
+            if ( entry.getValue()==null ) {
+                Assertions.assertTrue(Files.isDirectory(path), entry.getKey());
+            } else {
+                Assertions.assertEquals(entry.getValue(), Files.readString(path, StandardCharsets.UTF_8), entry.getKey());
+            }
+        }
+        try ( var walk = Files.walk(targetDir) ) {
+            Assertions.assertEquals(entries.size()+3, walk.filter(p->!p.equals(targetDir)).collect(Collectors.counting()),
+                    "Unexpected number of extracted files and directories (including lib, lib/nested and lib/nested/dir)");
+        }
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"../evil.txt", "bin/../../evil.txt", "a/b/../../../evil.txt"})
+    public void testExtractZipRejectsZipSlip(String entryName) throws Exception {
+        System.setProperty(PROP_EXTRACT_THREADS, "4");
+        var entries = new LinkedHashMap<String, String>();
+        for ( int i = 0 ; i < 10 ; i++ ) {
+            entries.put("file"+i+".txt", "contents "+i);
+        }
+        entries.put(entryName, "evil");
+        var targetDir = tempDir.resolve("target");
+        var zip = createZip(entries);
+        var e = Assertions.assertThrows(RuntimeException.class, ()->FileUtils.extractZip(zip.toFile(), targetDir));
+        Assertions.assertTrue(e.getMessage().contains(entryName));
+        Assertions.assertFalse(Files.exists(tempDir.resolve("evil.txt")));
+        // Zip entries are validated before any files are extracted
+        Assertions.assertFalse(Files.exists(targetDir.resolve("file0.txt")));
+    }
+    
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    public void testExtractZipPropagatesErrors(int threads) throws Exception {
+        System.setProperty(PROP_EXTRACT_THREADS, String.valueOf(threads));
+        var entries = new LinkedHashMap<String, String>();
+        for ( int i = 0 ; i < 10 ; i++ ) {
+            entries.put("file"+i+".txt", "contents "+i);
+        }
+        var targetDir = tempDir.resolve("target");
+        Files.createDirectories(targetDir);
+        Files.writeString(targetDir.resolve("file5.txt"), "existing");
+        var zip = createZip(entries);
+        Assertions.assertThrows(FileAlreadyExistsException.class, ()->FileUtils.extractZip(zip.toFile(), targetDir));
+        Assertions.assertEquals("existing", Files.readString(targetDir.resolve("file5.txt")));
+    }
+    
+    /**
+     * Create a zip file containing the given entries; entries with null
+     * contents are added as directory entries.
+     */
+    private Path createZip(Map<String, String> entries) throws IOException {
+        var zipPath = tempDir.resolve("test.zip");
+        try ( var out = new ZipOutputStream(Files.newOutputStream(zipPath)) ) {
+            for ( var entry : entries.entrySet() ) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                if ( entry.getValue()!=null ) {
+                    out.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                }
+                out.closeEntry();
+            }
+        }
+        return zipPath;
+    }
+}
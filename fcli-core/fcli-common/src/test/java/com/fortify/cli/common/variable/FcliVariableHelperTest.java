@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.common.variable;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fortify.cli.common.json.JsonHelper;
+
+public class FcliVariableHelperTest {
+    private static final String PROP_DATA_DIR = "fcli.env.FCLI_DATA_DIR";
+    private static final String[] PROPERTY_PATHS = {
+        "get(0).id", "get(1).id", "get(0).name", "get(1).nested.value", "get(0).count", 
+        "get(1).flag", "get(1).nested.deeper.value", "size()", "get(0).name+'-'+get(1).name",
+        "get(1).count", "get(0).nested.value.toUpperCase()"
+    };
+    @TempDir Path tempDir;
+    
+    @BeforeEach
+    public void setup() {
+        System.setProperty(PROP_DATA_DIR, tempDir.toString());
+    }
+    
+    @AfterEach
+    public void cleanup() {
+        System.clearProperty(PROP_DATA_DIR);
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"id", "_id", "a.b", "a1.b_2.c", "get(0).id", "get(123456789).a.b"})
+    public void testSimplePropertyPathPatternMatches(String propertyPath) {
+        Assertions.assertTrue(FcliVariableHelper.simplePropertyPathPattern.matcher(propertyPath).matches());
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"", "1a", "a.", ".a", "a..b", "a.b()", "size()", "get(0)", "get(0).", "get(x).id", 
+            "get(-1).id", "get(1234567890).id", "a[0]", "a.get(0).b", "#root.id", "a+b", "a .b", "get(0).id.get(0)"})
+    public void testSimplePropertyPathPatternDoesNotMatch(String propertyPath) {
+        Assertions.assertFalse(FcliVariableHelper.simplePropertyPathPattern.matcher(propertyPath).matches());
+    }
+    
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testResolveVariableMatchesSpel(boolean encrypt) {
+        var contents = createContents("first", "second");
+        FcliVariableHelper.save("test", "id", contents, false, encrypt);
+        // Resolve each property path twice, to verify both uncached and cached values
+        for ( int i = 0 ; i < 2 ; i++ ) {
+            for ( var propertyPath : PROPERTY_PATHS ) {
+                Assertions.assertEquals(JsonHelper.evaluateSpelExpression(contents, propertyPath, String.class), 
+                        FcliVariableHelper.resolveVariable("::test::"+propertyPath), "Property path: "+propertyPath);
+            }
+        }
+    }
+    
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testResolveVariableAfterUpdate(boolean encrypt) {
+        FcliVariableHelper.save("test", "id", createContents("first", "second"), false, encrypt);
+        Assertions.assertEquals("first", FcliVariableHelper.resolveVariable("::test::get(0).name"));
+        Assertions.assertEquals("2", FcliVariableHelper.resolveVariable("::test::size()"));
+        FcliVariableHelper.save("test", "id", createContents("updated first", "updated second", "third"), false, encrypt);
+        Assertions.assertEquals("updated first", FcliVariableHelper.resolveVariable("::test::get(0).name"));
+        Assertions.assertEquals("3", FcliVariableHelper.resolveVariable("::test::size()"));
+    }
+    
+    /**
+     * Same-size contents rewritten within the file system timestamp granularity have
+     * the same file version, so we explicitly reset the last modified time to verify
+     * that writing variable contents invalidates the cached contents.
+     */
+    @Test
+    public void testGetContentsAfterSameSizeSave() throws Exception {
+        FcliVariableHelper.save("test", "id", createContents("first", "second"), false, false);
+        Assertions.assertEquals("first", getFirstName());
+        var lastModified = Files.getLastModifiedTime(getContentsPath());
+        FcliVariableHelper.save("test", "id", createContents("fyrst", "second"), false, false);
+        Files.setLastModifiedTime(getContentsPath(), lastModified);
+        Assertions.assertEquals("fyrst", getFirstName());
+        Assertions.assertEquals("fyrst", FcliVariableHelper.resolveVariable("::test::get(0).name"));
+    }
+    
+    @Test
+    public void testGetContentsAfterSameSizeWrite() throws Exception {
+        FcliVariableHelper.save("test", "id", createContents("first", "second"), false, false);
+        Assertions.assertEquals("first", getFirstName());
+        var lastModified = Files.getLastModifiedTime(getContentsPath());
+        try ( var writer = FcliVariableHelper.getVariableContentsWriter("test", "id", false, false) ) {
+            writer.write(JsonHelper.getObjectMapper().writeValueAsString(createContents("fyrst", "second")));
+        }
+        Files.setLastModifiedTime(getContentsPath(), lastModified);
+        Assertions.assertEquals("fyrst", getFirstName());
+    }
+    
+    @Test
+    public void testGetContentsAfterDelete() throws Exception {
+        FcliVariableHelper.save("test", "id", createContents("first", "second"), false, false);
+        Assertions.assertEquals("first", getFirstName());
+        var lastModified = Files.getLastModifiedTime(getContentsPath());
+        FcliVariableHelper.delete("test");
+        Assertions.assertFalse(FcliVariableHelper.exists("test"));
+        FcliVariableHelper.save("test", "id", createContents("fyrst", "second"), false, false);
+        Files.setLastModifiedTime(getContentsPath(), lastModified);
+        Assertions.assertEquals("fyrst", getFirstName());
+        FcliVariableHelper.delete(FcliVariableHelper.getVariableDescriptor("test", true).asJsonNode());
+        Assertions.assertNull(FcliVariableHelper.getVariableContents("test", false));
+    }
+    
+    @Test
+    public void testResolveSingularVariable() {
+        var contents = createContents("first").get(0);
+        FcliVariableHelper.save("test", "name", contents, true, false);
+        Assertions.assertEquals("first", FcliVariableHelper.resolveVariable("::test::"));
+        Assertions.assertEquals("--opt=first", FcliVariableHelper.resolveVariable("--opt=::test::"));
+        Assertions.assertEquals("nested-first", FcliVariableHelper.resolveVariable("::test::nested.value"));
+        Assertions.assertEquals("no-variable-reference", FcliVariableHelper.resolveVariable("no-variable-reference"));
+    }
+    
+    private static final String getFirstName() {
+        return FcliVariableHelper.getVariableContents("test", true).get(0).get("name").asText();
+    }
+    
+    private static final Path getContentsPath() {
+        return FcliVariableHelper.getVariablesPath().resolve("test").resolve("contents.json");
+    }
+    
+    private static final JsonNode createContents(String... names) {
+        var result = JsonHelper.getObjectMapper().createArrayNode();
+        for ( int i = 0 ; i < names.length ; i++ ) {
+            var record = result.addObject()
+                .put("id", String.valueOf(i+1))
+                .put("name", names[i])
+                .put("count", 10*i+1)
+                .put("flag", i%2==1);
+            var nested = record.putObject("nested").put("value", "nested-"+names[i]);
+            nested.putObject("deeper").put("value", i);
+        }
+        return result;
+    }
+}
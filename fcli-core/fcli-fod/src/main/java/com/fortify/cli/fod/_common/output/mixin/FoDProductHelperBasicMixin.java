@@ -57,6 +57,8 @@ public class FoDProductHelperBasicMixin extends AbstractSessionUnirestInstanceSu
     }
     
     private void configureClient(HttpClientBuilder cb) {
-        cb.setServiceUnavailableRetryStrategy(new FoDRetryStrategy());
+        var retryStrategy = new FoDRetryStrategy();
+        cb.setServiceUnavailableRetryStrategy(retryStrategy);
+        cb.addInterceptorFirst(retryStrategy.rateLimitInterceptor());
     }
 }
\ No newline at end of file
@@ -21,19 +21,20 @@ import com.fortify.cli.common.json.JsonHelper;
 
 import kong.unirest.HttpRequest;
 import kong.unirest.HttpResponse;
+import kong.unirest.UnirestInstance;
 
 /**
  *
  * @author Ruud Senden
  */
 public class FoDDataHelper {
-    public static final ArrayNode findMatching(HttpRequest<?> request, String... filters) {
+    public static final ArrayNode findMatching(UnirestInstance unirest, HttpRequest<?> request, String... filters) {
         request = request.queryString("filters", String.join("+", filters));
         Predicate<JsonNode> predicate = Stream.of(filters).map(FoDDataHelper::asPredicate).reduce(x->true, Predicate::and);
-        return findMatching(request, predicate);
+        return findMatching(unirest, request, predicate);
     }
-    public static final ArrayNode findMatching(HttpRequest<?> request, Predicate<JsonNode> predicate) {
-        return FoDPagingHelper.pagedRequest(request).stream()
+    public static final ArrayNode findMatching(UnirestInstance unirest, HttpRequest<?> request, Predicate<JsonNode> predicate) {
+        return FoDPagingHelper.pagedRequest(unirest, request)
             .map(HttpResponse::getBody)
             .map(FoDInputTransformer::getItems)
             .map(ArrayNode.class::cast)
@@ -42,12 +43,12 @@ public class FoDDataHelper {
             .collect(JsonHelper.arrayNodeCollector());
     }
     
-    public static final JsonNode findUnique(HttpRequest<?> request, String... filters) {
-        return getUnique(findMatching(request, filters));
+    public static final JsonNode findUnique(UnirestInstance unirest, HttpRequest<?> request, String... filters) {
+        return getUnique(findMatching(unirest, request, filters));
     }
         
-    public static final JsonNode findUnique(HttpRequest<?> request, Predicate<JsonNode> predicate) {
-        return getUnique(findMatching(request, predicate));
+    public static final JsonNode findUnique(UnirestInstance unirest, HttpRequest<?> request, Predicate<JsonNode> predicate) {
+        return getUnique(findMatching(unirest, request, predicate));
     }
         
     public static final JsonNode getUnique(ArrayNode nodes) {
@@ -14,73 +14,120 @@
 package com.fortify.cli.fod._common.rest.helper;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formkiq.graalvm.annotations.Reflectable;
 import com.fortify.cli.common.progress.helper.IProgressWriter;
 import com.fortify.cli.common.progress.helper.ProgressWriterType;
+import com.fortify.cli.common.rest.unirest.UnexpectedHttpResponseException;
 import com.fortify.cli.common.rest.unirest.URIHelper;
+import com.fortify.cli.common.util.EnvHelper;
+import com.fortify.cli.common.util.FcliDataHelper;
 import com.fortify.cli.fod._common.util.FoDConstants;
 
 import kong.unirest.HttpRequest;
 import kong.unirest.ProgressMonitor;
 import kong.unirest.UnirestInstance;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 
 // TODO Based on some recent messages on FortifySSC, potentially we may need 
 //      chunked uploads for SC DAST as well, so consider refactoring into a
 //      generic class in fcli-common.
+/**
+ * This class handles chunked file uploads to FoD. Fragments are read from the
+ * file using positional {@link FileChannel} reads, such that multiple fragments
+ * can be uploaded concurrently if configured through the FCLI_FOD_UPLOAD_THREADS
+ * environment variable (default is 1, i.e., sequential upload). The final fragment
+ * (fragNo -1) is always uploaded last, after all other fragments have been 
+ * successfully uploaded. Individual fragments are retried on failure, and 
+ * successfully uploaded fragments are recorded in a checkpoint file in the fcli
+ * state directory, allowing an interrupted upload of the same file to the same
+ * endpoint to be resumed.
+ */
 public final class FoDFileTransferHelper {
+    private static final Logger LOG = LoggerFactory.getLogger(FoDFileTransferHelper.class);
     private static final int chunkSize = FoDConstants.DEFAULT_CHUNK_SIZE;
+    private static final String ENVNAME_UPLOAD_THREADS = "FCLI_FOD_UPLOAD_THREADS";
+    private static final int DEFAULT_UPLOAD_THREADS = 1;
+    private static final int MAX_FRAGMENT_ATTEMPTS = 3;
+    private static final long FRAGMENT_RETRY_DELAY_MILLIS = 1000;
 
     @SneakyThrows
     public static final JsonNode uploadChunked(UnirestInstance unirest, HttpRequest<?> baseRequest, File f) {
         if (!f.exists() || !f.canRead()) {
             throw new IllegalArgumentException("Could not read file: " + f.getPath());
         }
-        long fileLen = f.length();
-
+        var checkpoint = FoDUploadCheckpoint.load(baseRequest, f);
         String lastBody = null;
-        try (var fs = new FileInputStream(f); var progressMonitor = new FoDProgressMonitor("Upload"); ) {
-            byte[] readByteArray = new byte[chunkSize];
-            byte[] sendByteArray;
-            int fragmentNumber = 0;
-            int byteCount;
-            long offset = 0;
-
-            // loop through chunks
-            while ((byteCount = fs.read(readByteArray)) != -1) {
-
-                if (byteCount < chunkSize) {
-                    sendByteArray = Arrays.copyOf(readByteArray, byteCount);
-                    fragmentNumber = -1;
-                } else {
-                    sendByteArray = readByteArray;
-                }
-
-                lastBody = unirest.request(
-                                String.valueOf(baseRequest.getHttpMethod()), 
-                                getUri(baseRequest, fragmentNumber++, offset))
-                        .contentType("application/octet-stream")
-                        .header("Accept", "application/json")
-                        .body(sendByteArray)
-                        .asString()
-                        .getBody();
-                progressMonitor.accept(baseRequest.getUrl(), f.getName(), offset, fileLen);
-                offset += byteCount;
+        try (var channel = FileChannel.open(f.toPath(), StandardOpenOption.READ); var progressMonitor = new FoDProgressMonitor("Upload"); ) {
+            long fileLen = channel.size();
+            int finalFragmentIndex = fileLen==0 ? 0 : (int)((fileLen-1)/chunkSize);
+            var uploader = new FoDFragmentUploader(unirest, baseRequest, channel);
+            uploadNonFinalFragments(uploader, finalFragmentIndex, checkpoint, progressMonitor, f.getName(), fileLen);
+            try {
+                lastBody = uploader.upload(finalFragmentIndex, true);
+            } catch ( Exception e ) {
+                // Server may have discarded previously uploaded fragments, so
+                // start from scratch on next attempt.
+                checkpoint.delete();
+                throw e;
             }
-            progressMonitor.accept(baseRequest.getUrl(), f.getName(), offset, fileLen);
+            checkpoint.delete();
+            progressMonitor.accept(baseRequest.getUrl(), f.getName(), fileLen, fileLen);
         } catch (Exception e) {
             throw new RuntimeException("Error uploading file", e);
         }
 
         return new ObjectMapper().readTree(lastBody);
     }
+    
+    private static final void uploadNonFinalFragments(FoDFragmentUploader uploader, int finalFragmentIndex, FoDUploadCheckpoint checkpoint, FoDProgressMonitor progressMonitor, String fileName, long fileLen) throws InterruptedException, ExecutionException {
+        long bytesUploaded = (long)checkpoint.getCompletedFragments().size()*chunkSize;
+        ExecutorService executor = Executors.newFixedThreadPool(getUploadThreads(), FoDFileTransferHelper::createDaemonThread);
+        try {
+            var completionService = new ExecutorCompletionService<Integer>(executor);
+            int submitted = 0;
+            for ( int i = 0 ; i < finalFragmentIndex ; i++ ) {
+                if ( !checkpoint.getCompletedFragments().contains(i) ) {
+                    final int fragmentIndex = i;
+                    completionService.submit(()->{ uploader.upload(fragmentIndex, false); return fragmentIndex; });
+                    submitted++;
+                }
+            }
+            progressMonitor.accept(uploader.getUrl(), fileName, bytesUploaded, fileLen);
+            for ( int i = 0 ; i < submitted ; i++ ) {
+                int fragmentIndex = completionService.take().get();
+                checkpoint.addCompletedFragment(fragmentIndex);
+                bytesUploaded += chunkSize;
+                progressMonitor.accept(uploader.getUrl(), fileName, bytesUploaded, fileLen);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
     private static final String getUri(HttpRequest<?> baseRequest, int fragmentNumber, long offset) throws URISyntaxException {
         URI uri = URI.create(baseRequest.getUrl());
@@ -88,6 +135,122 @@ public final class FoDFileTransferHelper {
         uri = URIHelper.addOrReplaceParam(uri, "offset", offset);
         return uri.toString();
     }
+    
+    private static final Thread createDaemonThread(Runnable runnable) {
+        Thread result = new Thread(runnable, "fcli-fod-upload");
+        result.setDaemon(true);
+        return result;
+    }
+    
+    private static final int getUploadThreads() {
+        Integer result = EnvHelper.asInteger(EnvHelper.env(ENVNAME_UPLOAD_THREADS));
+        return result==null || result<1 ? DEFAULT_UPLOAD_THREADS : result;
+    }
+    
+    @RequiredArgsConstructor
+    private static final class FoDFragmentUploader {
+        private final UnirestInstance unirest;
+        private final HttpRequest<?> baseRequest;
+        private final FileChannel channel;
+        
+        public String getUrl() {
+            return baseRequest.getUrl();
+        }
+        
+        public String upload(int fragmentIndex, boolean isFinal) throws IOException, URISyntaxException, InterruptedException {
+            long offset = (long)fragmentIndex*chunkSize;
+            byte[] bytes = read(offset);
+            int fragmentNumber = isFinal ? -1 : fragmentIndex;
+            String uri = getUri(baseRequest, fragmentNumber, offset);
+            for ( int attempt = 1 ; ; attempt++ ) {
+                try {
+                    return unirest.request(String.valueOf(baseRequest.getHttpMethod()), uri)
+                            .contentType("application/octet-stream")
+                            .header("Accept", "application/json")
+                            .body(bytes)
+                            .asString()
+                            .getBody();
+                } catch ( RuntimeException e ) {
+                    if ( attempt>=MAX_FRAGMENT_ATTEMPTS || !isRetryable(e) ) { throw e; }
+                    LOG.debug("Error uploading fragment {} (attempt {} of {}), retrying", fragmentNumber, attempt, MAX_FRAGMENT_ATTEMPTS, e);
+                    Thread.sleep(FRAGMENT_RETRY_DELAY_MILLIS*attempt);
+                }
+            }
+        }
+        
+        private byte[] read(long offset) throws IOException {
+            var buffer = ByteBuffer.allocate((int)Math.min(chunkSize, channel.size()-offset));
+            while ( buffer.hasRemaining() ) {
+                if ( channel.read(buffer, offset+buffer.position())<0 ) {
+                    throw new IOException("Unexpected end of file at offset "+(offset+buffer.position()));
+                }
+            }
+            return buffer.array();
+        }
+        
+        private static final boolean isRetryable(RuntimeException e) {
+            if ( e instanceof UnexpectedHttpResponseException ) {
+                // Don't retry client errors, except for 429 which is handled by FoDRetryStrategy anyway
+                int status = ((UnexpectedHttpResponseException)e).getStatus();
+                return status<400 || status>=500 || status==429;
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * Checkpoint describing the fragments that have been successfully uploaded for
+     * a given upload URL and file. The checkpoint is considered invalid (and thus 
+     * ignored) if file size, file modification time or chunk size have changed.
+     */
+    @Reflectable @NoArgsConstructor @AllArgsConstructor @Data
+    private static final class FoDUploadCheckpoint {
+        private String url;
+        private String file;
+        private long fileSize;
+        private long lastModified;
+        private int chunkSize;
+        private TreeSet<Integer> completedFragments = new TreeSet<>();
+        
+        public static final FoDUploadCheckpoint load(HttpRequest<?> baseRequest, File f) {
+            var expected = new FoDUploadCheckpoint(baseRequest.getUrl(), f.getAbsolutePath(), f.length(), f.lastModified(), FoDFileTransferHelper.chunkSize, new TreeSet<>());
+            var path = expected.getPath();
+            if ( FcliDataHelper.exists(path) ) {
+                try {
+                    var existing = FcliDataHelper.readFile(path, FoDUploadCheckpoint.class, true);
+                    if ( expected.matches(existing) ) {
+                        LOG.debug("Resuming upload of {}, skipping {} previously uploaded fragments", f, existing.getCompletedFragments().size());
+                        return existing;
+                    }
+                } catch ( RuntimeException e ) {
+                    LOG.debug("Ignoring unreadable upload checkpoint {}", path, e);
+                }
+                FcliDataHelper.deleteFile(path, false);
+            }
+            return expected;
+        }
+        
+        public final void addCompletedFragment(int fragmentIndex) {
+            completedFragments.add(fragmentIndex);
+            FcliDataHelper.saveFile(getPath(), this, false);
+        }
+        
+        public final void delete() {
+            FcliDataHelper.deleteFile(getPath(), false);
+        }
+        
+        private boolean matches(FoDUploadCheckpoint other) {
+            return other!=null && url.equals(other.url) && file.equals(other.file) 
+                    && fileSize==other.fileSize && lastModified==other.lastModified
+                    && chunkSize==other.chunkSize && other.completedFragments!=null;
+        }
+        
+        @SneakyThrows
+        private Path getPath() {
+            var digest = MessageDigest.getInstance("SHA-256").digest((url+"\n"+file).getBytes(StandardCharsets.UTF_8));
+            return FcliDataHelper.getFcliStatePath().resolve("fod").resolve("uploads").resolve(HexFormat.of().formatHex(digest));
+        }
+    }
 
     @RequiredArgsConstructor
     private static final class FoDProgressMonitor implements ProgressMonitor, AutoCloseable {
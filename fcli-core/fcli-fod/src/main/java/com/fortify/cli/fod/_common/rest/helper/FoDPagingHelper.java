@@ -12,32 +12,66 @@
  *******************************************************************************/
 package com.fortify.cli.fod._common.rest.helper;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fortify.cli.common.rest.paging.INextPageUrlProducer;
+import com.fortify.cli.common.rest.paging.IRemainingPageUrlsProducer;
 import com.fortify.cli.common.rest.paging.PagingHelper;
 import com.fortify.cli.common.rest.unirest.URIHelper;
 
 import kong.unirest.HttpRequest;
-import kong.unirest.PagedList;
+import kong.unirest.HttpResponse;
+import kong.unirest.UnirestInstance;
 
 public class FoDPagingHelper {
-    public static final PagedList<JsonNode> pagedRequest(HttpRequest<?> request) {
-        return PagingHelper.pagedRequest(request, nextPageUrlProducer());
+    public static final Stream<HttpResponse<JsonNode>> pagedRequest(UnirestInstance unirest, HttpRequest<?> request) {
+        return PagingHelper.pagedRequest(unirest, request, nextPageUrlProducer());
     }
+    
+    /**
+     * Return an {@link INextPageUrlProducer} for FoD offset-based paging. The returned
+     * instance also implements {@link IRemainingPageUrlsProducer}, allowing all remaining
+     * pages to be loaded concurrently once the total record count is known.
+     * @return
+     */
     public static final INextPageUrlProducer nextPageUrlProducer() {
-        return (req,resp) -> {
+        return new FoDNextPageUrlProducer();
+    }
+    
+    private static final class FoDNextPageUrlProducer implements IRemainingPageUrlsProducer {
+        @Override
+        public String getNextPageUrl(HttpRequest<?> req, HttpResponse<? extends JsonNode> resp) {
             JsonNode body = resp.getBody();
-            if ( body.has("offset") && body.has("totalCount") && body.has("limit") ) {
-                int offset = body.get("offset").asInt();
-                int totalCount = body.get("totalCount").asInt();
-                int limit = body.get("limit").asInt();
-                int newOffset = offset + limit;
-                if (newOffset < totalCount) {
+            if ( hasPagingData(body) ) {
+                int newOffset = body.get("offset").asInt() + body.get("limit").asInt();
+                if (newOffset < body.get("totalCount").asInt()) {
                     return URIHelper.addOrReplaceParam(req.getUrl(), "offset", newOffset);
                 }
                 return null;
             }
             return null;
-        };
+        }
+        
+        @Override
+        public List<String> getRemainingPageUrls(HttpRequest<?> req, HttpResponse<? extends JsonNode> resp) {
+            JsonNode body = resp.getBody();
+            if ( !hasPagingData(body) ) { return null; }
+            int offset = body.get("offset").asInt();
+            int totalCount = body.get("totalCount").asInt();
+            int limit = body.get("limit").asInt();
+            if ( limit<=0 ) { return null; }
+            List<String> result = new ArrayList<>();
+            for ( int newOffset = offset+limit ; newOffset < totalCount ; newOffset+=limit ) {
+                result.add(URIHelper.addOrReplaceParam(req.getUrl(), "offset", newOffset));
+            }
+            return result;
+        }
+        
+        private static final boolean hasPagingData(JsonNode body) {
+            return body!=null && body.has("offset") && body.has("totalCount") && body.has("limit");
+        }
     }
 }
@@ -24,8 +24,11 @@
  ******************************************************************************/
 package com.fortify.cli.fod._common.rest.helper;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.ServiceUnavailableRetryStrategy;
 import org.apache.http.protocol.HttpContext;
@@ -33,13 +36,18 @@ import org.apache.http.protocol.HttpContext;
 /**
  * This class implements an Apache HttpClient 4.x {@link ServiceUnavailableRetryStrategy}
  * that will retry a request if the server responds with an HTTP 429 (TOO_MANY_REQUESTS)
- * response.
+ * response. As requests may be executed concurrently (for example when loading multiple
+ * pages in parallel), the rate limit reset time is shared between threads; the
+ * {@link HttpRequestInterceptor} returned by {@link #rateLimitInterceptor()} delays any
+ * new requests until the rate limit has been reset, to avoid other threads from 
+ * repeatedly hitting the rate limit.
  */
 public final class FoDRetryStrategy implements ServiceUnavailableRetryStrategy {
 	private static final Log LOG = LogFactory.getLog(FoDRetryStrategy.class);
 	private final String HEADER_NAME = "X-Rate-Limit-Reset";
 	private int maxRetries = 2;
 	private final ThreadLocal<Long> interval = new ThreadLocal<Long>();
+	private final AtomicLong rateLimitResetTime = new AtomicLong();
 	
 	public FoDRetryStrategy maxRetries(int maxRetries) {
 		this.maxRetries = maxRetries;
@@ -57,6 +65,7 @@ public final class FoDRetryStrategy implements ServiceUnavailableRetryStrategy {
     			int retrySeconds = Integer.parseInt(response.getFirstHeader(HEADER_NAME).getValue());
     			LOG.debug("Rate-limited request will be retried after "+retrySeconds+" seconds");
     			interval.set((long)retrySeconds*1000);
+    			rateLimitResetTime.accumulateAndGet(System.currentTimeMillis()+retrySeconds*1000L, Math::max);
     			return true;
     		}
 	    }
@@ -67,4 +76,20 @@ public final class FoDRetryStrategy implements ServiceUnavailableRetryStrategy {
 		Long result = interval.get();
 		return result==null ? -1 : result;
 	}
+	
+	public HttpRequestInterceptor rateLimitInterceptor() {
+	    return (request, context) -> awaitRateLimitReset();
+	}
+	
+	private void awaitRateLimitReset() {
+	    long waitTime = rateLimitResetTime.get()-System.currentTimeMillis();
+	    if ( waitTime>0 ) {
+	        LOG.debug("Delaying request for "+waitTime+" ms until rate limit has been reset");
+	        try {
+	            Thread.sleep(waitTime);
+	        } catch (InterruptedException e) {
+	            Thread.currentThread().interrupt();
+	        }
+	    }
+	}
 }
@@ -45,9 +45,9 @@ public class FoDUserGroupHelper {
         JsonNode result = null;
         try {
             int attrId = Integer.parseInt(userGroupNameOrId);
-            result = FoDDataHelper.findUnique(request, String.format("id:%d", attrId));
+            result = FoDDataHelper.findUnique(unirestInstance, request, String.format("id:%d", attrId));
         } catch (NumberFormatException nfe) {
-            result = FoDDataHelper.findUnique(request, String.format("name:%s", userGroupNameOrId));
+            result = FoDDataHelper.findUnique(unirestInstance, request, String.format("name:%s", userGroupNameOrId));
         }
         if ( failIfNotFound && result==null ) {
             throw new IllegalArgumentException("No user group found for name or id: " + userGroupNameOrId);
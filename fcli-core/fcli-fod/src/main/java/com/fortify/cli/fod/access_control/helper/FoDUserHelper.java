@@ -49,9 +49,9 @@ public class FoDUserHelper {
         JsonNode result = null;
         try {
             int userId = Integer.parseInt(userNameOrId);
-            result = FoDDataHelper.findUnique(request, String.format("userId:%d", userId));
+            result = FoDDataHelper.findUnique(unirestInstance, request, String.format("userId:%d", userId));
         } catch (NumberFormatException nfe) {
-            result = FoDDataHelper.findUnique(request, String.format("userName:%s", userNameOrId));
+            result = FoDDataHelper.findUnique(unirestInstance, request, String.format("userName:%s", userNameOrId));
         }
         if ( failIfNotFound && result==null ) {
             throw new IllegalArgumentException("No user found for name or id: " + userNameOrId);
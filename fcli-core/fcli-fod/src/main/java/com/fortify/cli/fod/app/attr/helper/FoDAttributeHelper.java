@@ -41,9 +41,9 @@ public class FoDAttributeHelper {
         JsonNode result = null;
         try {
             int attrId = Integer.parseInt(attrNameOrId);
-            result = FoDDataHelper.findUnique(request, String.format("id:%d", attrId));
+            result = FoDDataHelper.findUnique(unirestInstance, request, String.format("id:%d", attrId));
         } catch (NumberFormatException nfe) {
-            result = FoDDataHelper.findUnique(request, String.format("name:%s", attrNameOrId));
+            result = FoDDataHelper.findUnique(unirestInstance, request, String.format("name:%s", attrNameOrId));
         }
         if ( failIfNotFound && result==null ) {
             throw new IllegalArgumentException("No attribute found for name or id: " + attrNameOrId);
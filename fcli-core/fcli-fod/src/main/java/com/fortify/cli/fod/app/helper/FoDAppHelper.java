@@ -51,9 +51,9 @@ public class FoDAppHelper {
         JsonNode result = null;
         try {
             int appId = Integer.parseInt(appNameOrId);
-            result = FoDDataHelper.findUnique(request, String.format("applicationId:%d", appId));
+            result = FoDDataHelper.findUnique(unirest, request, String.format("applicationId:%d", appId));
         } catch (NumberFormatException nfe) {
-            result = FoDDataHelper.findUnique(request, String.format("applicationName:%s", appNameOrId));
+            result = FoDDataHelper.findUnique(unirest, request, String.format("applicationName:%s", appNameOrId));
         }
         if ( failIfNotFound && result==null ) {
             throw new IllegalArgumentException("No application found for name or id: " + appNameOrId);
@@ -51,7 +51,7 @@ public class FoDReleaseHelper {
 
     public static final FoDReleaseDescriptor getReleaseDescriptorFromId(UnirestInstance unirest, int relId, boolean failIfNotFound, String... fields) {
         GetRequest request = addFieldsParam(unirest.get(FoDUrls.RELEASES), fields);
-        return getDescriptor(request, String.valueOf(relId), failIfNotFound, String.format("releaseId:%d", relId));
+        return getDescriptor(unirest, request, String.valueOf(relId), failIfNotFound, String.format("releaseId:%d", relId));
     }
 
     public static final FoDReleaseDescriptor getReleaseDescriptorFromQualifiedName(UnirestInstance unirest, FoDQualifiedReleaseNameDescriptor releaseNameDescriptor, boolean failIfNotFound, String... fields) {
@@ -62,7 +62,7 @@ public class FoDReleaseHelper {
             filters.add(String.format("microserviceName:%s", releaseNameDescriptor.getMicroserviceName()));
         }
         GetRequest request = addFieldsParam(unirest.get(FoDUrls.RELEASES), fields);
-        return getDescriptor(request, releaseNameDescriptor.getQualifiedName(), failIfNotFound, filters.toArray(new String[] {}));
+        return getDescriptor(unirest, request, releaseNameDescriptor.getQualifiedName(), failIfNotFound, filters.toArray(new String[] {}));
     }
 
     public static final FoDReleaseDescriptor createRelease(UnirestInstance unirest, FoDReleaseCreateRequest relCreateRequest) {
@@ -92,8 +92,8 @@ public class FoDReleaseHelper {
         return req;
     }
 
-    private static final FoDReleaseDescriptor getDescriptor(HttpRequest<?> request, String releaseNameOrId, boolean failIfNotFound, String... filters) {
-        JsonNode result = FoDDataHelper.findUnique(request, filters);
+    private static final FoDReleaseDescriptor getDescriptor(UnirestInstance unirest, HttpRequest<?> request, String releaseNameOrId, boolean failIfNotFound, String... filters) {
+        JsonNode result = FoDDataHelper.findUnique(unirest, request, filters);
         if ( failIfNotFound && result==null ) {
             throw new IllegalArgumentException(String.format("Cannot find release %s", releaseNameOrId));
         } else {
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.TreeSet;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -55,6 +56,7 @@ public final class MspReportAppScanCollector implements AutoCloseable {
     private final Map<MspReportSSCScanType, MspReportSSCScanDescriptor> earliestScanByType = new HashMap<>();
     private final Map<String, MspReportSSCScanDescriptor> earliestUploadByScanId = new HashMap<>();
     private final Map<MspReportSSCScanType, TreeSet<MspReportSSCScanDescriptor>> sortedScansByType = new HashMap<>();
+    private final Map<MspReportSSCScanType, TreeMap<MspReportSSCScanDescriptor, Boolean>> remediationScansByType = new HashMap<>();
     
     public MspReportSSCAppSummaryDescriptor summary() {
         return summaryDescriptor;
@@ -125,6 +127,7 @@ public final class MspReportAppScanCollector implements AutoCloseable {
     private void addSortedScanByType(MspReportSSCScanDescriptor scanDescriptor) {
         var type = scanDescriptor.getScanType();
         sortedScansByType.computeIfAbsent(type, v->new TreeSet<>(this::compareScanDate)).add(scanDescriptor);
+        remediationScansByType.remove(type);
     }
     
     private void addEarliestScanByType(MspReportSSCScanDescriptor scanDescriptor) {
@@ -246,13 +249,38 @@ public final class MspReportAppScanCollector implements AutoCloseable {
     
     /**
      * Check if a scan of the same type exists that is less than 30 days older
-     * that the given scan, and which itself is not a remediation scan.
+     * that the given scan, and which itself is not a remediation scan. As this
+     * depends on whether the previous scan is a remediation scan, we determine
+     * this for all scans of the given type at once; see 
+     * {@link #getRemediationScans(MspReportSSCScanType)}.
      */
-    private boolean isRemediationScan(MspReportSSCScanDescriptor descriptor) {
-        var previousScan = getPreviousScan(descriptor);
-        return previousScan!=null 
-                && ChronoUnit.DAYS.between(previousScan.getScanDate(), descriptor.getScanDate())<30
-                && !isRemediationScan(previousScan);
+    boolean isRemediationScan(MspReportSSCScanDescriptor descriptor) {
+        return remediationScansByType
+                .computeIfAbsent(descriptor.getScanType(), this::getRemediationScans)
+                .get(descriptor);
+    }
+    
+    /**
+     * Determine for every scan of the given type whether it's a remediation scan,
+     * in a single pass over all scans of that type in chronological order. Like
+     * {@link #sortedScansByType}, the returned map is ordered by scan date, so 
+     * looking up a scan returns the result for the scan with the same scan date
+     * that was added first, in line with {@link #getPreviousScan(MspReportSSCScanDescriptor)}. 
+     */
+    private TreeMap<MspReportSSCScanDescriptor, Boolean> getRemediationScans(MspReportSSCScanType type) {
+        var result = new TreeMap<MspReportSSCScanDescriptor, Boolean>(this::compareScanDate);
+        MspReportSSCScanDescriptor previousScan = null;
+        boolean previousIsRemediationScan = false;
+        for ( var scan : sortedScansByType.get(type) ) {
+            boolean isRemediationScan = previousScan!=null
+                    && !isBeforeContractStartDate(previousScan.getScanDate())
+                    && ChronoUnit.DAYS.between(previousScan.getScanDate(), scan.getScanDate())<30
+                    && !previousIsRemediationScan;
+            result.put(scan, isRemediationScan);
+            previousScan = scan;
+            previousIsRemediationScan = isRemediationScan;
+        }
+        return result;
     }
     
     /**
@@ -37,6 +37,7 @@ public class MspReportSSCSourceConfig implements IMspReportSourceConfig, IUrlCon
     private int connectTimeoutInMillis = Config.DEFAULT_CONNECT_TIMEOUT;
     private int socketTimeoutInMillis = Config.DEFAULT_SOCKET_TIMEOUT;
     private Boolean insecureModeEnabled;
+    private int maxConcurrentApplications = 4;
     
     @Override
     public String getUrl() {
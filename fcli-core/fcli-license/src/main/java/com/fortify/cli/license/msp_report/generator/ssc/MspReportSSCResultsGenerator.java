@@ -16,9 +16,21 @@ import static com.fortify.cli.license.msp_report.generator.ssc.MspReportSSCAppVe
 import static com.fortify.cli.license.msp_report.generator.ssc.MspReportSSCAppVersionAttribute.MSP_End_Customer_Name;
 import static com.fortify.cli.license.msp_report.generator.ssc.MspReportSSCAppVersionAttribute.MSP_License_Type;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.common.report.logger.IReportLogger;
 import com.fortify.cli.common.util.StringUtils;
 import com.fortify.cli.license.msp_report.collector.MspReportAppScanCollector;
 import com.fortify.cli.license.msp_report.collector.MspReportAppScanCollector.MspReportScanCollectorState;
@@ -39,13 +51,25 @@ import kong.unirest.HttpResponse;
 import kong.unirest.UnirestInstance;
 
 /**
- * This class is responsible for loading MSP data from SSC.
+ * This class is responsible for loading MSP data from SSC. Applications are
+ * processed concurrently, up to the maximum number of concurrent applications
+ * defined in {@link MspReportSSCSourceConfig}. Any results for an application 
+ * are deferred until the application has been fully processed, and are then
+ * reported on the thread that invoked {@link #generateResults()}, in the order
+ * in which applications were returned by SSC. As such, results collectors and
+ * writers are only ever accessed from a single thread, and report contents 
+ * don't depend on the number of concurrent applications.
  * 
  * @author rsenden
  *
  */
 public class MspReportSSCResultsGenerator extends AbstractMspReportUnirestResultsGenerator<MspReportSSCSourceConfig> {
-    private final SSCBulkEmbedder appVersionBulkEmbedder = new SSCBulkEmbedder(SSCAppVersionEmbedderSupplier.attrValuesByName);
+    // SSCBulkEmbedder instances cache attribute definitions, and are not thread-safe
+    private final ThreadLocal<SSCBulkEmbedder> appVersionBulkEmbedder = 
+            ThreadLocal.withInitial(()->new SSCBulkEmbedder(SSCAppVersionEmbedderSupplier.attrValuesByName));
+    private final Deque<PendingApp> pendingApps = new ArrayDeque<>();
+    private ExecutorService executor;
+    private int maxConcurrentApplications = 1;
 
     /**
      * Constructor to configure this instance with the given 
@@ -59,14 +83,28 @@ public class MspReportSSCResultsGenerator extends AbstractMspReportUnirestResult
     /**
      * Primary method for running the generation process. This method validates
      * required application version attributes are correctly configured, then
-     * loads all SSC application versions pages, invoking 
-     * {@link #processAppVersionPage(HttpResponse)} for each page.
+     * loads all SSC application pages, invoking {@link #processAppPage(HttpResponse)} 
+     * for each page, and finally reports any applications that are still pending.
      */
     @Override
     protected void generateResults() {
         validateSSCAttributes();
-        SSCPagingHelper.pagedRequest(unirest().get("/api/v1/projects?limit=100"))
-            .forEach(this::processAppPage);
+        this.maxConcurrentApplications = Math.max(1, sourceConfig().getMaxConcurrentApplications());
+        this.executor = maxConcurrentApplications==1 
+                ? null 
+                : Executors.newFixedThreadPool(maxConcurrentApplications, MspReportSSCResultsGenerator::createDaemonThread);
+        try {
+            SSCPagingHelper.pagedRequest(unirest(), unirest().get("/api/v1/projects?limit=100"))
+                .forEach(this::processAppPage);
+            while ( !pendingApps.isEmpty() ) {
+                reportNextPendingApp();
+            }
+        } finally {
+            if ( executor!=null ) {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
     }
     
     /**
@@ -84,74 +122,119 @@ public class MspReportSSCResultsGenerator extends AbstractMspReportUnirestResult
     
     private void processAppPage(HttpResponse<JsonNode> response) {
         var apps = ((ArrayNode)SSCInputTransformer.getDataOrSelf(response.getBody()));
-        JsonHelper.stream(apps).forEach(this::processApp);
+        JsonHelper.stream(apps).forEach(this::submitApp);
     }
     
-    private void processApp(JsonNode appNode) {
+    private void submitApp(JsonNode appNode) {
         var descriptor = JsonHelper.treeToValue(appNode, MspReportSSCAppDescriptor.class);
         resultsCollector().progressWriter().writeI18nProgress("processing.app", descriptor.getName());
+        var pendingApp = new PendingApp(descriptor);
+        pendingApp.process();
+        pendingApps.add(pendingApp);
+        reportCompletedPendingApps();
+    }
+    
+    /**
+     * Report pending applications in the order in which they were submitted, for as long 
+     * as the oldest pending application has been fully processed, or if the number of 
+     * pending applications exceeds twice the maximum number of concurrent applications.
+     */
+    private void reportCompletedPendingApps() {
+        while ( !pendingApps.isEmpty() 
+                && (pendingApps.peek().isDone() || pendingApps.size()>maxConcurrentApplications*2) ) {
+            reportNextPendingApp();
+        }
+    }
+    
+    private void reportNextPendingApp() {
+        var pendingApp = pendingApps.poll();
+        try {
+            pendingApp.report();
+        } catch ( Exception e ) {
+            var descriptor = pendingApp.appDescriptor;
+            resultsCollector().logger().error("Error Processing application %s", e, descriptor.getName());
+            resultsCollector().appCollector()
+                .report(sourceConfig(), new MspReportSSCProcessedAppDescriptor(descriptor, MspReportProcessingStatus.error, e.getMessage(), new MspReportSSCAppSummaryDescriptor()));
+        }
+    }
+    
+    /**
+     * Process the given {@link PendingApp}. This method may be invoked on a background 
+     * thread, so any results must be deferred through {@link PendingApp#defer(Runnable)},
+     * and any messages must be logged through the {@link PendingApp} itself.
+     */
+    private void processApp(PendingApp pendingApp) {
+        var descriptor = pendingApp.appDescriptor;
         try {
-            loadVersionsForApp(descriptor);
-            descriptor.check(resultsCollector().logger());
-            var summary = processApp(descriptor);
+            loadVersionsForApp(pendingApp);
+            descriptor.check(pendingApp);
+            var summary = processAppVersions(pendingApp);
             var status = descriptor.getWarnCounter().getCount()>0 
                     ? MspReportProcessingStatus.warn
                     : MspReportProcessingStatus.success;
             var reason = status==MspReportProcessingStatus.warn
                     ? "Processed with warnings"
                     : "Successfully processed";
-            resultsCollector().appCollector()
-                .report(sourceConfig(), new MspReportSSCProcessedAppDescriptor(descriptor, status, reason, summary));
+            pendingApp.defer(()->resultsCollector().appCollector()
+                .report(sourceConfig(), new MspReportSSCProcessedAppDescriptor(descriptor, status, reason, summary)));
         } catch ( Exception e ) {
-            resultsCollector().logger().error("Error Processing application %s", e, descriptor.getName());
-            resultsCollector().appCollector()
-                .report(sourceConfig(), new MspReportSSCProcessedAppDescriptor(descriptor, MspReportProcessingStatus.error, e.getMessage(), new MspReportSSCAppSummaryDescriptor()));
+            pendingApp.error("Error Processing application %s", e, descriptor.getName());
+            pendingApp.defer(()->resultsCollector().appCollector()
+                .report(sourceConfig(), new MspReportSSCProcessedAppDescriptor(descriptor, MspReportProcessingStatus.error, e.getMessage(), new MspReportSSCAppSummaryDescriptor())));
         }
     }
     
-    private void loadVersionsForApp(MspReportSSCAppDescriptor descriptor) {
-        SSCPagingHelper.pagedRequest(
+    private void loadVersionsForApp(PendingApp pendingApp) {
+        SSCPagingHelper.pagedRequest(unirest(),
             unirest().get("/api/v1/projects/{id}/versions?limit=100")
-                .routeParam("id", descriptor.getId()))
-            .forEach(r->loadAppVersionPage(descriptor, r.getBody()));
+                .routeParam("id", pendingApp.appDescriptor.getId()))
+            .forEach(r->loadAppVersionPage(pendingApp, r.getBody()));
     }
     
-    private void loadAppVersionPage(MspReportSSCAppDescriptor appDescriptor, JsonNode body) {
-        var appVersions = appVersionBulkEmbedder.transformInput(unirest(), body);
+    private void loadAppVersionPage(PendingApp pendingApp, JsonNode body) {
+        var appVersions = appVersionBulkEmbedder.get().transformInput(unirest(), body);
         JsonHelper.stream(appVersions)
             .map(node->JsonHelper.treeToValue(node, MspReportSSCAppVersionDescriptor.class))
-            .forEach(versionDescriptor -> appDescriptor.addVersionDescriptor(resultsCollector().logger(), versionDescriptor));
+            .forEach(versionDescriptor -> pendingApp.appDescriptor.addVersionDescriptor(pendingApp, versionDescriptor));
     }
 
-    private MspReportSSCAppSummaryDescriptor processApp(MspReportSSCAppDescriptor appDescriptor) {
-        try ( var scanCollector = resultsCollector().scanCollector(sourceConfig(), appDescriptor) ) {
-            appDescriptor.getVersionDescriptors()
-                .forEach(versionDescriptor->processAppVersion(versionDescriptor, scanCollector));
+    /**
+     * Process all versions of the given application. Scans reported to the
+     * {@link MspReportAppScanCollector} are only written when the collector
+     * is closed, so closing the collector is deferred as well.
+     */
+    private MspReportSSCAppSummaryDescriptor processAppVersions(PendingApp pendingApp) {
+        var scanCollector = resultsCollector().scanCollector(sourceConfig(), pendingApp.appDescriptor);
+        try {
+            pendingApp.appDescriptor.getVersionDescriptors()
+                .forEach(versionDescriptor->processAppVersion(pendingApp, versionDescriptor, scanCollector));
             return scanCollector.summary();
+        } finally {
+            pendingApp.defer(scanCollector::close);
         }
     }
     
-    private void processAppVersion(MspReportSSCAppVersionDescriptor versionDescriptor, MspReportAppScanCollector scanCollector) {
+    private void processAppVersion(PendingApp pendingApp, MspReportSSCAppVersionDescriptor versionDescriptor, MspReportAppScanCollector scanCollector) {
         try {
             var continueNextPageSupplier = new SSCContinueNextPageSupplier();
             HttpRequest<?> req = unirest().get("/api/v1/projectVersions/{pvId}/artifacts?limit=100&embed=scans")
                     .routeParam("pvId", versionDescriptor.getVersionId());
-            SSCPagingHelper.pagedRequest(req, continueNextPageSupplier)
-                .forEach(r->processArtifactPage(r.getBody(), versionDescriptor, scanCollector, continueNextPageSupplier));
-            resultsCollector().appVersionCollector()
-                .report(sourceConfig(), new MspReportSSCProcessedAppVersionDescriptor(versionDescriptor, MspReportProcessingStatus.success, "Successfully processed"));
+            SSCPagingHelper.pagedRequest(unirest(), req, continueNextPageSupplier)
+                .forEach(r->processArtifactPage(pendingApp, r.getBody(), versionDescriptor, scanCollector, continueNextPageSupplier));
+            pendingApp.defer(()->resultsCollector().appVersionCollector()
+                .report(sourceConfig(), new MspReportSSCProcessedAppVersionDescriptor(versionDescriptor, MspReportProcessingStatus.success, "Successfully processed")));
         } catch ( Exception e ) {
-            resultsCollector().logger().error("Error loading artifacts for application version %s", e, versionDescriptor.getAppAndVersionName());
-            resultsCollector().appVersionCollector()
-                .report(sourceConfig(), new MspReportSSCProcessedAppVersionDescriptor(versionDescriptor, MspReportProcessingStatus.error, e.getMessage()));
+            pendingApp.error("Error loading artifacts for application version %s", e, versionDescriptor.getAppAndVersionName());
+            pendingApp.defer(()->resultsCollector().appVersionCollector()
+                .report(sourceConfig(), new MspReportSSCProcessedAppVersionDescriptor(versionDescriptor, MspReportProcessingStatus.error, e.getMessage())));
             throw e;
         }
     }
 
-    private void processArtifactPage(JsonNode body, MspReportSSCAppVersionDescriptor versionDescriptor, MspReportAppScanCollector scanCollector, SSCContinueNextPageSupplier continueNextPageSupplier) {
+    private void processArtifactPage(PendingApp pendingApp, JsonNode body, MspReportSSCAppVersionDescriptor versionDescriptor, MspReportAppScanCollector scanCollector, SSCContinueNextPageSupplier continueNextPageSupplier) {
         var done = JsonHelper.stream((ArrayNode)SSCInputTransformer.getDataOrSelf(body))
             .map(this::createArtifactDescriptor)
-            .peek(d->resultsCollector().artifactCollector().report(sourceConfig(), versionDescriptor, d))
+            .peek(d->pendingApp.defer(()->resultsCollector().artifactCollector().report(sourceConfig(), versionDescriptor, d)))
             .flatMap(MspReportSSCScanDescriptor::from)
             .map(scanCollector::report)
             .filter(MspReportScanCollectorState.DONE::equals)
@@ -193,4 +276,81 @@ public class MspReportSSCResultsGenerator extends AbstractMspReportUnirestResult
     protected String getType() {
         return "ssc";
     }
+    
+    private static final Thread createDaemonThread(Runnable runnable) {
+        Thread result = new Thread(runnable, "fcli-msp-report");
+        result.setDaemon(true);
+        return result;
+    }
+    
+    /**
+     * This class holds an application that has been submitted for processing,
+     * together with a {@link Future} for the processing task and the list of
+     * deferred results to be reported once processing has completed. This class
+     * also implements {@link IReportLogger}, deferring any log entries to be 
+     * written together with the other results for this application. Summary
+     * updates are not deferred, but delegated directly to the report logger.
+     */
+    private final class PendingApp implements IReportLogger {
+        private final MspReportSSCAppDescriptor appDescriptor;
+        private final List<Runnable> deferredResults = new ArrayList<>();
+        private Future<?> future;
+        
+        private PendingApp(MspReportSSCAppDescriptor appDescriptor) {
+            this.appDescriptor = appDescriptor;
+        }
+        
+        private void process() {
+            Runnable processor = ()->processApp(this);
+            if ( executor!=null ) {
+                this.future = executor.submit(processor);
+            } else {
+                var task = new FutureTask<>(processor, null);
+                task.run();
+                this.future = task;
+            }
+        }
+        
+        private boolean isDone() {
+            return future.isDone();
+        }
+        
+        private void defer(Runnable result) {
+            deferredResults.add(result);
+        }
+        
+        private void report() throws Exception {
+            try {
+                future.get();
+            } catch ( ExecutionException e ) {
+                throw e.getCause() instanceof Exception ? (Exception)e.getCause() : e;
+            }
+            deferredResults.forEach(Runnable::run);
+        }
+
+        @Override
+        public void warn(String msg, Object... args) {
+            defer(()->resultsCollector().logger().warn(msg, args));
+        }
+
+        @Override
+        public void warn(String msg, Exception e, Object... args) {
+            defer(()->resultsCollector().logger().warn(msg, e, args));
+        }
+
+        @Override
+        public void error(String msg, Object... args) {
+            defer(()->resultsCollector().logger().error(msg, args));
+        }
+
+        @Override
+        public void error(String msg, Exception e, Object... args) {
+            defer(()->resultsCollector().logger().error(msg, e, args));
+        }
+
+        @Override
+        public void updateSummary(ObjectNode summary) {
+            resultsCollector().logger().updateSummary(summary);
+        }
+    }
 }
@@ -18,6 +18,7 @@ import com.fortify.cli.common.output.cli.mixin.OutputHelperMixins;
 import com.fortify.cli.common.progress.helper.IProgressWriterI18n;
 import com.fortify.cli.common.report.cli.cmd.AbstractConfigurableReportGenerateCommand;
 import com.fortify.cli.common.report.writer.IReportWriter;
+import com.fortify.cli.license.ncd_report.collector.NcdReportCommitCache;
 import com.fortify.cli.license.ncd_report.collector.NcdReportResultsCollector;
 import com.fortify.cli.license.ncd_report.config.NcdReportConfig;
 
@@ -31,6 +32,8 @@ public final class NcdReportCreateCommand extends AbstractConfigurableReportGene
     @Getter @Mixin private OutputHelperMixins.CreateWithDetailsOutput outputHelper;
     @Option(names = {"-c","--config"}, required = true, defaultValue = "NcdReportConfig.yml")
     @Getter private File configFile;
+    @Option(names = {"--no-cache"})
+    private boolean noCache;
     
     @Override
     protected String getReportTitle() {
@@ -44,6 +47,6 @@ public final class NcdReportCreateCommand extends AbstractConfigurableReportGene
     
     @Override
     protected NcdReportResultsCollector createResultsCollector(NcdReportConfig config, IReportWriter reportWriter, IProgressWriterI18n progressWriter) {
-        return new NcdReportResultsCollector(config, reportWriter, progressWriter);
+        return new NcdReportResultsCollector(config, reportWriter, progressWriter, new NcdReportCommitCache(configFile, !noCache));
     }
 }
@@ -31,7 +31,20 @@ public interface INcdReportRepositoryProcessor {
      * Based on the given {@link INcdReportRepoSelectorConfig}, implementations should
      * decide whether the repository should be processed or not. If the repository should 
      * be processed, the given {@link INcdReportBranchCommitGenerator} can be invoked to 
-     * generate commit data for every branch in the given repository. 
+     * generate commit data for every branch in the given repository. Commit data may be
+     * generated asynchronously; results are reported in the order in which repositories
+     * were passed to this method. 
      */
     <R extends INcdReportRepositoryDescriptor> void processRepository(INcdReportRepoSelectorConfig repoSelectorConfig, R repoDescriptor, INcdReportBranchCommitGenerator<R> commitGenerator);
+    
+    /**
+     * Start processing repositories for a new source, allowing commit data to be generated
+     * concurrently for at most the given number of repositories.
+     */
+    void startSource(int maxConcurrentRepositories);
+    
+    /**
+     * Wait until all repositories for the current source have been fully processed.
+     */
+    void finishSource();
 }
\ No newline at end of file
@@ -12,10 +12,13 @@
  *******************************************************************************/
 package com.fortify.cli.license.ncd_report.collector;
 
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentSkipListMap;
 
 import org.springframework.expression.Expression;
@@ -23,6 +26,7 @@ import org.springframework.expression.spel.standard.SpelExpressionParser;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.license.ncd_report.collector.NcdReportAuthorDuplicateIndex.DuplicateCandidates;
 import com.fortify.cli.license.ncd_report.config.NcdReportContributorConfig;
 import com.fortify.cli.license.ncd_report.descriptor.NcdReportProcessedAuthorDescriptor;
 
@@ -55,11 +59,19 @@ import lombok.Getter;
  *  <li>name: 'First Middle Last', email: 'first.last@company.com'</li>
  * </ol>
  * 
+ * <p>To avoid having to evaluate the de-duplication expression for every pair of
+ * authors, {@link NcdReportAuthorDuplicateIndex} is used to find (potential) duplicates
+ * for each author, and a union-find structure is used to find the de-duplicated 
+ * author (map key) for every author that was added previously.</p>
+ * 
  * @author rsenden
  *
  */
 final class NcdReportAuthorDeduplicator {
     private final Optional<Expression> dedupeExpression;
+    private final Optional<NcdReportAuthorDuplicateIndex> duplicateIndex;
+    /** Union-find parent for every author; de-duplicated authors (map keys) are their own parent */
+    private final Map<NcdReportProcessedAuthorDescriptor, NcdReportProcessedAuthorDescriptor> parents = new IdentityHashMap<>();
     @Getter private final ConcurrentSkipListMap<NcdReportProcessedAuthorDescriptor, Set<NcdReportProcessedAuthorDescriptor>> deduplicatedAuthors = new ConcurrentSkipListMap<>(this::compareAuthorIndex);
     
     public NcdReportAuthorDeduplicator(Optional<NcdReportContributorConfig> contributorConfig) {
@@ -67,6 +79,7 @@ final class NcdReportAuthorDeduplicator {
         this.dedupeExpression = contributorConfig
                 .flatMap(NcdReportContributorConfig::getDuplicateExpression)
                 .map(parser::parseExpression);
+        this.duplicateIndex = dedupeExpression.map(NcdReportAuthorDuplicateIndex::new);
     }
     
     final void addAuthor(NcdReportProcessedAuthorDescriptor descriptor) {
@@ -92,35 +105,73 @@ final class NcdReportAuthorDeduplicator {
         // and merge them into the first matching entry. For example, we may have an existing 
         // entry that matches the current descriptor on name, and another matching on email,
         // so we combine these into the first entry found while removing all other entries
-        // (in the reduceDuplicates method).
-        var duplicateEntries = deduplicatedAuthors.entrySet().stream()
-            .filter(e->containsDuplicate(e, descriptor, expr))
-            .reduce(this::reduceDuplicates);
+        // (in the mergeEntries method).
+        var index = duplicateIndex.get();
+        var duplicateKeys = findDuplicateKeys(descriptor, expr, index.getCandidates(descriptor));
         // If we found a duplicate entry, we add the current descriptor to that entry.
         // Otherwise, we create a new entry with an empty duplicates set.
-        duplicateEntries.ifPresentOrElse(
-                s->s.getValue().add(descriptor),
-                ()->add(descriptor));
-    }
-
-    private Entry<NcdReportProcessedAuthorDescriptor, Set<NcdReportProcessedAuthorDescriptor>> reduceDuplicates(
-            Entry<NcdReportProcessedAuthorDescriptor, Set<NcdReportProcessedAuthorDescriptor>> e1,
-            Entry<NcdReportProcessedAuthorDescriptor, Set<NcdReportProcessedAuthorDescriptor>> e2) {
-        e1.getValue().add(e2.getKey());
-        e1.getValue().addAll(deduplicatedAuthors.remove(e2.getKey())); 
-        return e1;
+        if ( duplicateKeys.isEmpty() ) {
+            add(descriptor);
+        } else {
+            var key = mergeEntries(duplicateKeys);
+            deduplicatedAuthors.get(key).add(descriptor);
+            parents.put(descriptor, key);
+        }
+        index.add(descriptor);
     }
-
+    
     /**
-     * Returns true if a duplicate is found in the given entry (either the entry key,
-     * or one of its values) for the given descriptor, based on the given expression.
+     * Get the keys of all entries that contain a duplicate descriptor, ordered by
+     * author number. Potential duplicates are only evaluated against the given 
+     * expression if their entry hasn't been identified as a duplicate entry yet.
      */
-    private boolean containsDuplicate(Entry<NcdReportProcessedAuthorDescriptor, Set<NcdReportProcessedAuthorDescriptor>> e, NcdReportProcessedAuthorDescriptor descriptor, Expression expr) {
-        var result = isDuplicate(descriptor, e.getKey(), expr)
-                || e.getValue().stream().anyMatch(d->isDuplicate(descriptor, d, expr));
+    private SortedSet<NcdReportProcessedAuthorDescriptor> findDuplicateKeys(NcdReportProcessedAuthorDescriptor descriptor, Expression expr, DuplicateCandidates candidates) {
+        var result = new TreeSet<NcdReportProcessedAuthorDescriptor>(this::compareAuthorIndex);
+        candidates.getDuplicates().forEach(d->result.add(findKey(d)));
+        for ( var potentialDuplicate : candidates.getPotentialDuplicates() ) {
+            var key = findKey(potentialDuplicate);
+            if ( !result.contains(key) && isDuplicate(descriptor, potentialDuplicate, expr) ) {
+                result.add(key);
+            }
+        }
         return result;
     }
     
+    /**
+     * Merge the entries for the given keys into the entry for the first key,
+     * adding each subsequent key and its duplicates to the duplicates set
+     * of the first entry, and removing the subsequent entries. 
+     */
+    private NcdReportProcessedAuthorDescriptor mergeEntries(SortedSet<NcdReportProcessedAuthorDescriptor> keys) {
+        var it = keys.iterator();
+        var key = it.next();
+        var duplicates = deduplicatedAuthors.get(key);
+        while ( it.hasNext() ) {
+            var otherKey = it.next();
+            duplicates.add(otherKey);
+            duplicates.addAll(deduplicatedAuthors.remove(otherKey));
+            parents.put(otherKey, key);
+        }
+        return key;
+    }
+    
+    /**
+     * Find the key of the entry containing the given descriptor, compressing 
+     * the union-find path along the way. 
+     */
+    private NcdReportProcessedAuthorDescriptor findKey(NcdReportProcessedAuthorDescriptor descriptor) {
+        var key = descriptor;
+        NcdReportProcessedAuthorDescriptor parent;
+        while ( (parent=parents.get(key))!=key ) {
+            key = parent;
+        }
+        while ( descriptor!=key ) {
+            var next = parents.put(descriptor, key);
+            descriptor = next;
+        }
+        return key;
+    }
+    
     /**
      * Returns true if the given descriptors are considered duplicates according to the
      * given expression. To avoid users having to repeat the same expression with c1 and
@@ -144,5 +195,6 @@ final class NcdReportAuthorDeduplicator {
 
     private final void add(NcdReportProcessedAuthorDescriptor descriptor) {
         deduplicatedAuthors.computeIfAbsent(descriptor, d->new LinkedHashSet<NcdReportProcessedAuthorDescriptor>());
+        parents.put(descriptor, descriptor);
     }
 }
\ No newline at end of file
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.license.ncd_report.collector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.OpAnd;
+import org.springframework.expression.spel.ast.OpEQ;
+import org.springframework.expression.spel.ast.OpOr;
+import org.springframework.expression.spel.standard.SpelExpression;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fortify.cli.common.spring.expression.SpelNodeHelper;
+import com.fortify.cli.license.ncd_report.descriptor.NcdReportProcessedAuthorDescriptor;
+
+import lombok.Data;
+import lombok.Getter;
+
+/**
+ * <p>This class is used by {@link NcdReportAuthorDeduplicator} to find potential 
+ * duplicates for a given author without having to evaluate the duplicate expression
+ * against every previously added author.</p>
+ * 
+ * <p>The duplicate expression is analyzed for equality terms like 
+ * <code>a1.cleanName==a2.cleanEmailName</code>, and authors are indexed on the 
+ * properties referenced by these terms:</p>
+ * <ul>
+ *  <li>If the expression consists only of such terms combined with '||', any 
+ *      author found through the indexes is known to be a duplicate, without
+ *      having to evaluate the expression.</li>
+ *  <li>If the expression can only be true if at least one of these terms is true,
+ *      for example for expressions like <code>a1.cleanName==a2.cleanName && ...</code>,
+ *      authors found through the indexes are potential duplicates, for which the 
+ *      expression still needs to be evaluated.</li>
+ *  <li>Otherwise, all previously added authors are potential duplicates.</li>
+ * </ul>
+ * 
+ * <p>Authors that have non-textual values for any of the indexed properties 
+ * are not indexed, and are always considered to be potential duplicates.</p>
+ */
+final class NcdReportAuthorDuplicateIndex {
+    private static final Object NULL_VALUE = new Object();
+    private final Set<EqualityTerm> terms;
+    @Getter private final boolean exact;
+    private final Map<String, Map<Object, List<NcdReportProcessedAuthorDescriptor>>> propertyIndexes = new HashMap<>();
+    private final List<NcdReportProcessedAuthorDescriptor> unindexedAuthors = new ArrayList<>();
+    private final List<NcdReportProcessedAuthorDescriptor> allAuthors = new ArrayList<>();
+    
+    NcdReportAuthorDuplicateIndex(Expression expression) {
+        var analysis = expression instanceof SpelExpression
+                ? analyze(((SpelExpression)expression).getAST())
+                : TermAnalysis.NONE;
+        this.terms = analysis.getTerms();
+        this.exact = analysis.isExact();
+        terms.stream()
+            .flatMap(t->Stream.of(t.getA1Property(), t.getA2Property()))
+            .forEach(p->propertyIndexes.put(p, new HashMap<>()));
+    }
+    
+    /**
+     * Add the given author to the indexes.
+     */
+    final void add(NcdReportProcessedAuthorDescriptor descriptor) {
+        allAuthors.add(descriptor);
+        if ( terms.isEmpty() ) {
+            return; // Nothing to index
+        } else if ( !isIndexable(descriptor) ) {
+            unindexedAuthors.add(descriptor);
+        } else {
+            propertyIndexes.forEach((property, index)->
+                index.computeIfAbsent(getValue(descriptor, property), v->new ArrayList<>()).add(descriptor));
+        }
+    }
+    
+    /**
+     * Get the previously added authors that are known or potential duplicates of the
+     * given author. 
+     */
+    final DuplicateCandidates getCandidates(NcdReportProcessedAuthorDescriptor descriptor) {
+        if ( !isIndexable(descriptor) ) {
+            return new DuplicateCandidates(Set.of(), allAuthors);
+        } 
+        var indexedAuthors = new LinkedHashSet<NcdReportProcessedAuthorDescriptor>();
+        for ( var term : terms ) {
+            // Expressions are evaluated with a1 and a2 in both orders, so we look up both ways
+            addIndexedAuthors(indexedAuthors, term.getA2Property(), getValue(descriptor, term.getA1Property()));
+            addIndexedAuthors(indexedAuthors, term.getA1Property(), getValue(descriptor, term.getA2Property()));
+        }
+        return exact
+                ? new DuplicateCandidates(indexedAuthors, unindexedAuthors)
+                : new DuplicateCandidates(Set.of(), Stream.concat(indexedAuthors.stream(), unindexedAuthors.stream()).collect(Collectors.toList()));
+    }
+    
+    private void addIndexedAuthors(Set<NcdReportProcessedAuthorDescriptor> indexedAuthors, String property, Object value) {
+        var authors = propertyIndexes.get(property).get(value);
+        if ( authors!=null ) {
+            indexedAuthors.addAll(authors);
+            // For exact matches, all authors in this list will be merged into a single 
+            // de-duplicated author, so for future look-ups we only need to keep a single
+            // author. This avoids repeatedly processing large lists of authors that share 
+            // a common value, like an empty clean name.
+            if ( exact && authors.size()>1 ) {
+                authors.subList(1, authors.size()).clear();
+            }
+        }
+    }
+    
+    private boolean isIndexable(NcdReportProcessedAuthorDescriptor descriptor) {
+        return !terms.isEmpty() && propertyIndexes.keySet().stream().allMatch(p->getValue(descriptor, p)!=null);
+    }
+    
+    /**
+     * Get the value for the given property, returning {@link #NULL_VALUE} for
+     * null or missing values (as SpEL considers null values to be equal), or
+     * null if the property value is not textual.
+     */
+    private static final Object getValue(NcdReportProcessedAuthorDescriptor descriptor, String property) {
+        JsonNode value = descriptor.getExpressionInput().get(property);
+        if ( value==null || value.isNull() ) { return NULL_VALUE; }
+        return value.isTextual() ? value.textValue() : null;
+    }
+    
+    /**
+     * Analyze the given expression node, returning the equality terms of which at least 
+     * one needs to be true for the given expression to evaluate to true, and whether the
+     * expression is true if and only if at least one of these terms is true.
+     */
+    private static final TermAnalysis analyze(SpelNode node) {
+        if ( node instanceof OpEQ ) {
+            return EqualityTerm.of((OpEQ)node)
+                    .map(t->new TermAnalysis(Set.of(t), true))
+                    .orElse(TermAnalysis.NONE);
+        } else if ( node instanceof OpOr ) {
+            var left = analyze(((OpOr)node).getLeftOperand());
+            var right = analyze(((OpOr)node).getRightOperand());
+            if ( left.getTerms().isEmpty() || right.getTerms().isEmpty() ) { return TermAnalysis.NONE; }
+            var terms = new LinkedHashSet<EqualityTerm>(left.getTerms());
+            terms.addAll(right.getTerms());
+            return new TermAnalysis(terms, left.isExact() && right.isExact());
+        } else if ( node instanceof OpAnd ) {
+            var left = analyze(((OpAnd)node).getLeftOperand());
+            var right = analyze(((OpAnd)node).getRightOperand());
+            var result = right.getTerms().isEmpty() || (!left.getTerms().isEmpty() && left.getTerms().size()<=right.getTerms().size()) 
+                    ? left : right;
+            return new TermAnalysis(result.getTerms(), false);
+        } else {
+            return TermAnalysis.NONE;
+        }
+    }
+    
+    @Data
+    static final class DuplicateCandidates {
+        /** Authors that are known to be duplicates */
+        private final Collection<NcdReportProcessedAuthorDescriptor> duplicates;
+        /** Authors for which the duplicate expression needs to be evaluated */
+        private final Collection<NcdReportProcessedAuthorDescriptor> potentialDuplicates;
+    }
+    
+    @Data
+    private static final class TermAnalysis {
+        private static final TermAnalysis NONE = new TermAnalysis(Set.of(), false);
+        private final Set<EqualityTerm> terms;
+        private final boolean exact;
+    }
+    
+    /**
+     * Equality term comparing a property of author 'a1' with a property of author 'a2'.
+     */
+    @Data
+    private static final class EqualityTerm {
+        private final String a1Property;
+        private final String a2Property;
+        
+        private static final Optional<EqualityTerm> of(OpEQ node) {
+            var left = SpelNodeHelper.qualifiedPropertyName(node.getLeftOperand()).orElse("");
+            var right = SpelNodeHelper.qualifiedPropertyName(node.getRightOperand()).orElse("");
+            if ( left.matches("a1\\.[^.]+") && right.matches("a2\\.[^.]+") ) {
+                return Optional.of(new EqualityTerm(left.substring(3), right.substring(3)));
+            } else if ( left.matches("a2\\.[^.]+") && right.matches("a1\\.[^.]+") ) {
+                return Optional.of(new EqualityTerm(right.substring(3), left.substring(3)));
+            }
+            return Optional.empty();
+        }
+    }
+}
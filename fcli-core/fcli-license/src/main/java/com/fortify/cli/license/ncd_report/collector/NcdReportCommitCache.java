@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.license.ncd_report.collector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fortify.cli.common.util.FcliDataHelper;
+import com.fortify.cli.license.ncd_report.descriptor.INcdReportRepositoryDescriptor;
+
+import lombok.SneakyThrows;
+
+/**
+ * <p>This class manages the local NCD report cache, stored in the fcli state 
+ * directory. For every repository, the cache stores the head commit id of each 
+ * branch together with the commit data that was previously loaded for that branch, 
+ * allowing source-specific generators to skip loading commits for branches that 
+ * haven't changed, and to only load new commits for branches that have changed; 
+ * see {@link NcdReportRepositoryCommitCache} for details.</p>
+ * 
+ * <p>In addition, this class maintains a checkpoint file for the current report
+ * configuration, listing the repositories that have been fully processed. If a 
+ * report run is interrupted, the next run for the same configuration file contents
+ * will use cached data for these repositories without any further requests to the
+ * source system. The checkpoint is removed once a report run has completed, and 
+ * is ignored if it wasn't updated for more than a day.</p>
+ */
+public final class NcdReportCommitCache {
+    private static final Logger LOG = LoggerFactory.getLogger(NcdReportCommitCache.class);
+    private static final Duration CHECKPOINT_MAX_AGE = Duration.ofDays(1);
+    private final boolean enabled;
+    private final Path checkpointPath;
+    private final Set<String> checkpointedRepositoryUrls;
+    
+    /**
+     * Create a new {@link NcdReportCommitCache} instance for the given
+     * configuration file. If enabled is false, this instance will never
+     * return any cached data, and never write any data to the cache.
+     */
+    public NcdReportCommitCache(File configFile, boolean enabled) {
+        this.enabled = enabled;
+        this.checkpointPath = enabled ? getCheckpointPath(configFile) : null;
+        this.checkpointedRepositoryUrls = enabled ? loadCheckpoint(checkpointPath) : Collections.emptySet();
+    }
+    
+    /**
+     * Get the {@link NcdReportRepositoryCommitCache} for the given repository. 
+     * Each invocation of this method loads the cached repository data, so callers
+     * should invoke this method once for every repository being processed.
+     */
+    public NcdReportRepositoryCommitCache repository(INcdReportRepositoryDescriptor repoDescriptor) {
+        var url = repoDescriptor.getUrl();
+        return enabled 
+                ? new NcdReportRepositoryCommitCache(getRepositoryPath(url), checkpointedRepositoryUrls.contains(url))
+                : new NcdReportRepositoryCommitCache(null, false);
+    }
+    
+    /**
+     * Record the given repository as having been fully processed in the
+     * checkpoint file. This method should only be called after all data
+     * for the given repository has been saved to the cache. 
+     */
+    synchronized void checkpoint(INcdReportRepositoryDescriptor repoDescriptor) {
+        if ( enabled ) {
+            try {
+                Files.createDirectories(checkpointPath.getParent());
+                Files.writeString(checkpointPath, repoDescriptor.getUrl()+"\n", StandardCharsets.UTF_8, 
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch ( IOException e ) {
+                LOG.warn("Error updating NCD report checkpoint {}", checkpointPath, e);
+            }
+        }
+    }
+    
+    /**
+     * Remove the checkpoint file if the report run has completed; if not,
+     * the checkpoint file is kept to allow the next run to resume.
+     */
+    void close(boolean completed) {
+        if ( enabled && completed ) {
+            FcliDataHelper.deleteFile(checkpointPath, false);
+        }
+    }
+    
+    private static final Set<String> loadCheckpoint(Path checkpointPath) {
+        Set<String> result = new HashSet<>();
+        try {
+            if ( Files.exists(checkpointPath) ) {
+                var age = Duration.between(Files.getLastModifiedTime(checkpointPath).toInstant(), Instant.now());
+                if ( age.compareTo(CHECKPOINT_MAX_AGE)>0 ) {
+                    LOG.debug("Ignoring outdated NCD report checkpoint {}", checkpointPath);
+                    Files.delete(checkpointPath);
+                } else {
+                    Files.readAllLines(checkpointPath, StandardCharsets.UTF_8).stream()
+                        .filter(line->!line.isBlank())
+                        .forEach(result::add);
+                    LOG.debug("Resuming NCD report, using cached data for {} previously processed repositories", result.size());
+                }
+            }
+        } catch ( IOException e ) {
+            LOG.debug("Ignoring unreadable NCD report checkpoint {}", checkpointPath, e);
+        }
+        return result;
+    }
+    
+    private static final Path getCheckpointPath(File configFile) {
+        try {
+            return getCachePath().resolve("checkpoints").resolve(sha256(Files.readAllBytes(configFile.toPath())));
+        } catch ( IOException e ) {
+            throw new IllegalStateException("Error reading configuration file "+configFile.getAbsolutePath(), e);
+        }
+    }
+    
+    private static final Path getRepositoryPath(String url) {
+        return getCachePath().resolve("repositories").resolve(sha256(url.getBytes(StandardCharsets.UTF_8))+".json");
+    }
+    
+    private static final Path getCachePath() {
+        return FcliDataHelper.getFcliStatePath().resolve("ncd-report");
+    }
+    
+    @SneakyThrows
+    private static final String sha256(byte[] data) {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
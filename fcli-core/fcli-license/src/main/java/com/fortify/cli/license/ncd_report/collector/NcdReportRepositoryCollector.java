@@ -56,10 +56,6 @@ final class NcdReportRepositoryCollector {
         reportRepository(descriptor, NcdReportRepositoryReportingStatus.error, e.getMessage());
     }
     
-    boolean isPreviouslyReported(INcdReportRepositoryDescriptor descriptor) {
-        return repositories.contains(descriptor);
-    }
-    
     void writeResults() {
         ObjectNode repositoryCounts = JsonHelper.getObjectMapper().createObjectNode();
         repositoryCounts.put("total", repositories.size());
@@ -72,7 +68,7 @@ final class NcdReportRepositoryCollector {
         repositoryCountsByStatus.put(status, getCountByStatus(status)+1);
     }
 
-    private Integer getCountByStatus(NcdReportRepositoryReportingStatus status) {
+    Integer getCountByStatus(NcdReportRepositoryReportingStatus status) {
         return repositoryCountsByStatus.getOrDefault(status, 0);
     }
 }
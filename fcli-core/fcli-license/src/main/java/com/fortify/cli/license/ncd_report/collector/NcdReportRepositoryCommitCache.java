@@ -0,0 +1,319 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.license.ncd_report.collector;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.formkiq.graalvm.annotations.Reflectable;
+import com.fortify.cli.common.util.FcliDataHelper;
+import com.fortify.cli.common.util.StringUtils;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p>This class provides access to the cached branch and commit data for a single 
+ * repository, as managed by {@link NcdReportCommitCache}. Source-specific generators
+ * use the {@link #getBranchCommits(JsonNode, String, String, OffsetDateTime, ICommitLoader)}
+ * and {@link #getHeadCommit(String, String, Supplier)} methods to load commit data,
+ * which will only invoke the given loader if the cache doesn't contain up-to-date 
+ * data for the given branch. Once all branches have been processed, generators must 
+ * call the {@link #save()} method to update the cache.</p>
+ * 
+ * <p>If the head commit id of a branch is the same as the cached head commit id, 
+ * cached commits are returned as-is. Otherwise, commits are loaded starting from the 
+ * new branch head, until all parents of newly loaded commits have been loaded and the 
+ * cached head commit has been reached; the newly loaded commits are then merged with
+ * the cached commits. As such, commits with older commit dates, for example from a 
+ * long-lived feature branch that was merged, are loaded as well. If the cached head 
+ * commit is not an ancestor of the new head commit, for example after a force-push,
+ * or if the source system doesn't provide parent commit ids, all commits for the 
+ * report period are loaded, and cached commits are discarded unless the cached head
+ * commit was encountered while loading.</p>
+ * 
+ * <p>Commit data is stored as provided by the generator; generators should only 
+ * store the properties that are required for deserializing commit and author
+ * descriptors, to limit cache size.</p>
+ */
+public final class NcdReportRepositoryCommitCache {
+    private static final Logger LOG = LoggerFactory.getLogger(NcdReportRepositoryCommitCache.class);
+    private final Path path;
+    @Getter private final boolean checkpointed;
+    private final CachedRepository cachedRepository;
+    private final Map<String, CachedBranch> processedBranches = new LinkedHashMap<>();
+    
+    NcdReportRepositoryCommitCache(Path path, boolean checkpointed) {
+        this.path = path;
+        this.cachedRepository = load(path);
+        this.checkpointed = checkpointed && cachedRepository!=null;
+    }
+    
+    /**
+     * Get the branch data that was cached for this repository, as previously
+     * passed to the {@link #getBranchCommits(JsonNode, String, String, OffsetDateTime, ICommitLoader)}
+     * method. This allows generators to skip loading branch data for repositories
+     * that were already processed before an interrupted report run, as indicated by 
+     * {@link #isCheckpointed()}.
+     */
+    public List<JsonNode> getBranches() {
+        return cachedRepository==null 
+                ? List.of()
+                : cachedRepository.getBranches().values().stream().map(CachedBranch::getBranch).collect(Collectors.toList());
+    }
+    
+    /**
+     * Get the data for all commits since the given date/time for the given branch, either 
+     * from the cache if the given head commit id matches the cached head commit id, or 
+     * by invoking the given loader to load commits starting from the new head commit,
+     * merged with previously cached commits if the cached head commit is an ancestor
+     * of the new head commit.
+     * @param branch JSON data describing the branch, to be returned by {@link #getBranches()} 
+     * @param branchName Branch name
+     * @param headSha Current head commit id for the branch
+     * @param since Only commits since this date/time will be returned
+     * @param loader {@link ICommitLoader} for loading commits since the given date/time
+     * @return Commit data for all commits on the given branch since the given date/time
+     */
+    public List<JsonNode> getBranchCommits(JsonNode branch, String branchName, String headSha, OffsetDateTime since, ICommitLoader loader) {
+        if ( path==null ) {
+            return getData(loader.load(since, c->false));
+        }
+        var sinceInstant = since.toInstant();
+        var cachedBranch = getCachedBranch(branchName, sinceInstant);
+        if ( cachedBranch==null || headSha==null || !headSha.equals(cachedBranch.getHeadSha()) ) {
+            var loadedAt = Instant.now();
+            List<CachedCommit> commits;
+            if ( cachedBranch==null || cachedBranch.getHeadSha()==null ) {
+                commits = loader.load(since, c->false);
+            } else {
+                var stopCondition = new IncrementalLoadStopCondition(headSha, cachedBranch);
+                commits = loader.load(since, stopCondition);
+                if ( stopCondition.isCachedHeadLoaded() ) {
+                    commits = merge(commits, cachedBranch.getCommits());
+                } else {
+                    LOG.debug("Cached head commit is not an ancestor of the current head commit for branch {}, discarding cached commits", branchName);
+                }
+            }
+            cachedBranch = new CachedBranch(branch, headSha, loadedAt.toString(), null, null, commits);
+        } else {
+            LOG.debug("Using cached commits for unchanged branch {}", branchName);
+        }
+        cachedBranch.setBranch(branch);
+        cachedBranch.setSince(sinceInstant.toString());
+        cachedBranch.setCommits(cachedBranch.getCommits().stream()
+                .filter(c->c.getDate()==null || !Instant.parse(c.getDate()).isBefore(sinceInstant))
+                .collect(Collectors.toList()));
+        processedBranches.put(branchName, cachedBranch);
+        return getData(cachedBranch.getCommits());
+    }
+    
+    /**
+     * Get the data for the head commit of the given branch, either from the
+     * cache if the given head commit id matches the cached head commit id, or 
+     * by invoking the given loader. This method may only be invoked after 
+     * {@link #getBranchCommits(JsonNode, String, String, OffsetDateTime, ICommitLoader)}
+     * has been invoked for the same branch.
+     * @return Head commit data, or null if the branch doesn't have any commits
+     */
+    public JsonNode getHeadCommit(String branchName, String headSha, Supplier<CachedCommit> loader) {
+        var cachedBranch = processedBranches.get(branchName);
+        if ( cachedBranch==null ) {
+            var headCommit = loader.get();
+            return headCommit==null ? null : headCommit.getData();
+        }
+        if ( cachedBranch.getHeadCommit()==null || headSha==null || !headSha.equals(cachedBranch.getHeadSha()) ) {
+            cachedBranch.setHeadCommit(loader.get());
+        }
+        return cachedBranch.getHeadCommit()==null ? null : cachedBranch.getHeadCommit().getData();
+    }
+    
+    /**
+     * Save the data for all branches that have been processed through this
+     * instance to the cache. Any previously cached branches that haven't been
+     * processed, for example because they no longer exist, are removed from
+     * the cache.
+     */
+    public void save() {
+        if ( path!=null ) {
+            FcliDataHelper.saveFile(path, new CachedRepository(processedBranches), false);
+        }
+    }
+    
+    private CachedBranch getCachedBranch(String branchName, Instant since) {
+        var cachedBranch = cachedRepository==null ? null : cachedRepository.getBranches().get(branchName);
+        // Ignore cached data if it doesn't cover the full requested period
+        return cachedBranch==null || cachedBranch.getSince()==null || Instant.parse(cachedBranch.getSince()).isAfter(since)
+                ? null : cachedBranch;
+    }
+    
+    private static final List<CachedCommit> merge(List<CachedCommit> loadedCommits, List<CachedCommit> cachedCommits) {
+        var result = new ArrayList<>(loadedCommits);
+        var ids = new HashSet<String>();
+        loadedCommits.forEach(c->ids.add(c.getId()));
+        cachedCommits.stream().filter(c->!ids.contains(c.getId())).forEach(result::add);
+        return result;
+    }
+    
+    private static final List<JsonNode> getData(List<CachedCommit> commits) {
+        return commits.stream().map(CachedCommit::getData).collect(Collectors.toList());
+    }
+    
+    private static final CachedRepository load(Path path) {
+        if ( path!=null && FcliDataHelper.exists(path) ) {
+            try {
+                var result = FcliDataHelper.readFile(path, CachedRepository.class, true);
+                if ( result!=null && result.getBranches()!=null ) { return result; }
+            } catch ( RuntimeException e ) {
+                LOG.debug("Ignoring unreadable NCD report cache file {}", path, e);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Interface for loading commits for a single branch, as passed to the
+     * {@link NcdReportRepositoryCommitCache#getBranchCommits(JsonNode, String, String, OffsetDateTime, ICommitLoader)}
+     * method.
+     */
+    @FunctionalInterface
+    public static interface ICommitLoader {
+        /**
+         * Load commits since the given date/time, starting from the branch head, in the
+         * order returned by the source system. Implementations must invoke the given stop 
+         * condition for every loaded commit, and stop loading any further commits once the 
+         * stop condition returns true; the commit for which the stop condition returned 
+         * true must be included in the returned list.
+         */
+        List<CachedCommit> load(OffsetDateTime since, Predicate<CachedCommit> stopCondition);
+    }
+    
+    /**
+     * Stop condition for incrementally loading commits for a branch of which the head 
+     * commit has changed. This keeps track of the commits that still need to be loaded, 
+     * starting with the new head commit and adding the parents of every loaded commit 
+     * that isn't in the cache yet. Loading can stop once all of these commits have been 
+     * loaded and the cached head commit has been encountered, meaning that all commits
+     * not yet in the cache have been loaded. If the parents of any loaded commit are 
+     * unknown, loading will continue until all commits for the report period have been 
+     * loaded.
+     */
+    private static final class IncrementalLoadStopCondition implements Predicate<CachedCommit> {
+        private final String cachedHeadSha;
+        private final Set<String> cachedIds = new HashSet<>();
+        private final Set<String> loadedIds = new HashSet<>();
+        private final Set<String> pendingIds = new HashSet<>();
+        private boolean parentsUnknown = false;
+        @Getter private boolean cachedHeadLoaded = false;
+        
+        private IncrementalLoadStopCondition(String headSha, CachedBranch cachedBranch) {
+            this.cachedHeadSha = cachedBranch.getHeadSha();
+            cachedIds.add(cachedHeadSha);
+            cachedBranch.getCommits().forEach(c->cachedIds.add(c.getId()));
+            pendingIds.add(headSha);
+        }
+        
+        @Override
+        public boolean test(CachedCommit commit) {
+            var id = commit.getId();
+            loadedIds.add(id);
+            pendingIds.remove(id);
+            cachedHeadLoaded |= cachedHeadSha.equals(id);
+            if ( !cachedIds.contains(id) ) {
+                if ( commit.getParentIds()==null ) {
+                    parentsUnknown = true;
+                } else {
+                    commit.getParentIds().stream().filter(p->!loadedIds.contains(p)).forEach(pendingIds::add);
+                }
+            }
+            return cachedHeadLoaded && !parentsUnknown && pendingIds.isEmpty();
+        }
+    }
+    
+    @Reflectable @NoArgsConstructor @AllArgsConstructor @Data
+    private static final class CachedRepository {
+        private Map<String, CachedBranch> branches = new LinkedHashMap<>();
+    }
+    
+    @Reflectable @NoArgsConstructor @AllArgsConstructor @Data
+    private static final class CachedBranch {
+        private JsonNode branch;
+        private String headSha;
+        private String loadedAt;
+        private String since;
+        private CachedCommit headCommit;
+        private List<CachedCommit> commits = new ArrayList<>();
+    }
+    
+    /**
+     * Cached commit data, consisting of commit id, commit date, parent commit ids
+     * and the commit data to be returned by the various {@link NcdReportRepositoryCommitCache} 
+     * methods. The commit date is used to remove commits that are older than the report 
+     * period, so this should be the same date as used by the source system to 
+     * filter commits, usually the committer date. Parent commit ids are used to 
+     * determine when all new commits have been loaded for a branch of which the head
+     * commit has changed; these may be null if not provided by the source system.
+     */
+    @Reflectable @NoArgsConstructor @AllArgsConstructor @Data
+    public static final class CachedCommit {
+        private String id;
+        private String date;
+        private List<String> parentIds;
+        private JsonNode data;
+        
+        /**
+         * Create a new {@link CachedCommit} instance without parent commit ids,
+         * converting the given ISO-8601 date/time string to an instant. If the 
+         * given date/time is blank or cannot be parsed, the commit will never be 
+         * removed from the cache based on commit date.
+         */
+        public static final CachedCommit create(String id, String dateTime, JsonNode data) {
+            return create(id, dateTime, null, data);
+        }
+        
+        /**
+         * Create a new {@link CachedCommit} instance with the given parent commit
+         * ids, converting the given ISO-8601 date/time string to an instant as 
+         * described for {@link #create(String, String, JsonNode)}.
+         */
+        public static final CachedCommit create(String id, String dateTime, List<String> parentIds, JsonNode data) {
+            return new CachedCommit(id, toInstantString(dateTime), parentIds, data);
+        }
+        
+        private static final String toInstantString(String dateTime) {
+            try {
+                return StringUtils.isBlank(dateTime) ? null : OffsetDateTime.parse(dateTime).toInstant().toString();
+            } catch ( DateTimeParseException e ) {
+                LOG.debug("Ignoring unparseable commit date {}", dateTime);
+                return null;
+            }
+        }
+    }
+}
@@ -12,12 +12,25 @@
  *******************************************************************************/
 package com.fortify.cli.license.ncd_report.collector;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fortify.cli.common.json.JsonHelper;
 import com.fortify.cli.common.util.StringUtils;
 import com.fortify.cli.license.ncd_report.config.INcdReportRepoSelectorConfig;
 import com.fortify.cli.license.ncd_report.config.NcdReportConfig;
 import com.fortify.cli.license.ncd_report.descriptor.INcdReportRepositoryDescriptor;
+import com.fortify.cli.license.ncd_report.descriptor.NcdReportBranchCommitDescriptor;
 import com.fortify.cli.license.ncd_report.generator.INcdReportBranchCommitGenerator;
 import com.fortify.cli.license.ncd_report.writer.NcdReportRepositoriesWriter.NcdReportRepositoryReportingStatus;
 import com.fortify.cli.license.ncd_report.writer.NcdReportResultsWriters;
@@ -32,7 +45,17 @@ import com.fortify.cli.license.ncd_report.writer.NcdReportResultsWriters;
  * which commit data should be loaded, the provided, source-specific 
  * {@link INcdReportBranchCommitGenerator} is called to generate commit data,
  * which is then further processed using {@link NcdReportRepositoryBranchCommitCollector}
- * and {@link NcdReportAuthorCollector}.
+ * and {@link NcdReportAuthorCollector}.</p>
+ * 
+ * <p>Commit data may be generated concurrently for multiple repositories, 
+ * as configured through {@link #startSource(int)}. All other processing,
+ * like processing authors and writing results, is performed on the thread
+ * that submitted the repositories, in the order in which repositories were 
+ * submitted, such that report output is the same as with sequential 
+ * processing. Commit data for the oldest pending repository is processed
+ * while it's being generated; for other pending repositories, at most 
+ * {@value #MAX_BUFFERED_BRANCH_COMMITS} branch commits are buffered before 
+ * generation is paused until that repository is being processed.</p>
  * 
  * TODO: We currently only support a standard include expression for all sources;
  *       potentially we need to have callback functionality to allow each source
@@ -42,46 +65,107 @@ import com.fortify.cli.license.ncd_report.writer.NcdReportResultsWriters;
  *
  */
 final class NcdReportRepositoryProcessor implements INcdReportRepositoryProcessor {
+    static final int MAX_BUFFERED_BRANCH_COMMITS = 10000;
+    private static final NcdReportBranchCommitDescriptor END_OF_BRANCH_COMMITS = new NcdReportBranchCommitDescriptor(null, null, null, null);
     private final NcdReportConfig reportConfig;
     private final NcdReportResultsWriters writers;
     private final ObjectNode summary;
     private final NcdReportRepositoryCollector repositoryCollector;
     private final NcdReportAuthorCollector authorCollector;
+    private final NcdReportCommitCache commitCache;
+    private final Set<INcdReportRepositoryDescriptor> submittedRepositories = new HashSet<>();
+    private final Deque<PendingRepository> pendingRepositories = new ArrayDeque<>();
+    private ExecutorService executor;
+    private int maxConcurrentRepositories = 1;
     
     private int totalAnalyzedCommitCount = 0;
     
-    public NcdReportRepositoryProcessor(NcdReportConfig reportConfig, NcdReportResultsWriters writers, ObjectNode summary) {
+    public NcdReportRepositoryProcessor(NcdReportConfig reportConfig, NcdReportResultsWriters writers, ObjectNode summary, NcdReportCommitCache commitCache) {
         this.reportConfig = reportConfig;
+        this.commitCache = commitCache;
         this.writers = writers;
         this.summary = summary;
         this.repositoryCollector = new NcdReportRepositoryCollector(writers, summary);
         this.authorCollector = new NcdReportAuthorCollector(reportConfig, writers, summary);
     }
     
+    @Override
+    public void startSource(int maxConcurrentRepositories) {
+        finishSource();
+        this.maxConcurrentRepositories = Math.max(1, maxConcurrentRepositories);
+        this.executor = this.maxConcurrentRepositories==1 
+                ? null 
+                : Executors.newFixedThreadPool(this.maxConcurrentRepositories, NcdReportRepositoryProcessor::createDaemonThread);
+    }
+    
+    @Override
+    public void finishSource() {
+        try {
+            while ( !pendingRepositories.isEmpty() ) {
+                reportNextPendingRepository();
+            }
+        } finally {
+            if ( executor!=null ) {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
+    }
+    
     @Override
     public <R extends INcdReportRepositoryDescriptor> void processRepository(
             INcdReportRepoSelectorConfig repoSelectorConfig, 
             R repoDescriptor, INcdReportBranchCommitGenerator<R> commitGenerator) 
     {
-        if ( !repositoryCollector.isPreviouslyReported(repoDescriptor) ) {
+        if ( submittedRepositories.add(repoDescriptor) ) {
+            var pendingRepository = new PendingRepository(repoDescriptor);
             try {
                 if ( isExcludedFork(repoDescriptor, reportConfig, repoSelectorConfig) ) {
-                    repositoryCollector.reportRepository(repoDescriptor, NcdReportRepositoryReportingStatus.excluded, "Forks not included");
+                    pendingRepository.exclude("Forks not included");
                 } else if ( isExcludedByExpression(repoDescriptor, reportConfig, repoSelectorConfig) ) {
-                    repositoryCollector.reportRepository(repoDescriptor, NcdReportRepositoryReportingStatus.excluded, "Doesn't match expression");
+                    pendingRepository.exclude("Doesn't match expression");
                 } else {
-                    processRepository(repoDescriptor, commitGenerator);
+                    writers.progressWriter().writeI18nProgress("fcli.license.ncd-report.loading.commits", repoDescriptor.getFullName());
+                    pendingRepository.generate(collector->commitGenerator.generateBranchCommitData(repoDescriptor, collector));
                 }
             } catch ( Exception e ) {
-                repositoryCollector.reportRepositoryError(repoDescriptor, e);
+                pendingRepository.fail(e);
             }
+            pendingRepositories.add(pendingRepository);
+            reportCompletedPendingRepositories();
         }
     }
-
-    private <R extends INcdReportRepositoryDescriptor> void processRepository(R repoDescriptor, INcdReportBranchCommitGenerator<R> branchCommitGenerator) {
+    
+    /**
+     * Report pending repositories in the order in which they were submitted, for as long 
+     * as the oldest pending repository has been fully processed, or if the number of 
+     * pending repositories exceeds twice the maximum number of concurrent repositories.
+     */
+    private void reportCompletedPendingRepositories() {
+        while ( !pendingRepositories.isEmpty() 
+                && (pendingRepositories.peek().isDone() || pendingRepositories.size()>maxConcurrentRepositories*2) ) {
+            reportNextPendingRepository();
+        }
+    }
+    
+    private void reportNextPendingRepository() {
+        var pendingRepository = pendingRepositories.poll();
+        var repoDescriptor = pendingRepository.repoDescriptor;
+        try {
+            if ( pendingRepository.excludedReason!=null ) {
+                repositoryCollector.reportRepository(repoDescriptor, NcdReportRepositoryReportingStatus.excluded, pendingRepository.excludedReason);
+            } else {
+                reportBranchCommits(pendingRepository);
+            }
+        } catch ( Exception e ) {
+            repositoryCollector.reportRepositoryError(repoDescriptor, e);
+        }
+    }
+    
+    private void reportBranchCommits(PendingRepository pendingRepository) throws Exception {
+        var repoDescriptor = pendingRepository.repoDescriptor;
         var branchCommitsCollector = new NcdReportRepositoryBranchCommitCollector(authorCollector, repoDescriptor);
-        writers.progressWriter().writeI18nProgress("fcli.license.ncd-report.loading.commits", repoDescriptor.getFullName());
-        branchCommitGenerator.generateBranchCommitData(repoDescriptor, branchCommitsCollector);
+        pendingRepository.reportBranchCommits(branchCommitsCollector);
         if ( branchCommitsCollector.isEmpty() ) {
             repositoryCollector.reportRepository(repoDescriptor, NcdReportRepositoryReportingStatus.empty, "No commits found");
         } else {
@@ -89,6 +173,13 @@ final class NcdReportRepositoryProcessor implements INcdReportRepositoryProcesso
             totalAnalyzedCommitCount+=branchCommitsCollector.getTotalCommitCount();
             repositoryCollector.reportRepository(repoDescriptor, NcdReportRepositoryReportingStatus.included, "Matches all criteria");
         }
+        commitCache.checkpoint(repoDescriptor);
+    }
+    
+    private static final Thread createDaemonThread(Runnable runnable) {
+        Thread result = new Thread(runnable, "fcli-ncd-report");
+        result.setDaemon(true);
+        return result;
     }
 
     private boolean isExcludedFork(INcdReportRepositoryDescriptor repoDescriptor, NcdReportConfig reportConfig, INcdReportRepoSelectorConfig repoSelector) {
@@ -107,10 +198,91 @@ final class NcdReportRepositoryProcessor implements INcdReportRepositoryProcesso
             .orElse(false);
     }
     
+    boolean hasErrors() {
+        return repositoryCollector.getCountByStatus(NcdReportRepositoryReportingStatus.error)>0;
+    }
+    
     void writeResults() {
         repositoryCollector.writeResults();
         summary.set("commitCount", JsonHelper.getObjectMapper().createObjectNode()
                 .put("analyzed", totalAnalyzedCommitCount));
         authorCollector.writeResults();
     }
+    
+    /**
+     * This class holds a repository that has been submitted for processing, 
+     * together with either the reason for excluding the repository, or the
+     * generator for the branch commits of this repository. If repositories
+     * are processed concurrently, branch commits are generated on a background
+     * thread into a bounded buffer, which is drained by {@link #reportBranchCommits(INcdReportRepositoryBranchCommitCollector)}.
+     * Otherwise, branch commits are generated and reported directly by that method.
+     */
+    private final class PendingRepository {
+        private final INcdReportRepositoryDescriptor repoDescriptor;
+        private String excludedReason;
+        private Exception failure;
+        private Consumer<INcdReportRepositoryBranchCommitCollector> generator;
+        private BlockingQueue<NcdReportBranchCommitDescriptor> bufferedBranchCommits;
+        private Future<?> generatorResult;
+        
+        private PendingRepository(INcdReportRepositoryDescriptor repoDescriptor) {
+            this.repoDescriptor = repoDescriptor;
+        }
+        
+        private void exclude(String reason) {
+            this.excludedReason = reason;
+        }
+        
+        private void generate(Consumer<INcdReportRepositoryBranchCommitCollector> generator) {
+            if ( executor==null ) {
+                this.generator = generator;
+            } else {
+                this.bufferedBranchCommits = new LinkedBlockingQueue<>(MAX_BUFFERED_BRANCH_COMMITS);
+                this.generatorResult = executor.submit(()->{
+                    try {
+                        generator.accept(this::buffer);
+                    } finally {
+                        buffer(END_OF_BRANCH_COMMITS);
+                    }
+                });
+            }
+        }
+        
+        private void fail(Exception e) {
+            this.failure = e;
+        }
+        
+        private boolean isDone() {
+            return generatorResult==null || generatorResult.isDone();
+        }
+        
+        private void buffer(NcdReportBranchCommitDescriptor branchCommit) {
+            try {
+                bufferedBranchCommits.put(branchCommit);
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while generating branch commits", e);
+            }
+        }
+        
+        private void reportBranchCommits(INcdReportRepositoryBranchCommitCollector collector) throws Exception {
+            if ( failure!=null ) {
+                throw failure;
+            } else if ( generator!=null ) {
+                generator.accept(collector);
+            } else {
+                try {
+                    for ( var branchCommit = bufferedBranchCommits.take(); branchCommit!=END_OF_BRANCH_COMMITS; branchCommit = bufferedBranchCommits.take() ) {
+                        collector.reportBranchCommit(branchCommit);
+                    }
+                    generatorResult.get();
+                } catch ( ExecutionException e ) {
+                    throw e.getCause() instanceof Exception ? (Exception)e.getCause() : e;
+                } finally {
+                    // Stop generation if we failed to process all branch commits
+                    generatorResult.cancel(true);
+                }
+            }
+        }
+    }
 }
@@ -29,8 +29,8 @@ import lombok.experimental.Accessors;
  * This class is the primary entry point for collecting and outputting report data.
  * An instance of this class is created by the {@link NcdReportCreateCommand}
  * and passed to the source-specific generators. Source-specific generators can use
- * this class to access the {@link IReportLogger} and 
- * {@link NcdReportRepositoryProcessor} instances.
+ * this class to access the {@link IReportLogger}, {@link NcdReportRepositoryProcessor}
+ * and {@link NcdReportCommitCache} instances.
  * 
  * @author rsenden
  *
@@ -41,14 +41,18 @@ public final class NcdReportResultsCollector implements IReportResultsCollector
     @Getter private final IProgressWriterI18n progressWriter;
     private final IReportWriter reportWriter;
     private final NcdReportResultsWriters writers;
+    @Getter private final NcdReportCommitCache commitCache;
     private final NcdReportRepositoryProcessor repositoryProcessor;
+    private int completedSourceCount = 0;
+    private int sourceErrorCount = 0;
     
-    public NcdReportResultsCollector(NcdReportConfig reportConfig, IReportWriter reportWriter, IProgressWriterI18n progressWriter) {
+    public NcdReportResultsCollector(NcdReportConfig reportConfig, IReportWriter reportWriter, IProgressWriterI18n progressWriter, NcdReportCommitCache commitCache) {
         this.reportConfig = reportConfig;
         this.progressWriter = progressWriter;
         this.reportWriter = reportWriter;
+        this.commitCache = commitCache;
         this.writers = new NcdReportResultsWriters(reportWriter, progressWriter);
-        this.repositoryProcessor = new NcdReportRepositoryProcessor(reportConfig, writers, reportWriter.summary());
+        this.repositoryProcessor = new NcdReportRepositoryProcessor(reportConfig, writers, reportWriter.summary(), commitCache);
     }
     
     /**
@@ -63,10 +67,39 @@ public final class NcdReportResultsCollector implements IReportResultsCollector
     public INcdReportRepositoryProcessor repositoryProcessor() {
         return repositoryProcessor;
     }
+    
+    /**
+     * Source-specific generators must call this method once all repositories
+     * for a source have been processed. Once all sources have been completed 
+     * without any source or repository errors, the {@link NcdReportCommitCache}
+     * checkpoint is removed on {@link #close()}.
+     */
+    public void sourceCompleted() {
+        completedSourceCount++;
+    }
+    
+    /**
+     * Source-specific generators must call this method to report errors that
+     * prevent part of a source from being processed, for example errors loading 
+     * the repositories for a GitHub organization or GitLab group. Such errors 
+     * are logged, and cause the {@link NcdReportCommitCache} checkpoint to be
+     * kept on {@link #close()}, allowing the next run to resume.
+     */
+    public void sourceError(String msg, Exception e) {
+        sourceErrorCount++;
+        logger().error(msg, e);
+    }
 
     @Override @SneakyThrows
     public void close() {
         repositoryProcessor.writeResults();
+        commitCache.close(isCompleted());
         logger().updateSummary(reportWriter.summary());
     }
+    
+    private boolean isCompleted() {
+        return completedSourceCount==reportConfig.getSourceConfigs().size() 
+                && sourceErrorCount==0
+                && !repositoryProcessor.hasErrors();
+    }
 }
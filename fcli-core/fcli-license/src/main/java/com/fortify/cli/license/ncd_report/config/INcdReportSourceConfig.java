@@ -17,11 +17,14 @@ import com.fortify.cli.license.ncd_report.collector.NcdReportResultsCollector;
 
 /**
  * Interface to be implemented by source-specific configuration classes
- * that describe a source configuration, providing a single method to
- * retrieve a source-specific {@link Runnable} generator.
+ * that describe a source configuration, providing methods to
+ * retrieve a source-specific {@link Runnable} generator, and the
+ * maximum number of repositories for which commit data may be loaded 
+ * concurrently.
  * 
  * @author rsenden
  *
  */
 public interface INcdReportSourceConfig extends IReportSourceConfig<NcdReportResultsCollector>, INcdReportRepoSelectorConfig {
+    int getMaxConcurrentRepositories();
 }
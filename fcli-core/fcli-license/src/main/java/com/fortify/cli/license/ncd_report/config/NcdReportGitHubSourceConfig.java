@@ -16,6 +16,7 @@ import com.formkiq.graalvm.annotations.Reflectable;
 import com.fortify.cli.common.report.generator.IReportResultsGenerator;
 import com.fortify.cli.common.rest.unirest.config.IUrlConfig;
 import com.fortify.cli.license.ncd_report.collector.NcdReportResultsCollector;
+import com.fortify.cli.license.ncd_report.generator.github.NcdReportGitHubGraphQLResultsGenerator;
 import com.fortify.cli.license.ncd_report.generator.github.NcdReportGitHubResultsGenerator;
 
 import kong.unirest.Config;
@@ -26,7 +27,8 @@ import lombok.NoArgsConstructor;
 /**
  * This GitHub-specific configuration class defines a GitHub source configuration,
  * holding GitHub URL, credentials and list of organizations to be processed, and 
- * providing a {@link NcdReportGitHubResultsGenerator} instance based on this 
+ * providing a {@link NcdReportGitHubResultsGenerator} or 
+ * {@link NcdReportGitHubGraphQLResultsGenerator} instance based on this 
  * configuration.
  * 
  * @author rsenden
@@ -39,6 +41,8 @@ public class NcdReportGitHubSourceConfig extends AbstractNcdReportRepoSelectorCo
     private int connectTimeoutInMillis = Config.DEFAULT_CONNECT_TIMEOUT;
     private int socketTimeoutInMillis = Config.DEFAULT_SOCKET_TIMEOUT;
     private Boolean insecureModeEnabled;
+    private int maxConcurrentRepositories = 4;
+    private NcdReportGitHubApiType api = NcdReportGitHubApiType.rest;
     
     @Override
     public String getUrl() {
@@ -52,6 +56,15 @@ public class NcdReportGitHubSourceConfig extends AbstractNcdReportRepoSelectorCo
     
     @Override
     public IReportResultsGenerator generator(NcdReportResultsCollector resultsCollector) {
-        return new NcdReportGitHubResultsGenerator(this, resultsCollector);
+        return api==NcdReportGitHubApiType.graphql 
+                ? new NcdReportGitHubGraphQLResultsGenerator(this, resultsCollector)
+                : new NcdReportGitHubResultsGenerator(this, resultsCollector);
+    }
+    
+    /**
+     * GitHub API to be used for loading branch and commit data.
+     */
+    public static enum NcdReportGitHubApiType {
+        rest, graphql
     }
 }
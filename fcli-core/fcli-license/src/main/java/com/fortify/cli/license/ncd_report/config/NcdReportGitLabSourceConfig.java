@@ -40,6 +40,7 @@ public class NcdReportGitLabSourceConfig extends AbstractNcdReportRepoSelectorCo
     private int connectTimeoutInMillis = Config.DEFAULT_CONNECT_TIMEOUT;
     private int socketTimeoutInMillis = Config.DEFAULT_SOCKET_TIMEOUT;
     private Boolean insecureModeEnabled;
+    private int maxConcurrentRepositories = 4;
     private Optional<Boolean> includeSubgroups = Optional.empty();
     
     private NcdReportGitLabGroupConfig[] groups;
@@ -14,18 +14,49 @@ package com.fortify.cli.license.ncd_report.generator;
 
 import com.fortify.cli.common.report.generator.AbstractReportUnirestResultsGenerator;
 import com.fortify.cli.common.rest.unirest.config.IUrlConfig;
+import com.fortify.cli.license.ncd_report.collector.INcdReportRepositoryProcessor;
 import com.fortify.cli.license.ncd_report.collector.NcdReportResultsCollector;
+import com.fortify.cli.license.ncd_report.config.INcdReportSourceConfig;
+
+import kong.unirest.UnirestInstance;
 
 /**
  * Base class for source-specific unirest-based generator implementations, 
  * providing functionality for storing and accessing the report configuration, 
  * and for creating unirest instances based on connection settings defined in 
- * the configuration file.
+ * the configuration file. This class also makes sure that repositories 
+ * passed to the {@link INcdReportRepositoryProcessor} by source-specific
+ * subclasses are processed with the concurrency configured for the source, 
+ * and that all repositories have been fully processed before the 
+ * {@link UnirestInstance} for this source is closed.
  *  
  * @author rsenden
  */
-public abstract class AbstractNcdReportUnirestResultsGenerator<T extends IUrlConfig> extends AbstractReportUnirestResultsGenerator<T,NcdReportResultsCollector> {
+public abstract class AbstractNcdReportUnirestResultsGenerator<T extends IUrlConfig & INcdReportSourceConfig> extends AbstractReportUnirestResultsGenerator<T,NcdReportResultsCollector> {
     public AbstractNcdReportUnirestResultsGenerator(T sourceConfig, NcdReportResultsCollector resultsCollector) {
         super(sourceConfig, resultsCollector);
     }
+    
+    @Override
+    protected final void generateResults() {
+        // Make sure that unirest instance is initialized before any concurrent access
+        unirest();
+        var repositoryProcessor = resultsCollector().repositoryProcessor();
+        repositoryProcessor.startSource(sourceConfig().getMaxConcurrentRepositories());
+        try {
+            generateRepositoryResults();
+            resultsCollector().sourceCompleted();
+        } finally {
+            repositoryProcessor.finishSource();
+        }
+    }
+    
+    /**
+     * Method to be implemented by subclasses to load repositories, passing each
+     * repository to the {@link INcdReportRepositoryProcessor} provided by our
+     * {@link NcdReportResultsCollector}. Note that commit data may be generated 
+     * concurrently for multiple repositories, so any code invoked by the commit 
+     * generator passed to the repository processor must be thread-safe.
+     */
+    protected abstract void generateRepositoryResults();
 }
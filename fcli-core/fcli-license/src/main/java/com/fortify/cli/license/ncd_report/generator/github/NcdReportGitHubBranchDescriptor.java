@@ -12,6 +12,8 @@
  *******************************************************************************/
 package com.fortify.cli.license.ncd_report.generator.github;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.formkiq.graalvm.annotations.Reflectable;
 import com.fortify.cli.common.json.JsonNodeHolder;
 import com.fortify.cli.license.ncd_report.descriptor.INcdReportBranchDescriptor;
@@ -30,4 +32,9 @@ import lombok.NoArgsConstructor;
 public class NcdReportGitHubBranchDescriptor extends JsonNodeHolder implements INcdReportBranchDescriptor {
     private String sha;
     private String name;
+    
+    @JsonProperty("commit")
+    public void setCommit(ObjectNode commit) {
+        this.sha = commit.get("sha").asText();
+    }
 }
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.license.ncd_report.generator.github;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.formkiq.graalvm.annotations.Reflectable;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Extension of {@link NcdReportGitHubBranchDescriptor} used by 
+ * {@link NcdReportGitHubGraphQLResultsGenerator}, holding the head commit 
+ * and the first page of commit history that were loaded together with the 
+ * branch data. Commits are stored in the same format as returned by the 
+ * GitHub REST API, to allow for reusing the other GitHub descriptors.
+ */
+@Reflectable @NoArgsConstructor
+@Getter @Setter @EqualsAndHashCode(callSuper = true)
+public class NcdReportGitHubGraphQLBranchDescriptor extends NcdReportGitHubBranchDescriptor {
+    @JsonIgnore @EqualsAndHashCode.Exclude private JsonNode headCommit;
+    @JsonIgnore @EqualsAndHashCode.Exclude private List<JsonNode> commits;
+    @JsonIgnore @EqualsAndHashCode.Exclude private OffsetDateTime commitsSince;
+    @JsonIgnore @EqualsAndHashCode.Exclude private String commitsEndCursor;
+}
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.license.ncd_report.generator.github;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.common.rest.github.GitHubGraphQLHelper;
+import com.fortify.cli.common.rest.unirest.UnexpectedHttpResponseException;
+import com.fortify.cli.license.ncd_report.collector.NcdReportRepositoryCommitCache.CachedCommit;
+import com.fortify.cli.license.ncd_report.collector.NcdReportResultsCollector;
+import com.fortify.cli.license.ncd_report.config.NcdReportGitHubSourceConfig;
+
+/**
+ * <p>This class extends {@link NcdReportGitHubResultsGenerator} to load branch and 
+ * commit data through the GitHub GraphQL API. Repositories are still loaded through
+ * the REST API, such that repository include expressions can be evaluated on the
+ * same repository JSON representation.</p>
+ * 
+ * <p>For every repository, a single paginated query loads all branches, including 
+ * the head commit and the first page of commit history for each branch, replacing
+ * the branches request, the commits requests for every branch, and the requests for
+ * loading the most recent commit for every branch. Additional queries are only needed
+ * for repositories with many branches, or for branches with many recent commits.</p>
+ * 
+ * <p>The number of branches loaded per query is chosen such that the GraphQL cost 
+ * of every query is 1 point. As larger queries may time out on the GitHub side, the 
+ * number of branches per query is reduced if GitHub returns a 502 or 504 response.</p>
+ */
+public class NcdReportGitHubGraphQLResultsGenerator extends NcdReportGitHubResultsGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(NcdReportGitHubGraphQLResultsGenerator.class);
+    private static final int MAX_BRANCHES_PAGE_SIZE = 50;
+    private static final String COMMIT_FRAGMENT = 
+            "fragment commitFields on Commit { oid message committedDate author { name email date } }";
+    private static final String HISTORY_FIELDS = 
+            "pageInfo { hasNextPage endCursor } nodes { ...commitFields }";
+    private static final String BRANCHES_QUERY = 
+            "query($owner: String!, $name: String!, $since: GitTimestamp!, $pageSize: Int!, $cursor: String) {"
+            + " rateLimit { cost remaining resetAt }"
+            + " repository(owner: $owner, name: $name) {"
+            + " refs(refPrefix: \"refs/heads/\", first: $pageSize, after: $cursor) {"
+            + " pageInfo { hasNextPage endCursor }"
+            + " nodes { name target { ... on Commit { ...commitFields history(first: 100, since: $since) { "+HISTORY_FIELDS+" } } } }"
+            + " } } } "+COMMIT_FRAGMENT;
+    private static final String HISTORY_QUERY = 
+            "query($owner: String!, $name: String!, $qualifiedName: String!, $since: GitTimestamp!, $cursor: String) {"
+            + " rateLimit { cost remaining resetAt }"
+            + " repository(owner: $owner, name: $name) {"
+            + " ref(qualifiedName: $qualifiedName) { target { ... on Commit { history(first: 100, since: $since, after: $cursor) { "+HISTORY_FIELDS+" } } } }"
+            + " } } "+COMMIT_FRAGMENT;
+    private GitHubGraphQLHelper graphQL;
+    private volatile int branchesPageSize = MAX_BRANCHES_PAGE_SIZE;
+    
+    /**
+     * Constructor to configure this instance with the given 
+     * {@link NcdReportGitHubSourceConfig} and
+     * {@link NcdReportResultsCollector}.
+     */
+    public NcdReportGitHubGraphQLResultsGenerator(NcdReportGitHubSourceConfig sourceConfig, NcdReportResultsCollector resultsCollector) {
+        super(sourceConfig, resultsCollector);
+    }
+    
+    /**
+     * Initialize the {@link GitHubGraphQLHelper} before generating results
+     * for all configured organizations.
+     */
+    @Override
+    protected void generateRepositoryResults() {
+        this.graphQL = new GitHubGraphQLHelper(unirest(), sourceConfig().getApiUrl());
+        super.generateRepositoryResults();
+    }
+    
+    /**
+     * Load all branches for the given repository, together with the head commit
+     * and the first page of commits since the configured date/time for each 
+     * branch.
+     */
+    @Override
+    protected List<NcdReportGitHubBranchDescriptor> getBranchDescriptors(NcdReportGitHubRepositoryDescriptor repoDescriptor) {
+        var since = resultsCollector().reportConfig().getCommitOffsetDateTime();
+        List<NcdReportGitHubBranchDescriptor> result = new ArrayList<>();
+        String cursor = null;
+        do {
+            var refs = queryBranches(repoDescriptor, since, cursor).path("repository").path("refs");
+            refs.path("nodes").forEach(ref->result.add(getBranchDescriptor(ref, since)));
+            cursor = getEndCursor(refs);
+        } while ( cursor!=null );
+        return result;
+    }
+    
+    /**
+     * Load all commits later than the given date/time for the given branch, using
+     * the commits that were loaded together with the branch data if available. As 
+     * commit history is returned in reverse chronological order, we stop loading 
+     * commits once we encounter a commit older than the given date/time, or once
+     * the given stop condition returns true. Note that parent commit ids are not 
+     * loaded, as this would significantly increase the GraphQL cost of every query, 
+     * so for branches of which the head commit has changed, the stop condition will 
+     * never return true and all commits for the report period are loaded.
+     */
+    @Override
+    protected List<CachedCommit> loadCommits(NcdReportGitHubRepositoryDescriptor repoDescriptor, NcdReportGitHubBranchDescriptor branchDescriptor, OffsetDateTime since, Predicate<CachedCommit> stopCondition) {
+        List<CachedCommit> result = new ArrayList<>();
+        var historySince = since;
+        String cursor = null;
+        if ( branchDescriptor instanceof NcdReportGitHubGraphQLBranchDescriptor 
+                && ((NcdReportGitHubGraphQLBranchDescriptor)branchDescriptor).getCommits()!=null ) {
+            var graphQLBranchDescriptor = (NcdReportGitHubGraphQLBranchDescriptor)branchDescriptor;
+            cursor = graphQLBranchDescriptor.getCommitsEndCursor();
+            if ( !addCommits(result, graphQLBranchDescriptor.getCommits(), since, stopCondition) || cursor==null ) {
+                return result;
+            }
+            // Cursor is only valid for the date/time used to load the initial commits 
+            historySince = graphQLBranchDescriptor.getCommitsSince();
+        }
+        do {
+            resultsCollector().progressWriter().writeI18nProgress("fcli.license.ncd-report.loading.branch-commits", repoDescriptor.getFullName(), branchDescriptor.getName());
+            var history = queryHistory(repoDescriptor, branchDescriptor, historySince, cursor)
+                    .path("repository").path("ref").path("target").path("history");
+            if ( !addCommits(result, toRestCommits(history.path("nodes")), since, stopCondition) ) {
+                break;
+            }
+            cursor = getEndCursor(history);
+        } while ( cursor!=null );
+        return result;
+    }
+    
+    /**
+     * Return the head commit that was loaded together with the branch data
+     * if available, otherwise load the head commit through the REST API.
+     */
+    @Override
+    protected CachedCommit loadHeadCommit(NcdReportGitHubRepositoryDescriptor repoDescriptor, NcdReportGitHubBranchDescriptor branchDescriptor) {
+        if ( branchDescriptor instanceof NcdReportGitHubGraphQLBranchDescriptor 
+                && ((NcdReportGitHubGraphQLBranchDescriptor)branchDescriptor).getHeadCommit()!=null ) {
+            return toCachedCommit(((NcdReportGitHubGraphQLBranchDescriptor)branchDescriptor).getHeadCommit());
+        }
+        return super.loadHeadCommit(repoDescriptor, branchDescriptor);
+    }
+    
+    /**
+     * Execute the branches query, reducing the number of branches per query 
+     * if the query times out. 
+     */
+    private ObjectNode queryBranches(NcdReportGitHubRepositoryDescriptor repoDescriptor, OffsetDateTime since, String cursor) {
+        while ( true ) {
+            int pageSize = branchesPageSize;
+            try {
+                return graphQL.query(BRANCHES_QUERY, getVariables(repoDescriptor, since, cursor).put("pageSize", pageSize));
+            } catch ( UnexpectedHttpResponseException e ) {
+                if ( pageSize==1 || (e.getStatus()!=502 && e.getStatus()!=504) ) { throw e; }
+                LOG.debug("GitHub GraphQL query timed out, retrying with {} branches per query", pageSize/2);
+                branchesPageSize = pageSize/2;
+            }
+        }
+    }
+    
+    /**
+     * Execute the history query for the given branch.
+     */
+    private ObjectNode queryHistory(NcdReportGitHubRepositoryDescriptor repoDescriptor, NcdReportGitHubBranchDescriptor branchDescriptor, OffsetDateTime since, String cursor) {
+        return graphQL.query(HISTORY_QUERY, getVariables(repoDescriptor, since, cursor)
+                .put("qualifiedName", "refs/heads/"+branchDescriptor.getName()));
+    }
+    
+    /**
+     * Get the variables common to all queries.
+     */
+    private ObjectNode getVariables(NcdReportGitHubRepositoryDescriptor repoDescriptor, OffsetDateTime since, String cursor) {
+        return JsonHelper.getObjectMapper().createObjectNode()
+                .put("owner", repoDescriptor.getOwnerName())
+                .put("name", repoDescriptor.getName())
+                .put("since", since.format(DateTimeFormatter.ISO_INSTANT))
+                .put("cursor", cursor);
+    }
+    
+    /**
+     * Convert the given GraphQL ref node to a {@link NcdReportGitHubGraphQLBranchDescriptor},
+     * based on a branch representation similar to the one returned by the GitHub REST API.
+     */
+    private static final NcdReportGitHubGraphQLBranchDescriptor getBranchDescriptor(JsonNode ref, OffsetDateTime since) {
+        var target = ref.path("target");
+        var branch = JsonHelper.getObjectMapper().createObjectNode().put("name", ref.path("name").asText());
+        branch.putObject("commit").put("sha", target.path("oid").asText());
+        var result = JsonHelper.treeToValue(branch, NcdReportGitHubGraphQLBranchDescriptor.class);
+        // Target may not be a commit for some (unusual) refs, in which case commits 
+        // will be loaded through separate queries.
+        if ( target.has("oid") ) {
+            var history = target.path("history");
+            result.setHeadCommit(toRestCommit(target));
+            result.setCommits(toRestCommits(history.path("nodes")));
+            result.setCommitsSince(since);
+            result.setCommitsEndCursor(getEndCursor(history));
+        }
+        return result;
+    }
+    
+    /**
+     * Add all commits not older than the given date/time to the given result list,
+     * until the given stop condition returns true.
+     * @return false if any older commits were found or the stop condition returned true, true otherwise
+     */
+    private static final boolean addCommits(List<CachedCommit> result, List<JsonNode> commits, OffsetDateTime since, Predicate<CachedCommit> stopCondition) {
+        var sinceInstant = since.toInstant();
+        boolean allNewer = true;
+        for ( var commit : commits ) {
+            var cachedCommit = toCachedCommit(commit);
+            if ( isBefore(cachedCommit, sinceInstant) ) {
+                allNewer = false;
+            } else {
+                result.add(cachedCommit);
+                if ( stopCondition.test(cachedCommit) ) { return false; }
+            }
+        }
+        return allNewer;
+    }
+    
+    private static final boolean isBefore(CachedCommit commit, Instant instant) {
+        try {
+            return commit.getDate()!=null && Instant.parse(commit.getDate()).isBefore(instant);
+        } catch ( DateTimeParseException e ) {
+            return false;
+        }
+    }
+    
+    private static final List<JsonNode> toRestCommits(JsonNode nodes) {
+        List<JsonNode> result = new ArrayList<>();
+        nodes.forEach(node->result.add(toRestCommit(node)));
+        return result;
+    }
+    
+    /**
+     * Convert the given GraphQL commit node to a commit representation similar 
+     * to the one returned by the GitHub REST API, containing the properties used 
+     * by {@link NcdReportGitHubCommitDescriptor} and {@link NcdReportGitHubAuthorDescriptor}.
+     */
+    private static final JsonNode toRestCommit(JsonNode node) {
+        var result = JsonHelper.getObjectMapper().createObjectNode().put("sha", node.path("oid").asText());
+        var commit = result.putObject("commit").put("message", node.path("message").asText());
+        var author = node.get("author");
+        if ( author!=null ) {
+            commit.set("author", author.deepCopy());
+        }
+        commit.putObject("committer").put("date", node.path("committedDate").asText());
+        return result;
+    }
+    
+    private static final String getEndCursor(JsonNode connection) {
+        var pageInfo = connection.path("pageInfo");
+        return pageInfo.path("hasNextPage").asBoolean() ? pageInfo.path("endCursor").asText(null) : null;
+    }
+}
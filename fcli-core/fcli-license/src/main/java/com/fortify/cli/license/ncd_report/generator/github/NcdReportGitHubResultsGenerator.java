@@ -12,18 +12,24 @@
  *******************************************************************************/
 package com.fortify.cli.license.ncd_report.generator.github;
 
+import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fortify.cli.common.json.JsonHelper;
 import com.fortify.cli.common.rest.github.GitHubPagingHelper;
+import com.fortify.cli.common.rest.unirest.config.UnirestRateLimitConfigurer;
 import com.fortify.cli.common.util.StringUtils;
 import com.fortify.cli.license.ncd_report.collector.INcdReportRepositoryBranchCommitCollector;
 import com.fortify.cli.license.ncd_report.collector.INcdReportRepositoryProcessor;
+import com.fortify.cli.license.ncd_report.collector.NcdReportRepositoryCommitCache;
+import com.fortify.cli.license.ncd_report.collector.NcdReportRepositoryCommitCache.CachedCommit;
 import com.fortify.cli.license.ncd_report.collector.NcdReportResultsCollector;
 import com.fortify.cli.license.ncd_report.config.NcdReportCombinedRepoSelectorConfig;
 import com.fortify.cli.license.ncd_report.config.NcdReportGitHubOrganizationConfig;
@@ -33,6 +39,7 @@ import com.fortify.cli.license.ncd_report.generator.AbstractNcdReportUnirestResu
 
 import kong.unirest.GetRequest;
 import kong.unirest.HttpRequest;
+import kong.unirest.HttpResponse;
 import kong.unirest.UnirestInstance;
 
 /**
@@ -59,7 +66,7 @@ public class NcdReportGitHubResultsGenerator extends AbstractNcdReportUnirestRes
      * method to load the repositories for that organization.
      */
     @Override
-    protected void generateResults() {
+    protected void generateRepositoryResults() {
         Stream.of(sourceConfig().getOrganizations()).forEach(this::generateResults);
     }
     
@@ -77,27 +84,34 @@ public class NcdReportGitHubResultsGenerator extends AbstractNcdReportUnirestRes
         try {
             resultsCollector().progressWriter().writeI18nProgress("fcli.license.ncd-report.loading.github-repositories", orgName);
             HttpRequest<?> req = unirest().get("/orgs/{org}/repos?type=all&per_page=100").routeParam("org", orgName);
-            GitHubPagingHelper.pagedRequest(req, ArrayNode.class)
-                .ifSuccess(r->r.getBody().forEach(repo->
-                    resultsCollector().repositoryProcessor().processRepository(new NcdReportCombinedRepoSelectorConfig(sourceConfig(), orgConfig), getRepoDescriptor(repo), this::generateCommitData)));
+            GitHubPagingHelper.pagedRequest(unirest(), req, ArrayNode.class)
+                .forEach(p->p.ifSuccess(r->r.getBody().forEach(repo->
+                    resultsCollector().repositoryProcessor().processRepository(new NcdReportCombinedRepoSelectorConfig(sourceConfig(), orgConfig), getRepoDescriptor(repo), this::generateCommitData))));
         } catch ( Exception e ) {
-            resultsCollector().logger().error(String.format("Error processing organization: %s (%s)", orgName, sourceConfig().getApiUrl()), e);
+            resultsCollector().sourceError(String.format("Error processing organization: %s (%s)", orgName, sourceConfig().getApiUrl()), e);
         }
     }
     
     /**
      * This method generates commit data for the given repository by retrieving
-     * all branches, and then invoking the {@link #generateCommitDataForBranches(INcdReportRepositoryBranchCommitCollector, NcdReportGitHubRepositoryDescriptor, List)}
+     * all branches, and then invoking the {@link #generateCommitDataForBranches(INcdReportRepositoryBranchCommitCollector, NcdReportRepositoryCommitCache, NcdReportGitHubRepositoryDescriptor, List)}
      * method to generate commit data for each branch. If no commits are found that
-     * match the date range, the {@link #generateMostRecentCommitData(INcdReportRepositoryBranchCommitCollector, NcdReportGitHubRepositoryDescriptor, List)}
+     * match the date range, the {@link #generateMostRecentCommitData(INcdReportRepositoryBranchCommitCollector, NcdReportRepositoryCommitCache, NcdReportGitHubRepositoryDescriptor, List)}
      * method is invoked to find the most recent commit older than the date range.
+     * If the repository was already fully processed by an interrupted report run,
+     * branch and commit data is loaded from the {@link NcdReportRepositoryCommitCache}
+     * instead.
      */
     private void generateCommitData(NcdReportGitHubRepositoryDescriptor repoDescriptor,INcdReportRepositoryBranchCommitCollector branchCommitCollector) {
-        var branchDescriptors = getBranchDescriptors(repoDescriptor);
-        boolean commitsFound = generateCommitDataForBranches(branchCommitCollector, repoDescriptor, branchDescriptors);
+        var commitCache = resultsCollector().commitCache().repository(repoDescriptor);
+        var branchDescriptors = commitCache.isCheckpointed()
+                ? getCachedBranchDescriptors(commitCache)
+                : getBranchDescriptors(repoDescriptor);
+        boolean commitsFound = generateCommitDataForBranches(branchCommitCollector, commitCache, repoDescriptor, branchDescriptors);
         if ( !commitsFound ) {
-            generateMostRecentCommitData(branchCommitCollector, repoDescriptor, branchDescriptors);
+            generateMostRecentCommitData(branchCommitCollector, commitCache, repoDescriptor, branchDescriptors);
         }
+        commitCache.save();
     }
 
     /**
@@ -105,14 +119,14 @@ public class NcdReportGitHubResultsGenerator extends AbstractNcdReportUnirestRes
      * latest commit (if found) to the {@link #addCommit(INcdReportRepositoryBranchCommitCollector, NcdReportGitHubRepositoryDescriptor, NcdReportGitHubBranchDescriptor, JsonNode)}
      * method.
      */
-    private void generateMostRecentCommitData(INcdReportRepositoryBranchCommitCollector branchCommitCollector, NcdReportGitHubRepositoryDescriptor repoDescriptor, List<NcdReportGitHubBranchDescriptor> branchDescriptors) {
+    private void generateMostRecentCommitData(INcdReportRepositoryBranchCommitCollector branchCommitCollector, NcdReportRepositoryCommitCache commitCache, NcdReportGitHubRepositoryDescriptor repoDescriptor, List<NcdReportGitHubBranchDescriptor> branchDescriptors) {
         NcdReportGitHubCommitDescriptor mostRecentCommitDescriptor = null;
         NcdReportGitHubBranchDescriptor mostRecentBranchDescriptor = null;
         for ( var branchDescriptor : branchDescriptors ) {
-            var currentCommitResponse = getCommitsRequest(repoDescriptor, branchDescriptor, 1)
-                .asObject(ArrayNode.class).getBody();
-            if ( currentCommitResponse.size()>0 ) {
-                var currentCommitDescriptor = JsonHelper.treeToValue(currentCommitResponse.get(0), NcdReportGitHubCommitDescriptor.class);
+            var currentCommit = commitCache.getHeadCommit(branchDescriptor.getName(), branchDescriptor.getSha(), 
+                    ()->loadHeadCommit(repoDescriptor, branchDescriptor));
+            if ( currentCommit!=null ) {
+                var currentCommitDescriptor = JsonHelper.treeToValue(currentCommit, NcdReportGitHubCommitDescriptor.class);
                 if ( mostRecentCommitDescriptor==null || currentCommitDescriptor.getDate().isAfter(mostRecentCommitDescriptor.getDate()) ) {
                     mostRecentCommitDescriptor = currentCommitDescriptor;
                     mostRecentBranchDescriptor = branchDescriptor;
@@ -126,29 +140,88 @@ public class NcdReportGitHubResultsGenerator extends AbstractNcdReportUnirestRes
 
     /**
      * This method generates commit data for all commits later than the configured
-     * date/time for all branches.
+     * date/time for all branches, using cached commit data where possible.
      * @return true if any commits were found, false otherwise  
      */
-    private boolean generateCommitDataForBranches(INcdReportRepositoryBranchCommitCollector branchCommitCollector, NcdReportGitHubRepositoryDescriptor repoDescriptor, List<NcdReportGitHubBranchDescriptor> branchDescriptors) {
-        String since = resultsCollector().reportConfig().getCommitOffsetDateTime()
-                .format(DateTimeFormatter.ISO_INSTANT);
+    private boolean generateCommitDataForBranches(INcdReportRepositoryBranchCommitCollector branchCommitCollector, NcdReportRepositoryCommitCache commitCache, NcdReportGitHubRepositoryDescriptor repoDescriptor, List<NcdReportGitHubBranchDescriptor> branchDescriptors) {
+        var since = resultsCollector().reportConfig().getCommitOffsetDateTime();
         boolean commitsFound = false;
         for ( var branchDescriptor : branchDescriptors ) {
-            resultsCollector().progressWriter().writeI18nProgress("fcli.license.ncd-report.loading.branch-commits", repoDescriptor.getFullName(), branchDescriptor.getName());
-            HttpRequest<?> req = getCommitsRequest(repoDescriptor, branchDescriptor, 100)
-                    .queryString("since", since);
-            
-            List<ArrayNode> bodies = GitHubPagingHelper.pagedRequest(req, ArrayNode.class).getBodies();
-            for ( ArrayNode body : bodies ) {
-                for ( JsonNode commit : body ) {
-                    commitsFound = true;
-                    addCommit(branchCommitCollector, repoDescriptor, branchDescriptor, commit);
-                }
+            var commits = commitCache.getBranchCommits(branchDescriptor.asJsonNode(), branchDescriptor.getName(), branchDescriptor.getSha(), since, 
+                    (s,stopCondition)->loadCommits(repoDescriptor, branchDescriptor, s, stopCondition));
+            for ( JsonNode commit : commits ) {
+                commitsFound = true;
+                addCommit(branchCommitCollector, repoDescriptor, branchDescriptor, commit);
             }
         }
         return commitsFound;
     }
     
+    /**
+     * Load all commits later than the given date/time for the given branch, until
+     * the given stop condition returns true. As pages are loaded lazily, no further
+     * pages are requested once the stop condition returns true.
+     */
+    protected List<CachedCommit> loadCommits(NcdReportGitHubRepositoryDescriptor repoDescriptor, NcdReportGitHubBranchDescriptor branchDescriptor, OffsetDateTime since, Predicate<CachedCommit> stopCondition) {
+        resultsCollector().progressWriter().writeI18nProgress("fcli.license.ncd-report.loading.branch-commits", repoDescriptor.getFullName(), branchDescriptor.getName());
+        HttpRequest<?> req = getCommitsRequest(repoDescriptor, branchDescriptor, 100)
+                .queryString("since", since.format(DateTimeFormatter.ISO_INSTANT));
+        List<CachedCommit> result = new ArrayList<>();
+        var bodies = GitHubPagingHelper.pagedRequest(unirest(), req, ArrayNode.class)
+                .filter(HttpResponse::isSuccess)
+                .map(HttpResponse::getBody)
+                .iterator();
+        while ( bodies.hasNext() ) {
+            for ( JsonNode commit : bodies.next() ) {
+                var cachedCommit = toCachedCommit(commit);
+                result.add(cachedCommit);
+                if ( stopCondition.test(cachedCommit) ) { return result; }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Load the latest commit for the given branch, returning null if
+     * the branch doesn't have any commits.
+     */
+    protected CachedCommit loadHeadCommit(NcdReportGitHubRepositoryDescriptor repoDescriptor, NcdReportGitHubBranchDescriptor branchDescriptor) {
+        var response = getCommitsRequest(repoDescriptor, branchDescriptor, 1)
+                .asObject(ArrayNode.class).getBody();
+        return response.size()>0 ? toCachedCommit(response.get(0)) : null;
+    }
+    
+    /**
+     * Convert the given commit to a {@link CachedCommit}, retaining only
+     * the properties used by {@link NcdReportGitHubCommitDescriptor} and
+     * {@link NcdReportGitHubAuthorDescriptor}. GitHub filters commits based
+     * on committer date, so we use that date for expiring cached commits. Parent
+     * commit ids are only available if the given commit contains a parents array.
+     */
+    protected static final CachedCommit toCachedCommit(JsonNode commit) {
+        var data = commit.deepCopy();
+        if ( data instanceof ObjectNode ) {
+            ((ObjectNode)data).retain("sha", "commit");
+            var commitData = data.get("commit");
+            if ( commitData instanceof ObjectNode ) {
+                ((ObjectNode)commitData).retain("author", "message");
+            }
+        }
+        return CachedCommit.create(commit.path("sha").asText(), commit.at("/commit/committer/date").asText(null), getParentIds(commit), data);
+    }
+    
+    /**
+     * Get the parent commit ids for the given commit, or null if the given
+     * commit doesn't contain a parents array.
+     */
+    private static final List<String> getParentIds(JsonNode commit) {
+        var parents = commit.get("parents");
+        if ( parents==null || !parents.isArray() ) { return null; }
+        List<String> result = new ArrayList<>();
+        parents.forEach(parent->result.add(parent.path("sha").asText()));
+        return result;
+    }
+    
     /**
      * Add commit data to the given {@link INcdReportRepositoryBranchCommitCollector}.
      */
@@ -162,10 +235,19 @@ public class NcdReportGitHubResultsGenerator extends AbstractNcdReportUnirestRes
      * Get the branch descriptors for the repository described by the given
      * repository descriptor.
      */
-    private List<NcdReportGitHubBranchDescriptor> getBranchDescriptors(NcdReportGitHubRepositoryDescriptor repoDescriptor) {
+    protected List<NcdReportGitHubBranchDescriptor> getBranchDescriptors(NcdReportGitHubRepositoryDescriptor repoDescriptor) {
         List<NcdReportGitHubBranchDescriptor> result = new ArrayList<>(); 
-        GitHubPagingHelper.pagedRequest(getBranchesRequest(repoDescriptor), ArrayNode.class)
-            .ifSuccess(r->r.getBody().forEach(b->result.add(JsonHelper.treeToValue(b, NcdReportGitHubBranchDescriptor.class))));
+        GitHubPagingHelper.pagedRequest(unirest(), getBranchesRequest(repoDescriptor), ArrayNode.class)
+            .forEach(p->p.ifSuccess(r->r.getBody().forEach(b->result.add(JsonHelper.treeToValue(b, NcdReportGitHubBranchDescriptor.class)))));
+        return result;
+    }
+    
+    /**
+     * Get the branch descriptors from the given {@link NcdReportRepositoryCommitCache}.
+     */
+    private List<NcdReportGitHubBranchDescriptor> getCachedBranchDescriptors(NcdReportRepositoryCommitCache commitCache) {
+        List<NcdReportGitHubBranchDescriptor> result = new ArrayList<>();
+        commitCache.getBranches().forEach(b->result.add(JsonHelper.treeToValue(b, NcdReportGitHubBranchDescriptor.class)));
         return result;
     }
     
@@ -202,10 +284,12 @@ public class NcdReportGitHubResultsGenerator extends AbstractNcdReportUnirestRes
     /**
      * Optionally configure an Authorization header to the configuration
      * of the given {@link UnirestInstance}, based on the optional
-     * tokenExpression provided in the source configuration. 
+     * tokenExpression provided in the source configuration, and 
+     * configure rate limit handling based on rate limit response headers.
      */
     @Override
     protected void configure(UnirestInstance unirest) {
+        UnirestRateLimitConfigurer.configure(unirest, "X-RateLimit-Remaining", "X-RateLimit-Reset");
         String tokenExpression = sourceConfig().getTokenExpression();
         if ( StringUtils.isNotBlank(tokenExpression) ) {
             // TODO Doesn't really make sense to use this method with null input object
@@ -12,19 +12,25 @@
  *******************************************************************************/
 package com.fortify.cli.license.ncd_report.generator.gitlab;
 
+import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fortify.cli.common.json.JsonHelper;
 import com.fortify.cli.common.rest.github.GitHubPagingHelper;
 import com.fortify.cli.common.rest.gitlab.GitLabPagingHelper;
+import com.fortify.cli.common.rest.unirest.config.UnirestRateLimitConfigurer;
 import com.fortify.cli.common.util.StringUtils;
 import com.fortify.cli.license.ncd_report.collector.INcdReportRepositoryBranchCommitCollector;
 import com.fortify.cli.license.ncd_report.collector.INcdReportRepositoryProcessor;
+import com.fortify.cli.license.ncd_report.collector.NcdReportRepositoryCommitCache;
+import com.fortify.cli.license.ncd_report.collector.NcdReportRepositoryCommitCache.CachedCommit;
 import com.fortify.cli.license.ncd_report.collector.NcdReportResultsCollector;
 import com.fortify.cli.license.ncd_report.config.NcdReportCombinedRepoSelectorConfig;
 import com.fortify.cli.license.ncd_report.config.NcdReportGitLabGroupConfig;
@@ -34,6 +40,7 @@ import com.fortify.cli.license.ncd_report.generator.AbstractNcdReportUnirestResu
 
 import kong.unirest.GetRequest;
 import kong.unirest.HttpRequest;
+import kong.unirest.HttpResponse;
 import kong.unirest.UnirestInstance;
 
 /**
@@ -61,7 +68,7 @@ public class NcdReportGitLabResultsGenerator extends AbstractNcdReportUnirestRes
      * sub-groups.
      */
     @Override
-    protected void generateResults() {
+    protected void generateRepositoryResults() {
         Stream.of(sourceConfig().getGroups()).forEach(this::generateResults);
     }
     
@@ -83,27 +90,34 @@ public class NcdReportGitLabResultsGenerator extends AbstractNcdReportUnirestRes
             HttpRequest<?> req = unirest().get("/api/v4/groups/{id}/projects?per_page=100")
                     .routeParam("id", groupId)
                     .queryString("include_subgroups", includeSubgroups);
-            GitLabPagingHelper.pagedRequest(req, ArrayNode.class)
-                .ifSuccess(r->r.getBody().forEach(project->
-                    resultsCollector().repositoryProcessor().processRepository(new NcdReportCombinedRepoSelectorConfig(sourceConfig(), groupConfig), getRepoDescriptor(project), this::generateCommitData)));
+            GitLabPagingHelper.pagedRequest(unirest(), req, ArrayNode.class)
+                .forEach(p->p.ifSuccess(r->r.getBody().forEach(project->
+                    resultsCollector().repositoryProcessor().processRepository(new NcdReportCombinedRepoSelectorConfig(sourceConfig(), groupConfig), getRepoDescriptor(project), this::generateCommitData))));
         } catch ( Exception e ) {
-            resultsCollector().logger().error(String.format("Error processing group: %s (%s)", groupId, sourceConfig().getBaseUrl()), e);
+            resultsCollector().sourceError(String.format("Error processing group: %s (%s)", groupId, sourceConfig().getBaseUrl()), e);
         }
     }
     
     /**
      * This method generates commit data for the given repository by retrieving
-     * all branches, and then invoking the {@link #generateCommitDataForBranches(INcdReportRepositoryBranchCommitCollector, NcdReportGitLabRepositoryDescriptor, List)}
+     * all branches, and then invoking the {@link #generateCommitDataForBranches(INcdReportRepositoryBranchCommitCollector, NcdReportRepositoryCommitCache, NcdReportGitLabRepositoryDescriptor, List)}
      * method to generate commit data for each branch. If no commits are found that
-     * match the date range, the {@link #generateMostRecentCommitData(INcdReportRepositoryBranchCommitCollector, NcdReportGitLabRepositoryDescriptor, List)}
+     * match the date range, the {@link #generateMostRecentCommitData(INcdReportRepositoryBranchCommitCollector, NcdReportRepositoryCommitCache, NcdReportGitLabRepositoryDescriptor, List)}
      * method is invoked to find the most recent commit older than the date range.
+     * If the repository was already fully processed by an interrupted report run,
+     * branch and commit data is loaded from the {@link NcdReportRepositoryCommitCache}
+     * instead.
      */
     private void generateCommitData(NcdReportGitLabRepositoryDescriptor repoDescriptor, INcdReportRepositoryBranchCommitCollector branchCommitCollector) {
-        var branchDescriptors = getBranchDescriptors(repoDescriptor);
-        boolean commitsFound = generateCommitDataForBranches(branchCommitCollector, repoDescriptor, branchDescriptors);
+        var commitCache = resultsCollector().commitCache().repository(repoDescriptor);
+        var branchDescriptors = commitCache.isCheckpointed()
+                ? getCachedBranchDescriptors(commitCache)
+                : getBranchDescriptors(repoDescriptor);
+        boolean commitsFound = generateCommitDataForBranches(branchCommitCollector, commitCache, repoDescriptor, branchDescriptors);
         if ( !commitsFound ) {
-            generateMostRecentCommitData(branchCommitCollector, repoDescriptor, branchDescriptors);
+            generateMostRecentCommitData(branchCommitCollector, commitCache, repoDescriptor, branchDescriptors);
         }
+        commitCache.save();
     }
 
     /**
@@ -111,14 +125,14 @@ public class NcdReportGitLabResultsGenerator extends AbstractNcdReportUnirestRes
      * latest commit (if found) to the {@link #addCommit(INcdReportRepositoryBranchCommitCollector, NcdReportGitLabRepositoryDescriptor, NcdReportGitLabBranchDescriptor, JsonNode)}
      * method.
      */
-    private void generateMostRecentCommitData(INcdReportRepositoryBranchCommitCollector branchCommitCollector, NcdReportGitLabRepositoryDescriptor repoDescriptor, List<NcdReportGitLabBranchDescriptor> branchDescriptors) {
+    private void generateMostRecentCommitData(INcdReportRepositoryBranchCommitCollector branchCommitCollector, NcdReportRepositoryCommitCache commitCache, NcdReportGitLabRepositoryDescriptor repoDescriptor, List<NcdReportGitLabBranchDescriptor> branchDescriptors) {
         NcdReportGitLabCommitDescriptor mostRecentCommitDescriptor = null;
         NcdReportGitLabBranchDescriptor mostRecentBranchDescriptor = null;
         for ( var branchDescriptor : branchDescriptors ) {
-            var currentCommitResponse = getCommitsRequest(repoDescriptor, branchDescriptor, 1)
-                .asObject(ArrayNode.class).getBody();
-            if ( currentCommitResponse.size()>0 ) {
-                var currentCommitDescriptor = JsonHelper.treeToValue(currentCommitResponse.get(0), NcdReportGitLabCommitDescriptor.class);
+            var currentCommit = commitCache.getHeadCommit(branchDescriptor.getName(), branchDescriptor.getCommitId(), 
+                    ()->loadHeadCommit(repoDescriptor, branchDescriptor));
+            if ( currentCommit!=null ) {
+                var currentCommitDescriptor = JsonHelper.treeToValue(currentCommit, NcdReportGitLabCommitDescriptor.class);
                 if ( mostRecentCommitDescriptor==null || currentCommitDescriptor.getDate().isAfter(mostRecentCommitDescriptor.getDate()) ) {
                     mostRecentCommitDescriptor = currentCommitDescriptor;
                     mostRecentBranchDescriptor = branchDescriptor;
@@ -132,29 +146,84 @@ public class NcdReportGitLabResultsGenerator extends AbstractNcdReportUnirestRes
 
     /**
      * This method generates commit data for all commits later than the configured
-     * date/time for all branches.
+     * date/time for all branches, using cached commit data where possible.
      * @return true if any commits were found, false otherwise  
      */
-    private boolean generateCommitDataForBranches(INcdReportRepositoryBranchCommitCollector branchCommitCollector, NcdReportGitLabRepositoryDescriptor repoDescriptor, List<NcdReportGitLabBranchDescriptor> branchDescriptors) {
-        String since = resultsCollector().reportConfig().getCommitOffsetDateTime()
-                .format(DateTimeFormatter.ISO_INSTANT);
+    private boolean generateCommitDataForBranches(INcdReportRepositoryBranchCommitCollector branchCommitCollector, NcdReportRepositoryCommitCache commitCache, NcdReportGitLabRepositoryDescriptor repoDescriptor, List<NcdReportGitLabBranchDescriptor> branchDescriptors) {
+        var since = resultsCollector().reportConfig().getCommitOffsetDateTime();
         boolean commitsFound = false;
         for ( var branchDescriptor : branchDescriptors ) {
-            resultsCollector().progressWriter().writeI18nProgress("fcli.license.ncd-report.loading.branch-commits", repoDescriptor.getFullName(), branchDescriptor.getName());
-            HttpRequest<?> req = getCommitsRequest(repoDescriptor, branchDescriptor, 100)
-                    .queryString("since", since);
-            
-            List<ArrayNode> bodies = GitHubPagingHelper.pagedRequest(req, ArrayNode.class).getBodies();
-            for ( ArrayNode body : bodies ) {
-                for ( JsonNode commit : body ) {
-                    commitsFound = true;
-                    addCommit(branchCommitCollector, repoDescriptor, branchDescriptor, commit);
-                }
+            var commits = commitCache.getBranchCommits(branchDescriptor.asJsonNode(), branchDescriptor.getName(), branchDescriptor.getCommitId(), since, 
+                    (s,stopCondition)->loadCommits(repoDescriptor, branchDescriptor, s, stopCondition));
+            for ( JsonNode commit : commits ) {
+                commitsFound = true;
+                addCommit(branchCommitCollector, repoDescriptor, branchDescriptor, commit);
             }
         }
         return commitsFound;
     }
     
+    /**
+     * Load all commits later than the given date/time for the given branch, until
+     * the given stop condition returns true. As pages are loaded lazily, no further
+     * pages are requested once the stop condition returns true.
+     */
+    private List<CachedCommit> loadCommits(NcdReportGitLabRepositoryDescriptor repoDescriptor, NcdReportGitLabBranchDescriptor branchDescriptor, OffsetDateTime since, Predicate<CachedCommit> stopCondition) {
+        resultsCollector().progressWriter().writeI18nProgress("fcli.license.ncd-report.loading.branch-commits", repoDescriptor.getFullName(), branchDescriptor.getName());
+        HttpRequest<?> req = getCommitsRequest(repoDescriptor, branchDescriptor, 100)
+                .queryString("since", since.format(DateTimeFormatter.ISO_INSTANT));
+        List<CachedCommit> result = new ArrayList<>();
+        var bodies = GitHubPagingHelper.pagedRequest(unirest(), req, ArrayNode.class)
+                .filter(HttpResponse::isSuccess)
+                .map(HttpResponse::getBody)
+                .iterator();
+        while ( bodies.hasNext() ) {
+            for ( JsonNode commit : bodies.next() ) {
+                var cachedCommit = toCachedCommit(commit);
+                result.add(cachedCommit);
+                if ( stopCondition.test(cachedCommit) ) { return result; }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Load the latest commit for the given branch, returning null if
+     * the branch doesn't have any commits.
+     */
+    private CachedCommit loadHeadCommit(NcdReportGitLabRepositoryDescriptor repoDescriptor, NcdReportGitLabBranchDescriptor branchDescriptor) {
+        var response = getCommitsRequest(repoDescriptor, branchDescriptor, 1)
+                .asObject(ArrayNode.class).getBody();
+        return response.size()>0 ? toCachedCommit(response.get(0)) : null;
+    }
+    
+    /**
+     * Convert the given commit to a {@link CachedCommit}, retaining only
+     * the properties used by {@link NcdReportGitLabCommitDescriptor} and
+     * {@link NcdReportGitLabAuthorDescriptor}. GitLab filters commits based
+     * on committed date, so we use that date for expiring cached commits. Parent
+     * commit ids are only available if the given commit contains a parent_ids array.
+     */
+    private static final CachedCommit toCachedCommit(JsonNode commit) {
+        var data = commit.deepCopy();
+        if ( data instanceof ObjectNode ) {
+            ((ObjectNode)data).retain("id", "authored_date", "message", "author_name", "author_email");
+        }
+        return CachedCommit.create(commit.path("id").asText(), commit.path("committed_date").asText(null), getParentIds(commit), data);
+    }
+    
+    /**
+     * Get the parent commit ids for the given commit, or null if the given
+     * commit doesn't contain a parent_ids array.
+     */
+    private static final List<String> getParentIds(JsonNode commit) {
+        var parentIds = commit.get("parent_ids");
+        if ( parentIds==null || !parentIds.isArray() ) { return null; }
+        List<String> result = new ArrayList<>();
+        parentIds.forEach(parentId->result.add(parentId.asText()));
+        return result;
+    }
+    
     /**
      * Add commit data to the given {@link INcdReportRepositoryBranchCommitCollector}.
      */
@@ -170,8 +239,17 @@ public class NcdReportGitLabResultsGenerator extends AbstractNcdReportUnirestRes
      */
     private List<NcdReportGitLabBranchDescriptor> getBranchDescriptors(NcdReportGitLabRepositoryDescriptor repoDescriptor) {
         List<NcdReportGitLabBranchDescriptor> result = new ArrayList<>(); 
-        GitHubPagingHelper.pagedRequest(getBranchesRequest(repoDescriptor), ArrayNode.class)
-            .ifSuccess(r->r.getBody().forEach(b->result.add(JsonHelper.treeToValue(b, NcdReportGitLabBranchDescriptor.class))));
+        GitHubPagingHelper.pagedRequest(unirest(), getBranchesRequest(repoDescriptor), ArrayNode.class)
+            .forEach(p->p.ifSuccess(r->r.getBody().forEach(b->result.add(JsonHelper.treeToValue(b, NcdReportGitLabBranchDescriptor.class)))));
+        return result;
+    }
+    
+    /**
+     * Get the branch descriptors from the given {@link NcdReportRepositoryCommitCache}.
+     */
+    private List<NcdReportGitLabBranchDescriptor> getCachedBranchDescriptors(NcdReportRepositoryCommitCache commitCache) {
+        List<NcdReportGitLabBranchDescriptor> result = new ArrayList<>();
+        commitCache.getBranches().forEach(b->result.add(JsonHelper.treeToValue(b, NcdReportGitLabBranchDescriptor.class)));
         return result;
     }
     
@@ -205,10 +283,12 @@ public class NcdReportGitLabResultsGenerator extends AbstractNcdReportUnirestRes
     /**
      * Optionally configure an Authorization header to the configuration
      * of the given {@link UnirestInstance}, based on the optional
-     * tokenExpression provided in the source configuration. 
+     * tokenExpression provided in the source configuration, and 
+     * configure rate limit handling based on rate limit response headers.
      */
     @Override
     protected void configure(UnirestInstance unirest) {
+        UnirestRateLimitConfigurer.configure(unirest, "RateLimit-Remaining", "RateLimit-Reset");
         String tokenExpression = sourceConfig().getTokenExpression();
         if ( StringUtils.isNotBlank(tokenExpression) ) {
             // TODO Doesn't really make sense to use this method with null input object
@@ -72,11 +72,17 @@
  *         generated data.</li>
  *     <li>Invokes NcdReportRepositoryCollector.reportRepository(...) for every
  *         repository to collect and output repository data.</li>
+ *     <li>Records every processed repository in the NcdReportCommitCache
+ *         checkpoint, allowing an interrupted report run to be resumed.</li>
  *    </ol></li>
  *   <li>The source-specific INcdReportBranchCommitGenerator:
  *    <ol>
- *     <li>Loads the branch descriptors for the given repository.</li>
- *     <li>For every branch, loads all commits not older than 90 days.</li>
+ *     <li>Loads the branch descriptors for the given repository, or gets them
+ *         from the NcdReportRepositoryCommitCache if the repository was already
+ *         processed by an interrupted report run.</li>
+ *     <li>For every branch, loads all commits not older than 90 days through
+ *         the NcdReportRepositoryCommitCache, which only loads commits from the
+ *         source if the branch head has changed since the previous run.</li>
  *     <li>For every commit, calls the given NcdReportRepositoryBranchCommitCollector,
  *         passing in the repository, branch, commit and author descriptors.
  *     <li>If no recent commits are found in any of the branches, looks
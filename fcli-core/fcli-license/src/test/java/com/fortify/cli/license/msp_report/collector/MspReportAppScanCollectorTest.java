@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.license.msp_report.collector;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.license.msp_report.config.MspReportConfig;
+import com.fortify.cli.license.msp_report.generator.ssc.MspReportSSCArtifactDescriptor;
+import com.fortify.cli.license.msp_report.generator.ssc.MspReportSSCScanDescriptor;
+
+public class MspReportAppScanCollectorTest {
+    private static final LocalDate CONTRACT_START_DATE = LocalDate.of(2020, 1, 1);
+    
+    @Test
+    public void testRemediationScansMatchReference() {
+        var scans = generateScans(new Random(1), 5000);
+        var collector = createCollector(scans);
+        var sortedScans = new TreeSet<MspReportSSCScanDescriptor>(Comparator.comparing(MspReportSSCScanDescriptor::getScanDate));
+        scans.forEach(sortedScans::add);
+        for ( var scan : scans ) {
+            Assertions.assertEquals(isRemediationScanReference(sortedScans, scan), collector.isRemediationScan(scan), 
+                    "Incorrect remediation state for scan "+scan.getScanId()+" ("+scan.getScanDate()+")");
+        }
+    }
+    
+    private static final MspReportAppScanCollector createCollector(List<MspReportSSCScanDescriptor> scans) {
+        var config = new MspReportConfig();
+        config.setContractStartDate(CONTRACT_START_DATE);
+        var collector = new MspReportAppScanCollector(config, null, null, null);
+        scans.forEach(collector::report);
+        return collector;
+    }
+    
+    /**
+     * Generate the given number of SAST scans, in descending scan date order like 
+     * artifacts returned by SSC. Intervals between scans are chosen such that there's 
+     * a mix of remediation and non-remediation scans, including scans with the same 
+     * scan date, and scans before contract start date.
+     */
+    private static final List<MspReportSSCScanDescriptor> generateScans(Random random, int count) {
+        List<MspReportSSCScanDescriptor> result = new ArrayList<>();
+        var scanDate = CONTRACT_START_DATE.atStartOfDay().minusDays(100);
+        for ( int i = 0 ; i < count ; i++ ) {
+            int interval = random.nextInt(10);
+            scanDate = interval==0 ? scanDate : scanDate.plusDays(interval<8 ? random.nextInt(15) : 25+random.nextInt(15));
+            result.add(createScan(i, scanDate));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+    
+    private static final MspReportSSCScanDescriptor createScan(int id, LocalDateTime scanDate) {
+        var date = scanDate.toString()+"Z";
+        var artifact = JsonHelper.getObjectMapper().createObjectNode()
+                .put("id", "artifact"+id)
+                .put("uploadDate", date);
+        artifact.putObject("_embed").putArray("scans").addObject()
+                .put("id", "scan"+id)
+                .put("uploadDate", date)
+                .put("type", "SCA");
+        var artifactDescriptor = JsonHelper.treeToValue(artifact, MspReportSSCArtifactDescriptor.class);
+        return MspReportSSCScanDescriptor.from(artifactDescriptor).findFirst().get();
+    }
+    
+    /**
+     * Original recursive implementation of {@link MspReportAppScanCollector#isRemediationScan(MspReportSSCScanDescriptor)}.
+     */
+    private static final boolean isRemediationScanReference(TreeSet<MspReportSSCScanDescriptor> sortedScans, MspReportSSCScanDescriptor descriptor) {
+        var previousScan = sortedScans.lower(descriptor);
+        if ( previousScan!=null && previousScan.getScanDate().isBefore(CONTRACT_START_DATE.atStartOfDay()) ) {
+            previousScan = null;
+        }
+        return previousScan!=null 
+                && ChronoUnit.DAYS.between(previousScan.getScanDate(), descriptor.getScanDate())<30
+                && !isRemediationScanReference(sortedScans, previousScan);
+    }
+}
@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.license.msp_report.generator.ssc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.common.progress.helper.IProgressWriterI18n;
+import com.fortify.cli.common.report.writer.ReportDirWriter;
+import com.fortify.cli.license.msp_report.collector.MspReportResultsCollector;
+import com.fortify.cli.license.msp_report.config.MspReportConfig;
+import com.fortify.cli.license.msp_report.config.MspReportSSCSourceConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * This test runs {@link MspReportSSCResultsGenerator} against a stub SSC server,
+ * verifying that report contents are identical for sequential and concurrent
+ * processing of applications. The stub server responds slower for earlier
+ * applications, such that with concurrent processing, applications complete
+ * in a different order than in which they were returned by SSC.
+ */
+public class MspReportSSCResultsGeneratorTest {
+    private static final int APP_COUNT = 8;
+    private static final Pattern APP_VERSIONS_PATTERN = Pattern.compile(".*/api/v1/projects/(\\d+)/versions.*");
+    private static final Pattern VERSION_ATTRS_PATTERN = Pattern.compile(".*/api/v1/projectVersions/(\\d+)/attributes.*");
+    private static final Pattern VERSION_ARTIFACTS_PATTERN = Pattern.compile(".*/api/v1/projectVersions/(\\d+)/artifacts.*");
+    private static final Pattern LOG_TIMESTAMP_PATTERN = Pattern.compile("^\\[[^\\]]*\\] ");
+    @TempDir private Path tempDir;
+    private ExecutorService serverExecutor;
+    private HttpServer server;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/ssc/api/v1", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testReportIndependentOfMaxConcurrentApplications() throws Exception {
+        var sequential = generateReport("sequential", 1);
+        var concurrent = generateReport("concurrent", 4);
+        assertTrue(sequential.get("details/applications.csv").contains("app8"));
+        assertTrue(sequential.get("report.log").contains("MSP_License_Type mismatch"));
+        assertTrue(sequential.get("report.log").contains("Error loading artifacts for application version app6:v2"));
+        assertEquals(sequential.keySet(), concurrent.keySet());
+        for ( var fileName : sequential.keySet() ) {
+            assertEquals(sequential.get(fileName), concurrent.get(fileName), "Contents of "+fileName+" differ");
+        }
+    }
+
+    /**
+     * Generate a report with the given maximum number of concurrent applications,
+     * and return the contents of the generated report files. As log entries
+     * contain timestamps and stack traces that depend on the thread on which
+     * an error occurred, we only return the log messages for the report log,
+     * and we ignore the checksums file.
+     */
+    private Map<String, String> generateReport(String dirName, int maxConcurrentApplications) throws IOException {
+        var reportDir = tempDir.resolve(dirName);
+        var reportConfig = new MspReportConfig();
+        reportConfig.setMspName("Test MSP");
+        reportConfig.setContractStartDate(LocalDate.of(2022, 1, 1));
+        reportConfig.setReportingStartDate(LocalDate.of(2023, 1, 1));
+        reportConfig.setReportingEndDate(LocalDate.of(2023, 12, 31));
+        var sourceConfig = new MspReportSSCSourceConfig();
+        sourceConfig.setBaseUrl("http://localhost:"+server.getAddress().getPort()+"/ssc");
+        sourceConfig.setTokenExpression("'004746ed-e15b-47cf-a680-224d12ee0c9d'");
+        sourceConfig.setMaxConcurrentApplications(maxConcurrentApplications);
+        try ( var reportWriter = new ReportDirWriter(reportDir.toString(), keySuffix->null) ) {
+            try ( var resultsCollector = new MspReportResultsCollector(reportConfig, reportWriter, new NoProgressWriter()) ) {
+                try ( var generator = sourceConfig.generator(resultsCollector) ) {
+                    generator.run();
+                }
+            }
+        }
+        Map<String, String> result = new TreeMap<>();
+        try ( var paths = Files.walk(reportDir) ) {
+            for ( var path : paths.filter(Files::isRegularFile).collect(Collectors.toList()) ) {
+                var fileName = reportDir.relativize(path).toString().replace('\\', '/');
+                if ( fileName.equals("report.log") ) {
+                    result.put(fileName, getLogMessages(path));
+                } else if ( !fileName.equals("checksums.sha256") ) {
+                    result.put(fileName, Files.readString(path));
+                }
+            }
+        }
+        assertFalse(result.isEmpty());
+        return result;
+    }
+
+    private static final String getLogMessages(Path path) throws IOException {
+        return Files.readAllLines(path).stream()
+                .filter(line->line.startsWith("["))
+                .map(line->LOG_TIMESTAMP_PATTERN.matcher(line).replaceFirst(""))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        var path = exchange.getRequestURI().getPath();
+        try {
+            if ( path.endsWith("/api/v1/attributeDefinitions") ) {
+                respond(exchange, 200, data(getAttributeDefinitions()));
+            } else if ( path.endsWith("/api/v1/projects") ) {
+                respond(exchange, 200, data(getApps()));
+            } else if ( path.endsWith("/api/v1/bulk") ) {
+                respond(exchange, 200, getBulkResponse(exchange));
+            } else {
+                var appVersionsMatcher = APP_VERSIONS_PATTERN.matcher(path);
+                var artifactsMatcher = VERSION_ARTIFACTS_PATTERN.matcher(path);
+                if ( appVersionsMatcher.matches() ) {
+                    var appId = Integer.parseInt(appVersionsMatcher.group(1));
+                    // Respond slower for earlier apps
+                    Thread.sleep((APP_COUNT-appId)*25);
+                    respond(exchange, 200, data(getVersions(appId)));
+                } else if ( artifactsMatcher.matches() ) {
+                    var versionId = Integer.parseInt(artifactsMatcher.group(1));
+                    if ( versionId==62 ) {
+                        respond(exchange, 500, JsonHelper.getObjectMapper().createObjectNode().put("message", "Simulated error"));
+                    } else {
+                        respond(exchange, 200, data(getArtifacts(versionId)));
+                    }
+                } else {
+                    respond(exchange, 404, JsonHelper.getObjectMapper().createObjectNode().put("message", "Not found: "+path));
+                }
+            }
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 500, JsonHelper.getObjectMapper().createObjectNode().put("message", "Interrupted"));
+        }
+    }
+
+    private static final ArrayNode getAttributeDefinitions() {
+        var result = JsonHelper.getObjectMapper().createArrayNode();
+        var licenseType = result.addObject()
+            .put("id", "1").put("guid", "licenseType").put("name", "MSP_License_Type")
+            .put("category", "BUSINESS").put("type", "SINGLE").put("required", true);
+        var options = licenseType.putArray("options");
+        options.addObject().put("guid", "application").put("name", "Application");
+        options.addObject().put("guid", "scan").put("name", "Scan");
+        options.addObject().put("guid", "demo").put("name", "Demo");
+        result.addObject()
+            .put("id", "2").put("guid", "customerName").put("name", "MSP_End_Customer_Name")
+            .put("category", "BUSINESS").put("type", "TEXT").put("required", false);
+        result.addObject()
+            .put("id", "3").put("guid", "customerLocation").put("name", "MSP_End_Customer_Location")
+            .put("category", "BUSINESS").put("type", "TEXT").put("required", false);
+        return result;
+    }
+
+    private static final ArrayNode getApps() {
+        var result = JsonHelper.getObjectMapper().createArrayNode();
+        for ( int appId=1; appId<=APP_COUNT; appId++ ) {
+            result.addObject()
+                .put("id", String.valueOf(appId))
+                .put("name", "app"+appId)
+                .put("creationDate", "2022-01-01T00:00:00Z");
+        }
+        return result;
+    }
+
+    private static final ArrayNode getVersions(int appId) {
+        var result = JsonHelper.getObjectMapper().createArrayNode();
+        for ( int i=1; i<=2; i++ ) {
+            result.addObject()
+                .put("id", String.valueOf(appId*10+i))
+                .put("name", "v"+i)
+                .put("creationDate", "2022-01-01T00:00:00Z")
+                .put("active", true);
+        }
+        return result;
+    }
+
+    /**
+     * Return attribute values for the given version id. App 3 has
+     * a license type mismatch between versions, app 5 is missing
+     * the end customer name, and app 7 has a demo license.
+     */
+    private static final ArrayNode getAttributes(int versionId) {
+        var appId = versionId/10;
+        var result = JsonHelper.getObjectMapper().createArrayNode();
+        var licenseType = versionId==32 ? "Scan" : (appId==7 ? "Demo" : "Application");
+        result.addObject().put("guid", "licenseType").putArray("values").addObject()
+            .put("guid", licenseType.toLowerCase()).put("name", licenseType);
+        if ( appId!=5 ) {
+            result.addObject().put("guid", "customerName").put("value", "Customer "+appId);
+        }
+        result.addObject().put("guid", "customerLocation").put("value", "Location "+appId);
+        return result;
+    }
+
+    /**
+     * Return artifacts in descending upload date order for the given version id.
+     * Scan dates range from before reporting start date to within the reporting
+     * period, with some scans being less than 30 days apart.
+     */
+    private static final ArrayNode getArtifacts(int versionId) {
+        var result = JsonHelper.getObjectMapper().createArrayNode();
+        var date = LocalDate.of(2023, 6, 1).plusDays(versionId);
+        for ( int i=0; i<4; i++ ) {
+            var uploadDate = date.atStartOfDay().toString()+"Z";
+            var artifact = result.addObject()
+                .put("id", String.valueOf(versionId*10+i))
+                .put("originalFileName", "scan"+i+".fpr")
+                .put("uploadDate", uploadDate)
+                .put("purged", false)
+                .put("status", "PROCESS_COMPLETE");
+            artifact.putObject("_embed").putArray("scans").addObject()
+                .put("id", String.valueOf(versionId*10+i))
+                .put("uploadDate", uploadDate)
+                .put("type", i%2==0 ? "SCA" : "WEBINSPECT");
+            date = date.minusDays(i==1 ? 200 : 20);
+        }
+        return result;
+    }
+
+    private static final ObjectNode getBulkResponse(HttpExchange exchange) throws IOException {
+        JsonNode request;
+        try ( var is = exchange.getRequestBody() ) {
+            request = JsonHelper.getObjectMapper().readTree(is);
+        }
+        var responses = JsonHelper.getObjectMapper().createArrayNode();
+        for ( var entry : request.get("requests") ) {
+            var uri = entry.get("uri").asText();
+            var attrsMatcher = VERSION_ATTRS_PATTERN.matcher(uri);
+            JsonNode data;
+            if ( uri.contains("/api/v1/attributeDefinitions") ) {
+                data = getAttributeDefinitions();
+            } else if ( attrsMatcher.matches() ) {
+                data = getAttributes(Integer.parseInt(attrsMatcher.group(1)));
+            } else {
+                throw new IllegalArgumentException("Unexpected bulk request uri: "+uri);
+            }
+            responses.addObject().putArray("responses").addObject().set("body", data(data));
+        }
+        return data(responses);
+    }
+
+    private static final ObjectNode data(JsonNode data) {
+        var result = JsonHelper.getObjectMapper().createObjectNode();
+        result.set("data", data);
+        return result;
+    }
+
+    private static final void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        var bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try ( var os = exchange.getResponseBody() ) {
+            os.write(bytes);
+        }
+    }
+
+    private static final class NoProgressWriter implements IProgressWriterI18n {
+        @Override public boolean isMultiLineSupported() { return false; }
+        @Override public void writeProgress(String message, Object... args) {}
+        @Override public void writeWarning(String message, Object... args) {}
+        @Override public void clearProgress() {}
+        @Override public void close() {}
+        @Override public void writeI18nProgress(String keySuffix, Object... args) {}
+        @Override public void writeI18nWarning(String keySuffix, Object... args) {}
+    }
+}
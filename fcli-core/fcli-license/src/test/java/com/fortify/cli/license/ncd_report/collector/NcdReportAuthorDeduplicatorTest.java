@@ -12,13 +12,25 @@
  *******************************************************************************/
 package com.fortify.cli.license.ncd_report.collector;
 
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 
 import com.fortify.cli.common.json.JsonHelper;
 import com.fortify.cli.license.ncd_report.config.NcdReportContributorConfig;
@@ -55,6 +67,85 @@ public class NcdReportAuthorDeduplicatorTest {
         deduplicatedAuthors.values().forEach(s->Assertions.assertEquals(descriptors.length-1, s.size(), "Unexpected size for duplicates set"));
     }
     
+    @ParameterizedTest
+    @ValueSource(strings = {
+        // Exact index look-ups
+        "a1.cleanName==a2.cleanName || a1.cleanEmailName==a2.cleanEmailName || a1.cleanName==a2.cleanEmailName",
+        // Index look-ups, with expression evaluated on candidates
+        "a1.cleanName==a2.cleanName && a1.lcEmailDomain==a2.lcEmailDomain",
+        // Expression evaluated on all authors
+        "a2.cleanEmailName.length()>3 && a1.lcName.contains(a2.cleanEmailName)"
+    })
+    public void testSyntheticAuthors(String expression) {
+        var descriptors = getSyntheticDescriptors(500);
+        var config = new NcdReportContributorConfig();
+        config.setDuplicateExpression(Optional.of(expression));
+        var expected = getPairwiseDeduplicatedAuthors(expression, descriptors);
+        var actual = getDeduplicatedAuthors(Optional.of(config), descriptors);
+        Assertions.assertEquals(toAuthorNumbers(expected), toAuthorNumbers(actual), "De-duplicated authors don't match");
+    }
+    
+    /**
+     * Simple pairwise de-duplication, used as a reference for the indexed de-duplication
+     * performed by {@link NcdReportAuthorDeduplicator}.
+     */
+    private Map<NcdReportProcessedAuthorDescriptor, Set<NcdReportProcessedAuthorDescriptor>> getPairwiseDeduplicatedAuthors(String expression, NcdReportProcessedAuthorDescriptor[] descriptors) {
+        var expr = new SpelExpressionParser().parseExpression(expression);
+        var result = new TreeMap<NcdReportProcessedAuthorDescriptor, Set<NcdReportProcessedAuthorDescriptor>>(Comparator.comparingInt(NcdReportProcessedAuthorDescriptor::getAuthorNumber));
+        for ( var descriptor : descriptors ) {
+            var duplicateKeys = result.entrySet().stream()
+                .filter(e->isDuplicate(expr, descriptor, e.getKey()) || e.getValue().stream().anyMatch(d->isDuplicate(expr, descriptor, d)))
+                .map(e->e.getKey())
+                .collect(Collectors.toList());
+            if ( duplicateKeys.isEmpty() ) {
+                result.put(descriptor, new LinkedHashSet<>());
+            } else {
+                var duplicates = result.get(duplicateKeys.get(0));
+                duplicateKeys.stream().skip(1).forEach(k->{
+                    duplicates.add(k); 
+                    duplicates.addAll(result.remove(k));
+                });
+                duplicates.add(descriptor);
+            }
+        }
+        return result;
+    }
+    
+    private boolean isDuplicate(Expression expr, NcdReportProcessedAuthorDescriptor d1, NcdReportProcessedAuthorDescriptor d2) {
+        return isDuplicateOneWay(expr, d1, d2) || isDuplicateOneWay(expr, d2, d1);
+    }
+    
+    private boolean isDuplicateOneWay(Expression expr, NcdReportProcessedAuthorDescriptor d1, NcdReportProcessedAuthorDescriptor d2) {
+        var node = JsonHelper.getObjectMapper().createObjectNode();
+        node.set("a1", d1.getExpressionInput());
+        node.set("a2", d2.getExpressionInput());
+        return JsonHelper.evaluateSpelExpression(node, expr, Boolean.class);
+    }
+    
+    private Map<Integer, List<Integer>> toAuthorNumbers(Map<NcdReportProcessedAuthorDescriptor, Set<NcdReportProcessedAuthorDescriptor>> deduplicatedAuthors) {
+        var result = new LinkedHashMap<Integer, List<Integer>>();
+        deduplicatedAuthors.forEach((k,v)->result.put(k.getAuthorNumber(), 
+                v.stream().map(NcdReportProcessedAuthorDescriptor::getAuthorNumber).collect(Collectors.toList())));
+        return result;
+    }
+    
+    private NcdReportProcessedAuthorDescriptor[] getSyntheticDescriptors(int count) {
+        var random = new Random(42);
+        var firstNames = new String[] {"John", "Jane", "Piet", "Marie", "Ahmed", "Li", "", "dependabot[bot]"};
+        var lastNames = new String[] {"Doe", "Smith", "de Vries", "Jansen", "Khan", "Wei"};
+        var domains = new String[] {"company.com", "users.noreply.github.com", "gmail.com", "example.org"};
+        return IntStream.rangeClosed(1, count).mapToObj(i->{
+            var firstName = firstNames[random.nextInt(firstNames.length)];
+            var lastName = lastNames[random.nextInt(lastNames.length)];
+            var name = random.nextInt(5)==0 ? firstName.toLowerCase()+random.nextInt(50) : (firstName+" "+lastName).trim();
+            var domain = domains[random.nextInt(domains.length)];
+            var emailName = random.nextBoolean() 
+                    ? (firstName+"."+lastName).toLowerCase().replace(' ', '.') 
+                    : random.nextInt(100000)+"+"+firstName.toLowerCase()+random.nextInt(20);
+            return get(new AuthorDescriptor(name, emailName+"@"+domain), i);
+        }).toArray(NcdReportProcessedAuthorDescriptor[]::new);
+    }
+    
     private Map<NcdReportProcessedAuthorDescriptor, Set<NcdReportProcessedAuthorDescriptor>> getDeduplicatedAuthors(Optional<NcdReportContributorConfig> config, NcdReportProcessedAuthorDescriptor[] descriptors) {
         NcdReportAuthorDeduplicator deduplicator = new NcdReportAuthorDeduplicator(config);
         Stream.of(descriptors).forEach(deduplicator::addAuthor);
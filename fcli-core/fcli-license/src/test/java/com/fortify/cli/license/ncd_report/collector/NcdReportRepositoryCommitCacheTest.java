@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.license.ncd_report.collector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.license.ncd_report.collector.NcdReportRepositoryCommitCache.CachedCommit;
+import com.fortify.cli.license.ncd_report.collector.NcdReportRepositoryCommitCache.ICommitLoader;
+
+public class NcdReportRepositoryCommitCacheTest {
+    private static final String DATA_DIR_PROPERTY = "fcli.env.FCLI_DATA_DIR";
+    private static final Path CACHE_PATH = Path.of("ncd-report-test", "repository.json");
+    private static final OffsetDateTime NOW = OffsetDateTime.now(ZoneOffset.UTC);
+    private static final OffsetDateTime SINCE = NOW.minus(Duration.ofDays(90));
+    @TempDir private Path tempDir;
+    private final Repository repository = new Repository();
+    
+    @BeforeEach
+    public void setup() {
+        System.setProperty(DATA_DIR_PROPERTY, tempDir.resolve("fcli").toString());
+        repository.commit("O", 40);
+        repository.commit("A", 30, "O");
+        repository.commit("B", 20, "A");
+    }
+    
+    @AfterEach
+    public void cleanup() {
+        System.clearProperty(DATA_DIR_PROPERTY);
+    }
+    
+    @Test
+    public void testUnchangedHead() {
+        assertEquals(Set.of("O", "A", "B"), getBranchCommitIds("B", repository.loader("B", true)));
+        var loader = repository.loader("B", true);
+        assertEquals(Set.of("O", "A", "B"), getBranchCommitIds("B", loader));
+        assertEquals(0, loader.getLoadedIds().size());
+    }
+    
+    @Test
+    public void testNewCommits() {
+        getBranchCommitIds("B", repository.loader("B", true));
+        repository.commit("C", 1, "B");
+        var loader = repository.loader("C", true);
+        assertEquals(Set.of("O", "A", "B", "C"), getBranchCommitIds("C", loader));
+        assertEquals(List.of("C", "B"), loader.getLoadedIds());
+    }
+    
+    /**
+     * Commits from a long-lived feature branch have committer dates older than the 
+     * previous load, and are returned after the cached head commit. These commits 
+     * must be loaded, but loading should stop once all parents have been loaded.
+     */
+    @Test
+    public void testOldCommitsMergedIn() {
+        getBranchCommitIds("B", repository.loader("B", true));
+        repository.commit("F1", 25, "A");
+        repository.commit("F2", 22, "F1");
+        repository.commit("M", 0, "B", "F2");
+        var loader = repository.loader("M", true);
+        assertEquals(Set.of("O", "A", "B", "F1", "F2", "M"), getBranchCommitIds("M", loader));
+        assertEquals(List.of("M", "B", "F2", "F1", "A"), loader.getLoadedIds());
+    }
+    
+    /**
+     * After a force-push, commits that are no longer reachable from the branch head 
+     * must be removed from the cache.
+     */
+    @Test
+    public void testCachedHeadNotAncestor() {
+        getBranchCommitIds("B", repository.loader("B", true));
+        repository.commit("X", 1, "A");
+        var loader = repository.loader("X", true);
+        assertEquals(Set.of("O", "A", "X"), getBranchCommitIds("X", loader));
+        assertEquals(List.of("X", "A", "O"), loader.getLoadedIds());
+        assertEquals(Set.of("O", "A", "X"), getBranchCommitIds("X", repository.loader("X", true)));
+    }
+    
+    @Test
+    public void testParentsUnknown() {
+        getBranchCommitIds("B", repository.loader("B", false));
+        repository.commit("F1", 25, "A");
+        repository.commit("M", 0, "B", "F1");
+        var loader = repository.loader("M", false);
+        assertEquals(Set.of("O", "A", "B", "F1", "M"), getBranchCommitIds("M", loader));
+        assertEquals(List.of("M", "B", "F1", "A", "O"), loader.getLoadedIds());
+    }
+    
+    private Set<String> getBranchCommitIds(String headSha, ICommitLoader loader) {
+        var cache = new NcdReportRepositoryCommitCache(CACHE_PATH, false);
+        var branch = JsonHelper.getObjectMapper().createObjectNode().put("name", "main");
+        var result = cache.getBranchCommits(branch, "main", headSha, SINCE, loader).stream()
+                .map(c->c.path("id").asText())
+                .collect(Collectors.toCollection(TreeSet::new));
+        cache.save();
+        return result;
+    }
+    
+    /**
+     * Simple repository model, returning commits reachable from a given head commit 
+     * ordered by commit date, similar to the default commit ordering used by git.
+     */
+    private static final class Repository {
+        private final Map<String, TestCommit> commits = new LinkedHashMap<>();
+        
+        private void commit(String id, int daysAgo, String... parentIds) {
+            commits.put(id, new TestCommit(id, NOW.minus(Duration.ofDays(daysAgo)), List.of(parentIds)));
+        }
+        
+        private TestLoader loader(String headSha, boolean includeParentIds) {
+            return new TestLoader(this, headSha, includeParentIds);
+        }
+        
+        private List<TestCommit> log(String headSha, OffsetDateTime since) {
+            var result = new ArrayList<TestCommit>();
+            var queue = new PriorityQueue<TestCommit>(Comparator.comparing(TestCommit::date).reversed());
+            var queued = new HashSet<String>();
+            queue.add(commits.get(headSha));
+            queued.add(headSha);
+            while ( !queue.isEmpty() ) {
+                var commit = queue.poll();
+                if ( !commit.date().isBefore(since) ) { result.add(commit); }
+                commit.parentIds().stream().filter(queued::add).map(commits::get).forEach(queue::add);
+            }
+            return result;
+        }
+    }
+    
+    private record TestCommit(String id, OffsetDateTime date, List<String> parentIds) {
+        private CachedCommit toCachedCommit(boolean includeParentIds) {
+            JsonNode data = JsonHelper.getObjectMapper().createObjectNode().put("id", id);
+            return CachedCommit.create(id, date.toString(), includeParentIds ? parentIds : null, data);
+        }
+    }
+    
+    private static final class TestLoader implements ICommitLoader {
+        private final Repository repository;
+        private final String headSha;
+        private final boolean includeParentIds;
+        private final List<String> loadedIds = new ArrayList<>();
+        
+        private TestLoader(Repository repository, String headSha, boolean includeParentIds) {
+            this.repository = repository;
+            this.headSha = headSha;
+            this.includeParentIds = includeParentIds;
+        }
+        
+        @Override
+        public List<CachedCommit> load(OffsetDateTime since, Predicate<CachedCommit> stopCondition) {
+            var result = new ArrayList<CachedCommit>();
+            for ( var commit : repository.log(headSha, since) ) {
+                var cachedCommit = commit.toCachedCommit(includeParentIds);
+                loadedIds.add(commit.id());
+                result.add(cachedCommit);
+                if ( stopCondition.test(cachedCommit) ) { break; }
+            }
+            return result;
+        }
+        
+        private List<String> getLoadedIds() {
+            return loadedIds;
+        }
+    }
+}
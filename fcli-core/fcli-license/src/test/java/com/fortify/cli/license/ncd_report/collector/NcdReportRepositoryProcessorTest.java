@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.license.ncd_report.collector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.common.progress.helper.IProgressWriterI18n;
+import com.fortify.cli.common.report.writer.ReportDirWriter;
+import com.fortify.cli.license.ncd_report.config.INcdReportRepoSelectorConfig;
+import com.fortify.cli.license.ncd_report.config.NcdReportConfig;
+import com.fortify.cli.license.ncd_report.config.NcdReportGitHubSourceConfig;
+import com.fortify.cli.license.ncd_report.config.NcdReportSourcesConfig;
+import com.fortify.cli.license.ncd_report.descriptor.INcdReportAuthorDescriptor;
+import com.fortify.cli.license.ncd_report.descriptor.INcdReportBranchDescriptor;
+import com.fortify.cli.license.ncd_report.descriptor.INcdReportCommitDescriptor;
+import com.fortify.cli.license.ncd_report.descriptor.INcdReportRepositoryDescriptor;
+import com.fortify.cli.license.ncd_report.descriptor.NcdReportBranchCommitDescriptor;
+import com.fortify.cli.license.ncd_report.generator.INcdReportBranchCommitGenerator;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Timeout(value = 60)
+public class NcdReportRepositoryProcessorTest {
+    private static final String DATA_DIR_PROPERTY = "fcli.env.FCLI_DATA_DIR";
+    private static final int MAX_CONCURRENT_REPOSITORIES = 3;
+    private static final int REPOSITORY_COUNT = 8;
+    private static final int COMMITS_PER_REPOSITORY = NcdReportRepositoryProcessor.MAX_BUFFERED_BRANCH_COMMITS+100;
+    private static final INcdReportBranchDescriptor BRANCH_DESCRIPTOR = new BranchDescriptor("main");
+    private static final INcdReportAuthorDescriptor[] AUTHOR_DESCRIPTORS = {
+        new AuthorDescriptor("John Doe", "john.doe@example.com"),
+        new AuthorDescriptor("Jane Doe", "jane.doe@example.com"),
+    };
+    @TempDir private Path tempDir;
+    private File configFile;
+    
+    @BeforeEach
+    public void setup() throws IOException {
+        System.setProperty(DATA_DIR_PROPERTY, tempDir.resolve("fcli").toString());
+        configFile = Files.writeString(tempDir.resolve("NcdReportConfig.yml"), "sources: {}").toFile();
+    }
+    
+    @AfterEach
+    public void cleanup() {
+        System.clearProperty(DATA_DIR_PROPERTY);
+    }
+    
+    /**
+     * The first repository only starts generating commits once all other concurrently 
+     * processed repositories have filled their buffer, verifying that these repositories
+     * are paused rather than buffering all of their commits, and that all commits are
+     * processed once the first repository has been reported.
+     */
+    @Test
+    public void testBufferedBranchCommitsLimited() {
+        var repositories = createRepositories();
+        var generatedCounts = repositories.stream().map(r->new AtomicInteger()).collect(Collectors.toList());
+        var otherRepositoriesPaused = new AtomicBoolean();
+        INcdReportBranchCommitGenerator<TestRepositoryDescriptor> generator = (repo, collector)->{
+            if ( repo.getIndex()==0 ) {
+                otherRepositoriesPaused.set(waitForPausedRepositories(generatedCounts.subList(1, MAX_CONCURRENT_REPOSITORIES)));
+            }
+            generateBranchCommits(repo, collector, generatedCounts.get(repo.getIndex()), COMMITS_PER_REPOSITORY, false);
+        };
+        var processor = runReport(repositories, generator);
+        assertTrue(otherRepositoriesPaused.get(), "Repositories not paused at buffer limit: "+generatedCounts);
+        assertFalse(processor.hasErrors(), "Unexpected repository errors");
+        generatedCounts.forEach(c->assertEquals(COMMITS_PER_REPOSITORY, c.get()));
+    }
+    
+    @Test
+    public void testGeneratorFailure() {
+        var repositories = createRepositories();
+        INcdReportBranchCommitGenerator<TestRepositoryDescriptor> generator = (repo, collector)->
+            generateBranchCommits(repo, collector, new AtomicInteger(), COMMITS_PER_REPOSITORY, repo.getIndex()==1);
+        var processor = runReport(repositories, generator);
+        assertTrue(processor.hasErrors(), "Generator failure not reported");
+    }
+    
+    private NcdReportRepositoryProcessor runReport(List<TestRepositoryDescriptor> repositories, INcdReportBranchCommitGenerator<TestRepositoryDescriptor> generator) {
+        var commitCache = new NcdReportCommitCache(configFile, false);
+        try ( var reportWriter = new ReportDirWriter(tempDir.resolve("report").toString(), keySuffix->null) ) {
+            try ( var resultsCollector = new NcdReportResultsCollector(createReportConfig(), reportWriter, new NoProgressWriter(), commitCache) ) {
+                var processor = (NcdReportRepositoryProcessor)resultsCollector.repositoryProcessor();
+                processor.startSource(MAX_CONCURRENT_REPOSITORIES);
+                repositories.forEach(repo->processor.processRepository(new TestRepoSelectorConfig(), repo, generator));
+                processor.finishSource();
+                resultsCollector.sourceCompleted();
+                return processor;
+            }
+        }
+    }
+    
+    private static final boolean waitForPausedRepositories(List<AtomicInteger> generatedCounts) {
+        try {
+            long deadline = System.currentTimeMillis()+30000;
+            while ( System.currentTimeMillis()<deadline ) {
+                if ( generatedCounts.stream().allMatch(c->c.get()==NcdReportRepositoryProcessor.MAX_BUFFERED_BRANCH_COMMITS) ) {
+                    // Verify that generation remains paused
+                    Thread.sleep(200);
+                    return generatedCounts.stream().allMatch(c->c.get()==NcdReportRepositoryProcessor.MAX_BUFFERED_BRANCH_COMMITS);
+                }
+                Thread.sleep(10);
+            }
+            return false;
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    private static final void generateBranchCommits(TestRepositoryDescriptor repo, INcdReportRepositoryBranchCommitCollector collector, AtomicInteger generatedCount, int count, boolean fail) {
+        for ( int i = 0 ; i < count ; i++ ) {
+            if ( fail && i==100 ) { throw new IllegalStateException("Simulated error"); }
+            var commit = new CommitDescriptor(repo.getFullName()+"-"+i, LocalDateTime.of(2023, 1, 1, 0, 0).plusMinutes(i), "Commit "+i);
+            collector.reportBranchCommit(new NcdReportBranchCommitDescriptor(repo, BRANCH_DESCRIPTOR, commit, AUTHOR_DESCRIPTORS[i%AUTHOR_DESCRIPTORS.length]));
+            generatedCount.incrementAndGet();
+        }
+    }
+    
+    private static final List<TestRepositoryDescriptor> createRepositories() {
+        return IntStream.range(0, REPOSITORY_COUNT).mapToObj(TestRepositoryDescriptor::new).collect(Collectors.toList());
+    }
+    
+    private static final NcdReportConfig createReportConfig() {
+        var sourcesConfig = new NcdReportSourcesConfig();
+        sourcesConfig.setGithub(Optional.of(new NcdReportGitHubSourceConfig[] {new NcdReportGitHubSourceConfig()}));
+        var reportConfig = new NcdReportConfig();
+        reportConfig.setSources(sourcesConfig);
+        reportConfig.setContributor(Optional.empty());
+        return reportConfig;
+    }
+    
+    @RequiredArgsConstructor @Data
+    private static final class BranchDescriptor implements INcdReportBranchDescriptor {
+        private final String name;
+    }
+    
+    @RequiredArgsConstructor @Data
+    private static final class CommitDescriptor implements INcdReportCommitDescriptor {
+        private final String id;
+        private final LocalDateTime date;
+        private final String message;
+    }
+    
+    @RequiredArgsConstructor @Data
+    private static final class AuthorDescriptor implements INcdReportAuthorDescriptor {
+        private final String name;
+        private final String email;
+    }
+    
+    @RequiredArgsConstructor
+    private static final class TestRepositoryDescriptor implements INcdReportRepositoryDescriptor {
+        @Getter private final int index;
+        @Override public String getFullName() { return "org/repo"+index; }
+        @Override public String getUrl() { return "https://github.example.com/org/repo"+index; }
+        @Override public boolean isFork() { return false; }
+        @Override public String getVisibility() { return "private"; }
+        @Override public JsonNode asJsonNode() { return JsonHelper.getObjectMapper().createObjectNode(); }
+    }
+    
+    private static final class TestRepoSelectorConfig implements INcdReportRepoSelectorConfig {
+        @Override public Optional<Boolean> getIncludeForks() { return Optional.empty(); }
+        @Override public Optional<String> getRepositoryIncludeExpression() { return Optional.empty(); }
+    }
+    
+    private static final class NoProgressWriter implements IProgressWriterI18n {
+        @Override public boolean isMultiLineSupported() { return false; }
+        @Override public void writeProgress(String message, Object... args) {}
+        @Override public void writeWarning(String message, Object... args) {}
+        @Override public void clearProgress() {}
+        @Override public void close() {}
+        @Override public void writeI18nProgress(String keySuffix, Object... args) {}
+        @Override public void writeI18nWarning(String keySuffix, Object... args) {}
+    }
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.license.ncd_report.collector;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.common.progress.helper.IProgressWriterI18n;
+import com.fortify.cli.common.report.writer.ReportDirWriter;
+import com.fortify.cli.license.ncd_report.config.NcdReportConfig;
+import com.fortify.cli.license.ncd_report.config.NcdReportGitHubSourceConfig;
+import com.fortify.cli.license.ncd_report.config.NcdReportSourcesConfig;
+import com.fortify.cli.license.ncd_report.descriptor.INcdReportRepositoryDescriptor;
+
+public class NcdReportResultsCollectorTest {
+    private static final String DATA_DIR_PROPERTY = "fcli.env.FCLI_DATA_DIR";
+    private static final INcdReportRepositoryDescriptor REPO_DESCRIPTOR = new TestRepositoryDescriptor();
+    @TempDir private Path tempDir;
+    private File configFile;
+    
+    @BeforeEach
+    public void setup() throws IOException {
+        System.setProperty(DATA_DIR_PROPERTY, tempDir.resolve("fcli").toString());
+        configFile = Files.writeString(tempDir.resolve("NcdReportConfig.yml"), "sources: {}").toFile();
+    }
+    
+    @AfterEach
+    public void cleanup() {
+        System.clearProperty(DATA_DIR_PROPERTY);
+    }
+    
+    @Test
+    public void testCheckpointRemovedOnCompletion() {
+        runReport(false);
+        assertFalse(isCheckpointed(), "Checkpoint should be removed after successful completion");
+    }
+    
+    @Test
+    public void testCheckpointKeptOnSourceError() {
+        runReport(true);
+        assertTrue(isCheckpointed(), "Checkpoint should be kept if a source reported errors");
+    }
+    
+    /**
+     * Simulate a report run for a single source, caching and checkpointing 
+     * a single repository, and optionally reporting an organization-level error
+     * before marking the source as completed. 
+     */
+    private void runReport(boolean sourceError) {
+        var reportConfig = createReportConfig();
+        var commitCache = new NcdReportCommitCache(configFile, true);
+        try ( var reportWriter = new ReportDirWriter(tempDir.resolve("report").toString(), keySuffix->null) ) {
+            try ( var resultsCollector = new NcdReportResultsCollector(reportConfig, reportWriter, new NoProgressWriter(), commitCache) ) {
+                commitCache.repository(REPO_DESCRIPTOR).save();
+                commitCache.checkpoint(REPO_DESCRIPTOR);
+                if ( sourceError ) {
+                    resultsCollector.sourceError("Error processing organization: test", new IllegalStateException("Simulated error"));
+                }
+                resultsCollector.sourceCompleted();
+            }
+        }
+    }
+    
+    private boolean isCheckpointed() {
+        return new NcdReportCommitCache(configFile, true).repository(REPO_DESCRIPTOR).isCheckpointed();
+    }
+    
+    private static final NcdReportConfig createReportConfig() {
+        var sourcesConfig = new NcdReportSourcesConfig();
+        sourcesConfig.setGithub(Optional.of(new NcdReportGitHubSourceConfig[] {new NcdReportGitHubSourceConfig()}));
+        var reportConfig = new NcdReportConfig();
+        reportConfig.setSources(sourcesConfig);
+        reportConfig.setContributor(Optional.empty());
+        return reportConfig;
+    }
+    
+    private static final class TestRepositoryDescriptor implements INcdReportRepositoryDescriptor {
+        @Override public String getFullName() { return "org/repo"; }
+        @Override public String getUrl() { return "https://github.example.com/org/repo"; }
+        @Override public boolean isFork() { return false; }
+        @Override public String getVisibility() { return "private"; }
+        @Override public JsonNode asJsonNode() { return JsonHelper.getObjectMapper().createObjectNode(); }
+    }
+    
+    private static final class NoProgressWriter implements IProgressWriterI18n {
+        @Override public boolean isMultiLineSupported() { return false; }
+        @Override public void writeProgress(String message, Object... args) {}
+        @Override public void writeWarning(String message, Object... args) {}
+        @Override public void clearProgress() {}
+        @Override public void close() {}
+        @Override public void writeI18nProgress(String keySuffix, Object... args) {}
+        @Override public void writeI18nWarning(String keySuffix, Object... args) {}
+    }
+}
@@ -0,0 +1,586 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.license.ncd_report.generator.github;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fortify.cli.common.json.JsonHelper;
+import com.fortify.cli.common.progress.helper.IProgressWriterI18n;
+import com.fortify.cli.common.report.writer.ReportDirWriter;
+import com.fortify.cli.license.ncd_report.collector.NcdReportCommitCache;
+import com.fortify.cli.license.ncd_report.collector.NcdReportRepositoryCommitCache.CachedCommit;
+import com.fortify.cli.license.ncd_report.collector.NcdReportResultsCollector;
+import com.fortify.cli.license.ncd_report.config.NcdReportConfig;
+import com.fortify.cli.license.ncd_report.config.NcdReportGitHubOrganizationConfig;
+import com.fortify.cli.license.ncd_report.config.NcdReportGitHubSourceConfig;
+import com.fortify.cli.license.ncd_report.config.NcdReportSourcesConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This test runs both {@link NcdReportGitHubResultsGenerator} and
+ * {@link NcdReportGitHubGraphQLResultsGenerator} against a stub server that
+ * implements the relevant GitHub REST and GraphQL endpoints on the same set
+ * of branches and commits, verifying that both generators load identical
+ * branches and commits, and produce identical reports. The stub server
+ * returns a 502 response for the first GraphQL query, returns at most two
+ * branches per query, reports an exhausted rate limit for the first successful
+ * GraphQL query, and (unlike GitHub) ignores the <code>since</code> variable,
+ * such that the GraphQL generator needs to stop loading commit history once
+ * it encounters commits older than the report period.
+ */
+@Timeout(value = 60)
+public class NcdReportGitHubGraphQLResultsGeneratorTest {
+    private static final String DATA_DIR_PROPERTY = "fcli.env.FCLI_DATA_DIR";
+    private static final int MAX_REFS_PER_RESPONSE = 2;
+    private static final int HISTORY_PAGE_SIZE = 100;
+    private static final int MAIN_RECENT_COMMIT_COUNT = 250;
+    private static final Pattern LOG_TIMESTAMP_PATTERN = Pattern.compile("^\\[[^\\]]*\\] ");
+    private static final String[][] AUTHORS = {
+        {"John Doe", "john.doe@example.com"},
+        {"Jane Doe", "jane.doe@example.com"},
+        {"Jim Doe", "jim.doe@example.com"},
+    };
+    @TempDir private Path tempDir;
+    private ExecutorService serverExecutor;
+    private HttpServer server;
+    private List<Branch> branches;
+    private final List<GraphQLRequest> graphQLRequests = new ArrayList<>();
+    private volatile Instant rateLimitResetAt;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        System.setProperty(DATA_DIR_PROPERTY, tempDir.resolve("fcli").toString());
+        branches = createBranches();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        System.clearProperty(DATA_DIR_PROPERTY);
+    }
+
+    @Test
+    public void testGraphQLResultsMatchRestResults() throws Exception {
+        var restResults = new GeneratorResults();
+        var restReport = generateReport("rest", (s,c)->new RecordingRestGenerator(s, c, restResults));
+        assertTrue(getGraphQLRequests().isEmpty(), "REST generator unexpectedly used GraphQL API");
+        var graphQLResults = new GeneratorResults();
+        var graphQLReport = generateReport("graphql", (s,c)->new RecordingGraphQLGenerator(s, c, graphQLResults));
+
+        // Verify that both generators loaded the same branches and commits
+        assertEquals(List.of("main", "dev", "feature"), getBranchNames(restResults));
+        assertEquals(getBranchShas(restResults), getBranchShas(graphQLResults));
+        assertEquals(MAIN_RECENT_COMMIT_COUNT, restResults.getCommits("main").size());
+        assertEquals(30, restResults.getCommits("dev").size());
+        assertEquals(0, restResults.getCommits("feature").size());
+        for ( var branchName : getBranchNames(restResults) ) {
+            assertEquals(describe(restResults.getCommits(branchName)), describe(graphQLResults.getCommits(branchName)),
+                    "Commits for branch "+branchName+" differ");
+        }
+
+        // Verify that both generators produced the same report
+        assertTrue(restReport.get("details/commits-by-branch.csv").contains("Commit main-249"));
+        assertFalse(restReport.get("details/commits-by-branch.csv").contains("Commit main-250"));
+        assertEquals(restReport.keySet(), graphQLReport.keySet());
+        for ( var fileName : restReport.keySet() ) {
+            assertEquals(restReport.get(fileName), graphQLReport.get(fileName), "Contents of "+fileName+" differ");
+        }
+    }
+
+    @Test
+    public void testGraphQLQueries() throws Exception {
+        var results = new GeneratorResults();
+        generateReport("graphql", (s,c)->new RecordingGraphQLGenerator(s, c, results));
+        var requests = getGraphQLRequests();
+        var branchesRequests = requests.stream().filter(r->!r.isHistoryQuery()).collect(Collectors.toList());
+        var historyRequests = requests.stream().filter(GraphQLRequest::isHistoryQuery).collect(Collectors.toList());
+
+        // First query fails with 502 and is retried with half the page size, refs
+        // are loaded through multiple queries as the server returns at most two
+        // refs per query.
+        assertEquals(List.of(50, 25, 25), branchesRequests.stream().map(r->r.getVariables().get("pageSize").asInt()).collect(Collectors.toList()));
+        assertEquals(List.of("null", "null", "refs:2"), branchesRequests.stream().map(r->r.getCursor()).collect(Collectors.toList()));
+
+        // Next query after exhausted rate limit must wait until reset time plus one second
+        var rateLimitedRequestIndex = requests.indexOf(branchesRequests.get(1));
+        var nextRequest = requests.get(rateLimitedRequestIndex+1);
+        assertTrue(nextRequest.getTime()>=rateLimitResetAt.toEpochMilli()+1000,
+                "Request sent before rate limit reset: "+(rateLimitResetAt.toEpochMilli()+1000-nextRequest.getTime())+"ms early");
+
+        // Branch descriptors hold the head commit and first page of history converted
+        // to REST format, and the cursor for continuing history
+        var main = (NcdReportGitHubGraphQLBranchDescriptor)results.getBranch("main");
+        assertEquals(getBranch("main").getHead().getSha(), main.getSha());
+        assertEquals(restCommit(getBranch("main").getHead(), false), main.getHeadCommit());
+        assertEquals(HISTORY_PAGE_SIZE, main.getCommits().size());
+        assertEquals(restCommit(getBranch("main").getCommits().get(1), false), main.getCommits().get(1));
+        assertEquals("history:main:100", main.getCommitsEndCursor());
+        var feature = (NcdReportGitHubGraphQLBranchDescriptor)results.getBranch("feature");
+        assertEquals("history:feature:100", feature.getCommitsEndCursor());
+
+        // History is only loaded for main, continuing from the cursor loaded with the
+        // branch data using the same since variable, and stopping once older commits
+        // are found. For dev, all commits were loaded with the branch data; for feature,
+        // the first page already contains older commits.
+        assertEquals(List.of("history:main:100", "history:main:200"), historyRequests.stream().map(GraphQLRequest::getCursor).collect(Collectors.toList()));
+        var since = branchesRequests.get(1).getVariables().get("since").asText();
+        for ( var historyRequest : historyRequests ) {
+            assertEquals("refs/heads/main", historyRequest.getVariables().get("qualifiedName").asText());
+            assertEquals(since, historyRequest.getVariables().get("since").asText());
+        }
+        assertEquals(MAIN_RECENT_COMMIT_COUNT, results.getCommits("main").size());
+    }
+
+    /**
+     * Generate a report using the generator created by the given factory, and
+     * return the contents of the generated report files. As log entries contain
+     * timestamps, we only return the log messages for the report log, and we
+     * ignore the checksums file.
+     */
+    private Map<String, String> generateReport(String dirName, IGeneratorFactory generatorFactory) throws IOException {
+        var reportDir = tempDir.resolve(dirName);
+        var configFile = Files.writeString(tempDir.resolve(dirName+".yml"), "sources: {}").toFile();
+        var organizationConfig = new NcdReportGitHubOrganizationConfig();
+        organizationConfig.setName("org");
+        var sourceConfig = new NcdReportGitHubSourceConfig();
+        sourceConfig.setApiUrl("http://localhost:"+server.getAddress().getPort());
+        sourceConfig.setOrganizations(new NcdReportGitHubOrganizationConfig[] {organizationConfig});
+        var sourcesConfig = new NcdReportSourcesConfig();
+        sourcesConfig.setGithub(Optional.of(new NcdReportGitHubSourceConfig[] {sourceConfig}));
+        var reportConfig = new NcdReportConfig();
+        reportConfig.setSources(sourcesConfig);
+        reportConfig.setContributor(Optional.empty());
+        var commitCache = new NcdReportCommitCache(configFile, false);
+        try ( var reportWriter = new ReportDirWriter(reportDir.toString(), keySuffix->null) ) {
+            try ( var resultsCollector = new NcdReportResultsCollector(reportConfig, reportWriter, new NoProgressWriter(), commitCache) ) {
+                try ( var generator = generatorFactory.create(sourceConfig, resultsCollector) ) {
+                    generator.run();
+                }
+            }
+        }
+        Map<String, String> result = new TreeMap<>();
+        try ( var paths = Files.walk(reportDir) ) {
+            for ( var path : paths.filter(Files::isRegularFile).collect(Collectors.toList()) ) {
+                var fileName = reportDir.relativize(path).toString().replace('\\', '/');
+                if ( fileName.equals("report.log") ) {
+                    result.put(fileName, getLogMessages(path));
+                } else if ( !fileName.equals("checksums.sha256") ) {
+                    result.put(fileName, Files.readString(path));
+                }
+            }
+        }
+        assertFalse(result.isEmpty());
+        return result;
+    }
+
+    private static final String getLogMessages(Path path) throws IOException {
+        return Files.readAllLines(path).stream()
+                .filter(line->line.startsWith("["))
+                .map(line->LOG_TIMESTAMP_PATTERN.matcher(line).replaceFirst(""))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private List<GraphQLRequest> getGraphQLRequests() {
+        synchronized (graphQLRequests) {
+            return new ArrayList<>(graphQLRequests);
+        }
+    }
+
+    private static final List<String> getBranchNames(GeneratorResults results) {
+        return results.getBranches().stream().map(NcdReportGitHubBranchDescriptor::getName).collect(Collectors.toList());
+    }
+
+    private static final List<String> getBranchShas(GeneratorResults results) {
+        return results.getBranches().stream().map(b->b.getName()+":"+b.getSha()).collect(Collectors.toList());
+    }
+
+    /**
+     * Describe the given commits by id, date and data, ignoring parent ids
+     * as these are not loaded through the GraphQL API.
+     */
+    private static final List<List<Object>> describe(List<CachedCommit> commits) {
+        return commits.stream().map(c->List.<Object>of(c.getId(), c.getDate(), c.getData())).collect(Collectors.toList());
+    }
+
+    /**
+     * Create the branches served by the stub server. Each branch holds its commits
+     * in reverse chronological order, as returned by GitHub:
+     * <ul>
+     *  <li>main: 250 commits within the report period, followed by 150 older commits</li>
+     *  <li>dev: 30 commits within the report period, followed by 10 older commits</li>
+     *  <li>feature: 120 commits older than the report period</li>
+     * </ul>
+     */
+    private static final List<Branch> createBranches() {
+        var now = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+        return List.of(
+            createBranch("main", now.minusDays(1), MAIN_RECENT_COMMIT_COUNT, now.minusDays(100), 150),
+            createBranch("dev", now.minusDays(2), 30, now.minusDays(100), 10),
+            createBranch("feature", now.minusDays(3), 0, now.minusDays(120), 120));
+    }
+
+    private static final Branch createBranch(String name, OffsetDateTime recentStart, int recentCount, OffsetDateTime oldStart, int oldCount) {
+        List<Commit> commits = new ArrayList<>();
+        for ( int i = 0 ; i < recentCount+oldCount ; i++ ) {
+            var date = i<recentCount ? recentStart.minusMinutes(i) : oldStart.minusMinutes(i-recentCount);
+            var author = AUTHORS[i%AUTHORS.length];
+            commits.add(new Commit(String.format("%s%036x", sha(name), i), date.toInstant().toString(),
+                    "Commit "+name+"-"+i+"\n\nDetails", author[0], author[1]));
+        }
+        return new Branch(name, commits);
+    }
+
+    private static final String sha(String name) {
+        return String.format("%04x", name.hashCode() & 0xffff);
+    }
+
+    private Branch getBranch(String name) {
+        return branches.stream().filter(b->b.getName().equals(name)).findFirst()
+                .orElseThrow(()->new IllegalArgumentException("Unknown branch: "+name));
+    }
+
+    private Branch getBranchBySha(String sha) {
+        return branches.stream().filter(b->b.getHead().getSha().equals(sha)).findFirst()
+                .orElseThrow(()->new IllegalArgumentException("Unknown branch sha: "+sha));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        var path = exchange.getRequestURI().getPath();
+        var query = parseQuery(exchange.getRequestURI().getRawQuery());
+        try {
+            if ( path.equals("/graphql") ) {
+                handleGraphQL(exchange);
+            } else if ( path.equals("/orgs/org/repos") ) {
+                var repos = JsonHelper.getObjectMapper().createArrayNode();
+                var repo = repos.addObject()
+                        .put("full_name", "org/repo")
+                        .put("html_url", "https://github.example.com/org/repo")
+                        .put("name", "repo")
+                        .put("visibility", "private")
+                        .put("fork", false)
+                        .put("size", 1024);
+                repo.putObject("owner").put("login", "org");
+                respond(exchange, 200, repos);
+            } else if ( path.equals("/repos/org/repo/branches") ) {
+                var result = JsonHelper.getObjectMapper().createArrayNode();
+                branches.forEach(b->result.addObject().put("name", b.getName())
+                        .putObject("commit").put("sha", b.getHead().getSha()));
+                respond(exchange, 200, result);
+            } else if ( path.equals("/repos/org/repo/commits") ) {
+                handleRestCommits(exchange, query);
+            } else {
+                respond(exchange, 404, JsonHelper.getObjectMapper().createObjectNode().put("message", "Not found: "+path));
+            }
+        } catch ( RuntimeException e ) {
+            respond(exchange, 400, JsonHelper.getObjectMapper().createObjectNode().put("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Handle REST commits requests, returning commits reachable from the given
+     * sha that were committed since the given date/time, using Link headers for
+     * paging.
+     */
+    private void handleRestCommits(HttpExchange exchange, Map<String, String> query) throws IOException {
+        var branch = getBranchBySha(query.get("sha"));
+        var since = query.containsKey("since") ? Instant.parse(query.get("since")) : null;
+        int perPage = Integer.parseInt(query.getOrDefault("per_page", "30"));
+        int page = Integer.parseInt(query.getOrDefault("page", "1"));
+        var commits = branch.getCommits().stream()
+                .filter(c->since==null || !Instant.parse(c.getDate()).isBefore(since))
+                .collect(Collectors.toList());
+        int start = Math.min((page-1)*perPage, commits.size());
+        int end = Math.min(start+perPage, commits.size());
+        if ( end<commits.size() ) {
+            var nextUrl = String.format("http://localhost:%d/repos/org/repo/commits?sha=%s&per_page=%d%s&page=%d",
+                    server.getAddress().getPort(), query.get("sha"), perPage,
+                    since==null ? "" : "&since="+URLEncoder.encode(query.get("since"), StandardCharsets.UTF_8), page+1);
+            exchange.getResponseHeaders().add("Link", "<"+nextUrl+">; rel=\"next\"");
+        }
+        var result = JsonHelper.getObjectMapper().createArrayNode();
+        commits.subList(start, end).forEach(c->result.add(restCommit(c, true)));
+        respond(exchange, 200, result);
+    }
+
+    /**
+     * Handle GraphQL requests. The first request fails with a 502 response, and the
+     * response to the first successful request indicates that the rate limit has
+     * been exhausted.
+     */
+    private void handleGraphQL(HttpExchange exchange) throws IOException {
+        JsonNode request;
+        try ( var is = exchange.getRequestBody() ) {
+            request = JsonHelper.getObjectMapper().readTree(is);
+        }
+        var variables = (ObjectNode)request.get("variables");
+        int index;
+        synchronized (graphQLRequests) {
+            index = graphQLRequests.size();
+            graphQLRequests.add(new GraphQLRequest(System.currentTimeMillis(), variables));
+        }
+        if ( index==0 ) {
+            respond(exchange, 502, JsonHelper.getObjectMapper().createObjectNode().put("message", "Bad gateway"));
+            return;
+        }
+        var data = JsonHelper.getObjectMapper().createObjectNode();
+        var rateLimit = data.putObject("rateLimit").put("cost", 1);
+        if ( index==1 ) {
+            rateLimitResetAt = Instant.now().plusSeconds(1);
+            rateLimit.put("remaining", 0).put("resetAt", rateLimitResetAt.toString());
+        } else {
+            rateLimit.put("remaining", 4999).put("resetAt", Instant.now().plusSeconds(3600).toString());
+        }
+        var repository = data.putObject("repository");
+        if ( variables.has("qualifiedName") ) {
+            var branch = getBranch(variables.get("qualifiedName").asText().replaceFirst("^refs/heads/", ""));
+            var offset = getCursorOffset(variables, "history:"+branch.getName()+":");
+            addHistory(repository.putObject("ref").putObject("target").putObject("history"), branch, offset);
+        } else {
+            var offset = getCursorOffset(variables, "refs:");
+            var end = Math.min(offset+Math.min(variables.get("pageSize").asInt(), MAX_REFS_PER_RESPONSE), branches.size());
+            var refs = repository.putObject("refs");
+            addPageInfo(refs, end<branches.size(), "refs:"+end);
+            var nodes = refs.putArray("nodes");
+            for ( var branch : branches.subList(offset, end) ) {
+                var target = graphQLCommit(branch.getHead());
+                addHistory(target.putObject("history"), branch, 0);
+                nodes.addObject().put("name", branch.getName()).set("target", target);
+            }
+        }
+        var response = JsonHelper.getObjectMapper().createObjectNode();
+        response.set("data", data);
+        respond(exchange, 200, response);
+    }
+
+    private static final int getCursorOffset(ObjectNode variables, String prefix) {
+        var cursor = variables.get("cursor");
+        if ( cursor==null || cursor.isNull() ) { return 0; }
+        if ( !cursor.asText().startsWith(prefix) ) {
+            throw new IllegalArgumentException("Invalid cursor: "+cursor.asText());
+        }
+        return Integer.parseInt(cursor.asText().substring(prefix.length()));
+    }
+
+    private static final void addHistory(ObjectNode history, Branch branch, int offset) {
+        var commits = branch.getCommits();
+        int end = Math.min(offset+HISTORY_PAGE_SIZE, commits.size());
+        addPageInfo(history, end<commits.size(), "history:"+branch.getName()+":"+end);
+        var nodes = history.putArray("nodes");
+        commits.subList(offset, end).forEach(c->nodes.add(graphQLCommit(c)));
+    }
+
+    private static final void addPageInfo(ObjectNode connection, boolean hasNextPage, String endCursor) {
+        connection.putObject("pageInfo").put("hasNextPage", hasNextPage).put("endCursor", endCursor);
+    }
+
+    private static final ObjectNode graphQLCommit(Commit commit) {
+        var result = JsonHelper.getObjectMapper().createObjectNode()
+                .put("oid", commit.getSha())
+                .put("message", commit.getMessage())
+                .put("committedDate", commit.getDate());
+        addAuthor(result.putObject("author"), commit);
+        return result;
+    }
+
+    /**
+     * Get the REST representation of the given commit. The GraphQL generator
+     * converts GraphQL commits to this representation, without parents.
+     */
+    private static final ObjectNode restCommit(Commit commit, boolean includeParents) {
+        var result = JsonHelper.getObjectMapper().createObjectNode().put("sha", commit.getSha());
+        var commitData = result.putObject("commit").put("message", commit.getMessage());
+        addAuthor(commitData.putObject("author"), commit);
+        commitData.putObject("committer").put("date", commit.getDate());
+        if ( includeParents ) {
+            result.putArray("parents");
+        }
+        return result;
+    }
+
+    private static final void addAuthor(ObjectNode author, Commit commit) {
+        author.put("name", commit.getAuthorName()).put("email", commit.getAuthorEmail()).put("date", commit.getDate());
+    }
+
+    private static final Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> result = new HashMap<>();
+        if ( rawQuery!=null ) {
+            for ( var param : rawQuery.split("&") ) {
+                var parts = param.split("=", 2);
+                result.put(URLDecoder.decode(parts[0], StandardCharsets.UTF_8),
+                        parts.length<2 ? "" : URLDecoder.decode(parts[1], StandardCharsets.UTF_8));
+            }
+        }
+        return result;
+    }
+
+    private static final void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        var bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try ( var os = exchange.getResponseBody() ) {
+            os.write(bytes);
+        }
+    }
+
+    @FunctionalInterface
+    private static interface IGeneratorFactory {
+        NcdReportGitHubResultsGenerator create(NcdReportGitHubSourceConfig sourceConfig, NcdReportResultsCollector resultsCollector);
+    }
+
+    /**
+     * Branches and commits loaded by a generator, recorded by the generator
+     * subclasses below.
+     */
+    private static final class GeneratorResults {
+        @Getter private final List<NcdReportGitHubBranchDescriptor> branches = new CopyOnWriteArrayList<>();
+        private final Map<String, List<CachedCommit>> commits = new ConcurrentHashMap<>();
+
+        public NcdReportGitHubBranchDescriptor getBranch(String name) {
+            return branches.stream().filter(b->b.getName().equals(name)).findFirst()
+                    .orElseThrow(()->new IllegalArgumentException("Branch not loaded: "+name));
+        }
+
+        public List<CachedCommit> getCommits(String branchName) {
+            var result = commits.get(branchName);
+            assertTrue(result!=null, "Commits not loaded for branch "+branchName);
+            return result;
+        }
+    }
+
+    private static final class RecordingRestGenerator extends NcdReportGitHubResultsGenerator {
+        private final GeneratorResults results;
+
+        public RecordingRestGenerator(NcdReportGitHubSourceConfig sourceConfig, NcdReportResultsCollector resultsCollector, GeneratorResults results) {
+            super(sourceConfig, resultsCollector);
+            this.results = results;
+        }
+
+        @Override
+        protected List<NcdReportGitHubBranchDescriptor> getBranchDescriptors(NcdReportGitHubRepositoryDescriptor repoDescriptor) {
+            var result = super.getBranchDescriptors(repoDescriptor);
+            results.branches.addAll(result);
+            return result;
+        }
+
+        @Override
+        protected List<CachedCommit> loadCommits(NcdReportGitHubRepositoryDescriptor repoDescriptor, NcdReportGitHubBranchDescriptor branchDescriptor, OffsetDateTime since, Predicate<CachedCommit> stopCondition) {
+            var result = super.loadCommits(repoDescriptor, branchDescriptor, since, stopCondition);
+            results.commits.put(branchDescriptor.getName(), result);
+            return result;
+        }
+    }
+
+    private static final class RecordingGraphQLGenerator extends NcdReportGitHubGraphQLResultsGenerator {
+        private final GeneratorResults results;
+
+        public RecordingGraphQLGenerator(NcdReportGitHubSourceConfig sourceConfig, NcdReportResultsCollector resultsCollector, GeneratorResults results) {
+            super(sourceConfig, resultsCollector);
+            this.results = results;
+        }
+
+        @Override
+        protected List<NcdReportGitHubBranchDescriptor> getBranchDescriptors(NcdReportGitHubRepositoryDescriptor repoDescriptor) {
+            var result = super.getBranchDescriptors(repoDescriptor);
+            results.branches.addAll(result);
+            return result;
+        }
+
+        @Override
+        protected List<CachedCommit> loadCommits(NcdReportGitHubRepositoryDescriptor repoDescriptor, NcdReportGitHubBranchDescriptor branchDescriptor, OffsetDateTime since, Predicate<CachedCommit> stopCondition) {
+            var result = super.loadCommits(repoDescriptor, branchDescriptor, since, stopCondition);
+            results.commits.put(branchDescriptor.getName(), result);
+            return result;
+        }
+    }
+
+    @RequiredArgsConstructor @Getter
+    private static final class GraphQLRequest {
+        private final long time;
+        private final ObjectNode variables;
+
+        public boolean isHistoryQuery() { return variables.has("qualifiedName"); }
+        public String getCursor() { return variables.path("cursor").isTextual() ? variables.get("cursor").asText() : "null"; }
+    }
+
+    @RequiredArgsConstructor @Getter
+    private static final class Branch {
+        private final String name;
+        private final List<Commit> commits;
+
+        public Commit getHead() { return commits.get(0); }
+    }
+
+    @RequiredArgsConstructor @Getter
+    private static final class Commit {
+        private final String sha;
+        private final String date;
+        private final String message;
+        private final String authorName;
+        private final String authorEmail;
+    }
+
+    private static final class NoProgressWriter implements IProgressWriterI18n {
+        @Override public boolean isMultiLineSupported() { return false; }
+        @Override public void writeProgress(String message, Object... args) {}
+        @Override public void writeWarning(String message, Object... args) {}
+        @Override public void clearProgress() {}
+        @Override public void close() {}
+        @Override public void writeI18nProgress(String keySuffix, Object... args) {}
+        @Override public void writeI18nWarning(String keySuffix, Object... args) {}
+    }
+}
@@ -12,17 +12,20 @@
  *******************************************************************************/
 package com.fortify.cli.sc_dast._common.rest.helper;
 
+import java.util.stream.Stream;
+
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fortify.cli.common.rest.paging.INextPageUrlProducer;
 import com.fortify.cli.common.rest.paging.PagingHelper;
 import com.fortify.cli.common.rest.unirest.URIHelper;
 
 import kong.unirest.HttpRequest;
-import kong.unirest.PagedList;
+import kong.unirest.HttpResponse;
+import kong.unirest.UnirestInstance;
 
 public class SCDastPagingHelper {
-    public static final PagedList<JsonNode> pagedRequest(HttpRequest<?> request) {
-        return PagingHelper.pagedRequest(request, nextPageUrlProducer());
+    public static final Stream<HttpResponse<JsonNode>> pagedRequest(UnirestInstance unirest, HttpRequest<?> request) {
+        return PagingHelper.pagedRequest(unirest, request, nextPageUrlProducer());
     }
     public static final INextPageUrlProducer nextPageUrlProducer() {
         return (req,resp) -> {
@@ -19,6 +19,7 @@ import com.fortify.cli.common.rest.cli.cmd.AbstractWaitForCommand;
 import com.fortify.cli.common.rest.wait.WaitHelper.WaitHelperBuilder;
 import com.fortify.cli.sc_dast._common.output.cli.mixin.SCDastProductHelperStandardMixin;
 import com.fortify.cli.sc_dast.scan.cli.mixin.SCDastScanResolverMixin;
+import com.fortify.cli.sc_dast.scan.helper.SCDastScanHelper;
 import com.fortify.cli.sc_dast.scan.helper.SCDastScanStatus;
 import com.fortify.cli.sc_dast.scan.helper.SCDastScanStatus.SCDastScanStatusIterable;
 
@@ -39,6 +40,7 @@ public class SCDastScanWaitForCommand extends AbstractWaitForCommand {
     protected WaitHelperBuilder configure(UnirestInstance unirest, WaitHelperBuilder builder) {
         return builder
                 .recordsSupplier(scansResolver::getScanDescriptorJsonNodes)
+                .recordRefresher((u,r)->SCDastScanHelper.getScanDescriptor(u, r.get("id").asText()).asJsonNode())
                 .recordTransformer(SCDastScanStatus::addScanStatus)
                 .currentStateProperty("scanStatus")
                 .knownStates(SCDastScanStatus.getKnownStateNames())
@@ -35,7 +35,7 @@ public class SCDastSensorHelper {
             JsonNode sensorNode = unirest.get(String.format("/api/v2/scanners/%s",sensorId)).asObject(JsonNode.class).getBody();
             return getDescriptor(sensorNode);
         } catch (NumberFormatException nfe) {
-            List<JsonNode> matchingSensors = SCDastPagingHelper.pagedRequest(unirest.get("/api/v2/scanners")).stream()
+            List<JsonNode> matchingSensors = SCDastPagingHelper.pagedRequest(unirest, unirest.get("/api/v2/scanners"))
                 .map(HttpResponse::getBody)
                 .map(SCDastInputTransformer::getItems)
                 .map(ArrayNode.class::cast)
@@ -27,12 +27,14 @@ public abstract class AbstractSCSastUnirestInstanceSupplierMixin extends Abstrac
     }
     
     public final UnirestInstance getSscUnirestInstance() {
-        return GenericUnirestFactory.getUnirestInstance("sc-sast/ssc/"+getSessionName(),
-                u->SCSastUnirestHelper.configureSscUnirestInstance(u, getSessionDescriptor()));
+        SCSastSessionDescriptor sessionDescriptor = getSessionDescriptor();
+        return GenericUnirestFactory.getUnirestInstance("sc-sast/ssc/"+getSessionName(), sessionDescriptor,
+                u->SCSastUnirestHelper.configureSscUnirestInstance(u, sessionDescriptor));
     }
 
     public final UnirestInstance getControllerUnirestInstance() {
-        return GenericUnirestFactory.getUnirestInstance("sc-sast/ctrl/"+getSessionName(),
-                u->SCSastUnirestHelper.configureScSastControllerUnirestInstance(u, getSessionDescriptor()));
+        SCSastSessionDescriptor sessionDescriptor = getSessionDescriptor();
+        return GenericUnirestFactory.getUnirestInstance("sc-sast/ctrl/"+getSessionName(), sessionDescriptor,
+                u->SCSastUnirestHelper.configureScSastControllerUnirestInstance(u, sessionDescriptor));
     }
 }
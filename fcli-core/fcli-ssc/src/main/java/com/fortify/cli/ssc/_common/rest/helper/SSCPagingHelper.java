@@ -13,6 +13,7 @@
 package com.fortify.cli.ssc._common.rest.helper;
 
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fortify.cli.common.json.JsonHelper;
@@ -20,16 +21,17 @@ import com.fortify.cli.common.rest.paging.INextPageUrlProducer;
 import com.fortify.cli.common.rest.paging.PagingHelper;
 
 import kong.unirest.HttpRequest;
-import kong.unirest.PagedList;
+import kong.unirest.HttpResponse;
+import kong.unirest.UnirestInstance;
 import lombok.Setter;
 
 public class SSCPagingHelper {
     private static final SSCContinueNextPageSupplier continueNextPageSupplier = new SSCContinueNextPageSupplier();
-    public static final PagedList<JsonNode> pagedRequest(HttpRequest<?> request) {
-        return pagedRequest(request, continueNextPageSupplier);
+    public static final Stream<HttpResponse<JsonNode>> pagedRequest(UnirestInstance unirest, HttpRequest<?> request) {
+        return pagedRequest(unirest, request, continueNextPageSupplier);
     }
-    public static final PagedList<JsonNode> pagedRequest(HttpRequest<?> request, Supplier<Boolean> continueSupplier) {
-        return PagingHelper.pagedRequest(request, nextPageUrlProducer(continueSupplier));
+    public static final Stream<HttpResponse<JsonNode>> pagedRequest(UnirestInstance unirest, HttpRequest<?> request, Supplier<Boolean> continueSupplier) {
+        return PagingHelper.pagedRequest(unirest, request, nextPageUrlProducer(continueSupplier));
     }
     public static final INextPageUrlProducer nextPageUrlProducer() {
         return nextPageUrlProducer(continueNextPageSupplier);
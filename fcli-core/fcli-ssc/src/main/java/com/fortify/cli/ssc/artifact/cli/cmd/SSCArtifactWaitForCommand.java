@@ -40,6 +40,7 @@ public class SSCArtifactWaitForCommand extends AbstractWaitForCommand {
     protected WaitHelperBuilder configure(UnirestInstance unirest, WaitHelperBuilder builder) {
         return builder
                 .recordsSupplier(artifactsResolver::getArtifactDescriptorJsonNodes)
+                .recordRefresher((u,r)->SSCArtifactHelper.getArtifactDescriptor(u, r.get("id").asText()).asJsonNode())
                 .recordTransformer(SSCArtifactHelper::addScanTypes)
                 .currentStateProperty("status")
                 .knownStates(SSCArtifactStatus.getKnownStateNames())
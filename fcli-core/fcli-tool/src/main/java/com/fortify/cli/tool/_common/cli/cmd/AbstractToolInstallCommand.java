@@ -16,7 +16,6 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.util.Set;
@@ -37,6 +36,9 @@ import com.fortify.cli.common.rest.unirest.GenericUnirestFactory;
 import com.fortify.cli.common.util.FcliDataHelper;
 import com.fortify.cli.common.util.FileUtils;
 import com.fortify.cli.common.util.StringUtils;
+import com.fortify.cli.tool._common.helper.ToolArtifactCacheHelper;
+import com.fortify.cli.tool._common.helper.ToolDownloadHelper;
+import com.fortify.cli.tool._common.helper.ToolDownloadHelper.ToolDownloadResult;
 import com.fortify.cli.tool._common.helper.ToolHelper;
 import com.fortify.cli.tool._common.helper.ToolVersionCombinedDescriptor;
 import com.fortify.cli.tool._common.helper.ToolVersionDownloadDescriptor;
@@ -85,29 +87,54 @@ public abstract class AbstractToolInstallCommand extends AbstractOutputCommand i
             Path installPath = getInstallPathOrDefault(downloadDescriptor);
             Path binPath = getBinPath(downloadDescriptor);
             ToolVersionInstallDescriptor installDescriptor = new ToolVersionInstallDescriptor(downloadDescriptor, installPath, binPath);
-            emptyExistingInstallPath(installDescriptor.getInstallPath());
-            File downloadedFile = download(downloadDescriptor);
-            checkDigest(downloadDescriptor, downloadedFile);
-            install(installDescriptor, downloadedFile);
+            // Check confirmation before downloading, but only empty install path once the 
+            // download has completed and its digest has been verified.
+            boolean installPathNotEmpty = checkEmptyInstallPathConfirmed(installPath);
+            Path cachedArtifact = ToolArtifactCacheHelper.get(downloadDescriptor.getDigestAlgorithm(), downloadDescriptor.getExpectedDigest());
+            if ( cachedArtifact!=null ) {
+                LOG.info("Using cached tool artifact {}", cachedArtifact);
+                installArtifact(installDescriptor, cachedArtifact, installPathNotEmpty);
+            } else {
+                // Keep the download locked until it has been moved into the cache or deleted
+                try ( ToolDownloadResult downloadResult = download(downloadDescriptor) ) {
+                    installArtifact(installDescriptor, getVerifiedArtifact(downloadDescriptor, downloadResult), installPathNotEmpty);
+                }
+            }
             ToolVersionCombinedDescriptor combinedDescriptor = ToolHelper.saveToolVersionInstallDescriptor(toolName, installDescriptor);
             return new ObjectMapper().<ObjectNode>valueToTree(combinedDescriptor);            
         } catch ( IOException e ) {
             throw new RuntimeException("Error installing "+getToolName(), e);
         }
     }
-
-    private final File download(ToolVersionDownloadDescriptor descriptor) throws IOException {
-        File tempDownloadFile = File.createTempFile("fcli-tool-download", null);
-        tempDownloadFile.deleteOnExit();
-        download(descriptor.getDownloadUrl(), tempDownloadFile);
-        return tempDownloadFile;
+    
+    private final void installArtifact(ToolVersionInstallDescriptor installDescriptor, Path artifact, boolean installPathNotEmpty) throws IOException {
+        if ( installPathNotEmpty ) { FileUtils.deleteRecursive(installDescriptor.getInstallPath()); }
+        try {
+            install(installDescriptor, artifact.toFile());
+        } finally {
+            if ( !ToolArtifactCacheHelper.isCacheEntry(artifact) ) { Files.deleteIfExists(artifact); }
+        }
     }
     
-    private final Void download(String downloadUrl, File destFile) {
-        UnirestInstance unirest = GenericUnirestFactory.getUnirestInstance("tool",
+    private final ToolDownloadResult download(ToolVersionDownloadDescriptor descriptor) {
+        String downloadUrl = descriptor.getDownloadUrl();
+        UnirestInstance unirest = GenericUnirestFactory.getUnirestInstance("tool", downloadUrl,
                 u->ProxyHelper.configureProxy(u, "tool", downloadUrl));
-        unirest.get(downloadUrl).asFile(destFile.getAbsolutePath(), StandardCopyOption.REPLACE_EXISTING).getBody();
-        return null;
+        // Digest is calculated while downloading, so we don't need to re-read the downloaded file
+        return ToolDownloadHelper.download(unirest, downloadUrl, descriptor.getDigestAlgorithm());
+    }
+
+    /**
+     * Verify the digest of the downloaded artifact, and add the artifact to the
+     * tool artifact cache if the digest matches. 
+     */
+    private final Path getVerifiedArtifact(ToolVersionDownloadDescriptor descriptor, ToolDownloadResult downloadResult) throws IOException {
+        Path artifact = downloadResult.getFile();
+        if ( checkDigest(descriptor, downloadResult) ) {
+            // Only verified artifacts are added to the cache
+            artifact = ToolArtifactCacheHelper.put(descriptor.getDigestAlgorithm(), descriptor.getExpectedDigest(), artifact);
+        }
+        return artifact;
     }
     
     protected void install(ToolVersionInstallDescriptor descriptor, File downloadedFile) throws IOException {
@@ -116,11 +143,10 @@ public abstract class AbstractToolInstallCommand extends AbstractOutputCommand i
         InstallType installType = getInstallType();
         switch (installType) {
         // TODO Clean this up
-        case COPY: Files.copy(downloadedFile.toPath(), installPath.resolve(StringUtils.substringAfterLast(descriptor.getOriginalDownloadDescriptor().getDownloadUrl(), "/")), StandardCopyOption.REPLACE_EXISTING); break;
+        case COPY: ToolArtifactCacheHelper.install(downloadedFile.toPath(), installPath.resolve(StringUtils.substringAfterLast(descriptor.getOriginalDownloadDescriptor().getDownloadUrl(), "/"))); break;
         case EXTRACT_ZIP: FileUtils.extractZip(downloadedFile, installPath); break;
         default: throw new RuntimeException("Unknown install type: "+installType.name());
         }
-        downloadedFile.delete();
         postInstall(descriptor);
         updateBinPermissions(descriptor.getBinPath());
     }
@@ -141,24 +167,34 @@ public abstract class AbstractToolInstallCommand extends AbstractOutputCommand i
     protected abstract InstallType getInstallType();
     protected abstract void postInstall(ToolVersionInstallDescriptor installDescriptor) throws IOException;
     
-    private final void emptyExistingInstallPath(Path installPath) throws IOException {
-        if ( Files.exists(installPath) && Files.list(installPath).findFirst().isPresent() ) {
-            requireConfirmation.checkConfirmed();
-            FileUtils.deleteRecursive(installPath);
+    private final boolean checkEmptyInstallPathConfirmed(Path installPath) throws IOException {
+        if ( Files.exists(installPath) ) {
+            try ( Stream<Path> list = Files.list(installPath) ) {
+                if ( list.findFirst().isPresent() ) {
+                    requireConfirmation.checkConfirmed();
+                    return true;
+                }
+            }
         }
+        return false;
     }
     
-    private final void checkDigest(ToolVersionDownloadDescriptor descriptor, File downloadedFile) {
-        String actualDigest = FileUtils.getFileDigest(downloadedFile, descriptor.getDigestAlgorithm());
+    private final boolean checkDigest(ToolVersionDownloadDescriptor descriptor, ToolDownloadResult downloadResult) throws IOException {
         String expectedDigest = descriptor.getExpectedDigest();
-        if ( !actualDigest.equals(expectedDigest) ) {
+        String actualDigest = downloadResult.getDigest();
+        if ( actualDigest.equals(expectedDigest) ) {
+            return true;
+        } else {
             String msg = "Digest mismatch"
                     +"\n Expected: "+expectedDigest
                     +"\n Actual:   "+actualDigest;
             switch(onDigestMismatch) {
-            case fail: throw new IllegalStateException(msg);
+            case fail: 
+                Files.deleteIfExists(downloadResult.getFile());
+                throw new IllegalStateException(msg);
             case warn: LOG.warn(msg);
             }
+            return false;
         }
     }
     
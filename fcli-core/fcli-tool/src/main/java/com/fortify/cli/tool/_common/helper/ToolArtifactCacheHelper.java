@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.tool._common.helper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fortify.cli.common.util.EnvHelper;
+import com.fortify.cli.common.util.FcliDataHelper;
+import com.fortify.cli.common.util.StringUtils;
+
+/**
+ * Content-addressed cache for downloaded tool artifacts, allowing tools to be (re-)installed 
+ * into different install directories without having to download the same artifact again. 
+ * Cache entries are keyed by digest algorithm and expected digest, and are only added after
+ * the digest of the downloaded artifact has been verified. As cache entries may be hard-linked
+ * into install directories, the digest of a cache entry is verified again whenever the entry
+ * is used, and entries that no longer match their digest are removed from the cache.
+ * 
+ * By default, the cache is stored in the tool-cache directory in the fcli state directory,
+ * with a maximum size of 1024 MB; this can be configured through the FCLI_TOOL_CACHE_DIR and 
+ * FCLI_TOOL_CACHE_MAX_SIZE (in MB, 0 to disable the cache) environment variables. If the 
+ * maximum size is exceeded, least recently used entries are evicted; the last modified time
+ * of each cache entry is updated whenever an entry is used. Only files named after the
+ * cache entry naming convention (&lt;algorithm&gt;-&lt;hex digest&gt;) are considered to be 
+ * cache entries, so any other files in a (shared) cache directory are never evicted.
+ */
+public final class ToolArtifactCacheHelper {
+    private static final Logger LOG = LoggerFactory.getLogger(ToolArtifactCacheHelper.class);
+    private static final String ENVNAME_CACHE_DIR = "FCLI_TOOL_CACHE_DIR";
+    private static final String ENVNAME_CACHE_MAX_SIZE = "FCLI_TOOL_CACHE_MAX_SIZE";
+    private static final long DEFAULT_CACHE_MAX_SIZE_MB = 1024;
+    private static final Pattern ENTRY_NAME_PATTERN = Pattern.compile("[a-z0-9]+-[0-9a-f]{16,}");
+    private ToolArtifactCacheHelper() {}
+    
+    public static final boolean isEnabled() {
+        return getMaxSizeBytes()>0;
+    }
+    
+    /**
+     * Get the cached artifact for the given digest algorithm and digest, or null if
+     * the cache is disabled or doesn't contain a matching artifact. If the cached
+     * artifact doesn't match the given digest, for example because the cache entry
+     * or a file hard-linked to the cache entry was modified, the cache entry is 
+     * removed and null is returned.
+     */
+    public static final Path get(String digestAlgorithm, String digest) {
+        if ( !isCacheable(digest) ) { return null; }
+        Path path = getEntryPath(digestAlgorithm, digest);
+        if ( !Files.isRegularFile(path) ) { return null; }
+        if ( !isDigestMatching(path, digestAlgorithm, digest) ) {
+            LOG.warn("Removing tool artifact cache entry {} as it doesn't match expected digest", path);
+            delete(path);
+            return null;
+        }
+        touch(path);
+        return path;
+    }
+    
+    /**
+     * Move the given (verified) artifact into the cache, returning the cache entry path,
+     * and evict least recently used entries if the cache exceeds its maximum size. If the
+     * cache is disabled, the given artifact path is returned as-is.
+     */
+    public static final Path put(String digestAlgorithm, String digest, Path artifact) throws IOException {
+        if ( !isCacheable(digest) ) { return artifact; }
+        Path path = getEntryPath(digestAlgorithm, digest);
+        Files.createDirectories(path.getParent());
+        Files.move(artifact, path, StandardCopyOption.REPLACE_EXISTING);
+        touch(path);
+        evict(path);
+        return path;
+    }
+    
+    /**
+     * Check whether the given path represents a cache entry.
+     */
+    public static final boolean isCacheEntry(Path path) {
+        Path normalizedPath = path.toAbsolutePath().normalize();
+        return getCacheDir().equals(normalizedPath.getParent()) && isEntryName(normalizedPath);
+    }
+    
+    /**
+     * Install the given cached artifact to the given target path, using a hard link if
+     * possible, falling back to copying the artifact if hard links are not supported,
+     * for example if the cache and target path are on different file systems.
+     */
+    public static final void install(Path artifact, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, artifact);
+        } catch ( IOException | UnsupportedOperationException | SecurityException e ) {
+            LOG.debug("Cannot create hard link {} to {}, copying instead", target, artifact);
+            Files.copy(artifact, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    private static final boolean isCacheable(String digest) {
+        return isEnabled() && digest!=null && digest.matches("[0-9a-fA-F]{16,}");
+    }
+    
+    private static final boolean isDigestMatching(Path path, String digestAlgorithm, String expectedDigest) {
+        try ( InputStream in = Files.newInputStream(path) ) {
+            MessageDigest digest = MessageDigest.getInstance(digestAlgorithm);
+            new DigestInputStream(in, digest).transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(expectedDigest);
+        } catch ( IOException | NoSuchAlgorithmException e ) {
+            LOG.debug("Error calculating digest for "+path, e);
+            return false;
+        }
+    }
+    
+    private static final void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch ( IOException e ) {
+            LOG.warn("Error deleting tool artifact cache entry {}", path);
+            LOG.debug("Exception details:", e);
+        }
+    }
+    
+    private static final void evict(Path keep) {
+        long maxSize = getMaxSizeBytes();
+        try ( Stream<Path> stream = Files.list(getCacheDir()) ) {
+            List<Path> entries = stream.filter(Files::isRegularFile)
+                    .filter(ToolArtifactCacheHelper::isEntryName)
+                    .sorted(Comparator.comparing(ToolArtifactCacheHelper::getLastModifiedTime).reversed())
+                    .collect(Collectors.toList());
+            long totalSize = 0;
+            for ( Path entry : entries ) {
+                totalSize += Files.size(entry);
+                if ( totalSize>maxSize && !entry.equals(keep) ) {
+                    LOG.debug("Evicting tool artifact cache entry {}", entry);
+                    Files.deleteIfExists(entry);
+                }
+            }
+        } catch ( IOException e ) {
+            LOG.warn("Error evicting tool artifact cache entries");
+            LOG.debug("Exception details:", e);
+        }
+    }
+    
+    private static final boolean isEntryName(Path path) {
+        return ENTRY_NAME_PATTERN.matcher(path.getFileName().toString()).matches();
+    }
+    
+    private static final void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch ( IOException e ) {
+            LOG.debug("Error updating last modified time for "+path, e);
+        }
+    }
+    
+    private static final FileTime getLastModifiedTime(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).lastModifiedTime();
+        } catch ( IOException e ) {
+            return FileTime.fromMillis(0);
+        }
+    }
+    
+    private static final Path getEntryPath(String digestAlgorithm, String digest) {
+        String algorithm = digestAlgorithm.toLowerCase().replaceAll("[^a-z0-9]", "");
+        return getCacheDir().resolve(algorithm+"-"+digest.toLowerCase());
+    }
+    
+    private static final Path getCacheDir() {
+        String cacheDir = EnvHelper.env(ENVNAME_CACHE_DIR);
+        return StringUtils.isNotBlank(cacheDir)
+                ? Path.of(cacheDir).toAbsolutePath().normalize()
+                : FcliDataHelper.getFcliStatePath().resolve("tool-cache").toAbsolutePath().normalize();
+    }
+    
+    private static final long getMaxSizeBytes() {
+        Integer maxSizeMB = EnvHelper.asInteger(EnvHelper.env(ENVNAME_CACHE_MAX_SIZE));
+        return (maxSizeMB==null || maxSizeMB<0 ? DEFAULT_CACHE_MAX_SIZE_MB : maxSizeMB)*1024*1024;
+    }
+}
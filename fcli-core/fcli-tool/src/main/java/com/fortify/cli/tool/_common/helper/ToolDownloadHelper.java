@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.tool._common.helper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fortify.cli.common.util.FcliDataHelper;
+import com.fortify.cli.common.util.StringUtils;
+
+import kong.unirest.RawResponse;
+import kong.unirest.UnirestInstance;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Helper class for downloading tool installation bundles. The file digest is calculated
+ * while streaming the download to disk, avoiding the need for re-reading the downloaded
+ * file. Partial downloads are kept in the fcli state directory, allowing interrupted 
+ * downloads to be resumed using HTTP range requests, both when retrying within the current
+ * fcli invocation and on subsequent fcli invocations. To avoid appending data from an updated 
+ * remote file to a partial download of a previous version, the ETag or Last-Modified response
+ * header is stored next to the partial download, and sent in an If-Range header when resuming
+ * the download; partial downloads for which no such validator is available are discarded. 
+ * 
+ * Partial downloads are locked until the {@link ToolDownloadResult} is closed, to prevent
+ * concurrent fcli invocations from writing to, moving or deleting the same partial download.
+ * If the partial download for a given URL is locked, the file is downloaded to a temporary
+ * file instead, which cannot be resumed by subsequent fcli invocations.
+ */
+public final class ToolDownloadHelper {
+    private static final Logger LOG = LoggerFactory.getLogger(ToolDownloadHelper.class);
+    private static final int MAX_ATTEMPTS = 3;
+    private ToolDownloadHelper() {}
+    
+    /**
+     * Download the given URL, returning a {@link ToolDownloadResult} describing the
+     * downloaded file and its digest. Callers are responsible for moving or deleting
+     * the downloaded file once it has been processed, and must close the returned
+     * {@link ToolDownloadResult} afterwards to release the lock on the downloaded file.
+     */
+    public static final ToolDownloadResult download(UnirestInstance unirest, String downloadUrl, String digestAlgorithm) {
+        Path partialDownloadPath = getPartialDownloadPath(downloadUrl);
+        FileChannel lockChannel = null;
+        Path temporaryDownloadPath = null;
+        try {
+            Files.createDirectories(partialDownloadPath.getParent());
+            lockChannel = lock(partialDownloadPath);
+            if ( lockChannel==null ) {
+                LOG.debug("Partial download {} is locked, downloading to temporary file", partialDownloadPath);
+                temporaryDownloadPath = Files.createTempFile(partialDownloadPath.getParent(), "download-", ".tmp");
+            }
+            Path downloadPath = temporaryDownloadPath!=null ? temporaryDownloadPath : partialDownloadPath;
+            String digest = download(unirest, downloadUrl, digestAlgorithm, downloadPath);
+            deleteValidator(downloadPath);
+            return new ToolDownloadResult(downloadPath, digest, lockChannel);
+        } catch ( IOException | RuntimeException e ) {
+            // Temporary downloads cannot be resumed, so we delete them on failure
+            if ( temporaryDownloadPath!=null ) { deletePartialDownload(temporaryDownloadPath); }
+            release(lockChannel);
+            throw e instanceof RuntimeException ? (RuntimeException)e : new IllegalStateException("Error downloading "+downloadUrl, e);
+        }
+    }
+    
+    private static final String download(UnirestInstance unirest, String downloadUrl, String digestAlgorithm, Path partialDownloadPath) {
+        for ( int attempt = 1 ; ; attempt++ ) {
+            try {
+                String validator = readValidator(partialDownloadPath);
+                if ( validator==null && Files.exists(partialDownloadPath) ) {
+                    LOG.debug("Discarding partial download {} as no validator is available", partialDownloadPath);
+                    deletePartialDownload(partialDownloadPath);
+                }
+                MessageDigest digest = getDigest(partialDownloadPath, digestAlgorithm);
+                long offset = Files.exists(partialDownloadPath) ? Files.size(partialDownloadPath) : 0;
+                var request = unirest.get(downloadUrl);
+                if ( offset>0 ) { 
+                    request.header("Range", "bytes="+offset+"-");
+                    request.header("If-Range", validator);
+                }
+                var response = request.asObject(raw->writeResponse(raw, partialDownloadPath, offset, digest));
+                // Unirest may report exceptions thrown while processing the response as parsing errors
+                response.getParsingError().ifPresent(e->{ throw e; });
+                return HexFormat.of().formatHex(digest.digest());
+            } catch ( Exception e ) {
+                if ( attempt>=MAX_ATTEMPTS || hasCause(e, UnexpectedHttpStatusException.class) ) { 
+                    throw new IllegalStateException("Error downloading "+downloadUrl, e); 
+                }
+                if ( hasCause(e, RangeNotSatisfiableException.class) ) {
+                    // Partial download doesn't match remote file; restart from scratch
+                    deletePartialDownload(partialDownloadPath);
+                } else {
+                    LOG.warn("Error downloading {}, resuming download (attempt {} of {})", downloadUrl, attempt+1, MAX_ATTEMPTS);
+                    LOG.debug("Exception details:", e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Try to lock the given partial download, returning the locked {@link FileChannel},
+     * or null if the partial download is already locked by another process or thread.
+     * Locks are taken on a separate lock file, such that the partial download itself 
+     * can be moved or deleted while locked. Lock files are never deleted, as this
+     * would allow another process to lock a new lock file while the old lock file
+     * is still locked.
+     */
+    private static final FileChannel lock(Path partialDownloadPath) throws IOException {
+        Path lockPath = partialDownloadPath.resolveSibling(partialDownloadPath.getFileName()+".lock");
+        FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if ( channel.tryLock()!=null ) { return channel; }
+        } catch ( OverlappingFileLockException e ) {
+            // Locked by another thread within the current process
+        } catch ( IOException | RuntimeException e ) {
+            channel.close();
+            throw e;
+        }
+        channel.close();
+        return null;
+    }
+    
+    private static final void release(FileChannel lockChannel) {
+        if ( lockChannel!=null ) {
+            try {
+                // Closing the channel releases the lock
+                lockChannel.close();
+            } catch ( IOException e ) {
+                LOG.warn("Error releasing partial download lock");
+                LOG.debug("Exception details:", e);
+            }
+        }
+    }
+    
+    private static final Void writeResponse(RawResponse raw, Path partialDownloadPath, long offset, MessageDigest digest) {
+        int status = raw.getStatus();
+        if ( status==416 ) { throw new RangeNotSatisfiableException(); }
+        if ( status<200 || status>=300 ) { throw new UnexpectedHttpStatusException(status, raw.getStatusText()); }
+        // A 200 response to a range request means that the server either doesn't 
+        // support range requests, or the remote file has changed (If-Range), so we
+        // restart the download from scratch.
+        boolean append = offset>0 && status==206;
+        if ( !append ) { digest.reset(); }
+        writeValidator(partialDownloadPath, getValidator(raw));
+        try ( InputStream in = new DigestInputStream(raw.getContent(), digest); 
+              OutputStream out = Files.newOutputStream(partialDownloadPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                      append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING) ) {
+            in.transferTo(out);
+        } catch ( IOException e ) {
+            throw new RuntimeException("Error writing download to "+partialDownloadPath, e);
+        }
+        return null;
+    }
+    
+    private static final boolean hasCause(Throwable e, Class<? extends Throwable> type) {
+        for ( Throwable t = e ; t!=null ; t = t.getCause() ) {
+            if ( type.isInstance(t) ) { return true; }
+        }
+        return false;
+    }
+    
+    private static final MessageDigest getDigest(Path partialDownloadPath, String digestAlgorithm) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance(digestAlgorithm);
+        if ( Files.exists(partialDownloadPath) ) {
+            try ( InputStream in = new DigestInputStream(Files.newInputStream(partialDownloadPath), digest) ) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+        return digest;
+    }
+    
+    private static final void deletePartialDownload(Path partialDownloadPath) {
+        try {
+            Files.deleteIfExists(partialDownloadPath);
+        } catch ( IOException e ) {
+            LOG.warn("Error deleting partial download {}", partialDownloadPath);
+        }
+        deleteValidator(partialDownloadPath);
+    }
+    
+    /**
+     * Get the validator to be sent in an If-Range header when resuming the download,
+     * being either a strong ETag or the Last-Modified date, or null if the response
+     * doesn't contain either of these headers. Weak ETags are not allowed in If-Range
+     * headers, so these are ignored.
+     */
+    private static final String getValidator(RawResponse raw) {
+        String etag = raw.getHeaders().getFirst("ETag");
+        if ( StringUtils.isNotBlank(etag) && !etag.startsWith("W/") ) { return etag; }
+        String lastModified = raw.getHeaders().getFirst("Last-Modified");
+        return StringUtils.isNotBlank(lastModified) ? lastModified : null;
+    }
+    
+    private static final String readValidator(Path partialDownloadPath) throws IOException {
+        Path validatorPath = getValidatorPath(partialDownloadPath);
+        String validator = Files.exists(validatorPath) ? Files.readString(validatorPath, StandardCharsets.UTF_8).trim() : null;
+        return StringUtils.isBlank(validator) ? null : validator;
+    }
+    
+    private static final void writeValidator(Path partialDownloadPath, String validator) {
+        if ( validator==null ) {
+            deleteValidator(partialDownloadPath);
+        } else {
+            try {
+                Files.writeString(getValidatorPath(partialDownloadPath), validator, StandardCharsets.UTF_8);
+            } catch ( IOException e ) {
+                throw new RuntimeException("Error writing download validator for "+partialDownloadPath, e);
+            }
+        }
+    }
+    
+    private static final void deleteValidator(Path partialDownloadPath) {
+        Path validatorPath = getValidatorPath(partialDownloadPath);
+        try {
+            Files.deleteIfExists(validatorPath);
+        } catch ( IOException e ) {
+            LOG.warn("Error deleting download validator {}", validatorPath);
+        }
+    }
+    
+    static final Path getValidatorPath(Path partialDownloadPath) {
+        return partialDownloadPath.resolveSibling(partialDownloadPath.getFileName()+".validator");
+    }
+    
+    static final Path getPartialDownloadPath(String downloadUrl) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(downloadUrl.getBytes(StandardCharsets.UTF_8));
+            return FcliDataHelper.getFcliStatePath().resolve("tool-downloads").resolve(HexFormat.of().formatHex(digest)+".part");
+        } catch ( NoSuchAlgorithmException e ) {
+            throw new IllegalStateException("Error generating partial download path", e);
+        }
+    }
+    
+    /**
+     * Downloaded file and digest. Closing this result releases the lock on the
+     * downloaded file, so it should only be closed after the downloaded file has 
+     * been moved or deleted.
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class ToolDownloadResult implements AutoCloseable {
+        @Getter private final Path file;
+        @Getter private final String digest;
+        private final FileChannel lockChannel;
+        
+        @Override
+        public void close() {
+            release(lockChannel);
+        }
+    }
+    
+    private static final class RangeNotSatisfiableException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+    
+    private static final class UnexpectedHttpStatusException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private UnexpectedHttpStatusException(int status, String statusText) {
+            super("Unexpected HTTP status: "+status+" "+statusText);
+        }
+    }
+}
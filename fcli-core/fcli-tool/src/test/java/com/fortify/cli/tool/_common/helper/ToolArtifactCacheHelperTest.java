@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.tool._common.helper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ToolArtifactCacheHelperTest {
+    private static final String ALGORITHM = "SHA-256";
+    private static final String PROP_CACHE_DIR = "fcli.env.FCLI_TOOL_CACHE_DIR";
+    private static final String PROP_CACHE_MAX_SIZE = "fcli.env.FCLI_TOOL_CACHE_MAX_SIZE";
+    private static final String PROP_STATE_DIR = "fcli.env.FCLI_STATE_DIR";
+    @TempDir Path tempDir;
+    private Path cacheDir;
+    
+    @BeforeEach
+    public void setup() {
+        cacheDir = tempDir.resolve("cache");
+        System.setProperty(PROP_CACHE_DIR, cacheDir.toString());
+    }
+    
+    @AfterEach
+    public void cleanup() {
+        System.clearProperty(PROP_CACHE_DIR);
+        System.clearProperty(PROP_CACHE_MAX_SIZE);
+        System.clearProperty(PROP_STATE_DIR);
+    }
+    
+    @Test
+    public void testPutAndGet() throws Exception {
+        var contents = randomBytes(1, 1024);
+        var digest = digest(contents);
+        Assertions.assertNull(ToolArtifactCacheHelper.get(ALGORITHM, digest));
+        var artifact = write("artifact", contents);
+        var entry = ToolArtifactCacheHelper.put(ALGORITHM, digest, artifact);
+        Assertions.assertTrue(entry.startsWith(cacheDir));
+        Assertions.assertFalse(Files.exists(artifact));
+        Assertions.assertTrue(ToolArtifactCacheHelper.isCacheEntry(entry));
+        Assertions.assertEquals(entry, ToolArtifactCacheHelper.get(ALGORITHM, digest));
+        Assertions.assertEquals(entry, ToolArtifactCacheHelper.get(ALGORITHM, digest.toUpperCase()));
+        Assertions.assertArrayEquals(contents, Files.readAllBytes(entry));
+    }
+    
+    @Test
+    public void testGetRemovesCorruptedEntry() throws Exception {
+        var contents = randomBytes(2, 1024);
+        var digest = digest(contents);
+        var entry = ToolArtifactCacheHelper.put(ALGORITHM, digest, write("artifact", contents));
+        contents[0]++;
+        Files.write(entry, contents);
+        Assertions.assertNull(ToolArtifactCacheHelper.get(ALGORITHM, digest));
+        Assertions.assertFalse(Files.exists(entry));
+    }
+    
+    @Test
+    public void testGetRemovesEntryModifiedThroughInstalledFile() throws Exception {
+        var contents = randomBytes(3, 1024);
+        var digest = digest(contents);
+        var entry = ToolArtifactCacheHelper.put(ALGORITHM, digest, write("artifact", contents));
+        var target = tempDir.resolve("install/artifact");
+        Files.createDirectories(target.getParent());
+        ToolArtifactCacheHelper.install(entry, target);
+        Files.write(target, new byte[] {1, 2, 3});
+        // If install created a hard link, the modification is visible through the cache
+        // entry and must be detected; if install copied the artifact, the entry is still valid.
+        boolean isLinked = Files.isSameFile(entry, target);
+        Assertions.assertEquals(isLinked, ToolArtifactCacheHelper.get(ALGORITHM, digest)==null);
+        Assertions.assertEquals(isLinked, !Files.exists(entry));
+    }
+    
+    @Test
+    public void testInstall() throws Exception {
+        var contents = randomBytes(4, 1024);
+        var digest = digest(contents);
+        var entry = ToolArtifactCacheHelper.put(ALGORITHM, digest, write("artifact", contents));
+        var target = tempDir.resolve("install/artifact");
+        Files.createDirectories(target.getParent());
+        Files.write(target, new byte[] {1, 2, 3});
+        ToolArtifactCacheHelper.install(entry, target);
+        Assertions.assertArrayEquals(contents, Files.readAllBytes(target));
+        Assertions.assertFalse(ToolArtifactCacheHelper.isCacheEntry(target));
+        Assertions.assertEquals(entry, ToolArtifactCacheHelper.get(ALGORITHM, digest));
+    }
+    
+    @Test
+    public void testEvictLeastRecentlyUsed() throws Exception {
+        System.setProperty(PROP_CACHE_MAX_SIZE, "1");
+        var contents1 = randomBytes(5, 400*1024);
+        var contents2 = randomBytes(6, 400*1024);
+        var contents3 = randomBytes(7, 400*1024);
+        var entry1 = ToolArtifactCacheHelper.put(ALGORITHM, digest(contents1), write("artifact1", contents1));
+        var entry2 = ToolArtifactCacheHelper.put(ALGORITHM, digest(contents2), write("artifact2", contents2));
+        Files.setLastModifiedTime(entry1, FileTime.fromMillis(System.currentTimeMillis()-60000));
+        Files.setLastModifiedTime(entry2, FileTime.fromMillis(System.currentTimeMillis()-120000));
+        // Using entry2 should make entry1 the least recently used entry
+        Assertions.assertEquals(entry2, ToolArtifactCacheHelper.get(ALGORITHM, digest(contents2)));
+        var entry3 = ToolArtifactCacheHelper.put(ALGORITHM, digest(contents3), write("artifact3", contents3));
+        Assertions.assertFalse(Files.exists(entry1));
+        Assertions.assertTrue(Files.exists(entry2));
+        Assertions.assertTrue(Files.exists(entry3));
+    }
+    
+    @Test
+    public void testEvictIgnoresForeignFiles() throws Exception {
+        System.setProperty(PROP_CACHE_MAX_SIZE, "1");
+        Files.createDirectories(cacheDir);
+        var foreignContents = randomBytes(10, 800*1024);
+        var foreignFile = Files.write(cacheDir.resolve("report.pdf"), foreignContents);
+        var foreignDigestNamedFile = Files.write(cacheDir.resolve("sha256-"+digest(foreignContents)+".txt"), foreignContents);
+        Files.setLastModifiedTime(foreignFile, FileTime.fromMillis(System.currentTimeMillis()-120000));
+        Files.setLastModifiedTime(foreignDigestNamedFile, FileTime.fromMillis(System.currentTimeMillis()-120000));
+        var contents1 = randomBytes(11, 400*1024);
+        var contents2 = randomBytes(12, 400*1024);
+        var entry1 = ToolArtifactCacheHelper.put(ALGORITHM, digest(contents1), write("artifact1", contents1));
+        var entry2 = ToolArtifactCacheHelper.put(ALGORITHM, digest(contents2), write("artifact2", contents2));
+        // Foreign files are neither evicted nor counted towards the cache size
+        Assertions.assertArrayEquals(foreignContents, Files.readAllBytes(foreignFile));
+        Assertions.assertArrayEquals(foreignContents, Files.readAllBytes(foreignDigestNamedFile));
+        Assertions.assertTrue(Files.exists(entry1));
+        Assertions.assertTrue(Files.exists(entry2));
+        Assertions.assertFalse(ToolArtifactCacheHelper.isCacheEntry(foreignFile));
+        Assertions.assertFalse(ToolArtifactCacheHelper.isCacheEntry(foreignDigestNamedFile));
+    }
+    
+    @Test
+    public void testCacheDisabled() throws Exception {
+        System.setProperty(PROP_CACHE_MAX_SIZE, "0");
+        var contents = randomBytes(8, 1024);
+        var digest = digest(contents);
+        var artifact = write("artifact", contents);
+        Assertions.assertFalse(ToolArtifactCacheHelper.isEnabled());
+        Assertions.assertEquals(artifact, ToolArtifactCacheHelper.put(ALGORITHM, digest, artifact));
+        Assertions.assertTrue(Files.exists(artifact));
+        Assertions.assertFalse(ToolArtifactCacheHelper.isCacheEntry(artifact));
+        Assertions.assertNull(ToolArtifactCacheHelper.get(ALGORITHM, digest));
+    }
+    
+    @Test
+    public void testIsCacheEntryWithNonNormalizedStateDir() throws Exception {
+        System.clearProperty(PROP_CACHE_DIR);
+        System.setProperty(PROP_STATE_DIR, tempDir.resolve("sub/../state").toString());
+        var contents = randomBytes(9, 1024);
+        var entry = ToolArtifactCacheHelper.put(ALGORITHM, digest(contents), write("artifact", contents));
+        Assertions.assertTrue(ToolArtifactCacheHelper.isCacheEntry(entry));
+        Assertions.assertTrue(ToolArtifactCacheHelper.isCacheEntry(tempDir.resolve("sub/../state/tool-cache").resolve(entry.getFileName())));
+        Assertions.assertTrue(ToolArtifactCacheHelper.isCacheEntry(tempDir.resolve("state/tool-cache").resolve(entry.getFileName())));
+        Assertions.assertFalse(ToolArtifactCacheHelper.isCacheEntry(tempDir.resolve("state/other")));
+    }
+    
+    private Path write(String name, byte[] contents) throws IOException {
+        return Files.write(tempDir.resolve(name), contents);
+    }
+    
+    private static final byte[] randomBytes(long seed, int size) {
+        var result = new byte[size];
+        new Random(seed).nextBytes(result);
+        return result;
+    }
+    
+    private static final String digest(byte[] contents) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance(ALGORITHM).digest(contents));
+    }
+}
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright 2021, 2023 Open Text.
+ *
+ * The only warranties for products and services of Open Text 
+ * and its affiliates and licensors ("Open Text") are as may 
+ * be set forth in the express warranty statements accompanying 
+ * such products and services. Nothing herein should be construed 
+ * as constituting an additional warranty. Open Text shall not be 
+ * liable for technical or editorial errors or omissions contained 
+ * herein. The information contained herein is subject to change 
+ * without notice.
+ *******************************************************************************/
+package com.fortify.cli.tool._common.helper;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.fortify.cli.common.rest.unirest.GenericUnirestFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import kong.unirest.UnirestInstance;
+
+public class ToolDownloadHelperTest {
+    private static final String ALGORITHM = "SHA-256";
+    private static final String PROP_DATA_DIR = "fcli.env.FCLI_DATA_DIR";
+    private static final byte[] CONTENTS = createContents();
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+    private final List<String> rangeHeaders = new CopyOnWriteArrayList<>();
+    private final List<String> ifRangeHeaders = new CopyOnWriteArrayList<>();
+    private RangeMode rangeMode = RangeMode.SUPPORTED;
+    private ValidatorMode validatorMode = ValidatorMode.ETAG;
+    private int status = 200;
+    private int interruptFirstResponseAfter = -1;
+    @TempDir Path tempDir;
+    private HttpServer server;
+    private UnirestInstance unirest;
+    private String url;
+    
+    private static enum RangeMode { SUPPORTED, IGNORED, NOT_SATISFIABLE }
+    private static enum ValidatorMode { ETAG, WEAK_ETAG, LAST_MODIFIED, NONE }
+    
+    @BeforeEach
+    public void setup() throws IOException {
+        System.setProperty(PROP_DATA_DIR, tempDir.toString());
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/tool.zip", this::handle);
+        server.start();
+        unirest = GenericUnirestFactory.createUnirestInstance();
+        url = "http://localhost:"+server.getAddress().getPort()+"/tool.zip";
+    }
+    
+    @AfterEach
+    public void cleanup() {
+        unirest.close();
+        server.stop(0);
+        System.clearProperty(PROP_DATA_DIR);
+    }
+    
+    @Test
+    public void testDownload() throws Exception {
+        try ( var result = ToolDownloadHelper.download(unirest, url, ALGORITHM) ) {
+            assertResult(result);
+            Assertions.assertEquals(ToolDownloadHelper.getPartialDownloadPath(url), result.getFile());
+        }
+        Assertions.assertEquals(Arrays.asList((String)null), rangeHeaders);
+    }
+    
+    @Test
+    public void testResumeWithRangeRequest() throws Exception {
+        writePartialDownload(40000);
+        try ( var result = ToolDownloadHelper.download(unirest, url, ALGORITHM) ) {
+            assertResult(result);
+            Assertions.assertFalse(Files.exists(ToolDownloadHelper.getValidatorPath(result.getFile())));
+        }
+        Assertions.assertEquals(Arrays.asList("bytes=40000-"), rangeHeaders);
+        Assertions.assertEquals(Arrays.asList(ETAG), ifRangeHeaders);
+    }
+    
+    @Test
+    public void testRestartIfRemoteFileChanged() throws Exception {
+        writePartialDownload(40000, "\"v0\"");
+        try ( var result = ToolDownloadHelper.download(unirest, url, ALGORITHM) ) {
+            assertResult(result);
+        }
+        Assertions.assertEquals(Arrays.asList("bytes=40000-"), rangeHeaders);
+        Assertions.assertEquals(Arrays.asList("\"v0\""), ifRangeHeaders);
+    }
+    
+    @Test
+    public void testDiscardPartialDownloadWithoutValidator() throws Exception {
+        writePartialDownload(40000, null);
+        try ( var result = ToolDownloadHelper.download(unirest, url, ALGORITHM) ) {
+            assertResult(result);
+        }
+        Assertions.assertEquals(Arrays.asList((String)null), rangeHeaders);
+    }
+    
+    @ParameterizedTest
+    @EnumSource(names = {"ETAG", "LAST_MODIFIED"})
+    public void testResumeInterruptedDownload(ValidatorMode validatorMode) throws Exception {
+        this.validatorMode = validatorMode;
+        interruptFirstResponseAfter = 40000;
+        try ( var result = ToolDownloadHelper.download(unirest, url, ALGORITHM) ) {
+            assertResult(result);
+        }
+        Assertions.assertEquals(Arrays.asList(null, "bytes=40000-"), rangeHeaders);
+        Assertions.assertEquals(Arrays.asList(null, validatorMode==ValidatorMode.ETAG ? ETAG : LAST_MODIFIED), ifRangeHeaders);
+    }
+    
+    @ParameterizedTest
+    @EnumSource(names = {"WEAK_ETAG", "NONE"})
+    public void testRestartInterruptedDownloadWithoutValidator(ValidatorMode validatorMode) throws Exception {
+        this.validatorMode = validatorMode;
+        interruptFirstResponseAfter = 40000;
+        try ( var result = ToolDownloadHelper.download(unirest, url, ALGORITHM) ) {
+            assertResult(result);
+        }
+        Assertions.assertEquals(Arrays.asList(null, null), rangeHeaders);
+    }
+    
+    @Test
+    public void testRestartIfRangeIgnored() throws Exception {
+        rangeMode = RangeMode.IGNORED;
+        writePartialDownload(40000);
+        try ( var result = ToolDownloadHelper.download(unirest, url, ALGORITHM) ) {
+            assertResult(result);
+        }
+        Assertions.assertEquals(Arrays.asList("bytes=40000-"), rangeHeaders);
+    }
+    
+    @Test
+    public void testRestartIfRangeNotSatisfiable() throws Exception {
+        rangeMode = RangeMode.NOT_SATISFIABLE;
+        // Partial download larger than remote file, for example because the remote file was updated
+        var partialDownloadPath = ToolDownloadHelper.getPartialDownloadPath(url);
+        Files.createDirectories(partialDownloadPath.getParent());
+        Files.write(partialDownloadPath, createContents(CONTENTS.length+100, 2));
+        Files.writeString(ToolDownloadHelper.getValidatorPath(partialDownloadPath), ETAG);
+        try ( var result = ToolDownloadHelper.download(unirest, url, ALGORITHM) ) {
+            assertResult(result);
+        }
+        Assertions.assertEquals(Arrays.asList("bytes="+(CONTENTS.length+100)+"-", null), rangeHeaders);
+    }
+    
+    @Test
+    public void testUnexpectedStatus() throws Exception {
+        status = 404;
+        Assertions.assertThrows(IllegalStateException.class, ()->ToolDownloadHelper.download(unirest, url, ALGORITHM));
+        // No retries on unexpected HTTP status
+        Assertions.assertEquals(1, rangeHeaders.size());
+    }
+    
+    @Test
+    public void testLockedPartialDownload() throws Exception {
+        writePartialDownload(40000);
+        try ( var result1 = ToolDownloadHelper.download(unirest, url, ALGORITHM) ) {
+            // Partial download is locked by result1, so result2 must use a separate file
+            try ( var result2 = ToolDownloadHelper.download(unirest, url, ALGORITHM) ) {
+                Assertions.assertNotEquals(result1.getFile(), result2.getFile());
+                assertResult(result2);
+                Files.delete(result2.getFile());
+            }
+            assertResult(result1);
+            Files.delete(result1.getFile());
+        }
+        Assertions.assertEquals(Arrays.asList("bytes=40000-", null), rangeHeaders);
+        // Once released, the partial download can be locked again
+        try ( var result = ToolDownloadHelper.download(unirest, url, ALGORITHM) ) {
+            Assertions.assertEquals(ToolDownloadHelper.getPartialDownloadPath(url), result.getFile());
+        }
+    }
+    
+    private void assertResult(ToolDownloadHelper.ToolDownloadResult result) throws Exception {
+        Assertions.assertArrayEquals(CONTENTS, Files.readAllBytes(result.getFile()));
+        Assertions.assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance(ALGORITHM).digest(CONTENTS)), result.getDigest());
+    }
+    
+    private void writePartialDownload(int length) throws IOException {
+        writePartialDownload(length, ETAG);
+    }
+    
+    private void writePartialDownload(int length, String validator) throws IOException {
+        var partialDownloadPath = ToolDownloadHelper.getPartialDownloadPath(url);
+        Files.createDirectories(partialDownloadPath.getParent());
+        Files.write(partialDownloadPath, Arrays.copyOf(CONTENTS, length));
+        if ( validator!=null ) {
+            Files.writeString(ToolDownloadHelper.getValidatorPath(partialDownloadPath), validator);
+        }
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        rangeHeaders.add(range);
+        ifRangeHeaders.add(ifRange);
+        addValidatorHeaders(exchange);
+        if ( status!=200 ) {
+            exchange.sendResponseHeaders(status, -1);
+        } else if ( interruptFirstResponseAfter>=0 && rangeHeaders.size()==1 ) {
+            // Declare full content length, but close the connection after sending part of the contents
+            exchange.sendResponseHeaders(200, CONTENTS.length);
+            var out = exchange.getResponseBody();
+            out.write(CONTENTS, 0, interruptFirstResponseAfter);
+            out.flush();
+        } else if ( range==null || rangeMode==RangeMode.IGNORED || (ifRange!=null && !ifRange.equals(getValidator())) ) {
+            sendContents(exchange, 200, 0);
+        } else if ( rangeMode==RangeMode.NOT_SATISFIABLE ) {
+            exchange.getResponseHeaders().add("Content-Range", "bytes */"+CONTENTS.length);
+            exchange.sendResponseHeaders(416, -1);
+        } else {
+            int offset = Integer.parseInt(range.replaceAll("^bytes=(\\d+)-$", "$1"));
+            exchange.getResponseHeaders().add("Content-Range", "bytes "+offset+"-"+(CONTENTS.length-1)+"/"+CONTENTS.length);
+            sendContents(exchange, 206, offset);
+        }
+        exchange.close();
+    }
+    
+    private void addValidatorHeaders(HttpExchange exchange) {
+        switch ( validatorMode ) {
+        case ETAG: exchange.getResponseHeaders().add("ETag", ETAG); break;
+        case WEAK_ETAG: exchange.getResponseHeaders().add("ETag", "W/"+ETAG); break;
+        case LAST_MODIFIED: exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED); break;
+        case NONE: break;
+        }
+    }
+    
+    private String getValidator() {
+        switch ( validatorMode ) {
+        case ETAG: return ETAG;
+        case LAST_MODIFIED: return LAST_MODIFIED;
+        default: return null;
+        }
+    }
+    
+    private static final void sendContents(HttpExchange exchange, int status, int offset) throws IOException {
+        exchange.sendResponseHeaders(status, CONTENTS.length-offset);
+        try ( var out = exchange.getResponseBody() ) {
+            out.write(CONTENTS, offset, CONTENTS.length-offset);
+        }
+    }
+    
+    private static final byte[] createContents() {
+        return createContents(100000, 1);
+    }
+    
+    private static final byte[] createContents(int length, long seed) {
+        var result = new byte[length];
+        new Random(seed).nextBytes(result);
+        return result;
+    }
+}
@@ -0,0 +1,50 @@
+package com.fortify.cli.ftest.core;
+
+import com.fortify.cli.ftest._common.Fcli
+import com.fortify.cli.ftest._common.spec.FcliBaseSpec
+import com.fortify.cli.ftest._common.spec.Prefix
+
+/**
+ * fcli only loads the modules referenced by the command-line arguments, 
+ * using placeholders for all other modules. This spec verifies that commands
+ * behave the same independent of which modules are loaded. Startup time is 
+ * measured by the startupBenchmark task in this project's build.gradle.
+ */
+@Prefix("core.startup")
+class StartupSpec extends FcliBaseSpec {
+    private static final Set<String> ALL_MODULES = ["config", "fod", "sc-dast", "sc-sast", "ssc", "tool", "license", "util"] as Set
+    
+    def "module"(String args) {
+        when:
+            def result = Fcli.run(args)
+        then:
+            verifyAll(result) {
+                exitCode==0
+                stderr.empty
+            }
+        where:
+            args << [
+                "config proxy list",
+                "ssc session list",
+                "fod session list",
+                "sc-sast session list"
+            ]
+    }
+    
+    def "alias"() {
+        when:
+            def aliasResult = Fcli.run("cfg proxy list -o json")
+            def nameResult = Fcli.run("config proxy list -o json")
+        then:
+            aliasResult.stdout==nameResult.stdout
+    }
+    
+    def "all-commands"() {
+        when:
+            def result = Fcli.run("util all-commands list -o csv=module")
+        then:
+            verifyAll(result.stdout) {
+                (it.drop(1) as Set).containsAll(ALL_MODULES)
+            }
+    }
+}